@@ -1,16 +1,29 @@
 package com.pluralsight.NorthwindTradersSpringBoot;
 
 import com.pluralsight.NorthwindTradersSpringBoot.dao.IProductDao;
+import com.pluralsight.NorthwindTradersSpringBoot.dao.OptimisticLockException;
+import com.pluralsight.NorthwindTradersSpringBoot.dao.ProductDataAccessException;
+import com.pluralsight.NorthwindTradersSpringBoot.dao.ProductNotFoundException;
+import com.pluralsight.NorthwindTradersSpringBoot.importer.ImportResult;
+import com.pluralsight.NorthwindTradersSpringBoot.importer.ProductImporter;
 import com.pluralsight.NorthwindTradersSpringBoot.model.Product;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.boot.CommandLineRunner;
+import org.springframework.context.annotation.Profile;
 import org.springframework.stereotype.Component;
 
+import java.nio.file.Path;
 import java.util.List;
 import java.util.Scanner;
+import java.util.stream.Stream;
 
+// The interactive console menu. It only runs when the "console" profile is active
+// (--spring.profiles.active=console); otherwise the application just serves the REST API.
+// For a headless load test of the same DAO use the "workload" profile instead (see WorkloadRunner).
 @Component
+@Profile("console")
 public class NorthwindApplication implements CommandLineRunner {
 
     // ask spring to inject a IProductDao here
@@ -19,11 +32,23 @@ public class NorthwindApplication implements CommandLineRunner {
     @Qualifier("jdbcProductDao")
     private IProductDao productDao;
 
+    // Loads products from CSV or NDJSON files (menu option 6).
+    @Autowired
+    private ProductImporter productImporter;
+
+    // The shard URLs, if the products are sharded. The importer needs IProductDao.addAllOnce, which the sharded DAO
+    // doesn't support, so option 6 is only offered without shards.
+    @Value("${datasource.shards.urls:}")
+    private String shardUrls;
+
     @Override
     public void run(String... args) throws Exception {
         // Create a Scanner object so we can read user input from the console.
         Scanner scanner = new Scanner(System.in);
 
+        // Importing isn't possible when the products are sharded.
+        boolean importAvailable = shardUrls.isBlank();
+
         // Create a String object so we can store the menu options.
         String message = """
                 === Product Admin Menu ===
@@ -32,8 +57,8 @@ public class NorthwindApplication implements CommandLineRunner {
                 3) Delete A Product
                 4) Search For Product
                 5) Update A Product
-                0) Exit
-                Enter Your Selection:\s""";
+                %s0) Exit
+                Enter Your Selection:\s""".formatted(importAvailable ? "6) Import Products From A File\n" : "");
 
         // This is a "loop" that will keep showing the menu until the user chooses to exit.
         while (true) {
@@ -43,136 +68,178 @@ public class NorthwindApplication implements CommandLineRunner {
             // Read the user's choice as a String.
             String selection = scanner.nextLine();
 
-            // Use a "switch" to handle each possible choice.
-            switch (selection) {
-
-                case "1":
-                    // The user chose option 1 → List all products.
-
-                    // Call the DAO to get a list of all products.
-                    List<Product> products = productDao.getAll();
+            // If the database can't be reached, say so and show the menu again.
+            try {
+                // Use a "switch" to handle each possible choice.
+                switch (selection) {
 
-                    // Print the products to the screen.
-                    System.out.println("\nProducts:");
-                    products.forEach(System.out::println);
+                    case "1":
+                        // The user chose option 1 → List all products.
 
-                    break;
-
-                case "2":
-                    // The user chose option 2 → Add a new product.
-
-                    // Ask the user for the product's name.
-                    System.out.print("Enter product name: ");
-                    String productName = scanner.nextLine();
-
-
-                    // Ask the user for the product's category id.
-                    System.out.print("Enter the product category id: ");
-                    int categoryID = Integer.parseInt(scanner.nextLine());
+                        // Call the DAO to stream all products, so a huge table is never loaded into memory at once.
+                        // try-with-resources closes the stream (and its database connection) when we are done.
+                        System.out.println("\nProducts:");
+                        try (Stream<Product> products = productDao.streamAll()) {
+                            // Print the products to the screen.
+                            products.forEach(System.out::println);
+                        }
 
-                    // Ask the user for the product's unit price.
-                    System.out.print("Enter product unit price: ");
-                    double unitPrice = Double.parseDouble(scanner.nextLine());
+                        break;
 
+                    case "2":
+                        // The user chose option 2 → Add a new product.
 
-                    // Create a new Product object and set its data.
-                    Product product = new Product();
-                    product.setProductName(productName);
-                    product.setCategoryId(categoryID);
-                    product.setUnitPrice(unitPrice);
+                        // Ask the user for the product's name.
+                        System.out.print("Enter product name: ");
+                        String productName = scanner.nextLine();
 
-                    // Add the new product to the DAO (which stores it in memory).
-                    productDao.add(product);
 
-                    // Let the user know that the product was added.
-                    System.out.println("Product added successfully.");
+                        // Ask the user for the product's category id.
+                        System.out.print("Enter the product category id: ");
+                        int categoryID = Integer.parseInt(scanner.nextLine());
 
-                    break;
+                        // Ask the user for the product's unit price.
+                        System.out.print("Enter product unit price: ");
+                        double unitPrice = Double.parseDouble(scanner.nextLine());
 
-                case "3":
-                    // The user chose option 3 → Delete a product.
 
-                    // Ask the user for the product's id
-                    System.out.print("Enter the product id: ");
-                    int productId = Integer.parseInt(scanner.nextLine());
+                        // Create a new Product object and set its data.
+                        Product product = new Product();
+                        product.setProductName(productName);
+                        product.setCategoryId(categoryID);
+                        product.setUnitPrice(unitPrice);
 
-                    // Delete the product from DAO (which removes it from the DB).
-                    productDao.deleteByID(productId);
+                        // Add the new product to the DAO (which stores it in memory).
+                        productDao.add(product);
 
-                    // Let the user know that the product was deleted.
-                    System.out.println("Product deleted successfully.");
+                        // Let the user know that the product was added.
+                        System.out.println("Product added successfully.");
 
-                    break;
+                        break;
 
-                case "4":
-                    // The user chose option 4 → Search for a product.
+                    case "3":
+                        // The user chose option 3 → Delete a product.
 
-                    // Ask the user for the product's id
-                    System.out.print("Enter the product id: ");
-                    int searchProductId = Integer.parseInt(scanner.nextLine());
+                        // Ask the user for the product's id
+                        System.out.print("Enter the product id: ");
+                        int productId = Integer.parseInt(scanner.nextLine());
 
-                    // Call the DAO to get a list of matching products
-                    List<Product> searchProducts = productDao.findById(searchProductId);
+                        // Delete the product from DAO (which removes it from the DB).
+                        productDao.deleteByID(productId);
 
-                    if (searchProducts.isEmpty()) {
-                        System.out.println("\nProducts: ");
-                        System.out.println("No results.");
-                    } else {
-                        // Print the products to the screen.
-                        System.out.println("\nProducts:");
-                        searchProducts.forEach(System.out::println);
-                    }
+                        // Let the user know that the product was deleted.
+                        System.out.println("Product deleted successfully.");
 
-                    break;
+                        break;
 
-                case "5":
-                    // The user chose option 5 → Update a product.
+                    case "4":
+                        // The user chose option 4 → Search for a product.
 
-                    // Ask the user for the product's id.
-                    System.out.print("Enter product id: ");
-                    int updateProductId = Integer.parseInt(scanner.nextLine());
+                        // Ask the user for the product's id
+                        System.out.print("Enter the product id: ");
+                        int searchProductId = Integer.parseInt(scanner.nextLine());
 
-                    // Ask the user for the product's name.
-                    System.out.print("Enter product name: ");
-                    String updateProductName = scanner.nextLine();
+                        // Call the DAO to get a list of matching products
+                        List<Product> searchProducts = productDao.findById(searchProductId);
 
-                    // Ask the user for the product's category id.
-                    System.out.print("Enter the product category id: ");
-                    int updateCategoryID = Integer.parseInt(scanner.nextLine());
+                        if (searchProducts.isEmpty()) {
+                            System.out.println("\nProducts: ");
+                            System.out.println("No results.");
+                        } else {
+                            // Print the products to the screen.
+                            System.out.println("\nProducts:");
+                            searchProducts.forEach(System.out::println);
+                        }
 
-                    // Ask the user for the product's unit price.
-                    System.out.print("Enter product unit price: ");
-                    double updateUnitPrice = Double.parseDouble(scanner.nextLine());
+                        break;
 
-                    // Create a new Product object and set its data.
-                    Product updateProduct = new Product();
-                    updateProduct.setProductId(updateProductId);
-                    updateProduct.setProductName(updateProductName);
-                    updateProduct.setCategoryId(updateCategoryID);
-                    updateProduct.setUnitPrice(updateUnitPrice);
+                    case "5":
+                        // The user chose option 5 → Update a product.
 
-                    // Update the product
-                    productDao.update(updateProduct);
+                        // Ask the user for the product's id.
+                        System.out.print("Enter product id: ");
+                        int updateProductId = Integer.parseInt(scanner.nextLine());
 
-                    // Let the user know that the product was updated.
-                    System.out.println("Product updated successfully.");
+                        // Ask the user for the product's name.
+                        System.out.print("Enter product name: ");
+                        String updateProductName = scanner.nextLine();
 
-                    break;
+                        // Ask the user for the product's category id.
+                        System.out.print("Enter the product category id: ");
+                        int updateCategoryID = Integer.parseInt(scanner.nextLine());
 
-                case "0":
-                    // The user chose option 0 → Exit the program.
+                        // Ask the user for the product's unit price.
+                        System.out.print("Enter product unit price: ");
+                        double updateUnitPrice = Double.parseDouble(scanner.nextLine());
 
-                    // Print a goodbye message.
-                    System.out.println("Goodbye!");
+                        // Read the product as it is now, so the update can check nobody changed it in the meantime.
+                        List<Product> currentProducts = productDao.findById(updateProductId);
+                        if (currentProducts.isEmpty()) {
+                            System.out.println("No product with id " + updateProductId + ".");
+                            break;
+                        }
 
-                    // End the program with a success status (0).
-                    System.exit(0);
+                        // Change the product's data (it keeps the version it was read with).
+                        Product updateProduct = currentProducts.get(0);
+                        updateProduct.setProductName(updateProductName);
+                        updateProduct.setCategoryId(updateCategoryID);
+                        updateProduct.setUnitPrice(updateUnitPrice);
 
-                default:
-                    // The user entered something that is not a valid option.
-                    // Tell the user the input was invalid and show the menu again.
-                    System.out.println("Invalid choice. Please try again.");
-                    break;
+                        // Update the product, unless someone else updated it first.
+                        try {
+                            productDao.update(updateProduct);
+                            System.out.println("Product updated successfully.");
+                        } catch (OptimisticLockException e) {
+                            System.out.println("The product was changed by someone else. Please try again.");
+                        } catch (ProductNotFoundException e) {
+                            System.out.println("The product was deleted by someone else.");
+                        }
+
+                        break;
+
+                    case "6":
+                        // The user chose option 6 → Import products from a CSV or NDJSON file.
+
+                        // It isn't on the menu when the products are sharded.
+                        if (!importAvailable) {
+                            System.out.println("Importing isn't available when the products are sharded.");
+                            break;
+                        }
+
+                        // Ask the user for the file to import.
+                        System.out.print("Enter the file path (.csv or .ndjson): ");
+                        Path importFile = Path.of(scanner.nextLine().trim());
+
+                        // Import the file, printing progress after every chunk.
+                        // If the import was interrupted earlier, it carries on from where it stopped.
+                        ImportResult result = productImporter.importFile(importFile, System.out::println);
+
+                        // Let the user know how it went.
+                        System.out.println((result.resumed() ? "Import resumed and finished: " : "Import finished: ")
+                                + result.rowsImported() + " products imported, " + result.rowsRejected() + " rejected.");
+                        if (result.rowsRejected() > 0) {
+                            System.out.println("Rejected lines are listed in " + importFile + ".rejects.csv");
+                        }
+
+                        break;
+
+                    case "0":
+                        // The user chose option 0 → Exit the program.
+
+                        // Print a goodbye message.
+                        System.out.println("Goodbye!");
+
+                        // End the program with a success status (0).
+                        System.exit(0);
+
+                    default:
+                        // The user entered something that is not a valid option.
+                        // Tell the user the input was invalid and show the menu again.
+                        System.out.println("Invalid choice. Please try again.");
+                        break;
+                }
+            } catch (ProductDataAccessException e) {
+                System.out.println("ERROR: " + e.getMessage());
             }
         }
     }
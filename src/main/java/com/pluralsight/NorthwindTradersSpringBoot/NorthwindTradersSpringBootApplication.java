@@ -1,9 +1,15 @@
 package com.pluralsight.NorthwindTradersSpringBoot;
 
+import com.pluralsight.NorthwindTradersSpringBoot.config.NorthwindRuntimeHints;
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
+import org.springframework.context.annotation.ImportRuntimeHints;
 
+// Start with --spring.profiles.active=fast-startup (see application-fast-startup.properties) to create beans and the
+// connection pool on first use. For the quickest cold start also build with mvn -Paot,cds package and run the
+// extracted jar with its CDS archive; see the cds profile in pom.xml.
 @SpringBootApplication
+@ImportRuntimeHints(NorthwindRuntimeHints.class)
 public class NorthwindTradersSpringBootApplication {
 
 	public static void main(String[] args) {
@@ -12,15 +18,20 @@ public class NorthwindTradersSpringBootApplication {
         String username = System.getenv("username");
         String password = System.getenv("password");
 
+        // The AOT build step (mvn -Paot) also calls main, only to look at the bean definitions, and doesn't need them.
+        boolean aotProcessing = Boolean.getBoolean("spring.aot.processing");
+
         // Make sure the username and password were provided for the db.
-        if (username.isEmpty() || password.isEmpty()) {
+        if (!aotProcessing && (username == null || username.isEmpty() || password == null || password.isEmpty())) {
             System.out.println("Env: File not configured correctly");
             System.exit(1);
         }
 
         // Set system properties with the username and password so Spring can read them later.
-        System.setProperty("dbUsername", System.getenv("username"));
-        System.setProperty("dbPassword", System.getenv("password"));
+        if (!aotProcessing) {
+            System.setProperty("dbUsername", username);
+            System.setProperty("dbPassword", password);
+        }
 
         SpringApplication.run(NorthwindTradersSpringBootApplication.class, args);
 	}
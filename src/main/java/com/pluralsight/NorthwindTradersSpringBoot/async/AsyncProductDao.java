@@ -0,0 +1,159 @@
+package com.pluralsight.NorthwindTradersSpringBoot.async;
+
+import com.pluralsight.NorthwindTradersSpringBoot.dao.IProductDao;
+import com.pluralsight.NorthwindTradersSpringBoot.model.Product;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.lang.reflect.Method;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Flow;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+// A non-blocking front for the product DAO: every method returns at once with a CompletableFuture, and the
+// blocking JDBC call runs on a dedicated executor instead of the caller's thread (a request thread, say).
+//
+// The executor uses virtual threads when the JVM has them (Java 21+), found by reflection so this still runs on
+// Java 17, where it falls back to a fixed pool of platform threads. Either way at most max-concurrency calls run at
+// once, which should match the connection pool size: more would only queue inside the pool. Calls over the limit
+// wait in a queue (see PermitGate), not on an executor thread, so the fixed pool can't fill up with waiting calls.
+//
+// Note that ReadRoutingContext's caller and read-your-writes window are per thread, so they don't follow a caller
+// onto this executor.
+@Component
+public class AsyncProductDao implements AutoCloseable {
+
+    private final IProductDao productDao;
+    private final ExecutorService executor;
+    private final boolean virtualThreads;
+    private final PermitGate gate;
+
+    public AsyncProductDao(@Qualifier("jdbcProductDao") IProductDao productDao,
+                           @Value("${async-dao.max-concurrency:${datasource.pool.max-total:20}}") int maxConcurrency) {
+        this.productDao = productDao;
+
+        ExecutorService virtual = newVirtualThreadExecutor();
+        this.virtualThreads = virtual != null;
+        this.executor = virtual != null ? virtual : newPlatformThreadExecutor(maxConcurrency);
+        this.gate = new PermitGate(executor, maxConcurrency);
+    }
+
+    public CompletableFuture<List<Product>> getAll() {
+        return supply(productDao::getAll);
+    }
+
+    public CompletableFuture<List<Product>> getPage(int afterProductId, int pageSize) {
+        return supply(() -> productDao.getPage(afterProductId, pageSize));
+    }
+
+    public CompletableFuture<List<Product>> findById(int productId) {
+        return supply(() -> productDao.findById(productId));
+    }
+
+    // Looks up many ids at once: one findById per id, all running concurrently (up to max-concurrency).
+    // The result is in the order of the ids, without the ids that don't exist.
+    public CompletableFuture<List<Product>> findByIds(int... productIds) {
+        List<CompletableFuture<List<Product>>> lookups = new ArrayList<>(productIds.length);
+        for (int productId : productIds) {
+            lookups.add(findById(productId));
+        }
+
+        return CompletableFuture.allOf(lookups.toArray(CompletableFuture<?>[]::new))
+                .thenApply(done -> {
+                    List<Product> products = new ArrayList<>(lookups.size());
+                    for (CompletableFuture<List<Product>> lookup : lookups) {
+                        products.addAll(lookup.join());
+                    }
+                    return products;
+                });
+    }
+
+    public CompletableFuture<List<Product>> findByCategory(int categoryId) {
+        return supply(() -> productDao.findByCategory(categoryId));
+    }
+
+    public CompletableFuture<List<Product>> findByPriceRange(double minPrice, double maxPrice) {
+        return supply(() -> productDao.findByPriceRange(minPrice, maxPrice));
+    }
+
+    public CompletableFuture<List<Product>> findByNamePrefix(String prefix) {
+        return supply(() -> productDao.findByNamePrefix(prefix));
+    }
+
+    // Completes with the product, which now has its new ProductID.
+    public CompletableFuture<Product> add(Product product) {
+        return supply(() -> {
+            productDao.add(product);
+            return product;
+        });
+    }
+
+    public CompletableFuture<Product> update(Product product) {
+        return supply(() -> {
+            productDao.update(product);
+            return product;
+        });
+    }
+
+    public CompletableFuture<Void> deleteByID(int productId) {
+        return supply(() -> {
+            productDao.deleteByID(productId);
+            return null;
+        });
+    }
+
+    // Every product, ordered by ProductID, as a Flow.Publisher that only reads as many rows as the subscriber has
+    // requested. The rows come from one streamAll() cursor, which holds a connection (and one of the
+    // max-concurrency permits) until the subscriber has had every product, cancels, or an error ends it.
+    public Flow.Publisher<Product> publishAll() {
+        return new ProductPublisher(productDao, executor, gate);
+    }
+
+    // True if calls run on virtual threads (Java 21+), false if on the platform thread fallback.
+    public boolean usesVirtualThreads() {
+        return virtualThreads;
+    }
+
+    @Override
+    public void close() {
+        executor.shutdownNow();
+    }
+
+    // Runs a DAO call on the executor, once a permit is free.
+    private <T> CompletableFuture<T> supply(Supplier<T> call) {
+        CompletableFuture<T> future = new CompletableFuture<>();
+        gate.execute(() -> {
+            try {
+                future.complete(call.get());
+            } catch (Throwable e) {
+                future.completeExceptionally(e);
+            }
+        });
+        return future;
+    }
+
+    // Executors.newVirtualThreadPerTaskExecutor() if this JVM has it, otherwise null.
+    private static ExecutorService newVirtualThreadExecutor() {
+        try {
+            Method factory = Executors.class.getMethod("newVirtualThreadPerTaskExecutor");
+            return (ExecutorService) factory.invoke(null);
+        } catch (ReflectiveOperationException e) {
+            return null;
+        }
+    }
+
+    private static ExecutorService newPlatformThreadExecutor(int threads) {
+        AtomicInteger threadNumber = new AtomicInteger();
+        return Executors.newFixedThreadPool(threads, runnable -> {
+            Thread thread = new Thread(runnable, "async-product-dao-" + threadNumber.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+}
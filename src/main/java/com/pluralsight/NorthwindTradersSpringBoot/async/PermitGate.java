@@ -0,0 +1,63 @@
+package com.pluralsight.NorthwindTradersSpringBoot.async;
+
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Semaphore;
+
+// Hands tasks to an executor only once a permit is free, so at most `permits` tasks hold one at a time.
+// A task that finds no permit waits in a queue, not on an executor thread: with a fixed pool of threads, threads
+// blocked waiting for a permit could leave no thread free for the work that would give a permit back.
+final class PermitGate {
+
+    private final Executor executor;
+    private final Semaphore permits;
+    private final Queue<Runnable> waiting = new ConcurrentLinkedQueue<>();
+
+    PermitGate(Executor executor, int permits) {
+        this.executor = executor;
+        this.permits = new Semaphore(permits);
+    }
+
+    // Runs task once a permit is free and gives the permit back when it finishes.
+    void execute(Runnable task) {
+        executeHolding(() -> {
+            try {
+                task.run();
+            } finally {
+                release();
+            }
+        });
+    }
+
+    // Runs task once a permit is free. The task keeps the permit until something calls release().
+    void executeHolding(Runnable task) {
+        waiting.add(task);
+        dispatch();
+    }
+
+    void release() {
+        permits.release();
+        dispatch();
+    }
+
+    // Starts waiting tasks while there are permits for them. Whoever frees a permit calls this again, so a task
+    // queued just as a permit was released is still picked up.
+    private void dispatch() {
+        while (!waiting.isEmpty() && permits.tryAcquire()) {
+            Runnable task = waiting.poll();
+            if (task == null) {
+                // Another thread took it first.
+                permits.release();
+                continue;
+            }
+            try {
+                executor.execute(task);
+            } catch (RuntimeException e) {
+                // The executor is shut down.
+                permits.release();
+                throw e;
+            }
+        }
+    }
+}
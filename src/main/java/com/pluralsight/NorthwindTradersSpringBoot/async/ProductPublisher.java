@@ -0,0 +1,162 @@
+package com.pluralsight.NorthwindTradersSpringBoot.async;
+
+import com.pluralsight.NorthwindTradersSpringBoot.dao.IProductDao;
+import com.pluralsight.NorthwindTradersSpringBoot.model.Product;
+
+import java.util.Iterator;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Flow;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Stream;
+
+// Publishes IProductDao.streamAll() with backpressure: rows are only read from the cursor when the subscriber has
+// asked for them (Subscription.request(n)). Between requests nothing runs; the cursor just stays open.
+// Every subscriber gets its own cursor, opened on the first request. The cursor holds one of the gate's permits
+// while it is open, but no thread waits for demand or for a permit: the first drain only reaches the executor once
+// the gate has a permit for it.
+final class ProductPublisher implements Flow.Publisher<Product> {
+
+    private final IProductDao productDao;
+    private final Executor executor;
+    private final PermitGate gate;
+
+    ProductPublisher(IProductDao productDao, Executor executor, PermitGate gate) {
+        this.productDao = productDao;
+        this.executor = executor;
+        this.gate = gate;
+    }
+
+    @Override
+    public void subscribe(Flow.Subscriber<? super Product> subscriber) {
+        ProductSubscription subscription = new ProductSubscription(subscriber);
+        subscriber.onSubscribe(subscription);
+    }
+
+    private final class ProductSubscription implements Flow.Subscription {
+
+        private final Flow.Subscriber<? super Product> subscriber;
+
+        // Products requested but not yet delivered.
+        private final AtomicLong requested = new AtomicLong();
+
+        // Makes sure only one drain runs at a time; counts requests that arrived while one was running.
+        private final AtomicInteger drainsPending = new AtomicInteger();
+
+        private volatile boolean cancelled;
+
+        // Set by an invalid request(n); reported to the subscriber by the next drain.
+        private volatile Throwable invalidRequest;
+
+        // Set by the first drain, which is only started once it has a permit; close() gives the permit back.
+        private volatile boolean holdsPermit;
+
+        // Only touched inside drain(), which never runs on two threads at once.
+        private Stream<Product> products;
+        private Iterator<Product> iterator;
+        private boolean done;
+
+        ProductSubscription(Flow.Subscriber<? super Product> subscriber) {
+            this.subscriber = subscriber;
+        }
+
+        @Override
+        public void request(long n) {
+            if (n <= 0) {
+                invalidRequest = new IllegalArgumentException("request(n) needs n > 0 but was " + n);
+                scheduleDrain();
+                return;
+            }
+            // Add to the demand, stopping at Long.MAX_VALUE ("unbounded").
+            requested.getAndUpdate(current -> current + n < 0 ? Long.MAX_VALUE : current + n);
+            scheduleDrain();
+        }
+
+        @Override
+        public void cancel() {
+            cancelled = true;
+            scheduleDrain();
+        }
+
+        private void scheduleDrain() {
+            if (drainsPending.getAndIncrement() == 0) {
+                // Only the first drain needs a permit; later ones run for a subscription that already has one.
+                if (holdsPermit) {
+                    executor.execute(this::drain);
+                } else {
+                    gate.executeHolding(this::drain);
+                }
+            }
+        }
+
+        // Delivers as many products as have been requested, then returns (freeing the thread) until the next request.
+        private void drain() {
+            holdsPermit = true;
+            int pending = 1;
+            do {
+                if (done) {
+                    return;
+                }
+                if (invalidRequest != null) {
+                    fail(invalidRequest);
+                    return;
+                }
+                if (cancelled) {
+                    close();
+                    return;
+                }
+
+                try {
+                    if (iterator == null) {
+                        products = productDao.streamAll();
+                        iterator = products.iterator();
+                    }
+
+                    long demand = requested.get();
+                    long delivered = 0;
+                    while (delivered < demand && !cancelled && iterator.hasNext()) {
+                        subscriber.onNext(iterator.next());
+                        delivered++;
+                    }
+                    if (delivered > 0 && demand != Long.MAX_VALUE) {
+                        requested.addAndGet(-delivered);
+                    }
+
+                    if (!cancelled && !iterator.hasNext()) {
+                        close();
+                        subscriber.onComplete();
+                        return;
+                    }
+                } catch (RuntimeException e) {
+                    fail(e);
+                    return;
+                }
+
+                pending = drainsPending.addAndGet(-pending);
+            } while (pending != 0);
+        }
+
+        private void fail(Throwable error) {
+            if (done) {
+                return;
+            }
+            close();
+            subscriber.onError(error);
+        }
+
+        // Closes the cursor (releasing its connection and permit). Nothing is delivered after this.
+        private void close() {
+            if (done) {
+                return;
+            }
+            done = true;
+            try {
+                if (products != null) {
+                    products.close();
+                }
+            } finally {
+                gate.release();
+            }
+        }
+    }
+}
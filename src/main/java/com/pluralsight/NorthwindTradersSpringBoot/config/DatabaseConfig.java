@@ -1,41 +1,107 @@
 package com.pluralsight.NorthwindTradersSpringBoot.config;
 
-import org.apache.commons.dbcp2.BasicDataSource;
+import com.pluralsight.NorthwindTradersSpringBoot.dao.QueryTimeouts;
+import com.pluralsight.NorthwindTradersSpringBoot.datasource.ConnectionPool;
+import com.pluralsight.NorthwindTradersSpringBoot.datasource.ConnectionPools;
+import com.pluralsight.NorthwindTradersSpringBoot.datasource.InstrumentedDataSource;
+import com.pluralsight.NorthwindTradersSpringBoot.datasource.LazyConnectionPool;
+import com.pluralsight.NorthwindTradersSpringBoot.datasource.RoutingDataSource;
+import org.springframework.beans.BeanUtils;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 
 import javax.sql.DataSource;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
 
 // This is a Configuration class — Spring Boot will detect it and run it at startup.
 // It defines a Bean for our DataSource — the object used to connect to the database.
 
 @Configuration
+@EnableConfigurationProperties({PoolProperties.class, ReplicaProperties.class, ShardProperties.class, QueryTimeouts.class})
 public class DatabaseConfig {
 
-    // We will build the BasicDataSource and store it here.
-    private final BasicDataSource basicDataSource;
+    // We will build the connection pool and store it here.
+    private final ConnectionPool connectionPool;
+
+    // The DataSource the DAOs use: the pool, wrapped so we can time how long borrowing a connection takes.
+    private final InstrumentedDataSource primaryDataSource;
+
+    // The DataSource handed to the rest of the application: the primary alone, or a RoutingDataSource that sends
+    // read-only calls to the replicas when datasource.replicas.urls is set.
+    private final DataSource dataSource;
+
+    // The pools of the shard databases when datasource.shards.urls is set (see ShardedProductDao).
+    private final ProductShards productShards;
 
     // This method defines the DataSource bean.
     // Spring will call this and register the DataSource in the ApplicationContext.
     @Bean
     public DataSource dataSource() {
-        return basicDataSource;
+        return dataSource;
+    }
+
+    // The pool itself, so its live state can be reported. Spring calls close() on it at shutdown.
+    @Bean
+    public ConnectionPool connectionPool() {
+        return connectionPool;
+    }
+
+    // The shard pools (empty when not sharded). Spring calls close() on them at shutdown.
+    @Bean
+    public ProductShards productShards() {
+        return productShards;
     }
 
-    // Constructor — Spring will call this and inject the datasource.url property here.
+    // Constructor — Spring will call this and inject the datasource.url property and the datasource.pool.* settings here.
     // We will also manually read username/password from System properties — as you wanted — just like Workbook 8 style.
-    public DatabaseConfig(@Value("${datasource.url}") String url) {
+    public DatabaseConfig(@Value("${datasource.url}") String url, PoolProperties poolProperties,
+                          ReplicaProperties replicaProperties, ShardProperties shardProperties) {
 
         // Read username and password from system properties — these were passed as command-line args.
         String username = System.getProperty("dbUsername");
         String password = System.getProperty("dbPassword");
 
-        // Build the BasicDataSource.
-        basicDataSource = new BasicDataSource();
-        basicDataSource.setUrl(url);
-        basicDataSource.setUsername(username);
-        basicDataSource.setPassword(password);
+        // Build the pool picked by datasource.pool.type (dbcp2 or hikari) — now, or on first use if lazy-init is on.
+        connectionPool = poolProperties.isLazyInit()
+                ? new LazyConnectionPool(poolProperties.getType(), poolProperties.getMaxTotal(),
+                        () -> ConnectionPools.create(url, username, password, poolProperties))
+                : ConnectionPools.create(url, username, password, poolProperties);
+        primaryDataSource = new InstrumentedDataSource(connectionPool.getDataSource());
+
+        // Each shard gets its own pool with the same settings, named like the replicas' pools.
+        List<ConnectionPool> shardPools = new ArrayList<>();
+        for (int i = 0; i < shardProperties.getUrls().size(); i++) {
+            PoolProperties shardPoolProperties = new PoolProperties();
+            BeanUtils.copyProperties(poolProperties, shardPoolProperties);
+            shardPoolProperties.setName(poolProperties.getName() + "-shard-" + (i + 1));
+            shardPools.add(ConnectionPools.create(shardProperties.getUrls().get(i), username, password, shardPoolProperties));
+        }
+        productShards = new ProductShards(shardPools);
+
+        if (replicaProperties.getUrls().isEmpty()) {
+            dataSource = primaryDataSource;
+            return;
+        }
+
+        // Each replica gets its own pool with the same settings, under its own name so the JMX names don't clash.
+        List<RoutingDataSource.Replica> replicas = new ArrayList<>();
+        for (int i = 0; i < replicaProperties.getUrls().size(); i++) {
+            PoolProperties replicaPoolProperties = new PoolProperties();
+            BeanUtils.copyProperties(poolProperties, replicaPoolProperties);
+            replicaPoolProperties.setName(poolProperties.getName() + "-replica-" + (i + 1));
+
+            replicas.add(RoutingDataSource.Replica.of(replicaPoolProperties.getName(),
+                    ConnectionPools.create(replicaProperties.getUrls().get(i), username, password, replicaPoolProperties)));
+        }
+
+        dataSource = new RoutingDataSource(primaryDataSource, replicas,
+                RoutingDataSource.Selection.parse(replicaProperties.getSelection()),
+                Duration.ofMillis(replicaProperties.getHealthCheckIntervalMillis()),
+                Duration.ofMillis(replicaProperties.getReadYourWritesMillis()));
 
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,72 @@
+package com.pluralsight.NorthwindTradersSpringBoot.config;
+
+import com.pluralsight.NorthwindTradersSpringBoot.datasource.ConnectionPool;
+import com.pluralsight.NorthwindTradersSpringBoot.datasource.InstrumentedDataSource;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import javax.sql.DataSource;
+import java.sql.SQLException;
+import java.util.concurrent.TimeUnit;
+
+// This Configuration class publishes the connection pool's numbers as Micrometer meters,
+// so they show up on /actuator/prometheus next to the product DAO timings.
+
+@Configuration
+public class MetricsConfig {
+
+    @Bean
+    public MeterBinder connectionPoolMetrics(ConnectionPool connectionPool, DataSource dataSource) {
+        return registry -> {
+            String pool = connectionPool.getImplementation();
+
+            Gauge.builder("datasource.pool.active", connectionPool, ConnectionPool::getActiveConnections)
+                    .description("Connections currently borrowed")
+                    .tag("pool", pool)
+                    .register(registry);
+            Gauge.builder("datasource.pool.idle", connectionPool, ConnectionPool::getIdleConnections)
+                    .description("Connections ready to be borrowed")
+                    .tag("pool", pool)
+                    .register(registry);
+            Gauge.builder("datasource.pool.waiting", connectionPool, ConnectionPool::getWaitingThreads)
+                    .description("Threads waiting for a connection")
+                    .tag("pool", pool)
+                    .register(registry);
+            Gauge.builder("datasource.pool.max", connectionPool, ConnectionPool::getMaxConnections)
+                    .description("The most connections the pool will open")
+                    .tag("pool", pool)
+                    .register(registry);
+
+            // Feed every getConnection() time into a timer, so the borrow wait can be seen as percentiles too.
+            InstrumentedDataSource instrumented = unwrapInstrumented(dataSource);
+            if (instrumented != null) {
+                Timer acquire = Timer.builder("datasource.connection.acquire")
+                        .description("Time spent waiting to borrow a connection")
+                        .tag("pool", pool)
+                        .publishPercentiles(0.5, 0.95, 0.99)
+                        .register(registry);
+                instrumented.setBorrowListener(nanos -> acquire.record(nanos, TimeUnit.NANOSECONDS));
+
+                FunctionCounter.builder("datasource.connection.acquire.failures", instrumented,
+                                InstrumentedDataSource::getBorrowFailures)
+                        .description("Times borrowing a connection failed")
+                        .tag("pool", pool)
+                        .register(registry);
+            }
+        };
+    }
+
+    private static InstrumentedDataSource unwrapInstrumented(DataSource dataSource) {
+        try {
+            return dataSource.isWrapperFor(InstrumentedDataSource.class)
+                    ? dataSource.unwrap(InstrumentedDataSource.class)
+                    : null;
+        } catch (SQLException e) {
+            return null;
+        }
+    }
+}
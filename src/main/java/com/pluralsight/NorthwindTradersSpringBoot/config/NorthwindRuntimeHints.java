@@ -0,0 +1,34 @@
+package com.pluralsight.NorthwindTradersSpringBoot.config;
+
+import org.springframework.aot.hint.ExecutableMode;
+import org.springframework.aot.hint.MemberCategory;
+import org.springframework.aot.hint.RuntimeHints;
+import org.springframework.aot.hint.RuntimeHintsRegistrar;
+import org.springframework.aot.hint.TypeReference;
+
+import java.util.List;
+import java.util.concurrent.Executors;
+
+// Tells a GraalVM native image (mvn -Pnative native:compile) about what this application reaches by reflection or
+// by name, which the AOT step can't work out from the code alone. A JVM ignores these hints.
+public class NorthwindRuntimeHints implements RuntimeHintsRegistrar {
+
+    @Override
+    public void registerHints(RuntimeHints hints, ClassLoader classLoader) {
+
+        // AsyncProductDao and WorkloadDriver look Executors.newVirtualThreadPerTaskExecutor up by reflection, so they still
+        // run on Java 17.
+        hints.reflection().registerType(Executors.class, type ->
+                type.withMethod("newVirtualThreadPerTaskExecutor", List.of(), ExecutableMode.INVOKE));
+
+        // The JDBC driver is found by the pools through DriverManager, and Commons Pool creates its eviction policy
+        // from a class name.
+        hints.reflection().registerType(TypeReference.of("com.mysql.cj.jdbc.Driver"),
+                MemberCategory.INVOKE_PUBLIC_CONSTRUCTORS);
+        hints.reflection().registerType(TypeReference.of("org.apache.commons.pool2.impl.DefaultEvictionPolicy"),
+                MemberCategory.INVOKE_PUBLIC_CONSTRUCTORS);
+
+        // The schema scripts shipped in the jar.
+        hints.resources().registerPattern("db/*.sql");
+    }
+}
@@ -0,0 +1,182 @@
+package com.pluralsight.NorthwindTradersSpringBoot.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+// Holds the connection pool settings from application.properties (every key starts with "datasource.pool.").
+// The same keys are used whichever pool implementation is picked with datasource.pool.type.
+@ConfigurationProperties(prefix = "datasource.pool")
+public class PoolProperties {
+
+    // Which pool to use: "dbcp2" (Apache Commons DBCP2) or "hikari" (HikariCP).
+    private String type = "dbcp2";
+
+    // A name for the pool, used for its JMX registration and log messages.
+    private String name = "northwind";
+
+    // Pool sizes.
+    private int minIdle = 5;
+    private int maxIdle = 10;
+    private int maxTotal = 20;
+
+    // How long a caller may wait for a free connection before getting an error.
+    private long maxWaitMillis = 5000;
+
+    // Prepared statement caching (per connection).
+    private boolean poolPreparedStatements = true;
+    private int maxOpenPreparedStatements = 250;
+
+    // Connection validation.
+    private String validationQuery = "SELECT 1";
+    private int validationTimeoutSeconds = 3;
+    private boolean testOnBorrow = true;
+    private boolean testWhileIdle = true;
+
+    // Idle connection eviction.
+    private long timeBetweenEvictionRunsMillis = 30000;
+    private long minEvictableIdleTimeMillis = 600000;
+
+    // Register the pool's own MBean so its state can be watched over JMX.
+    private boolean jmxEnabled = true;
+
+    // Fast startup: build the pool on first use instead of at startup (see LazyConnectionPool), and open
+    // min-idle connections on a background thread once the application is ready.
+    private boolean lazyInit = false;
+    private boolean warmUp = false;
+
+    // GETTER AND SETTERS
+    public String getType() {
+        return type;
+    }
+
+    public void setType(String type) {
+        this.type = type;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public void setName(String name) {
+        this.name = name;
+    }
+
+    public int getMinIdle() {
+        return minIdle;
+    }
+
+    public void setMinIdle(int minIdle) {
+        this.minIdle = minIdle;
+    }
+
+    public int getMaxIdle() {
+        return maxIdle;
+    }
+
+    public void setMaxIdle(int maxIdle) {
+        this.maxIdle = maxIdle;
+    }
+
+    public int getMaxTotal() {
+        return maxTotal;
+    }
+
+    public void setMaxTotal(int maxTotal) {
+        this.maxTotal = maxTotal;
+    }
+
+    public long getMaxWaitMillis() {
+        return maxWaitMillis;
+    }
+
+    public void setMaxWaitMillis(long maxWaitMillis) {
+        this.maxWaitMillis = maxWaitMillis;
+    }
+
+    public boolean isPoolPreparedStatements() {
+        return poolPreparedStatements;
+    }
+
+    public void setPoolPreparedStatements(boolean poolPreparedStatements) {
+        this.poolPreparedStatements = poolPreparedStatements;
+    }
+
+    public int getMaxOpenPreparedStatements() {
+        return maxOpenPreparedStatements;
+    }
+
+    public void setMaxOpenPreparedStatements(int maxOpenPreparedStatements) {
+        this.maxOpenPreparedStatements = maxOpenPreparedStatements;
+    }
+
+    public String getValidationQuery() {
+        return validationQuery;
+    }
+
+    public void setValidationQuery(String validationQuery) {
+        this.validationQuery = validationQuery;
+    }
+
+    public int getValidationTimeoutSeconds() {
+        return validationTimeoutSeconds;
+    }
+
+    public void setValidationTimeoutSeconds(int validationTimeoutSeconds) {
+        this.validationTimeoutSeconds = validationTimeoutSeconds;
+    }
+
+    public boolean isTestOnBorrow() {
+        return testOnBorrow;
+    }
+
+    public void setTestOnBorrow(boolean testOnBorrow) {
+        this.testOnBorrow = testOnBorrow;
+    }
+
+    public boolean isTestWhileIdle() {
+        return testWhileIdle;
+    }
+
+    public void setTestWhileIdle(boolean testWhileIdle) {
+        this.testWhileIdle = testWhileIdle;
+    }
+
+    public long getTimeBetweenEvictionRunsMillis() {
+        return timeBetweenEvictionRunsMillis;
+    }
+
+    public void setTimeBetweenEvictionRunsMillis(long timeBetweenEvictionRunsMillis) {
+        this.timeBetweenEvictionRunsMillis = timeBetweenEvictionRunsMillis;
+    }
+
+    public long getMinEvictableIdleTimeMillis() {
+        return minEvictableIdleTimeMillis;
+    }
+
+    public void setMinEvictableIdleTimeMillis(long minEvictableIdleTimeMillis) {
+        this.minEvictableIdleTimeMillis = minEvictableIdleTimeMillis;
+    }
+
+    public boolean isJmxEnabled() {
+        return jmxEnabled;
+    }
+
+    public void setJmxEnabled(boolean jmxEnabled) {
+        this.jmxEnabled = jmxEnabled;
+    }
+
+    public boolean isLazyInit() {
+        return lazyInit;
+    }
+
+    public void setLazyInit(boolean lazyInit) {
+        this.lazyInit = lazyInit;
+    }
+
+    public boolean isWarmUp() {
+        return warmUp;
+    }
+
+    public void setWarmUp(boolean warmUp) {
+        this.warmUp = warmUp;
+    }
+}
@@ -0,0 +1,162 @@
+package com.pluralsight.NorthwindTradersSpringBoot.config;
+
+import com.pluralsight.NorthwindTradersSpringBoot.dao.CachingProductDao;
+import com.pluralsight.NorthwindTradersSpringBoot.dao.CoalescingProductDao;
+import com.pluralsight.NorthwindTradersSpringBoot.dao.HiLoIdGenerator;
+import com.pluralsight.NorthwindTradersSpringBoot.dao.IProductDao;
+import com.pluralsight.NorthwindTradersSpringBoot.dao.IndexedProductDao;
+import com.pluralsight.NorthwindTradersSpringBoot.dao.JdbcProductDao;
+import com.pluralsight.NorthwindTradersSpringBoot.dao.MeteredProductDao;
+import com.pluralsight.NorthwindTradersSpringBoot.dao.ReadRoutingProductDao;
+import com.pluralsight.NorthwindTradersSpringBoot.dao.QueryTimeouts;
+import com.pluralsight.NorthwindTradersSpringBoot.dao.ResilientProductDao;
+import com.pluralsight.NorthwindTradersSpringBoot.dao.SearchIndexingProductDao;
+import com.pluralsight.NorthwindTradersSpringBoot.dao.ShardedProductDao;
+import com.pluralsight.NorthwindTradersSpringBoot.dao.WriteBehindProductDao;
+import com.pluralsight.NorthwindTradersSpringBoot.resilience.CircuitBreaker;
+import com.pluralsight.NorthwindTradersSpringBoot.search.ProductNameSearch;
+import com.pluralsight.NorthwindTradersSpringBoot.snapshot.ProductSnapshotHolder;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+import org.springframework.core.env.Environment;
+
+import javax.sql.DataSource;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+
+// This Configuration class builds the IProductDao that the rest of the application uses.
+// It starts from the JDBC DAO (or the sharded DAO, when datasource.shards.urls is set) and wraps it in extra layers (like the cache) depending on application.properties.
+// The layers are applied from the inside out: JDBC -> metrics -> retries and circuit breaker -> in-memory query
+// indexes -> name search updates -> write-behind queue -> lookup coalescing -> cache -> read/replica routing.
+
+@Configuration
+public class ProductDaoConfig {
+
+    // The DAO that talks to the database with no layers in front of it: the JDBC DAO, or a ShardedProductDao over one
+    // JDBC DAO per shard. The snapshot and the name search index load straight from it.
+    @Bean("productDaoTarget")
+    public IProductDao productDaoTarget(JdbcProductDao jdbcProductDao, ProductShards productShards, DataSource dataSource,
+                                        QueryTimeouts queryTimeouts, ShardProperties shardProperties, Environment env) {
+        if (productShards.isEmpty()) {
+            return jdbcProductDao;
+        }
+
+        // ShardedProductDao can't serve a change log, and the cache and the snapshot would poll it, so refuse to
+        // start rather than fail on every poll.
+        if (env.getProperty("product-changes.enabled", Boolean.class, false)) {
+            throw new IllegalStateException("product-changes.enabled=true isn't supported with datasource.shards.urls; "
+                    + "turn the change log off or remove the shards");
+        }
+
+        // The shards keep no change log of their own (ShardedProductDao can't serve one), so it is always off here.
+        List<JdbcProductDao> shards = new ArrayList<>();
+        for (DataSource shardDataSource : productShards.dataSources()) {
+            shards.add(new JdbcProductDao(shardDataSource,
+                    env.getProperty("datasource.fetch-size", Integer.class, 1000),
+                    env.getProperty("datasource.batch-size", Integer.class, 500),
+                    false, queryTimeouts));
+        }
+
+        // ProductIDs come from blocks reserved in ProductIdBlocks on the main database (db/product-shards.sql).
+        return new ShardedProductDao(shards, new HiLoIdGenerator(dataSource, shardProperties.getIdBlockSize()),
+                shardProperties.getScatterThreads());
+    }
+
+    // The bean is named "jdbcProductDao" so existing @Qualifier("jdbcProductDao") injection points get the
+    // configured DAO without having to change.
+    @Bean("jdbcProductDao")
+    @Primary
+    public IProductDao productDao(@Qualifier("productDaoTarget") IProductDao productDaoTarget,
+                                  ProductSnapshotHolder snapshotHolder, ProductNameSearch nameSearch,
+                                  MeterRegistry meterRegistry, Environment env) {
+
+        IProductDao productDao = productDaoTarget;
+
+        // Time every call that reaches the database and log the slow ones. It sits right on top of JDBC so the
+        // numbers are database work only, not cache hits.
+        if (env.getProperty("product-metrics.enabled", Boolean.class, true)) {
+            productDao = new MeteredProductDao(productDao, meterRegistry,
+                    Duration.ofMillis(env.getProperty("product-metrics.slow-query-millis", Long.class, 500L)));
+        }
+
+        // Retry reads that hit a transient database error, and stop calling the database for a while when too many
+        // calls fail. It sits above the metrics so every attempt is timed, and below everything else so background
+        // work (index refreshes, write-behind flushes, cache polling) is protected too.
+        if (env.getProperty("product-resilience.enabled", Boolean.class, true)) {
+            CircuitBreaker circuitBreaker = new CircuitBreaker(
+                    env.getProperty("product-resilience.circuit.window", Integer.class, 50),
+                    env.getProperty("product-resilience.circuit.minimum-calls", Integer.class, 20),
+                    env.getProperty("product-resilience.circuit.failure-rate-percent", Integer.class, 50),
+                    Duration.ofMillis(env.getProperty("product-resilience.circuit.open-millis", Long.class, 5000L)),
+                    env.getProperty("product-resilience.circuit.half-open-probes", Integer.class, 3));
+            productDao = new ResilientProductDao(productDao, circuitBreaker,
+                    env.getProperty("product-resilience.max-attempts", Integer.class, 3),
+                    Duration.ofMillis(env.getProperty("product-resilience.first-backoff-millis", Long.class, 20L)),
+                    Duration.ofMillis(env.getProperty("product-resilience.max-backoff-millis", Long.class, 500L)),
+                    meterRegistry);
+        }
+
+        // Answer the category/price/name queries from in-memory indexes if they are turned on.
+        if (env.getProperty("product-index.enabled", Boolean.class, false)) {
+            productDao = new IndexedProductDao(productDao, snapshotHolder,
+                    Duration.ofSeconds(env.getProperty("product-index.refresh-seconds", Long.class, 60L)));
+        }
+
+        // Keep the /products/search index up to date with every write. It sits under the write-behind queue so it
+        // only hears about writes once they have really reached the database (and have their generated ids).
+        if (env.getProperty("product-search.enabled", Boolean.class, true)) {
+            productDao = new SearchIndexingProductDao(productDao, nameSearch);
+        }
+
+        // Buffer updates and deletes and write them to the database in the background if it is turned on.
+        if (env.getProperty("write-behind.enabled", Boolean.class, false)) {
+            WriteBehindProductDao writeBehindProductDao = new WriteBehindProductDao(productDao,
+                    Path.of(env.getProperty("write-behind.journal-dir", "write-behind-journal")),
+                    env.getProperty("write-behind.fsync", Boolean.class, true),
+                    env.getProperty("write-behind.capacity", Integer.class, 100_000),
+                    Duration.ofMillis(env.getProperty("write-behind.offer-timeout-millis", Long.class, 1000L)),
+                    Duration.ofMillis(env.getProperty("write-behind.flush-interval-millis", Long.class, 200L)));
+            writeBehindProductDao.registerMeters(meterRegistry);
+            productDao = writeBehindProductDao;
+        }
+
+        // Merge concurrent findById calls into batched findByIds queries if it is turned on.
+        // It sits under the cache, so only cache misses wait for a batch.
+        if (env.getProperty("product-coalescing.enabled", Boolean.class, false)) {
+            CoalescingProductDao coalescingProductDao = new CoalescingProductDao(productDao,
+                    Duration.ofNanos(1000 * env.getProperty("product-coalescing.window-micros", Long.class, 500L)),
+                    env.getProperty("product-coalescing.max-batch", Integer.class, 100),
+                    env.getProperty("product-coalescing.batch-threads", Integer.class, 4));
+            coalescingProductDao.registerMeters(meterRegistry);
+            productDao = coalescingProductDao;
+        }
+
+        // Put a read-through cache in front of the database if it is turned on.
+        if (env.getProperty("product-cache.enabled", Boolean.class, false)) {
+            CachingProductDao cachingProductDao = new CachingProductDao(productDao,
+                    env.getProperty("product-cache.maximum-size", Long.class, 10_000L),
+                    Duration.ofSeconds(env.getProperty("product-cache.ttl-seconds", Long.class, 300L)));
+
+            // With the change log on, also drop cached products that were changed by someone else.
+            if (env.getProperty("product-changes.enabled", Boolean.class, false)) {
+                cachingProductDao.startChangePolling(
+                        Duration.ofMillis(env.getProperty("product-changes.poll-interval-millis", Long.class, 1000L)));
+            }
+            cachingProductDao.registerMeters(meterRegistry);
+            productDao = cachingProductDao;
+        }
+
+        // Mark reads so they can go to a replica, and remember each caller's writes for read-your-writes.
+        // This is the outermost layer so a write is recorded on the caller's thread, even with write-behind.
+        if (!env.getProperty("datasource.replicas.urls", "").isBlank()) {
+            productDao = new ReadRoutingProductDao(productDao);
+        }
+
+        return productDao;
+    }
+}
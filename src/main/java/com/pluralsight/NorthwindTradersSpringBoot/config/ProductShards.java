@@ -0,0 +1,24 @@
+package com.pluralsight.NorthwindTradersSpringBoot.config;
+
+import com.pluralsight.NorthwindTradersSpringBoot.datasource.ConnectionPool;
+
+import javax.sql.DataSource;
+import java.util.List;
+
+// The connection pools of the shard databases (datasource.shards.urls), in shard order. Empty when not sharded.
+// Spring calls close() at shutdown, which closes every pool.
+public record ProductShards(List<ConnectionPool> pools) implements AutoCloseable {
+
+    public boolean isEmpty() {
+        return pools.isEmpty();
+    }
+
+    public List<DataSource> dataSources() {
+        return pools.stream().map(ConnectionPool::getDataSource).toList();
+    }
+
+    @Override
+    public void close() {
+        pools.forEach(ConnectionPool::close);
+    }
+}
@@ -0,0 +1,57 @@
+package com.pluralsight.NorthwindTradersSpringBoot.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.util.ArrayList;
+import java.util.List;
+
+// Holds the read replica settings from application.properties (every key starts with "datasource.replicas.").
+// With no replica URLs every query goes to datasource.url, as before.
+@ConfigurationProperties(prefix = "datasource.replicas")
+public class ReplicaProperties {
+
+    // JDBC URLs of the read replicas. Each one gets its own pool, sized like the primary's.
+    private List<String> urls = new ArrayList<>();
+
+    // How a replica is picked for each read: "round-robin" or "least-connections".
+    private String selection = "round-robin";
+
+    // How often each replica is checked; an unhealthy replica is skipped until it passes again.
+    private long healthCheckIntervalMillis = 5000;
+
+    // After a caller writes, its reads go to the primary for this long so it sees its own changes.
+    private long readYourWritesMillis = 2000;
+
+    // GETTER AND SETTERS
+    public List<String> getUrls() {
+        return urls;
+    }
+
+    public void setUrls(List<String> urls) {
+        this.urls = urls;
+    }
+
+    public String getSelection() {
+        return selection;
+    }
+
+    public void setSelection(String selection) {
+        this.selection = selection;
+    }
+
+    public long getHealthCheckIntervalMillis() {
+        return healthCheckIntervalMillis;
+    }
+
+    public void setHealthCheckIntervalMillis(long healthCheckIntervalMillis) {
+        this.healthCheckIntervalMillis = healthCheckIntervalMillis;
+    }
+
+    public long getReadYourWritesMillis() {
+        return readYourWritesMillis;
+    }
+
+    public void setReadYourWritesMillis(long readYourWritesMillis) {
+        this.readYourWritesMillis = readYourWritesMillis;
+    }
+}
@@ -0,0 +1,46 @@
+package com.pluralsight.NorthwindTradersSpringBoot.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.util.ArrayList;
+import java.util.List;
+
+// Holds the sharding settings from application.properties (every key starts with "datasource.shards.").
+// With no shard URLs the Products table lives in datasource.url, as before.
+@ConfigurationProperties(prefix = "datasource.shards")
+public class ShardProperties {
+
+    // JDBC URLs of the shard databases. Each one gets its own pool, sized like the primary's.
+    private List<String> urls = new ArrayList<>();
+
+    // How many ProductIDs each application instance reserves at a time from ProductIdBlocks on datasource.url.
+    private int idBlockSize = 1000;
+
+    // How many shard queries can run at once for calls that go to every shard.
+    private int scatterThreads = 16;
+
+    // GETTER AND SETTERS
+    public List<String> getUrls() {
+        return urls;
+    }
+
+    public void setUrls(List<String> urls) {
+        this.urls = urls;
+    }
+
+    public int getIdBlockSize() {
+        return idBlockSize;
+    }
+
+    public void setIdBlockSize(int idBlockSize) {
+        this.idBlockSize = idBlockSize;
+    }
+
+    public int getScatterThreads() {
+        return scatterThreads;
+    }
+
+    public void setScatterThreads(int scatterThreads) {
+        this.scatterThreads = scatterThreads;
+    }
+}
@@ -0,0 +1,28 @@
+package com.pluralsight.NorthwindTradersSpringBoot.controller;
+
+import com.pluralsight.NorthwindTradersSpringBoot.datasource.ConnectionPool;
+import com.pluralsight.NorthwindTradersSpringBoot.datasource.InstrumentedDataSource;
+import com.pluralsight.NorthwindTradersSpringBoot.datasource.PoolMetrics;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+import javax.sql.DataSource;
+import java.sql.SQLException;
+
+// Reports the live state of the connection pool at GET /pool/metrics.
+@RestController
+public class PoolMetricsController {
+
+    private final ConnectionPool connectionPool;
+    private final InstrumentedDataSource dataSource;
+
+    public PoolMetricsController(ConnectionPool connectionPool, DataSource dataSource) throws SQLException {
+        this.connectionPool = connectionPool;
+        this.dataSource = dataSource.unwrap(InstrumentedDataSource.class);
+    }
+
+    @GetMapping("/pool/metrics")
+    public PoolMetrics getPoolMetrics() {
+        return PoolMetrics.of(connectionPool, dataSource);
+    }
+}
@@ -0,0 +1,124 @@
+package com.pluralsight.NorthwindTradersSpringBoot.controller;
+
+import com.pluralsight.NorthwindTradersSpringBoot.dao.IProductDao;
+import com.pluralsight.NorthwindTradersSpringBoot.dao.OptimisticLockException;
+import com.pluralsight.NorthwindTradersSpringBoot.dao.ProductDataAccessException;
+import com.pluralsight.NorthwindTradersSpringBoot.dao.ProductNotFoundException;
+import com.pluralsight.NorthwindTradersSpringBoot.model.Product;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.net.URI;
+import java.util.List;
+
+// A REST API for products at /products.
+// Every request blocks on JDBC, so application.properties turns on virtual threads for request handling
+// (spring.threads.virtual.enabled): a blocked request then parks a cheap virtual thread instead of a Tomcat worker.
+// That needs a Java 21+ runtime; on Java 17 the setting is ignored and Tomcat's platform pool is used.
+@RestController
+@RequestMapping("/products")
+public class ProductController {
+
+    // The largest page a caller may ask for.
+    private static final int MAX_PAGE_SIZE = 1000;
+
+    private final IProductDao productDao;
+
+    public ProductController(@Qualifier("jdbcProductDao") IProductDao productDao) {
+        this.productDao = productDao;
+    }
+
+    // GET /products?after=0&size=100 — one page of products ordered by id (keyset pagination).
+    @GetMapping
+    public ProductPage getPage(@RequestParam(defaultValue = "0") int after,
+                               @RequestParam(defaultValue = "100") int size) {
+
+        int pageSize = Math.max(1, Math.min(size, MAX_PAGE_SIZE));
+        List<Product> products = productDao.getPage(after, pageSize);
+
+        // If the page is full there may be more products after it.
+        Integer nextAfter = products.size() < pageSize ? null : products.get(products.size() - 1).getProductId();
+        return new ProductPage(products, nextAfter);
+    }
+
+    // GET /products/{id} — a single product, or 404.
+    @GetMapping("/{id}")
+    public ResponseEntity<Product> getById(@PathVariable int id) {
+        List<Product> products = productDao.findById(id);
+        return products.isEmpty() ? ResponseEntity.notFound().build() : ResponseEntity.ok(products.get(0));
+    }
+
+    // POST /products — add a product; the response has its new id.
+    @PostMapping
+    public ResponseEntity<Product> create(@RequestBody Product product) {
+        productDao.add(product);
+        return ResponseEntity.created(URI.create("/products/" + product.getProductId())).body(product);
+    }
+
+    // PUT /products/{id} — replace a product's name, category and price.
+    // Send the version from the GET to have the update refused (409) if someone else changed the product since;
+    // without a version the product is overwritten. A product that doesn't exist is 404.
+    @PutMapping("/{id}")
+    public Product update(@PathVariable int id, @RequestBody Product product) {
+        product.setProductId(id);
+        productDao.update(product);
+        return product;
+    }
+
+    // DELETE /products/{id}
+    @DeleteMapping("/{id}")
+    @ResponseStatus(HttpStatus.NO_CONTENT)
+    public void delete(@PathVariable int id) {
+        productDao.deleteByID(id);
+    }
+
+    // POST /products/bulk — add many products in JDBC batches; returns their new ids in order.
+    @PostMapping("/bulk")
+    @ResponseStatus(HttpStatus.CREATED)
+    public int[] createAll(@RequestBody List<Product> products) {
+        return productDao.addAll(products);
+    }
+
+    // PUT /products/bulk — update many products in JDBC batches.
+    @PutMapping("/bulk")
+    @ResponseStatus(HttpStatus.NO_CONTENT)
+    public void updateAll(@RequestBody List<Product> products) {
+        productDao.updateAll(products);
+    }
+
+    // DELETE /products?ids=1,2,3 — delete many products in JDBC batches.
+    @DeleteMapping
+    @ResponseStatus(HttpStatus.NO_CONTENT)
+    public void deleteAll(@RequestParam int[] ids) {
+        productDao.deleteByIds(ids);
+    }
+
+    // A PUT whose version is out of date: 409 Conflict, with the reason as the body.
+    @ExceptionHandler(OptimisticLockException.class)
+    @ResponseStatus(HttpStatus.CONFLICT)
+    public String conflict(OptimisticLockException e) {
+        return e.getMessage();
+    }
+
+    // A PUT for a product that doesn't exist (or was deleted): 404 Not Found, with the reason as the body.
+    @ExceptionHandler(ProductNotFoundException.class)
+    @ResponseStatus(HttpStatus.NOT_FOUND)
+    public String notFound(ProductNotFoundException e) {
+        return e.getMessage();
+    }
+
+    // The database call failed: 503 Service Unavailable (with a Retry-After hint) if trying again later may work,
+    // otherwise 500. The body is the reason.
+    @ExceptionHandler(ProductDataAccessException.class)
+    public ResponseEntity<String> databaseError(ProductDataAccessException e) {
+        if (e.isTransient()) {
+            return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                    .header(HttpHeaders.RETRY_AFTER, "5")
+                    .body(e.getMessage());
+        }
+        return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body(e.getMessage());
+    }
+}
@@ -0,0 +1,47 @@
+package com.pluralsight.NorthwindTradersSpringBoot.controller;
+
+import com.pluralsight.NorthwindTradersSpringBoot.export.ExportFormat;
+import com.pluralsight.NorthwindTradersSpringBoot.export.ProductExporter;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+// Downloads the whole product catalog at /products/export.
+// The body is written while the rows are read, with no Content-Length, so it goes out with chunked transfer
+// encoding and the server never holds more than one buffer of it.
+@RestController
+@RequestMapping("/products/export")
+public class ProductExportController {
+
+    private final ProductExporter exporter;
+
+    public ProductExportController(ProductExporter exporter) {
+        this.exporter = exporter;
+    }
+
+    // GET /products/export?format=csv|ndjson|binary&gzip=true
+    @GetMapping
+    public ResponseEntity<StreamingResponseBody> export(@RequestParam(defaultValue = "csv") String format,
+                                                        @RequestParam(defaultValue = "false") boolean gzip) {
+        ExportFormat exportFormat;
+        try {
+            exportFormat = ExportFormat.parse(format);
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().build();
+        }
+
+        String fileName = "products." + exportFormat.getFileExtension() + (gzip ? ".gz" : "");
+        MediaType contentType = MediaType.parseMediaType(gzip ? "application/gzip" : exportFormat.getContentType());
+
+        StreamingResponseBody body = out -> exporter.export(exportFormat, out, gzip);
+        return ResponseEntity.ok()
+                .contentType(contentType)
+                .header(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=\"" + fileName + "\"")
+                .body(body);
+    }
+}
@@ -0,0 +1,38 @@
+package com.pluralsight.NorthwindTradersSpringBoot.controller;
+
+import com.pluralsight.NorthwindTradersSpringBoot.async.AsyncProductDao;
+import com.pluralsight.NorthwindTradersSpringBoot.model.Product;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
+// GET /products/lookup?ids=1,2,3 — many products by id in one request.
+// The lookups run concurrently on AsyncProductDao's executor, and returning a CompletableFuture lets Spring MVC
+// release the request thread until they are done.
+@RestController
+@RequestMapping("/products/lookup")
+public class ProductLookupController {
+
+    // The most ids one request may ask for.
+    private static final int MAX_IDS = 1000;
+
+    private final AsyncProductDao asyncProductDao;
+
+    public ProductLookupController(AsyncProductDao asyncProductDao) {
+        this.asyncProductDao = asyncProductDao;
+    }
+
+    // The products that exist, in the order of the ids. Too many ids is a 400.
+    @GetMapping
+    public CompletableFuture<ResponseEntity<List<Product>>> lookup(@RequestParam int[] ids) {
+        if (ids.length > MAX_IDS) {
+            return CompletableFuture.completedFuture(ResponseEntity.badRequest().build());
+        }
+        return asyncProductDao.findByIds(ids).thenApply(ResponseEntity::ok);
+    }
+}
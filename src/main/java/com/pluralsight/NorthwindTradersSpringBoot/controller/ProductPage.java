@@ -0,0 +1,10 @@
+package com.pluralsight.NorthwindTradersSpringBoot.controller;
+
+import com.pluralsight.NorthwindTradersSpringBoot.model.Product;
+
+import java.util.List;
+
+// One page of products returned by GET /products.
+// nextAfter is the value to pass as ?after= to get the next page, or null when this was the last page.
+public record ProductPage(List<Product> products, Integer nextAfter) {
+}
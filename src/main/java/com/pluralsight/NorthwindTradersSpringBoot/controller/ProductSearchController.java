@@ -0,0 +1,53 @@
+package com.pluralsight.NorthwindTradersSpringBoot.controller;
+
+import com.pluralsight.NorthwindTradersSpringBoot.dao.ProductDataAccessException;
+import com.pluralsight.NorthwindTradersSpringBoot.search.ProductNameSearch;
+import com.pluralsight.NorthwindTradersSpringBoot.search.ProductSearchHit;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.ExceptionHandler;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.util.List;
+
+// GET /products/search?q=chocolate&limit=10 — products whose names match the query, best first.
+// Matching ignores case, accents and word order and tolerates typos ("choclate" still finds "Chocolade").
+// Each hit has the ProductID, the name and a score between 0 and 1; use /products/{id} for the full product.
+@RestController
+@RequestMapping("/products/search")
+public class ProductSearchController {
+
+    // The most hits one request may ask for.
+    private static final int MAX_LIMIT = 100;
+
+    private final ProductNameSearch nameSearch;
+
+    public ProductSearchController(ProductNameSearch nameSearch) {
+        this.nameSearch = nameSearch;
+    }
+
+    // A blank query or a limit outside 1 .. 100 is a 400.
+    @GetMapping
+    public ResponseEntity<List<ProductSearchHit>> search(@RequestParam String q,
+                                                         @RequestParam(defaultValue = "10") int limit) {
+        if (q.isBlank() || limit < 1 || limit > MAX_LIMIT) {
+            return ResponseEntity.badRequest().build();
+        }
+        return ResponseEntity.ok(nameSearch.search(q, limit));
+    }
+
+    // Loading the index hit the database: 503 with a Retry-After hint if trying again later may work, otherwise 500.
+    @ExceptionHandler(ProductDataAccessException.class)
+    public ResponseEntity<String> databaseError(ProductDataAccessException e) {
+        if (e.isTransient()) {
+            return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                    .header(HttpHeaders.RETRY_AFTER, "5")
+                    .body(e.getMessage());
+        }
+        return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body(e.getMessage());
+    }
+}
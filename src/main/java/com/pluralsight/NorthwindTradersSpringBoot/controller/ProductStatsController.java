@@ -0,0 +1,54 @@
+package com.pluralsight.NorthwindTradersSpringBoot.controller;
+
+import com.pluralsight.NorthwindTradersSpringBoot.dao.JdbcProductStatsDao;
+import com.pluralsight.NorthwindTradersSpringBoot.dao.ProductDataAccessException;
+import com.pluralsight.NorthwindTradersSpringBoot.model.CategoryStats;
+import com.pluralsight.NorthwindTradersSpringBoot.snapshot.SnapshotProductStatsDao;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.ExceptionHandler;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.util.List;
+
+// GET /products/stats — count, min, max, average and percentile prices for every category.
+// ?source=database (the default) has the database compute them; ?source=snapshot computes them from the in-memory
+// snapshot instead, which doesn't touch the database but is only as fresh as the last snapshot refresh.
+@RestController
+@RequestMapping("/products/stats")
+public class ProductStatsController {
+
+    private final JdbcProductStatsDao databaseStats;
+    private final SnapshotProductStatsDao snapshotStats;
+
+    public ProductStatsController(JdbcProductStatsDao databaseStats, SnapshotProductStatsDao snapshotStats) {
+        this.databaseStats = databaseStats;
+        this.snapshotStats = snapshotStats;
+    }
+
+    // An unknown source is a 400.
+    @GetMapping
+    public ResponseEntity<List<CategoryStats>> getCategoryStats(
+            @RequestParam(defaultValue = "database") String source) {
+        return switch (source) {
+            case "database" -> ResponseEntity.ok(databaseStats.getCategoryStats());
+            case "snapshot" -> ResponseEntity.ok(snapshotStats.getCategoryStats());
+            default -> ResponseEntity.badRequest().build();
+        };
+    }
+
+    // Same as ProductController: 503 with a Retry-After hint if trying again later may work, otherwise 500.
+    @ExceptionHandler(ProductDataAccessException.class)
+    public ResponseEntity<String> databaseError(ProductDataAccessException e) {
+        if (e.isTransient()) {
+            return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                    .header(HttpHeaders.RETRY_AFTER, "5")
+                    .body(e.getMessage());
+        }
+        return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body(e.getMessage());
+    }
+}
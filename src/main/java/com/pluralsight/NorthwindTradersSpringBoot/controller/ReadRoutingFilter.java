@@ -0,0 +1,61 @@
+package com.pluralsight.NorthwindTradersSpringBoot.controller;
+
+import com.pluralsight.NorthwindTradersSpringBoot.config.ReplicaProperties;
+import com.pluralsight.NorthwindTradersSpringBoot.datasource.ReadRoutingContext;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+// Scopes ReadRoutingContext to one web request, so a request thread never carries the read-your-writes window of
+// the request it served before.
+// A client that wants to read its own writes from later requests (a POST, then a GET) sends the same
+// X-Caller-Id header with each of them; its writes are then remembered for that id. Requests without the header
+// only read their own writes within the same request.
+@Component
+public class ReadRoutingFilter extends OncePerRequestFilter {
+
+    public static final String CALLER_HEADER = "X-Caller-Id";
+
+    // Caller ids longer than this are ignored, so a client can't fill the memory with huge keys.
+    private static final int MAX_CALLER_ID_LENGTH = 64;
+
+    private final long windowNanos;
+    private final AtomicLong lastCleanup = new AtomicLong(System.nanoTime());
+
+    public ReadRoutingFilter(ReplicaProperties replicaProperties) {
+        this.windowNanos = TimeUnit.MILLISECONDS.toNanos(replicaProperties.getReadYourWritesMillis());
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain chain)
+            throws ServletException, IOException {
+        ReadRoutingContext.clear();
+        String callerId = request.getHeader(CALLER_HEADER);
+        if (callerId != null && !callerId.isBlank() && callerId.length() <= MAX_CALLER_ID_LENGTH) {
+            ReadRoutingContext.setCaller(callerId);
+        }
+
+        try {
+            chain.doFilter(request, response);
+        } finally {
+            ReadRoutingContext.clear();
+            cleanUpNowAndThen();
+        }
+    }
+
+    // Drops callers whose window has passed, at most once per window.
+    private void cleanUpNowAndThen() {
+        long now = System.nanoTime();
+        long last = lastCleanup.get();
+        if (now - last >= windowNanos && lastCleanup.compareAndSet(last, now)) {
+            ReadRoutingContext.forgetWritesOlderThan(windowNanos);
+        }
+    }
+}
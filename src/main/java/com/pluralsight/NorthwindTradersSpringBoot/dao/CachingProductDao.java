@@ -0,0 +1,253 @@
+package com.pluralsight.NorthwindTradersSpringBoot.dao;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.stats.CacheStats;
+import com.pluralsight.NorthwindTradersSpringBoot.model.Product;
+import com.pluralsight.NorthwindTradersSpringBoot.model.ProductChangeSet;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+// A read-through cache in front of another IProductDao.
+// findById is answered from memory when possible; every write through this DAO invalidates the products it touched.
+// With change polling on, writes made elsewhere (another instance, a script) are invalidated from the change log too.
+public class CachingProductDao extends ForwardingProductDao {
+
+    private static final Logger log = LoggerFactory.getLogger(CachingProductDao.class);
+
+    // Caffeine gives us a size bound (W-TinyLFU eviction), a time-to-live, and hit/miss/eviction counters.
+    private final Cache<Integer, Product> cache;
+
+    // Writes in progress are tracked with two counters. A read only keeps what it loaded if no write
+    // started while it was loading, so a slow read can never put an old row back after a write invalidated it.
+    private final AtomicLong writesStarted = new AtomicLong();
+    private final AtomicLong writesFinished = new AtomicLong();
+
+    // Polls the change log, once startChangePolling() has been called.
+    private ScheduledExecutorService changePoller;
+    private long changeWatermark;
+
+    public CachingProductDao(IProductDao delegate, long maximumSize, Duration timeToLive) {
+        super(delegate);
+        this.cache = Caffeine.newBuilder()
+                .maximumSize(maximumSize)
+                .expireAfterWrite(timeToLive)
+                .recordStats()
+                .build();
+    }
+
+    @Override
+    public List<Product> findById(int productId) {
+
+        // Cache hit: hand back a copy so callers can't change what is cached.
+        Product cached = cache.getIfPresent(productId);
+        if (cached != null) {
+            return List.of(copyOf(cached));
+        }
+
+        // Cache miss: remember whether a write was running before we go to the database.
+        long started = writesStarted.get();
+        boolean noWriteInProgress = started == writesFinished.get();
+
+        List<Product> products = delegate.findById(productId);
+
+        if (noWriteInProgress && products.size() == 1) {
+            cache.put(productId, copyOf(products.get(0)));
+
+            // A write started while we were loading, so what we loaded may already be old — drop it again.
+            if (writesStarted.get() != started) {
+                cache.invalidate(productId);
+            }
+        }
+
+        return products;
+    }
+
+    // Answers what it can from the cache and loads only the misses, in one findByIds call.
+    @Override
+    public List<Product> findByIds(int... productIds) {
+        List<Product> products = new ArrayList<>(productIds.length);
+        int[] misses = new int[productIds.length];
+        int missCount = 0;
+
+        for (int productId : Arrays.stream(productIds).distinct().toArray()) {
+            Product cached = cache.getIfPresent(productId);
+            if (cached != null) {
+                products.add(copyOf(cached));
+            } else {
+                misses[missCount++] = productId;
+            }
+        }
+
+        if (missCount > 0) {
+            // The same guard as findById: only keep what was loaded if no write overlapped the load.
+            long started = writesStarted.get();
+            boolean noWriteInProgress = started == writesFinished.get();
+
+            List<Product> loaded = delegate.findByIds(Arrays.copyOf(misses, missCount));
+
+            if (noWriteInProgress) {
+                for (Product product : loaded) {
+                    cache.put(product.getProductId(), copyOf(product));
+                }
+                if (writesStarted.get() != started) {
+                    loaded.forEach(product -> cache.invalidate(product.getProductId()));
+                }
+            }
+            products.addAll(loaded);
+        }
+
+        products.sort(Comparator.comparingInt(Product::getProductId));
+        return products;
+    }
+
+    @Override
+    public void add(Product product) {
+        // A new product gets a new id, so nothing cached can be stale; cache it so the next read is a hit.
+        writesStarted.incrementAndGet();
+        try {
+            delegate.add(product);
+            if (product.getProductId() > 0) {
+                cache.put(product.getProductId(), copyOf(product));
+            }
+        } finally {
+            writesFinished.incrementAndGet();
+        }
+    }
+
+    @Override
+    public void update(Product product) {
+        writesStarted.incrementAndGet();
+        try {
+            delegate.update(product);
+        } finally {
+            cache.invalidate(product.getProductId());
+            writesFinished.incrementAndGet();
+        }
+    }
+
+    @Override
+    public void updateAll(Collection<Product> products) {
+        writesStarted.incrementAndGet();
+        try {
+            delegate.updateAll(products);
+        } finally {
+            List<Integer> productIds = new ArrayList<>(products.size());
+            products.forEach(product -> productIds.add(product.getProductId()));
+            cache.invalidateAll(productIds);
+            writesFinished.incrementAndGet();
+        }
+    }
+
+    @Override
+    public void deleteByID(int productId) {
+        writesStarted.incrementAndGet();
+        try {
+            delegate.deleteByID(productId);
+        } finally {
+            cache.invalidate(productId);
+            writesFinished.incrementAndGet();
+        }
+    }
+
+    @Override
+    public void deleteByIds(int[] productIds) {
+        writesStarted.incrementAndGet();
+        try {
+            delegate.deleteByIds(productIds);
+        } finally {
+            for (int productId : productIds) {
+                cache.invalidate(productId);
+            }
+            writesFinished.incrementAndGet();
+        }
+    }
+
+    // Invalidates every product in a change set. Counted as a write, so a read that overlaps it doesn't cache old data.
+    public void applyChanges(ProductChangeSet changes) {
+        if (changes.isEmpty()) {
+            return;
+        }
+        writesStarted.incrementAndGet();
+        try {
+            List<Integer> productIds = new ArrayList<>(changes.changed().size() + changes.deletedIds().length);
+            changes.changed().forEach(product -> productIds.add(product.getProductId()));
+            for (int productId : changes.deletedIds()) {
+                productIds.add(productId);
+            }
+            cache.invalidateAll(productIds);
+        } finally {
+            writesFinished.incrementAndGet();
+        }
+    }
+
+    // Reads the change log every interval and invalidates whatever changed since the previous poll.
+    // Needs product-changes.enabled=true.
+    public synchronized void startChangePolling(Duration interval) {
+        if (changePoller != null) {
+            return;
+        }
+        changeWatermark = delegate.getChangeWatermark();
+        changePoller = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "product-cache-change-poll");
+            thread.setDaemon(true);
+            return thread;
+        });
+        changePoller.scheduleWithFixedDelay(this::pollChanges, interval.toMillis(), interval.toMillis(), TimeUnit.MILLISECONDS);
+    }
+
+    private void pollChanges() {
+        try {
+            ProductChangeSet changes = delegate.getChangesSince(changeWatermark);
+            applyChanges(changes);
+            changeWatermark = changes.watermark();
+        } catch (RuntimeException e) {
+            log.error("Unable to poll product changes", e);
+        }
+    }
+
+    @Override
+    public synchronized void close() {
+        if (changePoller != null) {
+            changePoller.shutdownNow();
+        }
+        super.close();
+    }
+
+    // Hit, miss and eviction counters since the cache was created.
+    public CacheStats stats() {
+        // Let Caffeine finish any pending evictions first so the counters are up to date.
+        cache.cleanUp();
+        return cache.stats();
+    }
+
+    // The number of products currently cached.
+    public long size() {
+        return cache.estimatedSize();
+    }
+
+    // Publishes the cache's size and hit/miss/eviction counters (tagged cache="products") so they show up on
+    // /actuator/prometheus.
+    public void registerMeters(MeterRegistry registry) {
+        CaffeineCacheMetrics.monitor(registry, cache, "products");
+    }
+
+    // The cache stores its own copies, because Product is mutable.
+    private static Product copyOf(Product product) {
+        return new Product(product.getProductId(), product.getProductName(), product.getCategoryId(), product.getUnitPrice(),
+                product.getVersion());
+    }
+}
@@ -0,0 +1,10 @@
+package com.pluralsight.NorthwindTradersSpringBoot.dao;
+
+// Thrown by ResilientProductDao instead of calling the database while its circuit breaker is open.
+// It is transient: the same call may work once the breaker lets calls through again.
+public class CircuitOpenException extends ProductDataAccessException {
+
+    public CircuitOpenException(String operation) {
+        super("Not calling the database for " + operation + ": too many recent failures (circuit breaker open)", true);
+    }
+}
@@ -0,0 +1,252 @@
+package com.pluralsight.NorthwindTradersSpringBoot.dao;
+
+import com.pluralsight.NorthwindTradersSpringBoot.model.Product;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.MeterRegistry;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+// Merges concurrent findById calls into batched findByIds queries.
+// - The first lookup to arrive opens a batch; every lookup in the next window joins it, and then the whole batch is
+//   sent as one findByIds (sooner, if it reaches maxBatch ids). The callers wait for it, so findById is still a
+//   plain blocking call — it just costs up to one window of extra latency when the DAO is quiet.
+// - Single-flight: a lookup for an id that is already batched or being queried shares that query's result.
+// - A write through this DAO detaches the in-flight lookups of the ids it touched, so a lookup that starts after
+//   a write never shares a query that started before it.
+// Every caller gets its own copy of the product, because Product is mutable.
+// The batches run on this DAO's own threads, so they don't carry ReadRoutingContext's per-thread read flag and
+// are answered by the primary database.
+public class CoalescingProductDao extends ForwardingProductDao {
+
+    private final long windowNanos;
+    private final int maxBatch;
+    private final ScheduledExecutorService batchRunner;
+
+    // Guards batch and inFlight.
+    private final Object lock = new Object();
+
+    // The batch being collected: id -> the futures its callers wait on. Usually one per id, but a write can detach
+    // an id whose batch hasn't been sent yet, and the next lookup for it then adds a second future alongside the first.
+    private Map<Integer, List<CompletableFuture<Product>>> batch = new HashMap<>();
+
+    // Every id collected or being queried, so a second lookup for it can share the result.
+    private final Map<Integer, CompletableFuture<Product>> inFlight = new HashMap<>();
+
+    private final LongAdder lookups = new LongAdder();
+    private final LongAdder sharedLookups = new LongAdder();
+    private final LongAdder batches = new LongAdder();
+    private final LongAdder idsQueried = new LongAdder();
+
+    // Ids per batch, once registerMeters has been called.
+    private volatile DistributionSummary batchSizes;
+
+    public CoalescingProductDao(IProductDao delegate, Duration window, int maxBatch, int batchThreads) {
+        super(delegate);
+        this.windowNanos = window.toNanos();
+        this.maxBatch = maxBatch;
+
+        AtomicInteger threadNumber = new AtomicInteger();
+        this.batchRunner = Executors.newScheduledThreadPool(batchThreads, runnable -> {
+            Thread thread = new Thread(runnable, "product-lookup-batch-" + threadNumber.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    @Override
+    public List<Product> findById(int productId) {
+        lookups.increment();
+
+        CompletableFuture<Product> lookup;
+        boolean openedBatch = false;
+        boolean batchFull = false;
+
+        synchronized (lock) {
+            lookup = inFlight.get(productId);
+            if (lookup != null) {
+                sharedLookups.increment();
+            } else {
+                lookup = new CompletableFuture<>();
+                inFlight.put(productId, lookup);
+                openedBatch = batch.isEmpty();
+                batch.computeIfAbsent(productId, id -> new ArrayList<>(1)).add(lookup);
+                batchFull = batch.size() >= maxBatch;
+            }
+        }
+
+        try {
+            if (batchFull) {
+                batchRunner.execute(this::runBatch);
+            } else if (openedBatch) {
+                batchRunner.schedule(this::runBatch, windowNanos, TimeUnit.NANOSECONDS);
+            }
+        } catch (RejectedExecutionException e) {
+            // Closed: run the batch on this thread instead.
+            runBatch();
+        }
+
+        Product product;
+        try {
+            product = lookup.join();
+        } catch (CompletionException e) {
+            // Rethrow what the DAO threw, as if the caller had run the query itself.
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            throw e;
+        }
+
+        List<Product> products = new ArrayList<>(1);
+        if (product != null) {
+            products.add(copyOf(product));
+        }
+        return products;
+    }
+
+    // Sends the collected batch as one findByIds and completes its lookups (null for ids that don't exist).
+    // A batch that filled up early may already be gone when its window timer fires; then there is nothing to do,
+    // or the timer sends the next batch a little early, which is harmless.
+    private void runBatch() {
+        Map<Integer, List<CompletableFuture<Product>>> taken;
+        synchronized (lock) {
+            if (batch.isEmpty()) {
+                return;
+            }
+            taken = batch;
+            batch = new HashMap<>();
+        }
+
+        batches.increment();
+        idsQueried.add(taken.size());
+        DistributionSummary sizes = batchSizes;
+        if (sizes != null) {
+            sizes.record(taken.size());
+        }
+
+        try {
+            int[] ids = taken.keySet().stream().mapToInt(Integer::intValue).toArray();
+            Map<Integer, Product> found = new HashMap<>();
+            for (Product product : delegate.findByIds(ids)) {
+                found.put(product.getProductId(), product);
+            }
+            taken.forEach((productId, lookups) -> lookups.forEach(lookup -> lookup.complete(found.get(productId))));
+        } catch (RuntimeException e) {
+            taken.values().forEach(lookups -> lookups.forEach(lookup -> lookup.completeExceptionally(e)));
+        } finally {
+            synchronized (lock) {
+                // Only remove our own futures: a write may have detached one and a new lookup replaced it.
+                taken.forEach((productId, lookups) -> lookups.forEach(lookup -> inFlight.remove(productId, lookup)));
+            }
+        }
+    }
+
+    public CoalescingStats stats() {
+        return new CoalescingStats(lookups.sum(), sharedLookups.sum(), batches.sum(), idsQueried.sum());
+    }
+
+    // Publishes the batch sizes and the lookup counters (the numbers behind stats()) so they show up on
+    // /actuator/prometheus.
+    public void registerMeters(MeterRegistry registry) {
+        FunctionCounter.builder("product.dao.coalescing.lookups", lookups, LongAdder::sum)
+                .description("findById calls that went through lookup coalescing")
+                .register(registry);
+        FunctionCounter.builder("product.dao.coalescing.shared.lookups", sharedLookups, LongAdder::sum)
+                .description("findById calls that shared a lookup of the same id already in flight")
+                .register(registry);
+        batchSizes = DistributionSummary.builder("product.dao.coalescing.batch.size")
+                .description("Ids sent in each batched findByIds query")
+                .register(registry);
+    }
+
+    @Override
+    public void add(Product product) {
+        super.add(product);
+        detach(product.getProductId());
+    }
+
+    @Override
+    public int[] addAll(Collection<Product> products) {
+        int[] productIds = super.addAll(products);
+        detach(productIds);
+        return productIds;
+    }
+
+    @Override
+    public int[] addAllOnce(String loadId, long position, Collection<Product> products) {
+        int[] productIds = super.addAllOnce(loadId, position, products);
+        detach(productIds);
+        return productIds;
+    }
+
+    @Override
+    public void update(Product product) {
+        try {
+            super.update(product);
+        } finally {
+            detach(product.getProductId());
+        }
+    }
+
+    @Override
+    public void updateAll(Collection<Product> products) {
+        try {
+            super.updateAll(products);
+        } finally {
+            detach(products.stream().mapToInt(Product::getProductId).toArray());
+        }
+    }
+
+    @Override
+    public void deleteByID(int productId) {
+        try {
+            super.deleteByID(productId);
+        } finally {
+            detach(productId);
+        }
+    }
+
+    @Override
+    public void deleteByIds(int[] productIds) {
+        try {
+            super.deleteByIds(productIds);
+        } finally {
+            detach(productIds);
+        }
+    }
+
+    // Batches already waiting for their window still run, so no caller is left waiting.
+    @Override
+    public void close() {
+        batchRunner.shutdown();
+        super.close();
+    }
+
+    // Stops new lookups for these ids from sharing a query that may have read the old rows.
+    // (Callers already waiting still get that query's answer: they asked before the write finished.)
+    private void detach(int... productIds) {
+        synchronized (lock) {
+            for (int productId : productIds) {
+                inFlight.remove(productId);
+            }
+        }
+    }
+
+    private static Product copyOf(Product product) {
+        return new Product(product.getProductId(), product.getProductName(), product.getCategoryId(),
+                product.getUnitPrice(), product.getVersion());
+    }
+}
@@ -0,0 +1,12 @@
+package com.pluralsight.NorthwindTradersSpringBoot.dao;
+
+// Counters for CoalescingProductDao.
+// lookups is every findById call; sharedLookups of them joined a lookup of the same id that was already in flight;
+// batches is the number of findByIds queries sent, covering idsQueried ids.
+public record CoalescingStats(long lookups, long sharedLookups, long batches, long idsQueried) {
+
+    // On average, how many findById calls each query answered.
+    public double lookupsPerQuery() {
+        return batches == 0 ? 0 : lookups / (double) batches;
+    }
+}
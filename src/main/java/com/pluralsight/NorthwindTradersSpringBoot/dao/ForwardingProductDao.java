@@ -0,0 +1,126 @@
+package com.pluralsight.NorthwindTradersSpringBoot.dao;
+
+import com.pluralsight.NorthwindTradersSpringBoot.model.Product;
+import com.pluralsight.NorthwindTradersSpringBoot.model.ProductChangeSet;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.stream.Stream;
+
+// A base class for DAOs that wrap another IProductDao (the "decorator" pattern).
+// Every method simply passes the call on to the wrapped DAO, so a subclass only overrides the methods it cares about.
+// Closing a layer closes the layers below it too, so Spring shuts the whole stack down in order.
+public abstract class ForwardingProductDao implements IProductDao, AutoCloseable {
+
+    private static final Logger log = LoggerFactory.getLogger(ForwardingProductDao.class);
+
+    // The DAO that does the real work.
+    protected final IProductDao delegate;
+
+    protected ForwardingProductDao(IProductDao delegate) {
+        this.delegate = delegate;
+    }
+
+    @Override
+    public void add(Product product) {
+        delegate.add(product);
+    }
+
+    @Override
+    public int[] addAll(Collection<Product> products) {
+        return delegate.addAll(products);
+    }
+
+    @Override
+    public int[] addAllOnce(String loadId, long position, Collection<Product> products) {
+        return delegate.addAllOnce(loadId, position, products);
+    }
+
+    @Override
+    public List<Product> getAll() {
+        return delegate.getAll();
+    }
+
+    @Override
+    public Stream<Product> streamAll() {
+        return delegate.streamAll();
+    }
+
+    @Override
+    public void forEach(ProductVisitor visitor) {
+        delegate.forEach(visitor);
+    }
+
+    @Override
+    public List<Product> getPage(int afterProductId, int pageSize) {
+        return delegate.getPage(afterProductId, pageSize);
+    }
+
+    @Override
+    public void deleteByID(int productId) {
+        delegate.deleteByID(productId);
+    }
+
+    @Override
+    public void deleteByIds(int[] productIds) {
+        delegate.deleteByIds(productIds);
+    }
+
+    @Override
+    public List<Product> findById(int productId) {
+        return delegate.findById(productId);
+    }
+
+    @Override
+    public List<Product> findByIds(int... productIds) {
+        return delegate.findByIds(productIds);
+    }
+
+    @Override
+    public List<Product> findByCategory(int categoryId) {
+        return delegate.findByCategory(categoryId);
+    }
+
+    @Override
+    public List<Product> findByPriceRange(double minPrice, double maxPrice) {
+        return delegate.findByPriceRange(minPrice, maxPrice);
+    }
+
+    @Override
+    public List<Product> findByNamePrefix(String prefix) {
+        return delegate.findByNamePrefix(prefix);
+    }
+
+    @Override
+    public void update(Product product) {
+        delegate.update(product);
+    }
+
+    @Override
+    public void updateAll(Collection<Product> products) {
+        delegate.updateAll(products);
+    }
+
+    @Override
+    public ProductChangeSet getChangesSince(long watermark) {
+        return delegate.getChangesSince(watermark);
+    }
+
+    @Override
+    public long getChangeWatermark() {
+        return delegate.getChangeWatermark();
+    }
+
+    @Override
+    public void close() {
+        if (delegate instanceof AutoCloseable closeable) {
+            try {
+                closeable.close();
+            } catch (Exception e) {
+                log.error("Unable to close {}", delegate.getClass().getSimpleName(), e);
+            }
+        }
+    }
+}
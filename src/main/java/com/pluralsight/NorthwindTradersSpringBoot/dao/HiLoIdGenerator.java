@@ -0,0 +1,95 @@
+package com.pluralsight.NorthwindTradersSpringBoot.dao;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+
+// Hands out ProductIDs that are unique across every shard, without a database round trip per id.
+// Ids are reserved in blocks from the ProductIdBlocks table (see db/product-shards.sql): block b owns the ids
+// b * blockSize + 1 .. (b + 1) * blockSize. Each application instance reserves a block, hands its ids out from
+// memory, and only goes back to the database when the block runs out. Ids left over in a block when the
+// application stops are never used, so ids have gaps but never repeat.
+public class HiLoIdGenerator {
+
+    private final DataSource dataSource;
+    private final int blockSize;
+
+    // The next id to hand out and the last id of the current block (next > last means no block yet).
+    private long next = 1;
+    private long last = 0;
+
+    public HiLoIdGenerator(DataSource dataSource, int blockSize) {
+        if (blockSize < 1) {
+            throw new IllegalArgumentException("The id block size must be at least 1, not " + blockSize);
+        }
+        this.dataSource = dataSource;
+        this.blockSize = blockSize;
+    }
+
+    public synchronized int next() {
+        if (next > last) {
+            long block = reserveBlock();
+            next = block * blockSize + 1;
+            last = next + blockSize - 1;
+            if (last > Integer.MAX_VALUE) {
+                throw new IllegalStateException("ProductIDs have run out (block " + block + " is past the INT range)");
+            }
+        }
+        return (int) next++;
+    }
+
+    // Fills in the ProductIDs of many products at once.
+    public synchronized int[] next(int count) {
+        int[] ids = new int[count];
+        for (int i = 0; i < count; i++) {
+            ids[i] = next();
+        }
+        return ids;
+    }
+
+    // Moves the shared counter on by one and returns the block it pointed at. The UPDATE locks the row until the
+    // commit, so two instances reserving at the same time get different blocks.
+    private long reserveBlock() {
+        String update = """
+                UPDATE
+                    ProductIdBlocks
+                SET
+                    NextBlock = NextBlock + 1
+                """;
+        String select = """
+                SELECT
+                    NextBlock
+                FROM
+                    ProductIdBlocks
+                """;
+
+        try (Connection connection = dataSource.getConnection()) {
+            boolean autoCommit = connection.getAutoCommit();
+            connection.setAutoCommit(false);
+            try (
+                    PreparedStatement updateStatement = connection.prepareStatement(update);
+                    PreparedStatement selectStatement = connection.prepareStatement(select)
+            ) {
+                if (updateStatement.executeUpdate() != 1) {
+                    throw new IllegalStateException("ProductIdBlocks must hold exactly one row (see db/product-shards.sql)");
+                }
+                long block;
+                try (ResultSet results = selectStatement.executeQuery()) {
+                    results.next();
+                    block = results.getLong(1) - 1;
+                }
+                connection.commit();
+                return block;
+            } catch (SQLException | RuntimeException e) {
+                connection.rollback();
+                throw e;
+            } finally {
+                connection.setAutoCommit(autoCommit);
+            }
+        } catch (SQLException e) {
+            throw new ProductDataAccessException("Unable to reserve a block of ProductIDs", e);
+        }
+    }
+}
@@ -0,0 +1,9 @@
+package com.pluralsight.NorthwindTradersSpringBoot.dao;
+
+import java.util.Set;
+
+public interface ICategoryDao {
+
+    // The ids of every category in the Categories table.
+    Set<Integer> getCategoryIds();
+}
@@ -1,18 +1,69 @@
 package com.pluralsight.NorthwindTradersSpringBoot.dao;
 
 import com.pluralsight.NorthwindTradersSpringBoot.model.Product;
+import com.pluralsight.NorthwindTradersSpringBoot.model.ProductChangeSet;
 
+import java.util.Collection;
 import java.util.List;
+import java.util.stream.Stream;
 
 public interface IProductDao {
 
     void add(Product product);
 
+    // Inserts many products using JDBC batches and returns their generated ProductIDs (in the same order).
+    // The generated id is also set on each Product.
+    int[] addAll(Collection<Product> products);
+
+    // Adds many products as one step of a resumable load (such as a file import), in a single transaction that
+    // also records `position` as how far the load identified by loadId has got. If the load has already got to
+    // `position` (the step was committed by an earlier run that crashed before it could note that), nothing is
+    // added and every returned id is 0. So repeating a step never adds its products twice.
+    int[] addAllOnce(String loadId, long position, Collection<Product> products);
+
     List<Product> getAll();
 
+    // Streams every product ordered by ProductID without loading the whole table into memory.
+    // The caller must close the stream (try-with-resources) so the connection is released.
+    Stream<Product> streamAll();
+
+    // Calls the visitor for every product, ordered by ProductID, reusing one ProductRow for all rows.
+    // Nothing is created per row unless the visitor asks for it (e.g. row.toRecord()).
+    void forEach(ProductVisitor visitor);
+
+    // Returns up to pageSize products whose ProductID is greater than afterProductId (keyset pagination).
+    // Pass 0 to get the first page, then the last ProductID of each page to get the next one.
+    List<Product> getPage(int afterProductId, int pageSize);
+
     void deleteByID(int productId);
 
+    // Deletes many products using JDBC batches.
+    void deleteByIds(int[] productIds);
+
     List<Product> findById(int productId);
 
+    // The products with any of these ids, ordered by ProductID, in as few queries as possible.
+    // Ids that don't exist are left out and a repeated id is returned once.
+    List<Product> findByIds(int... productIds);
+
+    // Every product in a category, ordered by ProductID.
+    List<Product> findByCategory(int categoryId);
+
+    // Every product priced between minPrice and maxPrice (inclusive), cheapest first (ties ordered by ProductID).
+    List<Product> findByPriceRange(double minPrice, double maxPrice);
+
+    // Every product whose name starts with prefix (ignoring case), ordered by name (ties ordered by ProductID).
+    List<Product> findByNamePrefix(String prefix);
+
     void update(Product product);
+
+    // Updates many products using JDBC batches.
+    void updateAll(Collection<Product> products);
+
+    // The products added, updated or deleted since a change-log watermark (needs product-changes.enabled=true).
+    // Pass the returned watermark to the next call. Start from getChangeWatermark() taken before a full load.
+    ProductChangeSet getChangesSince(long watermark);
+
+    // The newest change-log watermark (needs product-changes.enabled=true).
+    long getChangeWatermark();
 }
@@ -0,0 +1,14 @@
+package com.pluralsight.NorthwindTradersSpringBoot.dao;
+
+import com.pluralsight.NorthwindTradersSpringBoot.model.CategoryStats;
+
+import java.util.List;
+
+// Aggregate queries over the product catalog, for dashboards.
+// JdbcProductStatsDao has the database compute them; SnapshotProductStatsDao computes the same numbers in memory
+// from the current ProductSnapshot, in parallel.
+public interface IProductStatsDao {
+
+    // One CategoryStats for every category that has products, ordered by CategoryID.
+    List<CategoryStats> getCategoryStats();
+}
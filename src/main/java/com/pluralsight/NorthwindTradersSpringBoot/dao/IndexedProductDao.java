@@ -0,0 +1,183 @@
+package com.pluralsight.NorthwindTradersSpringBoot.dao;
+
+import com.pluralsight.NorthwindTradersSpringBoot.model.Product;
+import com.pluralsight.NorthwindTradersSpringBoot.snapshot.ProductIndex;
+import com.pluralsight.NorthwindTradersSpringBoot.snapshot.ProductSnapshot;
+import com.pluralsight.NorthwindTradersSpringBoot.snapshot.ProductSnapshotHolder;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.time.Duration;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+
+// Answers findByCategory, findByPriceRange and findByNamePrefix from in-memory indexes instead of the database.
+// The indexes are rebuilt from a fresh snapshot on refresh() (only the changed rows are read when the change log is on).
+// After a write through this DAO the indexes are out of date, so queries go to the database until the next refresh
+// has finished.
+public class IndexedProductDao extends ForwardingProductDao {
+
+    private static final Logger log = LoggerFactory.getLogger(IndexedProductDao.class);
+
+    // An index, the snapshot it was built from, and the write count at the moment that snapshot started loading.
+    private record IndexState(ProductIndex index, ProductSnapshot snapshot, long writeCount) {
+    }
+
+    private final ProductSnapshotHolder snapshotHolder;
+    private final AtomicReference<IndexState> state = new AtomicReference<>();
+
+    // Counts up once when a write starts and once when it ends, so any write that overlaps or follows
+    // a refresh changes the count and makes that refresh's index stale.
+    private final AtomicLong writeCount = new AtomicLong();
+
+    private final ScheduledExecutorService refresher;
+
+    // If refreshInterval is positive, the indexes are rebuilt in the background that often (starting right away).
+    public IndexedProductDao(IProductDao delegate, ProductSnapshotHolder snapshotHolder, Duration refreshInterval) {
+        super(delegate);
+        this.snapshotHolder = snapshotHolder;
+
+        if (refreshInterval.isZero() || refreshInterval.isNegative()) {
+            refresher = null;
+        } else {
+            refresher = Executors.newSingleThreadScheduledExecutor(runnable -> {
+                Thread thread = new Thread(runnable, "product-index-refresh");
+                thread.setDaemon(true);
+                return thread;
+            });
+            refresher.scheduleWithFixedDelay(this::refreshQuietly, 0, refreshInterval.toMillis(), TimeUnit.MILLISECONDS);
+        }
+    }
+
+    // Brings the snapshot up to date and rebuilds the indexes (or keeps them, if nothing changed).
+    public void refresh() {
+        long writesBefore = writeCount.get();
+        ProductSnapshot snapshot = snapshotHolder.refreshChanges();
+
+        IndexState previous = state.get();
+        ProductIndex index = previous != null && previous.snapshot() == snapshot
+                ? previous.index()
+                : ProductIndex.build(snapshot);
+        state.set(new IndexState(index, snapshot, writesBefore));
+    }
+
+    // True if queries are currently answered from memory.
+    public boolean isIndexCurrent() {
+        return currentIndex() != null;
+    }
+
+    @Override
+    public List<Product> findByCategory(int categoryId) {
+        ProductIndex index = currentIndex();
+        return index == null ? delegate.findByCategory(categoryId) : index.findByCategory(categoryId);
+    }
+
+    @Override
+    public List<Product> findByPriceRange(double minPrice, double maxPrice) {
+        ProductIndex index = currentIndex();
+        return index == null ? delegate.findByPriceRange(minPrice, maxPrice) : index.findByPriceRange(minPrice, maxPrice);
+    }
+
+    @Override
+    public List<Product> findByNamePrefix(String prefix) {
+        ProductIndex index = currentIndex();
+        return index == null ? delegate.findByNamePrefix(prefix) : index.findByNamePrefix(prefix);
+    }
+
+    @Override
+    public void add(Product product) {
+        writeCount.incrementAndGet();
+        try {
+            delegate.add(product);
+        } finally {
+            writeCount.incrementAndGet();
+        }
+    }
+
+    @Override
+    public int[] addAll(Collection<Product> products) {
+        writeCount.incrementAndGet();
+        try {
+            return delegate.addAll(products);
+        } finally {
+            writeCount.incrementAndGet();
+        }
+    }
+
+    @Override
+    public int[] addAllOnce(String loadId, long position, Collection<Product> products) {
+        writeCount.incrementAndGet();
+        try {
+            return delegate.addAllOnce(loadId, position, products);
+        } finally {
+            writeCount.incrementAndGet();
+        }
+    }
+
+    @Override
+    public void update(Product product) {
+        writeCount.incrementAndGet();
+        try {
+            delegate.update(product);
+        } finally {
+            writeCount.incrementAndGet();
+        }
+    }
+
+    @Override
+    public void updateAll(Collection<Product> products) {
+        writeCount.incrementAndGet();
+        try {
+            delegate.updateAll(products);
+        } finally {
+            writeCount.incrementAndGet();
+        }
+    }
+
+    @Override
+    public void deleteByID(int productId) {
+        writeCount.incrementAndGet();
+        try {
+            delegate.deleteByID(productId);
+        } finally {
+            writeCount.incrementAndGet();
+        }
+    }
+
+    @Override
+    public void deleteByIds(int[] productIds) {
+        writeCount.incrementAndGet();
+        try {
+            delegate.deleteByIds(productIds);
+        } finally {
+            writeCount.incrementAndGet();
+        }
+    }
+
+    @Override
+    public void close() {
+        if (refresher != null) {
+            refresher.shutdownNow();
+        }
+        super.close();
+    }
+
+    // The index, if it is still current (no write since its snapshot started loading).
+    private ProductIndex currentIndex() {
+        IndexState current = state.get();
+        return current != null && current.writeCount() == writeCount.get() ? current.index() : null;
+    }
+
+    private void refreshQuietly() {
+        try {
+            refresh();
+        } catch (RuntimeException e) {
+            log.error("Unable to refresh the product indexes", e);
+        }
+    }
+}
@@ -0,0 +1,49 @@
+package com.pluralsight.NorthwindTradersSpringBoot.dao;
+
+import org.springframework.stereotype.Component;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.HashSet;
+import java.util.Set;
+
+// Reads the Northwind Categories table. The importer uses it to check that a product's category exists.
+@Component
+public class JdbcCategoryDao implements ICategoryDao {
+
+    private final DataSource dataSource;
+
+    public JdbcCategoryDao(DataSource dataSource) {
+        this.dataSource = dataSource;
+    }
+
+    @Override
+    public Set<Integer> getCategoryIds() {
+        Set<Integer> categoryIds = new HashSet<>();
+
+        // This is the SQL SELECT statement we will run.
+        String sql = """
+                SELECT
+                    CategoryID
+                FROM
+                    Categories
+                """;
+
+        try (
+                Connection connection = dataSource.getConnection();
+                PreparedStatement preparedStatement = connection.prepareStatement(sql);
+                ResultSet results = preparedStatement.executeQuery()
+        ) {
+            while (results.next()) {
+                categoryIds.add(results.getInt(1));
+            }
+        } catch (SQLException e) {
+            throw new ProductDataAccessException("Unable to retrieve categories from DB", e);
+        }
+
+        return categoryIds;
+    }
+}
@@ -1,29 +1,92 @@
 package com.pluralsight.NorthwindTradersSpringBoot.dao;
 
 import com.pluralsight.NorthwindTradersSpringBoot.model.Product;
+import com.pluralsight.NorthwindTradersSpringBoot.model.ProductChangeSet;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Component;
 
 import javax.sql.DataSource;
 import java.sql.*;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
 import java.util.List;
 import java.util.Scanner;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.function.Consumer;
+import java.util.function.IntUnaryOperator;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
 
-@Component
+// The "jdbcProductDao" bean name belongs to the fully configured DAO built in ProductDaoConfig.
+@Component("jdbcProductDaoTarget")
 public class JdbcProductDao implements IProductDao{
 
+    private static final Logger log = LoggerFactory.getLogger(JdbcProductDao.class);
+
     // This is the DataSource that we will use to connect to the database.
     // The DataSource is created in our DbConfiguration class.
     private final DataSource dataSource;
     private final Scanner scanner = new Scanner(System.in);
 
+    // How many rows the driver should fetch per round trip when we stream products.
+    private final int fetchSize;
+
+    // How many rows go into one JDBC batch (and one transaction) in the bulk methods.
+    private final int batchSize;
+
+    // Whether every write also records a row in the ProductChanges table (see db/product-changes.sql).
+    private final boolean changeLogEnabled;
+
+    // How long a gap in the ChangeIDs may be an uncommitted write (see getChangesSince) before it is taken to be
+    // a rolled-back one. It must be longer than the longest write transaction.
+    private final int changeGapGraceSeconds;
+
+    // How long the database may spend on each kind of statement before the driver cancels it.
+    private final QueryTimeouts queryTimeouts;
+
     // This is a constructor.
     // Spring will automatically call this constructor and pass in the DataSource.
     // The @Autowired annotation tells Spring to "inject" the DataSource Bean here.
     @Autowired
-    public JdbcProductDao(DataSource dataSource) {
+    public JdbcProductDao(DataSource dataSource,
+                          @Value("${datasource.fetch-size:1000}") int fetchSize,
+                          @Value("${datasource.batch-size:500}") int batchSize,
+                          @Value("${product-changes.enabled:false}") boolean changeLogEnabled,
+                          @Value("${product-changes.gap-grace-seconds:120}") int changeGapGraceSeconds,
+                          QueryTimeouts queryTimeouts) {
         this.dataSource = dataSource;
+        this.fetchSize = fetchSize;
+        this.batchSize = batchSize;
+        this.changeLogEnabled = changeLogEnabled;
+        this.changeGapGraceSeconds = changeGapGraceSeconds;
+        this.queryTimeouts = queryTimeouts;
+    }
+
+    // Constructor with the default change-log gap grace period.
+    public JdbcProductDao(DataSource dataSource, int fetchSize, int batchSize, boolean changeLogEnabled,
+                          QueryTimeouts queryTimeouts) {
+        this(dataSource, fetchSize, batchSize, changeLogEnabled, 120, queryTimeouts);
+    }
+
+    // Constructor without query timeouts.
+    public JdbcProductDao(DataSource dataSource, int fetchSize, int batchSize, boolean changeLogEnabled) {
+        this(dataSource, fetchSize, batchSize, changeLogEnabled, QueryTimeouts.NONE);
+    }
+
+    // Constructor without the change log.
+    public JdbcProductDao(DataSource dataSource, int fetchSize, int batchSize) {
+        this(dataSource, fetchSize, batchSize, false);
+    }
+
+    // Convenience constructor that uses the default fetch and batch sizes.
+    public JdbcProductDao(DataSource dataSource) {
+        this(dataSource, 1000, 500);
     }
 
     // This method will add a new Product to the database.
@@ -42,8 +105,9 @@ public class JdbcProductDao implements IProductDao{
         // It ensures that the Connection and PreparedStatement are closed automatically after we are done.
         try(
                 Connection connection = dataSource.getConnection();
-                PreparedStatement preparedStatement = connection.prepareStatement(sql)
+                PreparedStatement preparedStatement = connection.prepareStatement(sql, Statement.RETURN_GENERATED_KEYS)
         ) {
+            preparedStatement.setQueryTimeout(queryTimeouts.writeSeconds());
 
             // Set the first parameter (?) to the product's name.
             preparedStatement.setString(1, product.getProductName());
@@ -54,21 +118,175 @@ public class JdbcProductDao implements IProductDao{
             // Set the third parameter (?) to the product's unit price.
             preparedStatement.setDouble(3, product.getUnitPrice());
 
-            // Execute the INSERT statement — this will add the row to the database.
-            preparedStatement.executeUpdate();
+            inWriteTransaction(connection, () -> {
+
+                // Execute the INSERT statement — this will add the row to the database.
+                preparedStatement.executeUpdate();
+
+                // Copy the ProductID the database generated back onto the product.
+                try (ResultSet keys = preparedStatement.getGeneratedKeys()) {
+                    if (keys.next()) {
+                        product.setProductId(keys.getInt(1));
+                        product.setVersion(1);
+                    }
+                }
+
+                recordChanges(connection, CHANGE_UPSERT, 0, 1, i -> product.getProductId());
+            });
 
         } catch (SQLException e){
-            System.out.println("ERROR: Unable to add product to the database " + e);
+            throw new ProductDataAccessException("Unable to add product to the database", e);
+        }
+
+    }
+
+    // This method will add many Products to the database using JDBC batches.
+    // It is required because we are implementing the IProductDao interface.
+    @Override
+    public int[] addAll(Collection<Product> products) {
+
+        // Copy into a list so we can address the products by position.
+        List<Product> productList = new ArrayList<>(products);
+        int[] productIds = new int[productList.size()];
+
+        try (
+                Connection connection = dataSource.getConnection();
+                PreparedStatement preparedStatement = connection.prepareStatement(INSERT_SQL, Statement.RETURN_GENERATED_KEYS)
+        ) {
+            preparedStatement.setQueryTimeout(queryTimeouts.bulkSeconds());
+
+            inChunkedTransactions(connection, productList.size(), (start, end) -> {
+                insertChunk(preparedStatement, productList, productIds, start, end);
+                recordChanges(connection, CHANGE_UPSERT, start, end, i -> productIds[i]);
+            }, (start, end) -> setAdded(productList, productIds, start, end));
+
+        } catch (SQLException e) {
+            throw new ProductDataAccessException("Unable to add products to the database", e);
+        }
+
+        return productIds;
+    }
+
+    // This method will add many Products as one step of a resumable load. The products and the load's new
+    // position (in the ProductLoads table, see db/product-loads.sql) are committed in one transaction, so running
+    // the same step again after a crash adds nothing.
+    // It is required because we are implementing the IProductDao interface.
+    @Override
+    public int[] addAllOnce(String loadId, long position, Collection<Product> products) {
+
+        List<Product> productList = new ArrayList<>(products);
+        int[] productIds = new int[productList.size()];
+
+        try (
+                Connection connection = dataSource.getConnection();
+                PreparedStatement preparedStatement = connection.prepareStatement(INSERT_SQL, Statement.RETURN_GENERATED_KEYS)
+        ) {
+            preparedStatement.setQueryTimeout(queryTimeouts.bulkSeconds());
+
+            boolean added = inLoadTransaction(connection, loadId, position, productList.size(), (start, end) -> {
+                insertChunk(preparedStatement, productList, productIds, start, end);
+                recordChanges(connection, CHANGE_UPSERT, start, end, i -> productIds[i]);
+            });
+
+            if (!added) {
+                // An earlier run already committed this step, so nothing was added and every id stays 0.
+                return new int[productList.size()];
+            }
+            setAdded(productList, productIds, 0, productList.size());
+
+        } catch (SQLException e) {
+            throw new ProductDataAccessException("Unable to add products to the database", e);
+        }
+
+        return productIds;
+    }
+
+    // This is the SQL INSERT statement addAll and addAllOnce run for every product.
+    // (No trailing semicolon, so the MySQL driver can rewrite the batch into multi-row INSERTs.)
+    private static final String INSERT_SQL = """
+            INSERT INTO
+            	Products(ProductName, CategoryID, UnitPrice)
+            VALUES(?, ?, ?)
+            """;
+
+    // Inserts the products from start (inclusive) to end (exclusive) as one JDBC batch and puts their generated
+    // ProductIDs in productIds.
+    private static void insertChunk(PreparedStatement preparedStatement, List<Product> productList, int[] productIds,
+                                    int start, int end) throws SQLException {
+
+        // Queue up one INSERT per product in this chunk.
+        for (int i = start; i < end; i++) {
+            Product product = productList.get(i);
+            preparedStatement.setString(1, product.getProductName());
+            preparedStatement.setInt(2, product.getCategoryId());
+            preparedStatement.setDouble(3, product.getUnitPrice());
+            preparedStatement.addBatch();
+        }
+
+        // Send the whole chunk to the database in one round trip.
+        preparedStatement.executeBatch();
+
+        // The generated keys come back in the same order the rows were added.
+        try (ResultSet keys = preparedStatement.getGeneratedKeys()) {
+            for (int i = start; i < end && keys.next(); i++) {
+                productIds[i] = keys.getInt(1);
+            }
+        }
+    }
+
+    // Gives the products from start (inclusive) to end (exclusive) their new ids once their rows have committed.
+    private static void setAdded(List<Product> productList, int[] productIds, int start, int end) {
+        for (int i = start; i < end; i++) {
+            productList.get(i).setProductId(productIds[i]);
+            productList.get(i).setVersion(1);
+        }
+    }
+
+    // Inserts products whose ProductIDs were already picked by the caller (ShardedProductDao gets them from a
+    // HiLoIdGenerator so ids are unique across every shard), using JDBC batches like addAll.
+    void insertWithIds(Collection<Product> products) {
+
+        List<Product> productList = new ArrayList<>(products);
+
+        String sql = """
+                INSERT INTO
+                	Products(ProductID, ProductName, CategoryID, UnitPrice)
+                VALUES(?, ?, ?, ?)
+                """;
+
+        try (
+                Connection connection = dataSource.getConnection();
+                PreparedStatement preparedStatement = connection.prepareStatement(sql)
+        ) {
+            preparedStatement.setQueryTimeout(productList.size() == 1 ? queryTimeouts.writeSeconds() : queryTimeouts.bulkSeconds());
+
+            inChunkedTransactions(connection, productList.size(), (start, end) -> {
+                for (int i = start; i < end; i++) {
+                    Product product = productList.get(i);
+                    preparedStatement.setInt(1, product.getProductId());
+                    preparedStatement.setString(2, product.getProductName());
+                    preparedStatement.setInt(3, product.getCategoryId());
+                    preparedStatement.setDouble(4, product.getUnitPrice());
+                    preparedStatement.addBatch();
+                }
+                preparedStatement.executeBatch();
+
+                recordChanges(connection, CHANGE_UPSERT, start, end, i -> productList.get(i).getProductId());
+            });
+
+        } catch (SQLException e) {
+            throw new ProductDataAccessException("Unable to add products to the database", e);
         }
 
+        for (Product product : productList) {
+            product.setVersion(1);
+        }
     }
 
     // This method will return a list of all Products from the database.
     // It is required because we are implementing the IProductDao interface.
     @Override
     public List<Product> getAll() {
-        // Create an empty list to hold the Product objects we will retrieve.
-        List<Product> products = new ArrayList<>();
 
         // This is the SQL SELECT statement we will run.
         String sql = """
@@ -76,46 +294,156 @@ public class JdbcProductDao implements IProductDao{
                     ProductID,
                     ProductName,
                     CategoryID,
-                    UnitPrice
+                    UnitPrice,
+                    Version
                 FROM
                     Products
                 """;
 
-        // This is a "try-with-resources" block.
-        // It ensures that the Connection, Statement, and ResultSet are closed automatically after we are done.
-        try (
-                Connection connection = dataSource.getConnection();
-                PreparedStatement preparedStatement = connection.prepareStatement(sql);
-                ResultSet results = preparedStatement.executeQuery()
-                ) {
+        // This query has no parameters.
+        return queryProducts(sql, "Unable to retrieve products list from DB", queryTimeouts.scanSeconds(),
+                preparedStatement -> {
+                });
+    }
 
-            // Loop through each row in the ResultSet
-            while(results.next()) {
-                // Create a Product object
-                Product product = new Product();
+    // This method will stream all Products from the database one row at a time.
+    // It is required because we are implementing the IProductDao interface.
+    @Override
+    public Stream<Product> streamAll() {
 
-                // Set the product's ID from the "ProductID" column.
-                product.setProductId(results.getInt("ProductID"));
+        // This is the SQL SELECT statement we will run.
+        String sql = """
+                SELECT
+                    ProductID,
+                    ProductName,
+                    CategoryID,
+                    UnitPrice,
+                    Version
+                FROM
+                    Products
+                ORDER BY
+                    ProductID
+                """;
+
+        // We can't use try-with-resources here, because the ResultSet has to stay open
+        // until the caller is done with the stream. The stream's onClose handler closes everything instead.
+        Connection connection = null;
+        PreparedStatement preparedStatement = null;
+        ResultSet results = null;
+        ProductRowMapper mapper;
+
+        try {
+            connection = dataSource.getConnection();
+
+            // A forward-only, read-only statement with a fetch size lets the driver hand us rows in small chunks
+            // (on MySQL this needs useCursorFetch=true on the URL so a server-side cursor is used).
+            preparedStatement = connection.prepareStatement(sql, ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY);
+            preparedStatement.setFetchSize(fetchSize);
+            preparedStatement.setQueryTimeout(queryTimeouts.scanSeconds());
+            results = preparedStatement.executeQuery();
+            mapper = new ProductRowMapper(results);
+
+        } catch (SQLException e) {
+            closeQuietly(results, preparedStatement, connection);
+            throw new ProductDataAccessException("Unable to stream products from DB", e);
+        }
+
+        // The Spliterator reads the next row every time the stream asks for another Product.
+        ResultSet openResults = results;
+
+        Spliterator<Product> spliterator = new Spliterators.AbstractSpliterator<>(Long.MAX_VALUE,
+                Spliterator.ORDERED | Spliterator.NONNULL) {
+            @Override
+            public boolean tryAdvance(Consumer<? super Product> action) {
+                try {
+                    if (!openResults.next()) {
+                        return false;
+                    }
+
+                    // Create a Product object from the current row and hand it to the stream.
+                    action.accept(mapper.toProduct());
+                    return true;
+
+                } catch (SQLException e) {
+                    // The connection is still released when the caller closes the stream.
+                    throw new ProductDataAccessException("Unable to stream products from DB", e);
+                }
+            }
+        };
 
-                // Set the product's name from the "ProductName" column.
-                product.setProductName(results.getString("ProductName"));
+        Connection openConnection = connection;
+        PreparedStatement openStatement = preparedStatement;
+        return StreamSupport.stream(spliterator, false)
+                .onClose(() -> closeQuietly(openResults, openStatement, openConnection));
+    }
+
+    // This method will call the visitor for every Product in the database, one row at a time.
+    // It is required because we are implementing the IProductDao interface.
+    @Override
+    public void forEach(ProductVisitor visitor) {
 
-                // Set the product's category id from the "CategoryID" column.
-                product.setCategoryId(results.getInt("CategoryID"));
+        // This is the SQL SELECT statement we will run.
+        String sql = """
+                SELECT
+                    ProductID,
+                    ProductName,
+                    CategoryID,
+                    UnitPrice,
+                    Version
+                FROM
+                    Products
+                ORDER BY
+                    ProductID
+                """;
 
-                // Set the product's unit price from the "UnitPrice" column.
-                product.setUnitPrice(results.getDouble("UnitPrice"));
+        try (
+                Connection connection = dataSource.getConnection();
+                PreparedStatement preparedStatement = connection.prepareStatement(sql, ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY)
+        ) {
+            // Rows arrive fetchSize at a time, like streamAll, but no Product is created unless the visitor asks for one.
+            preparedStatement.setFetchSize(fetchSize);
+            preparedStatement.setQueryTimeout(queryTimeouts.scanSeconds());
 
-                // Add the Product object to the list
-                products.add(product);
+            try (ResultSet results = preparedStatement.executeQuery()) {
+                new ProductRowMapper(results).forEachRemaining(visitor);
             }
-        }catch (SQLException e){
-            // If something goes wrong (SQL error), print a message and the stack trace to help debug.
-            System.out.println("ERROR: Unable to retrieve products list from DB " + e);
+        } catch (SQLException e) {
+            throw new ProductDataAccessException("Unable to read products from DB", e);
         }
+    }
 
-        // Return the list of Product objects
-        return products;
+    // This method will return one page of Products, starting right after the given ProductID.
+    // It is required because we are implementing the IProductDao interface.
+    @Override
+    public List<Product> getPage(int afterProductId, int pageSize) {
+
+        // This is the SQL SELECT statement we will run.
+        // Seeking on the primary key means every page costs the same, no matter how deep we are in the table.
+        String sql = """
+                SELECT
+                    ProductID,
+                    ProductName,
+                    CategoryID,
+                    UnitPrice,
+                    Version
+                FROM
+                    Products
+                WHERE
+                    ProductID > ?
+                ORDER BY
+                    ProductID
+                LIMIT ?
+                """;
+
+        return queryProducts(sql, "Unable to retrieve products page from DB", queryTimeouts.lookupSeconds(),
+                preparedStatement -> {
+
+                    // Set the first parameter (?) to the last product id of the previous page.
+                    preparedStatement.setInt(1, afterProductId);
+
+                    // Set the second parameter (?) to the page size.
+                    preparedStatement.setInt(2, pageSize);
+                });
     }
 
     // This method will remove a Product from the database.
@@ -137,15 +465,55 @@ public class JdbcProductDao implements IProductDao{
                 Connection connection = dataSource.getConnection();
                 PreparedStatement preparedStatement = connection.prepareStatement(sql)
         ) {
+            preparedStatement.setQueryTimeout(queryTimeouts.writeSeconds());
 
             // Set the first parameter (?) to the product's id.
             preparedStatement.setInt(1, productId);
 
-            // Execute the DELETE statement — this will delete the row from the database.
-            preparedStatement.executeUpdate();
+            inWriteTransaction(connection, () -> {
+
+                // Execute the DELETE statement — this will delete the row from the database.
+                preparedStatement.executeUpdate();
+
+                recordChanges(connection, CHANGE_DELETE, 0, 1, i -> productId);
+            });
 
         } catch (SQLException e) {
-            System.out.println("ERROR: Unable to remove product from the db " + e);
+            throw new ProductDataAccessException("Unable to remove product from the db", e);
+        }
+    }
+
+    // This method will remove many Products from the database using JDBC batches.
+    // It is required because we are implementing the IProductDao interface.
+    @Override
+    public void deleteByIds(int[] productIds) {
+
+        // This is the SQL DELETE statement we will run for every id.
+        String sql = """
+                DELETE FROM
+                    Products
+                WHERE
+                    ProductID = ?
+                """;
+
+        try (
+                Connection connection = dataSource.getConnection();
+                PreparedStatement preparedStatement = connection.prepareStatement(sql)
+        ) {
+            preparedStatement.setQueryTimeout(queryTimeouts.bulkSeconds());
+
+            inChunkedTransactions(connection, productIds.length, (start, end) -> {
+                for (int i = start; i < end; i++) {
+                    preparedStatement.setInt(1, productIds[i]);
+                    preparedStatement.addBatch();
+                }
+                preparedStatement.executeBatch();
+
+                recordChanges(connection, CHANGE_DELETE, start, end, i -> productIds[i]);
+            });
+
+        } catch (SQLException e) {
+            throw new ProductDataAccessException("Unable to remove products from the db", e);
         }
     }
 
@@ -154,106 +522,649 @@ public class JdbcProductDao implements IProductDao{
     @Override
     public List<Product> findById(int productId) {
 
-        // Create an empty list to hold the Product objects we will retrieve.
-        List<Product> products = new ArrayList<>();
-
         // This is the SQL SELECT statement we will run.
         String sql = """
                 SELECT
                     ProductID,
                     ProductName,
                     CategoryID,
-                    UnitPrice
+                    UnitPrice,
+                    Version
                 FROM
                     Products
                 WHERE
                     ProductID = ?
                 """;
 
-        // This is a "try-with-resources" block.
-        // It ensures that the Connection, Statement, and ResultSet are closed automatically after we are done.
-        try (
-                Connection connection = dataSource.getConnection();
-                PreparedStatement preparedStatement = connection.prepareStatement(sql)
-        ) {
+        // Set the first parameter (?) to the product's id.
+        return queryProducts(sql, "Unable to retrieve product from DB", queryTimeouts.lookupSeconds(),
+                preparedStatement -> preparedStatement.setInt(1, productId));
+    }
 
-            // Set the first parameter (?) to the product's id.
-            preparedStatement.setInt(1, productId);
+    // This method will return many Products by id using chunked IN queries.
+    // It is required because we are implementing the IProductDao interface.
+    @Override
+    public List<Product> findByIds(int... productIds) {
 
-            // Execute the SELECT statement — this will retrieve matching the row from the database.
-            try (ResultSet results = preparedStatement.executeQuery()) {
+        // Look every id up once, in ProductID order.
+        int[] ids = Arrays.stream(productIds).distinct().sorted().toArray();
 
-                // Loop through each row in the ResultSet
-                while(results.next()) {
-                    // Create a Product object
-                    Product product = new Product();
+        // Create an empty list to hold the Product objects we will retrieve.
+        List<Product> products = new ArrayList<>(ids.length);
+        if (ids.length == 0) {
+            return products;
+        }
 
-                    // Set the product's ID from the "ProductID" column.
-                    product.setProductId(results.getInt("ProductID"));
+        try (Connection connection = dataSource.getConnection()) {
 
-                    // Set the product's name from the "ProductName" column.
-                    product.setProductName(results.getString("ProductName"));
+            // One query per batchSize ids, all on the same connection.
+            for (int start = 0; start < ids.length; start += batchSize) {
+                int end = Math.min(start + batchSize, ids.length);
 
-                    // Set the product's category id from the "CategoryID" column.
-                    product.setCategoryId(results.getInt("CategoryID"));
+                // Round the number of ? up to a power of two (padding with the last id), so there are only a few
+                // different IN lists and each one's prepared statement is reused from the statement cache.
+                int count = end - start;
+                int placeholders = Math.min(count <= 1 ? 1 : Integer.highestOneBit(count - 1) << 1, batchSize);
 
-                    // Set the product's unit price from the "UnitPrice" column.
-                    product.setUnitPrice(results.getDouble("UnitPrice"));
+                // This is the SQL SELECT statement we will run.
+                String sql = """
+                        SELECT
+                            ProductID,
+                            ProductName,
+                            CategoryID,
+                            UnitPrice,
+                            Version
+                        FROM
+                            Products
+                        WHERE
+                            ProductID IN (%s)
+                        ORDER BY
+                            ProductID
+                        """.formatted(String.join(", ", Collections.nCopies(placeholders, "?")));
 
-                    // Add the Product object to the list
-                    products.add(product);
-                }
+                try (PreparedStatement preparedStatement = connection.prepareStatement(sql)) {
+                    preparedStatement.setQueryTimeout(queryTimeouts.lookupSeconds());
+                    for (int i = 0; i < placeholders; i++) {
+                        preparedStatement.setInt(i + 1, ids[Math.min(start + i, end - 1)]);
+                    }
 
+                    try (ResultSet results = preparedStatement.executeQuery()) {
+                        ProductRowMapper mapper = new ProductRowMapper(results);
+                        while (results.next()) {
+                            products.add(mapper.toProduct());
+                        }
+                    }
+                }
             }
 
-        }catch (SQLException e){
-            // If something goes wrong (SQL error), print a message and the stack trace to help debug.
-            System.out.println("ERROR: Unable to retrieve products list from DB " + e);
+        } catch (SQLException e) {
+            throw new ProductDataAccessException("Unable to retrieve products by id from DB", e);
         }
 
-        // Return the list of Product objects
         return products;
+    }
+
+    // This method will return every Product in a category.
+    // It is required because we are implementing the IProductDao interface.
+    @Override
+    public List<Product> findByCategory(int categoryId) {
+
+        // This is the SQL SELECT statement we will run (served by the index on CategoryID, see db/product-indexes.sql).
+        String sql = """
+                SELECT
+                    ProductID,
+                    ProductName,
+                    CategoryID,
+                    UnitPrice,
+                    Version
+                FROM
+                    Products
+                WHERE
+                    CategoryID = ?
+                ORDER BY
+                    ProductID
+                """;
+
+        return queryProducts(sql, "Unable to retrieve products by category from DB", queryTimeouts.scanSeconds(),
+                preparedStatement -> preparedStatement.setInt(1, categoryId));
+    }
+
+    // This method will return every Product within a price range.
+    // It is required because we are implementing the IProductDao interface.
+    @Override
+    public List<Product> findByPriceRange(double minPrice, double maxPrice) {
+
+        // This is the SQL SELECT statement we will run (served by the index on UnitPrice, see db/product-indexes.sql).
+        String sql = """
+                SELECT
+                    ProductID,
+                    ProductName,
+                    CategoryID,
+                    UnitPrice,
+                    Version
+                FROM
+                    Products
+                WHERE
+                    UnitPrice BETWEEN ? AND ?
+                ORDER BY
+                    UnitPrice,
+                    ProductID
+                """;
+
+        return queryProducts(sql, "Unable to retrieve products by price from DB", queryTimeouts.scanSeconds(),
+                preparedStatement -> {
+                    preparedStatement.setDouble(1, minPrice);
+                    preparedStatement.setDouble(2, maxPrice);
+                });
+    }
+
+    // This method will return every Product whose name starts with a prefix.
+    // It is required because we are implementing the IProductDao interface.
+    @Override
+    public List<Product> findByNamePrefix(String prefix) {
+
+        // This is the SQL SELECT statement we will run. A LIKE with only a trailing % can seek on the ProductName index,
+        // and the column's case-insensitive collation makes the match ignore case.
+        String sql = """
+                SELECT
+                    ProductID,
+                    ProductName,
+                    CategoryID,
+                    UnitPrice,
+                    Version
+                FROM
+                    Products
+                WHERE
+                    ProductName LIKE ? ESCAPE '!'
+                ORDER BY
+                    ProductName,
+                    ProductID
+                """;
+
+        // Escape the LIKE wildcards so they match literally, then add our own trailing %.
+        String pattern = prefix
+                .replace("!", "!!")
+                .replace("%", "!%")
+                .replace("_", "!_") + "%";
 
+        return queryProducts(sql, "Unable to retrieve products by name from DB", queryTimeouts.scanSeconds(),
+                preparedStatement -> preparedStatement.setString(1, pattern));
     }
 
     // This method will update a Product in the database.
     // It is required because we are implementing the IProductDao interface.
+    // The update only happens if the row still has the product's version (optimistic locking); if another writer
+    // got there first an OptimisticLockException is thrown and nothing changes. A product with version 0 overwrites
+    // the row whatever its version. If there is no such row a ProductNotFoundException is thrown.
+    // On success the product's version is set to the row's new version.
     @Override
     public void update(Product product) {
 
         // This is the SQL UPDATE statement we will run.
+        try (
+                Connection connection = dataSource.getConnection();
+                PreparedStatement preparedStatement = connection.prepareStatement(UPDATE_SQL)
+                ) {
+            preparedStatement.setQueryTimeout(queryTimeouts.writeSeconds());
+
+            // Set the parameters (?) to the product's name, category, price, id and expected version.
+            setUpdateParameters(preparedStatement, product);
+
+            inWriteTransaction(connection, () -> {
+
+                // Execute the UPDATE statement — this will update the row in the database, if its version still matches.
+                if (preparedStatement.executeUpdate() == 0) {
+                    checkConflict(connection, product);
+                    return;
+                }
+
+                recordChanges(connection, CHANGE_UPSERT, 0, 1, i -> product.getProductId());
+            });
+
+            if (product.getVersion() != 0) {
+                product.setVersion(product.getVersion() + 1);
+            }
+        } catch (SQLException e){
+            throw new ProductDataAccessException("Unable to update product", e);
+        }
+    }
+
+    // This method will update many Products in the database using JDBC batches.
+    // It is required because we are implementing the IProductDao interface.
+    // Each product is checked against its version like update(). If any product in a chunk conflicts or is missing,
+    // that chunk is rolled back and an OptimisticLockException (or ProductNotFoundException) naming the first one is
+    // thrown. Earlier chunks stay committed, and the products in them already have their new versions.
+    @Override
+    public void updateAll(Collection<Product> products) {
+
+        // Copy into a list so we can address the products by position.
+        List<Product> productList = new ArrayList<>(products);
+
+        try (
+                Connection connection = dataSource.getConnection();
+                PreparedStatement preparedStatement = connection.prepareStatement(UPDATE_SQL)
+        ) {
+            preparedStatement.setQueryTimeout(queryTimeouts.bulkSeconds());
+
+            inChunkedTransactions(connection, productList.size(), (start, end) -> {
+                for (int i = start; i < end; i++) {
+                    setUpdateParameters(preparedStatement, productList.get(i));
+                    preparedStatement.addBatch();
+                }
+                int[] updateCounts = preparedStatement.executeBatch();
+
+                // A row that wasn't updated either has a newer version or doesn't exist.
+                for (int i = start; i < end; i++) {
+                    if (updateCounts[i - start] == 0) {
+                        checkConflict(connection, productList.get(i));
+                    }
+                }
+
+                recordChanges(connection, CHANGE_UPSERT, start, end, i -> productList.get(i).getProductId());
+            }, (start, end) -> {
+                for (int i = start; i < end; i++) {
+                    Product product = productList.get(i);
+                    if (product.getVersion() != 0) {
+                        product.setVersion(product.getVersion() + 1);
+                    }
+                }
+            });
+
+        } catch (SQLException e) {
+            throw new ProductDataAccessException("Unable to update products", e);
+        }
+    }
+
+    // This method will return the products that changed after a change-log watermark, with tombstones for deletes.
+    // It is required because we are implementing the IProductDao interface.
+    //
+    // ChangeIDs are handed out when a write inserts its change row, not when it commits, so a write can commit
+    // after a higher ChangeID is already visible. Until then its ChangeID is a gap. The returned watermark
+    // therefore stops just below the first recent gap: everything above it is returned now and again next time
+    // (applying a change twice is harmless), so the late write is picked up once it commits. A gap that has been
+    // there longer than the grace period is a rolled-back write and is skipped.
+    @Override
+    public ProductChangeSet getChangesSince(long watermark) {
+        requireChangeLog();
+
+        List<Product> changed = new ArrayList<>();
+        List<Integer> deletedIds = new ArrayList<>();
+        long newWatermark;
+
+        // This is the SQL SELECT statement we will run.
+        // Each changed product appears once however often it changed, joined to its current row.
+        // A product with no current row was deleted. The scan starts at the ChangeID primary key, so the cost
+        // depends on the number of changes, not on the size of the Products table.
         String sql = """
-                UPDATE
-                    Products
-                SET
-                    ProductName = ?,
-                    CategoryID = ?,
-                    UnitPrice = ?
+                SELECT
+                    c.ChangedProductID,
+                    c.LastChangeID,
+                    p.ProductID,
+                    p.ProductName,
+                    p.CategoryID,
+                    p.UnitPrice,
+                    p.Version
+                FROM
+                    (SELECT ProductID AS ChangedProductID, MAX(ChangeID) AS LastChangeID
+                     FROM ProductChanges
+                     WHERE ChangeID > ?
+                     GROUP BY ProductID) c
+                LEFT JOIN
+                    Products p ON p.ProductID = c.ChangedProductID
+                ORDER BY
+                    c.ChangedProductID
+                """;
+
+        try (
+                Connection connection = dataSource.getConnection();
+                PreparedStatement preparedStatement = connection.prepareStatement(sql)
+        ) {
+            // Find the safe watermark first: every change at or below it has committed, so the query below sees it.
+            newWatermark = safeChangeWatermark(connection, watermark);
+
+            preparedStatement.setQueryTimeout(queryTimeouts.scanSeconds());
+            preparedStatement.setLong(1, watermark);
+
+            try (ResultSet results = preparedStatement.executeQuery()) {
+                ProductRowMapper mapper = new ProductRowMapper(results);
+                int changedProductIdColumn = results.findColumn("ChangedProductID");
+
+                while (results.next()) {
+                    mapper.productId();
+                    if (results.wasNull()) {
+                        deletedIds.add(results.getInt(changedProductIdColumn));
+                    } else {
+                        changed.add(mapper.toProduct());
+                    }
+                }
+            }
+        } catch (SQLException e) {
+            // Nothing is applied, so the caller simply asks again from the same watermark next time.
+            throw new ProductDataAccessException("Unable to retrieve product changes from DB", e);
+        }
+
+        return new ProductChangeSet(changed, deletedIds.stream().mapToInt(Integer::intValue).toArray(), newWatermark);
+    }
+
+    // This method will return the newest change-log watermark that no uncommitted write is hiding below
+    // (see getChangesSince).
+    // It is required because we are implementing the IProductDao interface.
+    @Override
+    public long getChangeWatermark() {
+        requireChangeLog();
+
+        // The first change made within the grace period. Gaps below it are older than that, so they are settled.
+        String recentSql = """
+                SELECT
+                    MIN(ChangeID)
+                FROM
+                    ProductChanges
                 WHERE
-                    ProductID = ?
+                    ChangedAt >= TIMESTAMPADD(SECOND, -?, CURRENT_TIMESTAMP)
+                """;
+
+        // The last change before it (or the last change of all, if nothing is recent).
+        String settledSql = """
+                SELECT
+                    COALESCE(MAX(ChangeID), 0)
+                FROM
+                    ProductChanges
+                WHERE
+                    ChangeID < ?
                 """;
 
+        try (
+                Connection connection = dataSource.getConnection();
+                PreparedStatement recentStatement = connection.prepareStatement(recentSql);
+                PreparedStatement settledStatement = connection.prepareStatement(settledSql)
+        ) {
+            recentStatement.setQueryTimeout(queryTimeouts.lookupSeconds());
+            recentStatement.setInt(1, changeGapGraceSeconds);
+            long firstRecent;
+            try (ResultSet results = recentStatement.executeQuery()) {
+                results.next();
+                firstRecent = results.getLong(1);
+                if (results.wasNull()) {
+                    firstRecent = Long.MAX_VALUE;
+                }
+            }
+
+            settledStatement.setQueryTimeout(queryTimeouts.lookupSeconds());
+            settledStatement.setLong(1, firstRecent);
+            long settled;
+            try (ResultSet results = settledStatement.executeQuery()) {
+                results.next();
+                settled = results.getLong(1);
+            }
+
+            return safeChangeWatermark(connection, settled);
+        } catch (SQLException e) {
+            throw new ProductDataAccessException("Unable to retrieve the product change watermark from DB", e);
+        }
+    }
+
+    // Walks the change log above `from` in ChangeID order and returns the last ChangeID before the first gap that
+    // may still be an uncommitted write. A gap counts as settled (rolled back) once the change after it is older
+    // than the grace period, because the missing ChangeID was handed out before that change was made.
+    private long safeChangeWatermark(Connection connection, long from) throws SQLException {
+        String sql = """
+                SELECT
+                    ChangeID,
+                    CASE WHEN ChangedAt < TIMESTAMPADD(SECOND, -?, CURRENT_TIMESTAMP) THEN 1 ELSE 0 END AS Settled
+                FROM
+                    ProductChanges
+                WHERE
+                    ChangeID > ?
+                ORDER BY
+                    ChangeID
+                """;
+
+        try (PreparedStatement preparedStatement = connection.prepareStatement(sql)) {
+            preparedStatement.setQueryTimeout(queryTimeouts.scanSeconds());
+            preparedStatement.setFetchSize(fetchSize);
+            preparedStatement.setInt(1, changeGapGraceSeconds);
+            preparedStatement.setLong(2, from);
+
+            long safe = from;
+            try (ResultSet results = preparedStatement.executeQuery()) {
+                while (results.next()) {
+                    long changeId = results.getLong(1);
+                    if (changeId > safe + 1 && results.getInt(2) == 0) {
+                        break;
+                    }
+                    safe = changeId;
+                }
+            }
+            return safe;
+        }
+    }
+
+    private void requireChangeLog() {
+        if (!changeLogEnabled) {
+            throw new UnsupportedOperationException("The product change log is off (set product-changes.enabled=true)");
+        }
+    }
+
+    // Operation codes stored in ProductChanges.Operation.
+    private static final String CHANGE_UPSERT = "U";
+    private static final String CHANGE_DELETE = "D";
+
+    // Records one ProductChanges row per product from start (inclusive) to end (exclusive), as one batch
+    // on the caller's connection so it commits or rolls back together with the write itself.
+    private void recordChanges(Connection connection, String operation, int start, int end,
+                               IntUnaryOperator productIdAt) throws SQLException {
+        if (!changeLogEnabled) {
+            return;
+        }
+
+        String sql = """
+                INSERT INTO
+                    ProductChanges(ProductID, Operation)
+                VALUES(?, ?)
+                """;
+
+        try (PreparedStatement preparedStatement = connection.prepareStatement(sql)) {
+            for (int i = start; i < end; i++) {
+                preparedStatement.setInt(1, productIdAt.applyAsInt(i));
+                preparedStatement.setString(2, operation);
+                preparedStatement.addBatch();
+            }
+            preparedStatement.executeBatch();
+        }
+    }
+
+    // The UPDATE used by update() and updateAll(). It bumps the version, and only matches the row if it still has
+    // the expected version (or the expected version is 0, meaning "don't check").
+    private static final String UPDATE_SQL = """
+            UPDATE
+                Products
+            SET
+                ProductName = ?,
+                CategoryID = ?,
+                UnitPrice = ?,
+                Version = Version + 1
+            WHERE
+                ProductID = ?
+                AND (? = 0 OR Version = ?)
+            """;
+
+    private static void setUpdateParameters(PreparedStatement preparedStatement, Product product) throws SQLException {
+        preparedStatement.setString(1, product.getProductName());
+        preparedStatement.setInt(2, product.getCategoryId());
+        preparedStatement.setDouble(3, product.getUnitPrice());
+        preparedStatement.setInt(4, product.getProductId());
+        preparedStatement.setInt(5, product.getVersion());
+        preparedStatement.setInt(6, product.getVersion());
+    }
+
+    // Called when an UPDATE matched no row. If the product still exists its version has moved on, which is a
+    // conflict; if it doesn't exist there was nothing to update.
+    private static void checkConflict(Connection connection, Product product) throws SQLException {
+        String sql = "SELECT Version FROM Products WHERE ProductID = ?";
+        try (PreparedStatement preparedStatement = connection.prepareStatement(sql)) {
+            preparedStatement.setInt(1, product.getProductId());
+            try (ResultSet results = preparedStatement.executeQuery()) {
+                if (results.next()) {
+                    throw new OptimisticLockException(product.getProductId(), product.getVersion(), results.getInt(1));
+                }
+                throw new ProductNotFoundException(product.getProductId());
+            }
+        }
+    }
+
+    // One single-row write, together with its change-log row.
+    @FunctionalInterface
+    private interface WriteWork {
+        void run() throws SQLException;
+    }
+
+    // With the change log on, runs the write and its change-log row in one transaction.
+    // Without it the write runs on its own, in auto-commit mode, as it always has.
+    private void inWriteTransaction(Connection connection, WriteWork work) throws SQLException {
+        if (!changeLogEnabled) {
+            work.run();
+            return;
+        }
+        inChunkedTransactions(connection, 1, (start, end) -> work.run());
+    }
+
+    // Sets the ? parameters of a query.
+    @FunctionalInterface
+    private interface ParameterSetter {
+        void set(PreparedStatement preparedStatement) throws SQLException;
+    }
+
+    // Runs a SELECT that returns Products and maps every row, letting it run for at most timeoutSeconds (0 = no limit).
+    // An SQL error is thrown as a ProductDataAccessException with errorMessage.
+    private List<Product> queryProducts(String sql, String errorMessage, int timeoutSeconds, ParameterSetter parameters) {
+
+        // Create an empty list to hold the Product objects we will retrieve.
+        List<Product> products = new ArrayList<>();
+
         try (
                 Connection connection = dataSource.getConnection();
                 PreparedStatement preparedStatement = connection.prepareStatement(sql)
-                ) {
+        ) {
 
-            // Set the first parameter (?) to the product's name.
-            preparedStatement.setString(1, product.getProductName());
+            preparedStatement.setQueryTimeout(timeoutSeconds);
+            parameters.set(preparedStatement);
 
-            // Set the second parameter (?) to the product's category id.
-            preparedStatement.setInt(2, product.getCategoryId());
+            try (ResultSet results = preparedStatement.executeQuery()) {
 
-            // Set the third parameter (?) to the product's unit price.
-            preparedStatement.setDouble(3, product.getUnitPrice());
+                // Look the columns up once, then create a Product from each row.
+                ProductRowMapper mapper = new ProductRowMapper(results);
+                while (results.next()) {
+                    products.add(mapper.toProduct());
+                }
+            }
 
-            // Set the fourth parameter (?) to the product's id.
-            preparedStatement.setInt(4, product.getProductId());
+        } catch (SQLException e) {
+            throw new ProductDataAccessException(errorMessage, e);
+        }
 
-            // Execute the UPDATE statement — this will update the row in the database.
-            preparedStatement.executeUpdate();
-        } catch (SQLException e){
-            System.out.println("ERROR: Unable to update product " + e);
+        return products;
+    }
+
+    // One chunk of work in a bulk method: handles the rows from start (inclusive) to end (exclusive).
+    @FunctionalInterface
+    private interface ChunkWork {
+        void run(int start, int end) throws SQLException;
+    }
+
+    // Splits rowCount rows into batchSize chunks and runs each chunk in its own transaction.
+    // If a chunk fails (an SQL error or, say, an OptimisticLockException) it is rolled back and the error is rethrown;
+    // chunks before it stay committed.
+    private void inChunkedTransactions(Connection connection, int rowCount, ChunkWork work) throws SQLException {
+        inChunkedTransactions(connection, rowCount, work, (start, end) -> { });
+    }
+
+    // Like inChunkedTransactions above, and runs afterCommit for each chunk once that chunk has committed (so
+    // in-memory state such as versions only changes for rows that really changed).
+    private void inChunkedTransactions(Connection connection, int rowCount, ChunkWork work, ChunkWork afterCommit)
+            throws SQLException {
+        boolean autoCommit = connection.getAutoCommit();
+        connection.setAutoCommit(false);
+
+        try {
+            for (int start = 0; start < rowCount; start += batchSize) {
+                int end = Math.min(start + batchSize, rowCount);
+                work.run(start, end);
+                connection.commit();
+                afterCommit.run(start, end);
+            }
+        } catch (SQLException | RuntimeException e) {
+            connection.rollback();
+            throw e;
+        } finally {
+            connection.setAutoCommit(autoCommit);
+        }
+    }
+
+    // Runs every chunk of one load step in a single transaction, and moves the load's position in ProductLoads to
+    // `position` in that same transaction. Returns false without running anything if the load is already at or
+    // past `position`, i.e. an earlier run committed this step.
+    private boolean inLoadTransaction(Connection connection, String loadId, long position, int rowCount,
+                                      ChunkWork work) throws SQLException {
+        String selectSql = """
+                SELECT
+                    LoadPosition
+                FROM
+                    ProductLoads
+                WHERE
+                    LoadID = ?
+                FOR UPDATE
+                """;
+        String updateSql = "UPDATE ProductLoads SET LoadPosition = ? WHERE LoadID = ?";
+        String insertSql = "INSERT INTO ProductLoads(LoadPosition, LoadID) VALUES(?, ?)";
+
+        boolean autoCommit = connection.getAutoCommit();
+        connection.setAutoCommit(false);
+
+        try {
+            // Lock the load's row, so two runs of the same step can't both get past this check.
+            boolean started;
+            try (PreparedStatement select = connection.prepareStatement(selectSql)) {
+                select.setString(1, loadId);
+                try (ResultSet results = select.executeQuery()) {
+                    started = results.next();
+                    if (started && results.getLong(1) >= position) {
+                        connection.rollback();
+                        return false;
+                    }
+                }
+            }
+
+            for (int start = 0; start < rowCount; start += batchSize) {
+                work.run(start, Math.min(start + batchSize, rowCount));
+            }
+
+            try (PreparedStatement mark = connection.prepareStatement(started ? updateSql : insertSql)) {
+                mark.setLong(1, position);
+                mark.setString(2, loadId);
+                mark.executeUpdate();
+            }
+
+            connection.commit();
+            return true;
+        } catch (SQLException | RuntimeException e) {
+            connection.rollback();
+            throw e;
+        } finally {
+            connection.setAutoCommit(autoCommit);
+        }
+    }
+
+    // Closes JDBC resources in order, printing (but not throwing) any errors. Used when a stream is closed.
+    private static void closeQuietly(AutoCloseable... resources) {
+        for (AutoCloseable resource : resources) {
+            if (resource == null) {
+                continue;
+            }
+            try {
+                resource.close();
+            } catch (Exception e) {
+                log.error("Unable to close {}", resource.getClass().getSimpleName(), e);
+            }
         }
     }
 }
@@ -0,0 +1,123 @@
+package com.pluralsight.NorthwindTradersSpringBoot.dao;
+
+import com.pluralsight.NorthwindTradersSpringBoot.datasource.ReadRoutingContext;
+import com.pluralsight.NorthwindTradersSpringBoot.model.CategoryStats;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+// Computes the per-category statistics in the database, so only a few rows per category come back instead of the
+// whole table. Count, min, max and average are a plain GROUP BY. The percentiles use window functions (MySQL 8.0+):
+// the rows are numbered by price within their category and only the rows at the percentile ranks are returned.
+// Both queries are served by the (CategoryID, UnitPrice) index in db/product-indexes.sql, and both are read-only,
+// so they go to a replica when there is one.
+@Component
+public class JdbcProductStatsDao implements IProductStatsDao {
+
+    private final DataSource dataSource;
+    private final QueryTimeouts queryTimeouts;
+
+    @Autowired
+    public JdbcProductStatsDao(DataSource dataSource, QueryTimeouts queryTimeouts) {
+        this.dataSource = dataSource;
+        this.queryTimeouts = queryTimeouts;
+    }
+
+    public JdbcProductStatsDao(DataSource dataSource) {
+        this(dataSource, QueryTimeouts.NONE);
+    }
+
+    @Override
+    public List<CategoryStats> getCategoryStats() {
+
+        // This is the SQL SELECT statement for the simple aggregates.
+        String aggregatesSql = """
+                SELECT
+                    CategoryID,
+                    COUNT(*) AS ProductCount,
+                    MIN(UnitPrice) AS MinPrice,
+                    MAX(UnitPrice) AS MaxPrice,
+                    AVG(UnitPrice) AS AveragePrice
+                FROM
+                    Products
+                GROUP BY
+                    CategoryID
+                ORDER BY
+                    CategoryID
+                """;
+
+        // This is the SQL SELECT statement for the percentiles: the rows at the ranks CategoryStats.rankOf() picks,
+        // computed with the same integer arithmetic.
+        String percentilesSql = """
+                SELECT
+                    CategoryID,
+                    RowNumber,
+                    UnitPrice
+                FROM
+                    (SELECT
+                        CategoryID,
+                        UnitPrice,
+                        ROW_NUMBER() OVER (PARTITION BY CategoryID ORDER BY UnitPrice) AS RowNumber,
+                        COUNT(*) OVER (PARTITION BY CategoryID) AS ProductCount
+                     FROM
+                        Products) ranked
+                WHERE
+                    RowNumber IN (FLOOR((ProductCount * 50 + 99) / 100),
+                                  FLOOR((ProductCount * 90 + 99) / 100),
+                                  FLOOR((ProductCount * 99 + 99) / 100))
+                """;
+
+        boolean previous = ReadRoutingContext.beginRead();
+        try (Connection connection = dataSource.getConnection()) {
+
+            // Price at each percentile rank, keyed by category and then by rank.
+            Map<Integer, Map<Long, Double>> pricesAtRank = new HashMap<>();
+            try (
+                    PreparedStatement preparedStatement = connection.prepareStatement(percentilesSql);
+            ) {
+                preparedStatement.setQueryTimeout(queryTimeouts.scanSeconds());
+                try (ResultSet results = preparedStatement.executeQuery()) {
+                    while (results.next()) {
+                        pricesAtRank.computeIfAbsent(results.getInt("CategoryID"), id -> new HashMap<>())
+                                .put(results.getLong("RowNumber"), results.getDouble("UnitPrice"));
+                    }
+                }
+            }
+
+            List<CategoryStats> stats = new ArrayList<>();
+            try (PreparedStatement preparedStatement = connection.prepareStatement(aggregatesSql)) {
+                preparedStatement.setQueryTimeout(queryTimeouts.scanSeconds());
+                try (ResultSet results = preparedStatement.executeQuery()) {
+                    while (results.next()) {
+                        int categoryId = results.getInt("CategoryID");
+                        long count = results.getLong("ProductCount");
+                        Map<Long, Double> ranks = pricesAtRank.getOrDefault(categoryId, Map.of());
+
+                        stats.add(new CategoryStats(categoryId, count,
+                                results.getDouble("MinPrice"),
+                                results.getDouble("MaxPrice"),
+                                results.getDouble("AveragePrice"),
+                                ranks.getOrDefault(CategoryStats.rankOf(50, count), Double.NaN),
+                                ranks.getOrDefault(CategoryStats.rankOf(90, count), Double.NaN),
+                                ranks.getOrDefault(CategoryStats.rankOf(99, count), Double.NaN)));
+                    }
+                }
+            }
+            return stats;
+
+        } catch (SQLException e) {
+            throw new ProductDataAccessException("Unable to retrieve category statistics from DB", e);
+        } finally {
+            ReadRoutingContext.endRead(previous);
+        }
+    }
+}
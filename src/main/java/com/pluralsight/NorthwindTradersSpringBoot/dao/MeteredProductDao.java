@@ -0,0 +1,351 @@
+package com.pluralsight.NorthwindTradersSpringBoot.dao;
+
+import com.pluralsight.NorthwindTradersSpringBoot.model.Product;
+import com.pluralsight.NorthwindTradersSpringBoot.model.ProductChangeSet;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.time.Duration;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+// Records a Micrometer timer, a row-count summary and an error counter for every call to another IProductDao,
+// and logs a warning for any call slower than the slow-query threshold.
+// All meters are looked up once here in the constructor, so a call only reads the clock twice and bumps a few counters —
+// no tag lists, lambdas or registry lookups on the hot path.
+public class MeteredProductDao extends ForwardingProductDao {
+
+    private static final Logger log = LoggerFactory.getLogger(MeteredProductDao.class);
+
+    private final long slowQueryNanos;
+
+    private final Operation add;
+    private final Operation addAll;
+    private final Operation addAllOnce;
+    private final Operation getAll;
+    private final Operation streamAll;
+    private final Operation forEach;
+    private final Operation getPage;
+    private final Operation deleteByID;
+    private final Operation deleteByIds;
+    private final Operation findById;
+    private final Operation findByIds;
+    private final Operation findByCategory;
+    private final Operation findByPriceRange;
+    private final Operation findByNamePrefix;
+    private final Operation update;
+    private final Operation updateAll;
+    private final Operation getChangesSince;
+    private final Operation getChangeWatermark;
+
+    public MeteredProductDao(IProductDao delegate, MeterRegistry registry, Duration slowQueryThreshold) {
+        super(delegate);
+        this.slowQueryNanos = slowQueryThreshold.toNanos();
+
+        this.add = new Operation(registry, "add");
+        this.addAll = new Operation(registry, "addAll");
+        this.addAllOnce = new Operation(registry, "addAllOnce");
+        this.getAll = new Operation(registry, "getAll");
+        this.streamAll = new Operation(registry, "streamAll");
+        this.forEach = new Operation(registry, "forEach");
+        this.getPage = new Operation(registry, "getPage");
+        this.deleteByID = new Operation(registry, "deleteByID");
+        this.deleteByIds = new Operation(registry, "deleteByIds");
+        this.findById = new Operation(registry, "findById");
+        this.findByIds = new Operation(registry, "findByIds");
+        this.findByCategory = new Operation(registry, "findByCategory");
+        this.findByPriceRange = new Operation(registry, "findByPriceRange");
+        this.findByNamePrefix = new Operation(registry, "findByNamePrefix");
+        this.update = new Operation(registry, "update");
+        this.updateAll = new Operation(registry, "updateAll");
+        this.getChangesSince = new Operation(registry, "getChangesSince");
+        this.getChangeWatermark = new Operation(registry, "getChangeWatermark");
+    }
+
+    @Override
+    public void add(Product product) {
+        long start = System.nanoTime();
+        try {
+            delegate.add(product);
+            finish(add, start, 1);
+        } catch (RuntimeException e) {
+            fail(add, start, e);
+            throw e;
+        }
+    }
+
+    @Override
+    public int[] addAll(Collection<Product> products) {
+        long start = System.nanoTime();
+        try {
+            int[] ids = delegate.addAll(products);
+            finish(addAll, start, products.size());
+            return ids;
+        } catch (RuntimeException e) {
+            fail(addAll, start, e);
+            throw e;
+        }
+    }
+
+    @Override
+    public int[] addAllOnce(String loadId, long position, Collection<Product> products) {
+        long start = System.nanoTime();
+        try {
+            int[] ids = delegate.addAllOnce(loadId, position, products);
+            finish(addAllOnce, start, products.size());
+            return ids;
+        } catch (RuntimeException e) {
+            fail(addAllOnce, start, e);
+            throw e;
+        }
+    }
+
+    @Override
+    public List<Product> getAll() {
+        long start = System.nanoTime();
+        try {
+            List<Product> products = delegate.getAll();
+            finish(getAll, start, products.size());
+            return products;
+        } catch (RuntimeException e) {
+            fail(getAll, start, e);
+            throw e;
+        }
+    }
+
+    // Only opening the stream is timed — the rows are read later, at whatever pace the caller consumes them.
+    @Override
+    public Stream<Product> streamAll() {
+        long start = System.nanoTime();
+        try {
+            Stream<Product> products = delegate.streamAll();
+            finish(streamAll, start, 0);
+            return products;
+        } catch (RuntimeException e) {
+            fail(streamAll, start, e);
+            throw e;
+        }
+    }
+
+    @Override
+    public void forEach(ProductVisitor visitor) {
+        long start = System.nanoTime();
+        int[] rows = new int[1];
+        try {
+            delegate.forEach(row -> {
+                rows[0]++;
+                visitor.visit(row);
+            });
+            finish(forEach, start, rows[0]);
+        } catch (RuntimeException e) {
+            fail(forEach, start, e);
+            throw e;
+        }
+    }
+
+    @Override
+    public List<Product> getPage(int afterProductId, int pageSize) {
+        long start = System.nanoTime();
+        try {
+            List<Product> products = delegate.getPage(afterProductId, pageSize);
+            finish(getPage, start, products.size());
+            return products;
+        } catch (RuntimeException e) {
+            fail(getPage, start, e);
+            throw e;
+        }
+    }
+
+    @Override
+    public void deleteByID(int productId) {
+        long start = System.nanoTime();
+        try {
+            delegate.deleteByID(productId);
+            finish(deleteByID, start, 1);
+        } catch (RuntimeException e) {
+            fail(deleteByID, start, e);
+            throw e;
+        }
+    }
+
+    @Override
+    public void deleteByIds(int[] productIds) {
+        long start = System.nanoTime();
+        try {
+            delegate.deleteByIds(productIds);
+            finish(deleteByIds, start, productIds.length);
+        } catch (RuntimeException e) {
+            fail(deleteByIds, start, e);
+            throw e;
+        }
+    }
+
+    @Override
+    public List<Product> findById(int productId) {
+        long start = System.nanoTime();
+        try {
+            List<Product> products = delegate.findById(productId);
+            finish(findById, start, products.size());
+            return products;
+        } catch (RuntimeException e) {
+            fail(findById, start, e);
+            throw e;
+        }
+    }
+
+    @Override
+    public List<Product> findByIds(int... productIds) {
+        long start = System.nanoTime();
+        try {
+            List<Product> products = delegate.findByIds(productIds);
+            finish(findByIds, start, products.size());
+            return products;
+        } catch (RuntimeException e) {
+            fail(findByIds, start, e);
+            throw e;
+        }
+    }
+
+    @Override
+    public List<Product> findByCategory(int categoryId) {
+        long start = System.nanoTime();
+        try {
+            List<Product> products = delegate.findByCategory(categoryId);
+            finish(findByCategory, start, products.size());
+            return products;
+        } catch (RuntimeException e) {
+            fail(findByCategory, start, e);
+            throw e;
+        }
+    }
+
+    @Override
+    public List<Product> findByPriceRange(double minPrice, double maxPrice) {
+        long start = System.nanoTime();
+        try {
+            List<Product> products = delegate.findByPriceRange(minPrice, maxPrice);
+            finish(findByPriceRange, start, products.size());
+            return products;
+        } catch (RuntimeException e) {
+            fail(findByPriceRange, start, e);
+            throw e;
+        }
+    }
+
+    @Override
+    public List<Product> findByNamePrefix(String prefix) {
+        long start = System.nanoTime();
+        try {
+            List<Product> products = delegate.findByNamePrefix(prefix);
+            finish(findByNamePrefix, start, products.size());
+            return products;
+        } catch (RuntimeException e) {
+            fail(findByNamePrefix, start, e);
+            throw e;
+        }
+    }
+
+    @Override
+    public void update(Product product) {
+        long start = System.nanoTime();
+        try {
+            delegate.update(product);
+            finish(update, start, 1);
+        } catch (RuntimeException e) {
+            fail(update, start, e);
+            throw e;
+        }
+    }
+
+    @Override
+    public void updateAll(Collection<Product> products) {
+        long start = System.nanoTime();
+        try {
+            delegate.updateAll(products);
+            finish(updateAll, start, products.size());
+        } catch (RuntimeException e) {
+            fail(updateAll, start, e);
+            throw e;
+        }
+    }
+
+    @Override
+    public ProductChangeSet getChangesSince(long watermark) {
+        long start = System.nanoTime();
+        try {
+            ProductChangeSet changes = delegate.getChangesSince(watermark);
+            finish(getChangesSince, start, changes.changed().size() + changes.deletedIds().length);
+            return changes;
+        } catch (RuntimeException e) {
+            fail(getChangesSince, start, e);
+            throw e;
+        }
+    }
+
+    @Override
+    public long getChangeWatermark() {
+        long start = System.nanoTime();
+        try {
+            long watermark = delegate.getChangeWatermark();
+            finish(getChangeWatermark, start, 0);
+            return watermark;
+        } catch (RuntimeException e) {
+            fail(getChangeWatermark, start, e);
+            throw e;
+        }
+    }
+
+    private void finish(Operation operation, long start, int rows) {
+        long nanos = System.nanoTime() - start;
+        operation.timer.record(nanos, TimeUnit.NANOSECONDS);
+        operation.rows.record(rows);
+        if (nanos >= slowQueryNanos) {
+            log.warn("Slow product query: {} took {} ms and returned {} rows",
+                    operation.name, TimeUnit.NANOSECONDS.toMillis(nanos), rows);
+        }
+    }
+
+    private void fail(Operation operation, long start, RuntimeException e) {
+        long nanos = System.nanoTime() - start;
+        operation.timer.record(nanos, TimeUnit.NANOSECONDS);
+        operation.errors.increment();
+        if (nanos >= slowQueryNanos) {
+            log.warn("Slow product query: {} failed after {} ms: {}",
+                    operation.name, TimeUnit.NANOSECONDS.toMillis(nanos), e.toString());
+        }
+    }
+
+    // The meters for one DAO method, all tagged with the method name.
+    private static final class Operation {
+
+        final String name;
+        final Timer timer;
+        final DistributionSummary rows;
+        final Counter errors;
+
+        Operation(MeterRegistry registry, String name) {
+            this.name = name;
+            this.timer = Timer.builder("product.dao.calls")
+                    .description("Time spent in each product DAO call")
+                    .tag("operation", name)
+                    // Histogram buckets rather than client-side percentiles, so percentiles can be aggregated
+                    // across instances (histogram_quantile on product_dao_calls_seconds_bucket).
+                    .publishPercentileHistogram()
+                    .register(registry);
+            this.rows = DistributionSummary.builder("product.dao.rows")
+                    .description("Rows read or written by each product DAO call")
+                    .tag("operation", name)
+                    .register(registry);
+            this.errors = Counter.builder("product.dao.errors")
+                    .description("Product DAO calls that threw an exception")
+                    .tag("operation", name)
+                    .register(registry);
+        }
+    }
+}
@@ -0,0 +1,31 @@
+package com.pluralsight.NorthwindTradersSpringBoot.dao;
+
+// Thrown by update() and updateAll() when the product's row was changed by someone else after the product was read:
+// its Version in the database is no longer the version the product carries. Nothing was written.
+// Read the product again, reapply the change and retry (RetryingProductUpdater does exactly that).
+public class OptimisticLockException extends RuntimeException {
+
+    private final int productId;
+    private final int expectedVersion;
+    private final int currentVersion;
+
+    public OptimisticLockException(int productId, int expectedVersion, int currentVersion) {
+        super("Product " + productId + " was changed by someone else (expected version " + expectedVersion
+                + " but it is now " + currentVersion + ")");
+        this.productId = productId;
+        this.expectedVersion = expectedVersion;
+        this.currentVersion = currentVersion;
+    }
+
+    public int getProductId() {
+        return productId;
+    }
+
+    public int getExpectedVersion() {
+        return expectedVersion;
+    }
+
+    public int getCurrentVersion() {
+        return currentVersion;
+    }
+}
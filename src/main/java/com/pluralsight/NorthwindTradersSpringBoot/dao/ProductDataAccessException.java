@@ -0,0 +1,42 @@
+package com.pluralsight.NorthwindTradersSpringBoot.dao;
+
+import java.sql.SQLException;
+
+// Thrown by the JDBC DAOs when the database call itself failed, so a caller can tell "no rows" from "the database
+// is down". isTransient() says whether trying again later might work (a dropped connection, a deadlock, a timeout)
+// or not (bad SQL, a constraint violation); see SqlErrorClassifier.
+public class ProductDataAccessException extends RuntimeException {
+
+    private final String sqlState;
+    private final int errorCode;
+    private final boolean transientError;
+
+    public ProductDataAccessException(String message, SQLException cause) {
+        super(message + ": " + cause.getMessage(), cause);
+        this.sqlState = cause.getSQLState();
+        this.errorCode = cause.getErrorCode();
+        this.transientError = SqlErrorClassifier.isTransient(cause);
+    }
+
+    // For failures that did not come from the driver (such as an open circuit breaker).
+    public ProductDataAccessException(String message, boolean transientError) {
+        super(message);
+        this.sqlState = null;
+        this.errorCode = 0;
+        this.transientError = transientError;
+    }
+
+    // The SQLState of the driver's error, or null if there was none.
+    public String getSqlState() {
+        return sqlState;
+    }
+
+    // The driver's vendor error code (MySQL's error number), or 0.
+    public int getErrorCode() {
+        return errorCode;
+    }
+
+    public boolean isTransient() {
+        return transientError;
+    }
+}
@@ -0,0 +1,17 @@
+package com.pluralsight.NorthwindTradersSpringBoot.dao;
+
+// Thrown by update() and updateAll() when there is no row with the product's ProductID (it was never added, or
+// someone deleted it). Nothing was written and the product's version is left as it was.
+public class ProductNotFoundException extends RuntimeException {
+
+    private final int productId;
+
+    public ProductNotFoundException(int productId) {
+        super("Product " + productId + " does not exist");
+        this.productId = productId;
+    }
+
+    public int getProductId() {
+        return productId;
+    }
+}
@@ -0,0 +1,28 @@
+package com.pluralsight.NorthwindTradersSpringBoot.dao;
+
+import com.pluralsight.NorthwindTradersSpringBoot.model.Product;
+import com.pluralsight.NorthwindTradersSpringBoot.model.ProductRecord;
+
+import java.sql.SQLException;
+
+// A view of the current row of a product query, handed to a ProductVisitor.
+// The same object is reused for every row and each getter reads straight from the ResultSet, so a visitor that
+// only needs some columns (for example prices) creates no objects. Don't keep it after visit() returns.
+public interface ProductRow {
+
+    int productId() throws SQLException;
+
+    String productName() throws SQLException;
+
+    int categoryId() throws SQLException;
+
+    double unitPrice() throws SQLException;
+
+    int version() throws SQLException;
+
+    // Copies the current row into a new mutable Product.
+    Product toProduct() throws SQLException;
+
+    // Copies the current row into a new immutable ProductRecord.
+    ProductRecord toRecord() throws SQLException;
+}
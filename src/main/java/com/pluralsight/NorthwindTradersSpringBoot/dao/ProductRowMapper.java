@@ -0,0 +1,71 @@
+package com.pluralsight.NorthwindTradersSpringBoot.dao;
+
+import com.pluralsight.NorthwindTradersSpringBoot.model.Product;
+import com.pluralsight.NorthwindTradersSpringBoot.model.ProductRecord;
+
+import java.sql.ResultSet;
+import java.sql.SQLException;
+
+// Maps the rows of one product query. The column positions are looked up by name once, when the mapper is
+// created for a ResultSet, and every row after that is read by position (no name lookup per column per row).
+// It is also the ProductRow that visitors see, so walking the rows with a visitor creates no mapper objects.
+public final class ProductRowMapper implements ProductRow {
+
+    private final ResultSet results;
+    private final int productIdColumn;
+    private final int productNameColumn;
+    private final int categoryIdColumn;
+    private final int unitPriceColumn;
+    private final int versionColumn;
+
+    public ProductRowMapper(ResultSet results) throws SQLException {
+        this.results = results;
+        this.productIdColumn = results.findColumn("ProductID");
+        this.productNameColumn = results.findColumn("ProductName");
+        this.categoryIdColumn = results.findColumn("CategoryID");
+        this.unitPriceColumn = results.findColumn("UnitPrice");
+        this.versionColumn = results.findColumn("Version");
+    }
+
+    @Override
+    public int productId() throws SQLException {
+        return results.getInt(productIdColumn);
+    }
+
+    @Override
+    public String productName() throws SQLException {
+        return results.getString(productNameColumn);
+    }
+
+    @Override
+    public int categoryId() throws SQLException {
+        return results.getInt(categoryIdColumn);
+    }
+
+    @Override
+    public double unitPrice() throws SQLException {
+        return results.getDouble(unitPriceColumn);
+    }
+
+    @Override
+    public int version() throws SQLException {
+        return results.getInt(versionColumn);
+    }
+
+    @Override
+    public Product toProduct() throws SQLException {
+        return new Product(productId(), productName(), categoryId(), unitPrice(), version());
+    }
+
+    @Override
+    public ProductRecord toRecord() throws SQLException {
+        return new ProductRecord(productId(), productName(), categoryId(), unitPrice(), version());
+    }
+
+    // Runs the visitor on every remaining row.
+    public void forEachRemaining(ProductVisitor visitor) throws SQLException {
+        while (results.next()) {
+            visitor.visit(this);
+        }
+    }
+}
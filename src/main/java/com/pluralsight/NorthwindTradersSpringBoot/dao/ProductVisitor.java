@@ -0,0 +1,10 @@
+package com.pluralsight.NorthwindTradersSpringBoot.dao;
+
+import java.sql.SQLException;
+
+// Called once per row by IProductDao.forEach.
+@FunctionalInterface
+public interface ProductVisitor {
+
+    void visit(ProductRow row) throws SQLException;
+}
@@ -0,0 +1,19 @@
+package com.pluralsight.NorthwindTradersSpringBoot.dao;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.bind.DefaultValue;
+
+// How long (in seconds) the database may work on each kind of statement before the driver cancels it, from the
+// "datasource.query-timeout." keys in application.properties. 0 means no limit.
+//   lookup: by-id lookups and pages           scan: getAll, the category/price/name queries, streaming, changes
+//   write:  add, update and deleteByID        bulk: each batch of addAll, updateAll and deleteByIds
+// A cancelled statement surfaces as a transient ProductDataAccessException.
+@ConfigurationProperties(prefix = "datasource.query-timeout")
+public record QueryTimeouts(@DefaultValue("2") int lookupSeconds,
+                            @DefaultValue("30") int scanSeconds,
+                            @DefaultValue("5") int writeSeconds,
+                            @DefaultValue("60") int bulkSeconds) {
+
+    // No timeouts at all.
+    public static final QueryTimeouts NONE = new QueryTimeouts(0, 0, 0, 0);
+}
@@ -0,0 +1,173 @@
+package com.pluralsight.NorthwindTradersSpringBoot.dao;
+
+import com.pluralsight.NorthwindTradersSpringBoot.datasource.ReadRoutingContext;
+import com.pluralsight.NorthwindTradersSpringBoot.model.Product;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.stream.Stream;
+
+// Marks the read-only DAO calls so RoutingDataSource can send them to a replica,
+// and records every write so the same caller reads from the primary for the read-your-writes window.
+public class ReadRoutingProductDao extends ForwardingProductDao {
+
+    public ReadRoutingProductDao(IProductDao delegate) {
+        super(delegate);
+    }
+
+    @Override
+    public List<Product> getAll() {
+        boolean previous = ReadRoutingContext.beginRead();
+        try {
+            return delegate.getAll();
+        } finally {
+            ReadRoutingContext.endRead(previous);
+        }
+    }
+
+    // The connection is borrowed when the stream is opened, so only opening it needs to be marked.
+    @Override
+    public Stream<Product> streamAll() {
+        boolean previous = ReadRoutingContext.beginRead();
+        try {
+            return delegate.streamAll();
+        } finally {
+            ReadRoutingContext.endRead(previous);
+        }
+    }
+
+    @Override
+    public void forEach(ProductVisitor visitor) {
+        boolean previous = ReadRoutingContext.beginRead();
+        try {
+            delegate.forEach(visitor);
+        } finally {
+            ReadRoutingContext.endRead(previous);
+        }
+    }
+
+    @Override
+    public List<Product> getPage(int afterProductId, int pageSize) {
+        boolean previous = ReadRoutingContext.beginRead();
+        try {
+            return delegate.getPage(afterProductId, pageSize);
+        } finally {
+            ReadRoutingContext.endRead(previous);
+        }
+    }
+
+    @Override
+    public List<Product> findById(int productId) {
+        boolean previous = ReadRoutingContext.beginRead();
+        try {
+            return delegate.findById(productId);
+        } finally {
+            ReadRoutingContext.endRead(previous);
+        }
+    }
+
+    @Override
+    public List<Product> findByIds(int... productIds) {
+        boolean previous = ReadRoutingContext.beginRead();
+        try {
+            return delegate.findByIds(productIds);
+        } finally {
+            ReadRoutingContext.endRead(previous);
+        }
+    }
+
+    @Override
+    public List<Product> findByCategory(int categoryId) {
+        boolean previous = ReadRoutingContext.beginRead();
+        try {
+            return delegate.findByCategory(categoryId);
+        } finally {
+            ReadRoutingContext.endRead(previous);
+        }
+    }
+
+    @Override
+    public List<Product> findByPriceRange(double minPrice, double maxPrice) {
+        boolean previous = ReadRoutingContext.beginRead();
+        try {
+            return delegate.findByPriceRange(minPrice, maxPrice);
+        } finally {
+            ReadRoutingContext.endRead(previous);
+        }
+    }
+
+    @Override
+    public List<Product> findByNamePrefix(String prefix) {
+        boolean previous = ReadRoutingContext.beginRead();
+        try {
+            return delegate.findByNamePrefix(prefix);
+        } finally {
+            ReadRoutingContext.endRead(previous);
+        }
+    }
+
+    // Writes go to the primary (they are never marked read-only); afterwards the caller's window starts.
+
+    @Override
+    public void add(Product product) {
+        try {
+            delegate.add(product);
+        } finally {
+            ReadRoutingContext.markWrite();
+        }
+    }
+
+    @Override
+    public int[] addAll(Collection<Product> products) {
+        try {
+            return delegate.addAll(products);
+        } finally {
+            ReadRoutingContext.markWrite();
+        }
+    }
+
+    @Override
+    public int[] addAllOnce(String loadId, long position, Collection<Product> products) {
+        try {
+            return delegate.addAllOnce(loadId, position, products);
+        } finally {
+            ReadRoutingContext.markWrite();
+        }
+    }
+
+    @Override
+    public void deleteByID(int productId) {
+        try {
+            delegate.deleteByID(productId);
+        } finally {
+            ReadRoutingContext.markWrite();
+        }
+    }
+
+    @Override
+    public void deleteByIds(int[] productIds) {
+        try {
+            delegate.deleteByIds(productIds);
+        } finally {
+            ReadRoutingContext.markWrite();
+        }
+    }
+
+    @Override
+    public void update(Product product) {
+        try {
+            delegate.update(product);
+        } finally {
+            ReadRoutingContext.markWrite();
+        }
+    }
+
+    @Override
+    public void updateAll(Collection<Product> products) {
+        try {
+            delegate.updateAll(products);
+        } finally {
+            ReadRoutingContext.markWrite();
+        }
+    }
+}
@@ -0,0 +1,232 @@
+package com.pluralsight.NorthwindTradersSpringBoot.dao;
+
+import com.pluralsight.NorthwindTradersSpringBoot.model.Product;
+import com.pluralsight.NorthwindTradersSpringBoot.model.ProductChangeSet;
+import com.pluralsight.NorthwindTradersSpringBoot.resilience.CircuitBreaker;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.time.Duration;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.locks.LockSupport;
+import java.util.function.Supplier;
+import java.util.stream.Stream;
+
+// Protects the database (and the callers) during a brownout.
+//
+// Every call goes through a CircuitBreaker. Transient failures (see SqlErrorClassifier) count against it; once too
+// many recent calls failed it opens, and calls fail straight away with a CircuitOpenException instead of queueing
+// up on a struggling server. Permanent errors (bad SQL, constraint violations) show the database is answering, so
+// they count as successes.
+//
+// Reads are retried on a transient failure, up to maxAttempts in total, with full-jitter backoff so many callers
+// retrying at once spread out. Writes are never retried: a write whose reply was lost may well have happened, and
+// doing it again (another INSERT, or an UPDATE that now fails its version check) would be wrong. forEach isn't
+// retried either, because the visitor may already have seen some rows.
+//
+// Meters: product.dao.circuit.state (0 closed, 1 open, 2 half-open), product.dao.circuit.transitions (by state),
+// product.dao.circuit.rejected (calls turned away) and product.dao.retries.
+public class ResilientProductDao extends ForwardingProductDao {
+
+    private static final Logger log = LoggerFactory.getLogger(ResilientProductDao.class);
+
+    private final CircuitBreaker circuitBreaker;
+    private final int maxAttempts;
+    private final long firstBackoffNanos;
+    private final long maxBackoffNanos;
+
+    private final Counter retries;
+    private final Counter rejected;
+
+    public ResilientProductDao(IProductDao delegate, CircuitBreaker circuitBreaker, int maxAttempts,
+                               Duration firstBackoff, Duration maxBackoff, MeterRegistry registry) {
+        super(delegate);
+        if (maxAttempts < 1) {
+            throw new IllegalArgumentException("maxAttempts must be at least 1");
+        }
+        this.circuitBreaker = circuitBreaker;
+        this.maxAttempts = maxAttempts;
+        this.firstBackoffNanos = Math.max(1, firstBackoff.toNanos());
+        this.maxBackoffNanos = Math.max(firstBackoffNanos, maxBackoff.toNanos());
+
+        this.retries = Counter.builder("product.dao.retries")
+                .description("Product DAO reads tried again after a transient database error")
+                .register(registry);
+        this.rejected = Counter.builder("product.dao.circuit.rejected")
+                .description("Product DAO calls turned away because the circuit breaker was open")
+                .register(registry);
+        Gauge.builder("product.dao.circuit.state", circuitBreaker, breaker -> switch (breaker.state()) {
+                    case CLOSED -> 0;
+                    case OPEN -> 1;
+                    case HALF_OPEN -> 2;
+                })
+                .description("Product DAO circuit breaker state: 0 closed, 1 open, 2 half-open")
+                .register(registry);
+
+        // Look the transition counters up once, like MeteredProductDao does with its meters.
+        Counter[] transitions = new Counter[CircuitBreaker.State.values().length];
+        for (CircuitBreaker.State state : CircuitBreaker.State.values()) {
+            transitions[state.ordinal()] = Counter.builder("product.dao.circuit.transitions")
+                    .description("Times the product DAO circuit breaker moved to each state")
+                    .tag("state", state.name().toLowerCase())
+                    .register(registry);
+        }
+        circuitBreaker.onStateChange(state -> {
+            transitions[state.ordinal()].increment();
+            log.warn("Product DAO circuit breaker is now {}", state);
+        });
+    }
+
+    @Override
+    public void add(Product product) {
+        write("add", () -> delegate.add(product));
+    }
+
+    @Override
+    public int[] addAll(Collection<Product> products) {
+        return once("addAll", () -> delegate.addAll(products));
+    }
+
+    // Safe to retry: a step that did commit is skipped the second time.
+    @Override
+    public int[] addAllOnce(String loadId, long position, Collection<Product> products) {
+        return read("addAllOnce", () -> delegate.addAllOnce(loadId, position, products));
+    }
+
+    @Override
+    public List<Product> getAll() {
+        return read("getAll", delegate::getAll);
+    }
+
+    // Only opening the stream is protected; a failure while reading rows later reaches the caller as it is.
+    @Override
+    public Stream<Product> streamAll() {
+        return read("streamAll", delegate::streamAll);
+    }
+
+    @Override
+    public void forEach(ProductVisitor visitor) {
+        write("forEach", () -> delegate.forEach(visitor));
+    }
+
+    @Override
+    public List<Product> getPage(int afterProductId, int pageSize) {
+        return read("getPage", () -> delegate.getPage(afterProductId, pageSize));
+    }
+
+    @Override
+    public void deleteByID(int productId) {
+        write("deleteByID", () -> delegate.deleteByID(productId));
+    }
+
+    @Override
+    public void deleteByIds(int[] productIds) {
+        write("deleteByIds", () -> delegate.deleteByIds(productIds));
+    }
+
+    @Override
+    public List<Product> findById(int productId) {
+        return read("findById", () -> delegate.findById(productId));
+    }
+
+    @Override
+    public List<Product> findByIds(int... productIds) {
+        return read("findByIds", () -> delegate.findByIds(productIds));
+    }
+
+    @Override
+    public List<Product> findByCategory(int categoryId) {
+        return read("findByCategory", () -> delegate.findByCategory(categoryId));
+    }
+
+    @Override
+    public List<Product> findByPriceRange(double minPrice, double maxPrice) {
+        return read("findByPriceRange", () -> delegate.findByPriceRange(minPrice, maxPrice));
+    }
+
+    @Override
+    public List<Product> findByNamePrefix(String prefix) {
+        return read("findByNamePrefix", () -> delegate.findByNamePrefix(prefix));
+    }
+
+    @Override
+    public void update(Product product) {
+        write("update", () -> delegate.update(product));
+    }
+
+    @Override
+    public void updateAll(Collection<Product> products) {
+        write("updateAll", () -> delegate.updateAll(products));
+    }
+
+    @Override
+    public ProductChangeSet getChangesSince(long watermark) {
+        return read("getChangesSince", () -> delegate.getChangesSince(watermark));
+    }
+
+    @Override
+    public long getChangeWatermark() {
+        return read("getChangeWatermark", delegate::getChangeWatermark);
+    }
+
+    public CircuitBreaker.State circuitState() {
+        return circuitBreaker.state();
+    }
+
+    // Runs a read, trying again after a transient failure while attempts are left and the breaker allows it.
+    private <T> T read(String operation, Supplier<T> call) {
+        long backoffNanos = firstBackoffNanos;
+
+        for (int attempt = 1; ; attempt++) {
+            try {
+                return once(operation, call);
+            } catch (CircuitOpenException e) {
+                throw e;
+            } catch (ProductDataAccessException e) {
+                if (!e.isTransient() || attempt >= maxAttempts) {
+                    throw e;
+                }
+            }
+
+            // Full jitter: sleep a random time up to the current backoff, which doubles each time (up to a cap).
+            retries.increment();
+            LockSupport.parkNanos(ThreadLocalRandom.current().nextLong(backoffNanos));
+            backoffNanos = Math.min(backoffNanos * 2, maxBackoffNanos);
+        }
+    }
+
+    private void write(String operation, Runnable call) {
+        once(operation, () -> {
+            call.run();
+            return null;
+        });
+    }
+
+    // Makes one call if the breaker lets it through, and tells the breaker how it went.
+    private <T> T once(String operation, Supplier<T> call) {
+        long permit = circuitBreaker.tryAcquire();
+        if (permit < 0) {
+            rejected.increment();
+            throw new CircuitOpenException(operation);
+        }
+
+        boolean failed = false;
+        try {
+            return call.get();
+        } catch (ProductDataAccessException e) {
+            failed = e.isTransient();
+            throw e;
+        } finally {
+            if (failed) {
+                circuitBreaker.onFailure(permit);
+            } else {
+                circuitBreaker.onSuccess(permit);
+            }
+        }
+    }
+}
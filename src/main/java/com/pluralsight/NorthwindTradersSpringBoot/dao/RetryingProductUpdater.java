@@ -0,0 +1,61 @@
+package com.pluralsight.NorthwindTradersSpringBoot.dao;
+
+import com.pluralsight.NorthwindTradersSpringBoot.model.Product;
+
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.locks.LockSupport;
+import java.util.function.UnaryOperator;
+
+// Read-modify-write with optimistic locking: reads the product, applies a change to it and updates it.
+// If someone else updated the product in between (OptimisticLockException), it reads the new row, applies the
+// change again on top of it (the "merge") and retries, after a short random pause so racing writers spread out.
+//
+// The change must be safe to apply again to a fresher row: "add 1.00 to the price" or "set the category to 3",
+// computed from the product it is given, rather than from a value read earlier.
+public class RetryingProductUpdater {
+
+    private static final long FIRST_BACKOFF_NANOS = 50_000;
+    private static final long MAX_BACKOFF_NANOS = 10_000_000;
+
+    private final IProductDao productDao;
+    private final int maxAttempts;
+
+    public RetryingProductUpdater(IProductDao productDao, int maxAttempts) {
+        if (maxAttempts < 1) {
+            throw new IllegalArgumentException("maxAttempts must be at least 1");
+        }
+        this.productDao = productDao;
+        this.maxAttempts = maxAttempts;
+    }
+
+    // Applies change to the latest version of the product and writes it. Returns the updated product, or null if
+    // there is no product with that id. If every attempt conflicts, the last OptimisticLockException is thrown.
+    public Product update(int productId, UnaryOperator<Product> change) {
+        long backoffNanos = FIRST_BACKOFF_NANOS;
+
+        for (int attempt = 1; ; attempt++) {
+            List<Product> current = productDao.findById(productId);
+            if (current.isEmpty()) {
+                return null;
+            }
+
+            Product changed = change.apply(current.get(0));
+            try {
+                productDao.update(changed);
+                return changed;
+            } catch (ProductNotFoundException e) {
+                // Deleted after we read it.
+                return null;
+            } catch (OptimisticLockException e) {
+                if (attempt >= maxAttempts) {
+                    throw e;
+                }
+            }
+
+            // Full jitter: sleep a random time up to the current backoff, which doubles each time (up to a cap).
+            LockSupport.parkNanos(ThreadLocalRandom.current().nextLong(backoffNanos));
+            backoffNanos = Math.min(backoffNanos * 2, MAX_BACKOFF_NANOS);
+        }
+    }
+}
@@ -0,0 +1,78 @@
+package com.pluralsight.NorthwindTradersSpringBoot.dao;
+
+import com.pluralsight.NorthwindTradersSpringBoot.model.Product;
+import com.pluralsight.NorthwindTradersSpringBoot.search.ProductNameSearch;
+
+import java.util.Collection;
+
+// Tells the product name search index about every write that reached the database, so /products/search sees
+// added, renamed and deleted products straight away instead of after the next reload.
+// Only successful writes are reported: a write that throws leaves the index as it was.
+public class SearchIndexingProductDao extends ForwardingProductDao {
+
+    private final ProductNameSearch nameSearch;
+
+    public SearchIndexingProductDao(IProductDao delegate, ProductNameSearch nameSearch) {
+        super(delegate);
+        this.nameSearch = nameSearch;
+    }
+
+    // The database assigns the ProductID during add, so the product is indexed after the call returns.
+    @Override
+    public void add(Product product) {
+        delegate.add(product);
+        nameSearch.productSaved(product.getProductId(), product.getProductName());
+    }
+
+    @Override
+    public int[] addAll(Collection<Product> products) {
+        int[] productIds = delegate.addAll(products);
+        int i = 0;
+        for (Product product : products) {
+            nameSearch.productSaved(productIds[i++], product.getProductName());
+        }
+        return productIds;
+    }
+
+    // Products a skipped step didn't add come back with id 0, and were indexed when they really were added.
+    @Override
+    public int[] addAllOnce(String loadId, long position, Collection<Product> products) {
+        int[] productIds = delegate.addAllOnce(loadId, position, products);
+        int i = 0;
+        for (Product product : products) {
+            int productId = productIds[i++];
+            if (productId != 0) {
+                nameSearch.productSaved(productId, product.getProductName());
+            }
+        }
+        return productIds;
+    }
+
+    @Override
+    public void update(Product product) {
+        delegate.update(product);
+        nameSearch.productSaved(product.getProductId(), product.getProductName());
+    }
+
+    @Override
+    public void updateAll(Collection<Product> products) {
+        delegate.updateAll(products);
+        for (Product product : products) {
+            nameSearch.productSaved(product.getProductId(), product.getProductName());
+        }
+    }
+
+    @Override
+    public void deleteByID(int productId) {
+        delegate.deleteByID(productId);
+        nameSearch.productDeleted(productId);
+    }
+
+    @Override
+    public void deleteByIds(int[] productIds) {
+        delegate.deleteByIds(productIds);
+        for (int productId : productIds) {
+            nameSearch.productDeleted(productId);
+        }
+    }
+}
@@ -0,0 +1,450 @@
+package com.pluralsight.NorthwindTradersSpringBoot.dao;
+
+import com.pluralsight.NorthwindTradersSpringBoot.model.Product;
+import com.pluralsight.NorthwindTradersSpringBoot.model.ProductChangeSet;
+import com.pluralsight.NorthwindTradersSpringBoot.model.ProductRecord;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.sql.SQLException;
+import java.text.Collator;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Locale;
+import java.util.NoSuchElementException;
+import java.util.PriorityQueue;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.IntFunction;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+// Spreads the Products table over several databases (shards), each with its own Products table and JdbcProductDao.
+// A product lives on shard hash(ProductID) mod shardCount, so findById, update and deleteByID go to exactly one
+// shard. New products get their ProductID from a HiLoIdGenerator (not AUTO_INCREMENT, which would repeat ids
+// across shards) before they are inserted.
+// Calls that can't be narrowed down to one shard (getAll, the find methods, pages) are sent to every shard at once
+// on a small thread pool, and the per-shard results - each already in the order the interface promises - are
+// merged into one list in that order. The bulk methods send each shard only its own rows.
+// The change log isn't supported: each shard would have its own watermark, which one long can't express.
+// Nor is addAllOnce (and so the importer), which needs the whole step in one transaction.
+public class ShardedProductDao implements IProductDao, AutoCloseable {
+
+    private static final Logger log = LoggerFactory.getLogger(ShardedProductDao.class);
+
+    private static final Comparator<Product> BY_ID = Comparator.comparingInt(Product::getProductId);
+    private static final Comparator<Product> BY_PRICE = Comparator.comparingDouble(Product::getUnitPrice).thenComparing(BY_ID);
+
+    // Names compare ignoring case and accents ("Crème" sorts with "creme"), the way the ProductName column's
+    // accent-insensitive collation sorts them on MySQL. A Collator isn't safe to share, so each call gets a copy.
+    private static final Collator NAME_COLLATOR = nameCollator();
+
+    private final List<JdbcProductDao> shards;
+    private final HiLoIdGenerator idGenerator;
+    private final ExecutorService scatterPool;
+
+    // scatterThreads is how many shard queries can run at once on behalf of all callers together
+    // (the caller's own thread always runs one of them itself).
+    public ShardedProductDao(List<JdbcProductDao> shards, HiLoIdGenerator idGenerator, int scatterThreads) {
+        if (shards.isEmpty()) {
+            throw new IllegalArgumentException("A sharded DAO needs at least one shard");
+        }
+        this.shards = List.copyOf(shards);
+        this.idGenerator = idGenerator;
+
+        AtomicInteger threadNumber = new AtomicInteger();
+        this.scatterPool = Executors.newFixedThreadPool(Math.max(1, scatterThreads), runnable -> {
+            Thread thread = new Thread(runnable, "product-shard-" + threadNumber.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    public int getShardCount() {
+        return shards.size();
+    }
+
+    // The shard a product lives on. The id is mixed first (the finalizer of MurmurHash3) so that consecutive ids,
+    // and ids that share a factor with the shard count, still spread evenly.
+    public int shardOf(int productId) {
+        int h = productId;
+        h ^= h >>> 16;
+        h *= 0x85ebca6b;
+        h ^= h >>> 13;
+        h *= 0xc2b2ae35;
+        h ^= h >>> 16;
+        return Math.floorMod(h, shards.size());
+    }
+
+    @Override
+    public void add(Product product) {
+        product.setProductId(idGenerator.next());
+        shards.get(shardOf(product.getProductId())).insertWithIds(List.of(product));
+    }
+
+    @Override
+    public int[] addAll(Collection<Product> products) {
+        int[] productIds = idGenerator.next(products.size());
+        int i = 0;
+        for (Product product : products) {
+            product.setProductId(productIds[i++]);
+        }
+
+        List<List<Product>> byShard = groupByShard(products);
+        onShards(shardsWithRows(byShard), shard -> {
+            shards.get(shard).insertWithIds(byShard.get(shard));
+            return null;
+        });
+        return productIds;
+    }
+
+    // Like JdbcProductDao.getAll, the list isn't in any particular order.
+    @Override
+    public List<Product> getAll() {
+        List<Product> products = new ArrayList<>();
+        onShards(allShards(), shard -> shards.get(shard).getAll()).forEach(products::addAll);
+        return products;
+    }
+
+    // Streams every shard at once and merges them in ProductID order, holding only one pending row per shard.
+    // Closing the stream closes every shard's stream.
+    @Override
+    public Stream<Product> streamAll() {
+        List<Stream<Product>> streams = onShards(allShards(), shard -> shards.get(shard).streamAll());
+
+        List<Iterator<Product>> iterators = new ArrayList<>();
+        for (Stream<Product> stream : streams) {
+            iterators.add(stream.iterator());
+        }
+
+        Spliterator<Product> spliterator = Spliterators.spliteratorUnknownSize(new MergingIterator(iterators, BY_ID),
+                Spliterator.ORDERED | Spliterator.NONNULL);
+        return StreamSupport.stream(spliterator, false).onClose(() -> closeAll(streams));
+    }
+
+    // Rows come from the merged streamAll, so unlike JdbcProductDao.forEach this creates a Product per row.
+    @Override
+    public void forEach(ProductVisitor visitor) {
+        try (Stream<Product> products = streamAll()) {
+            ProductRowAdapter row = new ProductRowAdapter();
+            Iterator<Product> iterator = products.iterator();
+            while (iterator.hasNext()) {
+                row.product = iterator.next();
+                visitor.visit(row);
+            }
+        } catch (SQLException e) {
+            throw new ProductDataAccessException("Unable to read products from DB", e);
+        }
+    }
+
+    // Every shard returns its own first pageSize rows after the id; the first pageSize of all of them is the page.
+    @Override
+    public List<Product> getPage(int afterProductId, int pageSize) {
+        List<Product> page = merge(onShards(allShards(), shard -> shards.get(shard).getPage(afterProductId, pageSize)), BY_ID);
+        return page.size() > pageSize ? new ArrayList<>(page.subList(0, pageSize)) : page;
+    }
+
+    @Override
+    public void deleteByID(int productId) {
+        shards.get(shardOf(productId)).deleteByID(productId);
+    }
+
+    @Override
+    public void deleteByIds(int[] productIds) {
+        int[][] byShard = groupIdsByShard(productIds);
+        onShards(shardsWithIds(byShard), shard -> {
+            shards.get(shard).deleteByIds(byShard[shard]);
+            return null;
+        });
+    }
+
+    @Override
+    public List<Product> findById(int productId) {
+        return shards.get(shardOf(productId)).findById(productId);
+    }
+
+    @Override
+    public List<Product> findByIds(int... productIds) {
+        int[][] byShard = groupIdsByShard(productIds);
+        return merge(onShards(shardsWithIds(byShard), shard -> shards.get(shard).findByIds(byShard[shard])), BY_ID);
+    }
+
+    @Override
+    public List<Product> findByCategory(int categoryId) {
+        return merge(onShards(allShards(), shard -> shards.get(shard).findByCategory(categoryId)), BY_ID);
+    }
+
+    @Override
+    public List<Product> findByPriceRange(double minPrice, double maxPrice) {
+        return merge(onShards(allShards(), shard -> shards.get(shard).findByPriceRange(minPrice, maxPrice)), BY_PRICE);
+    }
+
+    // The shards' own name order can differ from the collator's in small ways (and between databases), so the
+    // results are sorted again rather than merged, which would need every shard to agree with the comparator.
+    @Override
+    public List<Product> findByNamePrefix(String prefix) {
+        List<Product> products = new ArrayList<>();
+        onShards(allShards(), shard -> shards.get(shard).findByNamePrefix(prefix)).forEach(products::addAll);
+
+        Collator collator = (Collator) NAME_COLLATOR.clone();
+        products.sort(Comparator.comparing(Product::getProductName, collator).thenComparing(BY_ID));
+        return products;
+    }
+
+    @Override
+    public void update(Product product) {
+        shards.get(shardOf(product.getProductId())).update(product);
+    }
+
+    @Override
+    public void updateAll(Collection<Product> products) {
+        List<List<Product>> byShard = groupByShard(products);
+        onShards(shardsWithRows(byShard), shard -> {
+            shards.get(shard).updateAll(byShard.get(shard));
+            return null;
+        });
+    }
+
+    // A step would have to commit on every shard at once, and a rerun picks new ids that spread the products over
+    // the shards differently, so a shard's own record of the step couldn't tell which rows it already has.
+    @Override
+    public int[] addAllOnce(String loadId, long position, Collection<Product> products) {
+        throw new UnsupportedOperationException("Resumable loads (addAllOnce) aren't supported with sharding");
+    }
+
+    @Override
+    public ProductChangeSet getChangesSince(long watermark) {
+        throw new UnsupportedOperationException("The product change log isn't supported with sharding");
+    }
+
+    @Override
+    public long getChangeWatermark() {
+        throw new UnsupportedOperationException("The product change log isn't supported with sharding");
+    }
+
+    // Spring calls this at shutdown. The shard pools themselves are closed by DatabaseConfig.
+    @Override
+    public void close() {
+        scatterPool.shutdown();
+    }
+
+    // Runs work for each of the given shards at the same time and returns the results in the same order.
+    // The first shard runs on the caller's thread. If any shard fails, its exception is thrown once all have finished.
+    private <T> List<T> onShards(int[] shardNumbers, IntFunction<T> work) {
+        List<CompletableFuture<T>> others = new ArrayList<>();
+        for (int i = 1; i < shardNumbers.length; i++) {
+            int shard = shardNumbers[i];
+            others.add(CompletableFuture.supplyAsync(() -> work.apply(shard), scatterPool));
+        }
+
+        List<T> results = new ArrayList<>(shardNumbers.length);
+        RuntimeException failure = null;
+        if (shardNumbers.length > 0) {
+            try {
+                results.add(work.apply(shardNumbers[0]));
+            } catch (RuntimeException e) {
+                failure = e;
+            }
+        }
+        for (CompletableFuture<T> other : others) {
+            try {
+                results.add(other.join());
+            } catch (CompletionException e) {
+                // Rethrow what the shard's DAO threw, as if the caller had run the query itself.
+                RuntimeException cause = e.getCause() instanceof RuntimeException runtime ? runtime : e;
+                if (failure == null) {
+                    failure = cause;
+                } else {
+                    failure.addSuppressed(cause);
+                }
+            }
+        }
+
+        if (failure != null) {
+            // Results that did arrive (such as open streams) are closed so nothing leaks.
+            for (T result : results) {
+                if (result instanceof AutoCloseable closeable) {
+                    closeAll(List.of(closeable));
+                }
+            }
+            throw failure;
+        }
+        return results;
+    }
+
+    private int[] allShards() {
+        int[] all = new int[shards.size()];
+        Arrays.setAll(all, shard -> shard);
+        return all;
+    }
+
+    private List<List<Product>> groupByShard(Collection<Product> products) {
+        List<List<Product>> byShard = new ArrayList<>();
+        for (int shard = 0; shard < shards.size(); shard++) {
+            byShard.add(new ArrayList<>());
+        }
+        for (Product product : products) {
+            byShard.get(shardOf(product.getProductId())).add(product);
+        }
+        return byShard;
+    }
+
+    private int[] shardsWithRows(List<List<Product>> byShard) {
+        int[] shardNumbers = new int[shards.size()];
+        int count = 0;
+        for (int shard = 0; shard < byShard.size(); shard++) {
+            if (!byShard.get(shard).isEmpty()) {
+                shardNumbers[count++] = shard;
+            }
+        }
+        return Arrays.copyOf(shardNumbers, count);
+    }
+
+    private int[][] groupIdsByShard(int[] productIds) {
+        int[] counts = new int[shards.size()];
+        for (int productId : productIds) {
+            counts[shardOf(productId)]++;
+        }
+        int[][] byShard = new int[shards.size()][];
+        for (int shard = 0; shard < byShard.length; shard++) {
+            byShard[shard] = new int[counts[shard]];
+            counts[shard] = 0;
+        }
+        for (int productId : productIds) {
+            int shard = shardOf(productId);
+            byShard[shard][counts[shard]++] = productId;
+        }
+        return byShard;
+    }
+
+    private static int[] shardsWithIds(int[][] byShard) {
+        int[] shardNumbers = new int[byShard.length];
+        int count = 0;
+        for (int shard = 0; shard < byShard.length; shard++) {
+            if (byShard[shard].length > 0) {
+                shardNumbers[count++] = shard;
+            }
+        }
+        return Arrays.copyOf(shardNumbers, count);
+    }
+
+    // Merges lists that are each sorted by order into one sorted list.
+    static List<Product> merge(List<List<Product>> lists, Comparator<Product> order) {
+        if (lists.size() == 1) {
+            return lists.get(0);
+        }
+        int size = 0;
+        List<Iterator<Product>> iterators = new ArrayList<>();
+        for (List<Product> list : lists) {
+            size += list.size();
+            iterators.add(list.iterator());
+        }
+
+        List<Product> merged = new ArrayList<>(size);
+        new MergingIterator(iterators, order).forEachRemaining(merged::add);
+        return merged;
+    }
+
+    private static Collator nameCollator() {
+        Collator collator = Collator.getInstance(Locale.ROOT);
+        collator.setStrength(Collator.PRIMARY);
+        return collator;
+    }
+
+    private static void closeAll(List<? extends AutoCloseable> resources) {
+        for (AutoCloseable resource : resources) {
+            try {
+                resource.close();
+            } catch (Exception e) {
+                log.error("Unable to close a shard resource", e);
+            }
+        }
+    }
+
+    // A k-way merge: a heap holds the next product of every input, so each product costs O(log k) comparisons
+    // and only one product per input is held at a time.
+    private static final class MergingIterator implements Iterator<Product> {
+
+        private record Head(Product product, Iterator<Product> rest) {
+        }
+
+        private final PriorityQueue<Head> heads;
+
+        MergingIterator(List<Iterator<Product>> inputs, Comparator<Product> order) {
+            heads = new PriorityQueue<>(Math.max(1, inputs.size()), Comparator.comparing(Head::product, order));
+            for (Iterator<Product> input : inputs) {
+                if (input.hasNext()) {
+                    heads.add(new Head(input.next(), input));
+                }
+            }
+        }
+
+        @Override
+        public boolean hasNext() {
+            return !heads.isEmpty();
+        }
+
+        @Override
+        public Product next() {
+            Head head = heads.poll();
+            if (head == null) {
+                throw new NoSuchElementException();
+            }
+            if (head.rest().hasNext()) {
+                heads.add(new Head(head.rest().next(), head.rest()));
+            }
+            return head.product();
+        }
+    }
+
+    // The ProductRow handed to forEach visitors, reading from the current merged Product.
+    private static final class ProductRowAdapter implements ProductRow {
+
+        private Product product;
+
+        @Override
+        public int productId() {
+            return product.getProductId();
+        }
+
+        @Override
+        public String productName() {
+            return product.getProductName();
+        }
+
+        @Override
+        public int categoryId() {
+            return product.getCategoryId();
+        }
+
+        @Override
+        public double unitPrice() {
+            return product.getUnitPrice();
+        }
+
+        @Override
+        public int version() {
+            return product.getVersion();
+        }
+
+        @Override
+        public Product toProduct() {
+            return new Product(product.getProductId(), product.getProductName(), product.getCategoryId(),
+                    product.getUnitPrice(), product.getVersion());
+        }
+
+        @Override
+        public ProductRecord toRecord() {
+            return ProductRecord.of(product);
+        }
+    }
+}
@@ -0,0 +1,49 @@
+package com.pluralsight.NorthwindTradersSpringBoot.dao;
+
+import java.sql.SQLException;
+import java.sql.SQLRecoverableException;
+import java.sql.SQLTransientException;
+import java.util.Set;
+
+// Decides whether an SQLException is transient (the same call may work if it is tried again) or permanent.
+//
+// Transient: lost or refused connections (SQLState class 08), rolled-back transactions such as deadlocks and
+// serialization failures (class 40), timeouts and cancelled statements (HYT00, HYT01, 57014), and a few MySQL
+// error numbers that the driver reports with a generic SQLState (lock wait timeout, too many connections, ...).
+// Everything else, like bad SQL (42), constraint violations (23) or bad data (22), is permanent.
+public final class SqlErrorClassifier {
+
+    private static final Set<String> TRANSIENT_STATES = Set.of("HYT00", "HYT01", "57014", "57P01", "53300");
+
+    // MySQL error numbers: 1040 too many connections, 1205 lock wait timeout, 1213 deadlock,
+    // 2002/2003 can't connect, 2006 server gone away, 2013 lost connection, 3024 max_execution_time exceeded.
+    private static final Set<Integer> TRANSIENT_MYSQL_ERRORS = Set.of(1040, 1205, 1213, 2002, 2003, 2006, 2013, 3024);
+
+    private SqlErrorClassifier() {
+    }
+
+    // Looks at the exception and every exception chained to it; any transient one makes the whole error transient.
+    public static boolean isTransient(SQLException e) {
+        for (Throwable t = e; t != null; t = t.getCause()) {
+            if (t instanceof SQLException sql) {
+                for (SQLException next = sql; next != null; next = next.getNextException()) {
+                    if (isTransientOne(next)) {
+                        return true;
+                    }
+                }
+            }
+        }
+        return false;
+    }
+
+    private static boolean isTransientOne(SQLException e) {
+        if (e instanceof SQLTransientException || e instanceof SQLRecoverableException) {
+            return true;
+        }
+        if (TRANSIENT_MYSQL_ERRORS.contains(e.getErrorCode())) {
+            return true;
+        }
+        String state = e.getSQLState();
+        return state != null && (state.startsWith("08") || state.startsWith("40") || TRANSIENT_STATES.contains(state));
+    }
+}
@@ -0,0 +1,477 @@
+package com.pluralsight.NorthwindTradersSpringBoot.dao;
+
+import com.pluralsight.NorthwindTradersSpringBoot.model.Product;
+import com.pluralsight.NorthwindTradersSpringBoot.writebehind.PendingWrite;
+import com.pluralsight.NorthwindTradersSpringBoot.writebehind.WriteBehindJournal;
+import com.pluralsight.NorthwindTradersSpringBoot.writebehind.WriteBehindStats;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.TimeGauge;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Consumer;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+// Buffers update and delete calls in memory and writes them to the database in the background.
+//
+// - A write is appended to a local journal and then put in a map keyed by ProductID, so only the last write per
+//   product is kept (last write wins). The call returns as soon as that is done.
+// - A background flusher drains the map every flush interval and sends the writes as batched updates and deletes.
+// - The map holds about `capacity` products (concurrent writers can overshoot by a few). When it is full, writers
+//   of new products wait up to `offerTimeout` for the flusher to make room and then get an exception (backpressure).
+// - findById and findByIds see pending writes (read-your-writes), including writes that are being sent right now;
+//   the other reads see them once they are flushed.
+// - Updates keep their product version, so optimistic locking still applies when they reach the database. Two
+//   versioned updates of one product can't be merged (the row's version would only go up once), so a versioned
+//   update of a product that already has an unsent write flushes the queue first.
+// - A write the database refuses for good (a version conflict, a bad value) is logged and dropped (dead-lettered)
+//   instead of being retried forever; writes that fail for a passing reason (a dropped connection) are retried.
+//
+// add and addAll are passed straight through, because callers need the ProductID the database generates.
+public class WriteBehindProductDao extends ForwardingProductDao {
+
+    private static final Logger log = LoggerFactory.getLogger(WriteBehindProductDao.class);
+
+    private final ConcurrentHashMap<Integer, PendingWrite> pending = new ConcurrentHashMap<>();
+
+    // Writes the current flush has taken out of `pending` but not yet committed. Reads check them too, otherwise
+    // they would see (and the cache above us would keep) the old row while the flush is running.
+    private final ConcurrentHashMap<Integer, PendingWrite> inFlight = new ConcurrentHashMap<>();
+
+    // How many products may have a pending write, and how long a writer waits for room when that is reached.
+    private final int capacity;
+    private final Duration offerTimeout;
+    private final ReentrantLock roomLock = new ReentrantLock();
+    private final Condition roomAvailable = roomLock.newCondition();
+
+    private final WriteBehindJournal journal;
+
+    // Writers hold the read lock while they journal and buffer a write; the flusher takes the write lock for the
+    // moment it rotates the journal and drains the map, so no write can land in a journal segment that gets deleted
+    // without also being drained.
+    private final ReadWriteLock drainLock = new ReentrantReadWriteLock();
+
+    private final ScheduledExecutorService flusher;
+
+    private final LongAdder acceptedWrites = new LongAdder();
+    private final LongAdder coalescedWrites = new LongAdder();
+    private final LongAdder flushedWrites = new LongAdder();
+    private final LongAdder flushes = new LongAdder();
+    private final LongAdder failedFlushes = new LongAdder();
+    private final LongAdder deadLetteredWrites = new LongAdder();
+    private volatile long lastFlushNanos;
+
+    public WriteBehindProductDao(IProductDao delegate, Path journalDirectory, boolean fsync, int capacity,
+                                 Duration offerTimeout, Duration flushInterval) {
+        super(delegate);
+        this.capacity = capacity;
+        this.offerTimeout = offerTimeout;
+
+        try {
+            journal = new WriteBehindJournal(journalDirectory, fsync);
+
+            // Anything left in the journal from a previous run was acknowledged but never flushed.
+            pending.putAll(journal.replay());
+        } catch (IOException e) {
+            throw new UncheckedIOException("Unable to open the write-behind journal in " + journalDirectory, e);
+        }
+
+        flusher = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "product-write-behind");
+            thread.setDaemon(true);
+            return thread;
+        });
+        flusher.scheduleWithFixedDelay(this::flushQuietly, flushInterval.toMillis(), flushInterval.toMillis(),
+                TimeUnit.MILLISECONDS);
+    }
+
+    @Override
+    public void update(Product product) {
+        enqueue(PendingWrite.update(product));
+        advanceVersion(product);
+    }
+
+    @Override
+    public void updateAll(Collection<Product> products) {
+        for (Product product : products) {
+            enqueue(PendingWrite.update(product));
+            advanceVersion(product);
+        }
+    }
+
+    // Like JdbcProductDao.update: the caller's product now carries the version the row will have once the write
+    // lands (see PendingWrite.toReadProduct), so updating the same instance again isn't refused as stale.
+    private static void advanceVersion(Product product) {
+        if (product.getVersion() != 0) {
+            product.setVersion(product.getVersion() + 1);
+        }
+    }
+
+    @Override
+    public void deleteByID(int productId) {
+        enqueue(PendingWrite.delete(productId));
+    }
+
+    @Override
+    public void deleteByIds(int[] productIds) {
+        for (int productId : productIds) {
+            enqueue(PendingWrite.delete(productId));
+        }
+    }
+
+    @Override
+    public List<Product> findById(int productId) {
+        // A pending write is newer than anything in the database.
+        PendingWrite write = unsent(productId);
+        if (write == null) {
+            return delegate.findById(productId);
+        }
+        return write.type() == PendingWrite.Type.DELETE ? new ArrayList<>() : List.of(write.toReadProduct());
+    }
+
+    @Override
+    public List<Product> findByIds(int... productIds) {
+        // Ids with a pending write are answered from it; only the rest are looked up in the database.
+        List<Product> products = new ArrayList<>();
+        int[] unbuffered = new int[productIds.length];
+        int unbufferedCount = 0;
+
+        for (int productId : Arrays.stream(productIds).distinct().toArray()) {
+            PendingWrite write = unsent(productId);
+            if (write == null) {
+                unbuffered[unbufferedCount++] = productId;
+            } else if (write.type() == PendingWrite.Type.UPDATE) {
+                products.add(write.toReadProduct());
+            }
+        }
+
+        if (unbufferedCount > 0) {
+            products.addAll(delegate.findByIds(Arrays.copyOf(unbuffered, unbufferedCount)));
+        }
+        products.sort(Comparator.comparingInt(Product::getProductId));
+        return products;
+    }
+
+    // Writes everything buffered so far to the database. Called by the background flusher, and by close().
+    public synchronized void flush() {
+        long start = System.nanoTime();
+        List<Path> flushedSegments;
+        List<PendingWrite> writes = new ArrayList<>();
+
+        drainLock.writeLock().lock();
+        try {
+            flushedSegments = journal.rotate();
+            for (Integer productId : pending.keySet()) {
+                // In flight first, then out of pending, so a reader always finds the write in one of them.
+                PendingWrite write = pending.get(productId);
+                inFlight.put(productId, write);
+                pending.remove(productId);
+                writes.add(write);
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("Unable to rotate the write-behind journal", e);
+        } finally {
+            drainLock.writeLock().unlock();
+        }
+
+        // Wake up writers that were waiting for room.
+        roomLock.lock();
+        try {
+            roomAvailable.signalAll();
+        } finally {
+            roomLock.unlock();
+        }
+
+        if (writes.isEmpty()) {
+            deleteSegments(flushedSegments);
+            return;
+        }
+
+        List<PendingWrite> updates = new ArrayList<>();
+        List<PendingWrite> deletes = new ArrayList<>();
+        for (PendingWrite write : writes) {
+            if (write.type() == PendingWrite.Type.UPDATE) {
+                updates.add(write);
+            } else {
+                deletes.add(write);
+            }
+        }
+
+        // Writes that failed for a passing reason, and the first such failure.
+        List<PendingWrite> retry = new ArrayList<>();
+        RuntimeException updateFailure = sendUpdates(updates, retry);
+        RuntimeException deleteFailure = sendDeletes(deletes, retry);
+
+        if (!retry.isEmpty()) {
+            // Put the writes back (unless a newer write for the same product arrived) and keep the journal segments,
+            // so the next flush tries again.
+            failedFlushes.increment();
+            for (PendingWrite write : retry) {
+                pending.putIfAbsent(write.productId(), write);
+                inFlight.remove(write.productId(), write);
+            }
+            throw updateFailure != null ? updateFailure : deleteFailure;
+        }
+
+        deleteSegments(flushedSegments);
+        flushes.increment();
+        lastFlushNanos = System.nanoTime() - start;
+    }
+
+    public WriteBehindStats stats() {
+        long now = System.nanoTime();
+        long oldest = now;
+        for (PendingWrite write : pending.values()) {
+            oldest = Math.min(oldest, write.enqueuedNanos());
+        }
+        for (PendingWrite write : inFlight.values()) {
+            oldest = Math.min(oldest, write.enqueuedNanos());
+        }
+        return new WriteBehindStats(
+                pending.size(),
+                acceptedWrites.sum(),
+                coalescedWrites.sum(),
+                flushedWrites.sum(),
+                flushes.sum(),
+                failedFlushes.sum(),
+                deadLetteredWrites.sum(),
+                lastFlushNanos / 1e6,
+                (now - oldest) / 1e6);
+    }
+
+    // Publishes the queue's depth, lag and counters (the same numbers as stats()) so they show up on
+    // /actuator/prometheus, not just in tests.
+    public void registerMeters(MeterRegistry registry) {
+        Gauge.builder("product.dao.write.behind.pending", pending, ConcurrentHashMap::size)
+                .description("Products with a write-behind write that hasn't been sent to the database yet")
+                .register(registry);
+        TimeGauge.builder("product.dao.write.behind.lag", this, TimeUnit.MILLISECONDS, dao -> dao.stats().lagMillis())
+                .description("Age of the oldest write-behind write that hasn't reached the database yet")
+                .register(registry);
+        FunctionCounter.builder("product.dao.write.behind.flushes", flushes, LongAdder::sum)
+                .description("Write-behind flushes that completed")
+                .register(registry);
+        FunctionCounter.builder("product.dao.write.behind.failed.flushes", failedFlushes, LongAdder::sum)
+                .description("Write-behind flushes that failed and will be tried again")
+                .register(registry);
+        FunctionCounter.builder("product.dao.write.behind.flushed", flushedWrites, LongAdder::sum)
+                .description("Write-behind writes sent to the database")
+                .register(registry);
+        FunctionCounter.builder("product.dao.write.behind.dead.lettered", deadLetteredWrites, LongAdder::sum)
+                .description("Write-behind writes the database refused for good, logged and dropped")
+                .register(registry);
+    }
+
+    // Stops the background flusher and writes out whatever is still buffered.
+    @Override
+    public void close() {
+        flusher.shutdown();
+        try {
+            flusher.awaitTermination(10, TimeUnit.SECONDS);
+            flush();
+            journal.close();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (IOException | RuntimeException e) {
+            log.error("Unable to flush the write-behind queue on close", e);
+        }
+        super.close();
+    }
+
+    private void enqueue(PendingWrite write) {
+        while (true) {
+            waitForRoom(write.productId());
+
+            drainLock.readLock().lock();
+            try {
+                if (offer(write)) {
+                    acceptedWrites.increment();
+                    return;
+                }
+            } finally {
+                drainLock.readLock().unlock();
+            }
+
+            // A versioned update of a product that already has an unsent write: send that write first, so this
+            // update is checked against the version it leaves behind.
+            flush();
+        }
+    }
+
+    // Journals the write and buffers it. Returns false (and does nothing) if it is a versioned update of a product
+    // that already has an unsent write.
+    private boolean offer(PendingWrite write) {
+        if (write.version() != 0 && inFlight.containsKey(write.productId())) {
+            return false;
+        }
+
+        boolean[] offered = {true};
+        pending.compute(write.productId(), (productId, older) -> {
+            if (older != null && write.version() != 0) {
+                offered[0] = false;
+                return older;
+            }
+            try {
+                // Journal first: once the caller hears back, the write must survive a crash.
+                journal.append(write);
+            } catch (IOException e) {
+                throw new UncheckedIOException("Unable to journal a write-behind write", e);
+            }
+
+            // Replace any pending write for the same product (last write wins).
+            if (older != null) {
+                coalescedWrites.increment();
+            }
+            return write;
+        });
+        return offered[0];
+    }
+
+    // The newest write for a product that isn't in the database yet, or null.
+    private PendingWrite unsent(int productId) {
+        PendingWrite write = pending.get(productId);
+        return write != null ? write : inFlight.get(productId);
+    }
+
+    // Sends the updates as one batch. updateAll commits in chunks and bumps the version of every product in a chunk
+    // that made it, so after a failure the versioned updates that were already committed can be told apart.
+    private RuntimeException sendUpdates(List<PendingWrite> writes, List<PendingWrite> retry) {
+        if (writes.isEmpty()) {
+            return null;
+        }
+        List<Product> products = writes.stream().map(PendingWrite::toProduct).toList();
+        try {
+            delegate.updateAll(products);
+            writes.forEach(this::sent);
+            return null;
+        } catch (RuntimeException e) {
+            List<PendingWrite> unsentWrites = new ArrayList<>();
+            for (int i = 0; i < writes.size(); i++) {
+                PendingWrite write = writes.get(i);
+                if (write.version() != 0 && products.get(i).getVersion() != write.version()) {
+                    sent(write);
+                } else {
+                    unsentWrites.add(write);
+                }
+            }
+            return sendOneByOne(unsentWrites, e, write -> delegate.update(write.toProduct()), retry);
+        }
+    }
+
+    private RuntimeException sendDeletes(List<PendingWrite> writes, List<PendingWrite> retry) {
+        if (writes.isEmpty()) {
+            return null;
+        }
+        try {
+            delegate.deleteByIds(writes.stream().mapToInt(PendingWrite::productId).toArray());
+            writes.forEach(this::sent);
+            return null;
+        } catch (RuntimeException e) {
+            return sendOneByOne(writes, e, write -> delegate.deleteByID(write.productId()), retry);
+        }
+    }
+
+    // Called after a batch failed. If the failure may pass, the whole batch is retried on the next flush. If the
+    // database refused the batch for good, one bad write shouldn't hold up the rest, so each write is sent on its
+    // own and only the ones the database refuses are dead-lettered.
+    private RuntimeException sendOneByOne(List<PendingWrite> writes, RuntimeException batchFailure,
+                                          Consumer<PendingWrite> send, List<PendingWrite> retry) {
+        if (!isPermanent(batchFailure)) {
+            retry.addAll(writes);
+            return batchFailure;
+        }
+
+        RuntimeException transientFailure = null;
+        for (PendingWrite write : writes) {
+            try {
+                send.accept(write);
+                sent(write);
+            } catch (RuntimeException e) {
+                if (isPermanent(e)) {
+                    deadLetter(write, e);
+                } else {
+                    retry.add(write);
+                    if (transientFailure == null) {
+                        transientFailure = e;
+                    }
+                }
+            }
+        }
+        return transientFailure;
+    }
+
+    private void sent(PendingWrite write) {
+        inFlight.remove(write.productId(), write);
+        flushedWrites.increment();
+    }
+
+    private void deadLetter(PendingWrite write, RuntimeException e) {
+        inFlight.remove(write.productId(), write);
+        deadLetteredWrites.increment();
+        log.error("Dropping a write-behind write the database refused: {}", write, e);
+    }
+
+    // A version conflict, a missing product or a non-transient database error fails the same way every time it is
+    // retried.
+    private static boolean isPermanent(RuntimeException e) {
+        return e instanceof OptimisticLockException
+                || e instanceof ProductNotFoundException
+                || (e instanceof ProductDataAccessException dataAccess && !dataAccess.isTransient());
+    }
+
+    // Blocks while the buffer is full, unless this product already has a pending write (replacing it takes no room).
+    private void waitForRoom(int productId) {
+        if (pending.size() < capacity || pending.containsKey(productId)) {
+            return;
+        }
+
+        long deadline = System.nanoTime() + offerTimeout.toNanos();
+        roomLock.lock();
+        try {
+            while (pending.size() >= capacity && !pending.containsKey(productId)) {
+                long remaining = deadline - System.nanoTime();
+                if (remaining <= 0) {
+                    throw new RejectedExecutionException("Write-behind queue is full (" + pending.size() + " pending)");
+                }
+                roomAvailable.awaitNanos(remaining);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RejectedExecutionException("Interrupted while waiting for room in the write-behind queue", e);
+        } finally {
+            roomLock.unlock();
+        }
+    }
+
+    private void deleteSegments(List<Path> segments) {
+        try {
+            journal.delete(segments);
+        } catch (IOException e) {
+            log.error("Unable to delete flushed write-behind journal segments", e);
+        }
+    }
+
+    private void flushQuietly() {
+        try {
+            flush();
+        } catch (RuntimeException e) {
+            log.error("Unable to flush the write-behind queue", e);
+        }
+    }
+}
@@ -0,0 +1,77 @@
+package com.pluralsight.NorthwindTradersSpringBoot.datasource;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+// Counts how long getConnection() took, in fixed buckets.
+// Recording is a bucket search plus a LongAdder increment, so it is cheap enough to leave on all the time.
+public class BorrowTimeHistogram {
+
+    // The upper bound (inclusive) of every bucket, in microseconds. The last bucket catches everything slower.
+    private static final long[] BUCKET_BOUNDS_MICROS = {
+            10, 50, 100, 500, 1_000, 5_000, 10_000, 50_000, 100_000, 500_000, 1_000_000, 5_000_000, Long.MAX_VALUE
+    };
+
+    private final LongAdder[] buckets = new LongAdder[BUCKET_BOUNDS_MICROS.length];
+    private final LongAdder count = new LongAdder();
+    private final LongAdder totalNanos = new LongAdder();
+
+    public BorrowTimeHistogram() {
+        for (int i = 0; i < buckets.length; i++) {
+            buckets[i] = new LongAdder();
+        }
+    }
+
+    public void record(long nanos) {
+        long micros = TimeUnit.NANOSECONDS.toMicros(nanos);
+        int bucket = 0;
+        while (micros > BUCKET_BOUNDS_MICROS[bucket]) {
+            bucket++;
+        }
+
+        buckets[bucket].increment();
+        count.increment();
+        totalNanos.add(nanos);
+    }
+
+    public long getCount() {
+        return count.sum();
+    }
+
+    public double getMeanMillis() {
+        long samples = count.sum();
+        return samples == 0 ? 0 : totalNanos.sum() / 1_000_000.0 / samples;
+    }
+
+    // An upper estimate of the given percentile (0-100): the bound of the bucket it falls into, in milliseconds.
+    public double getPercentileMillis(double percentile) {
+        long samples = count.sum();
+        if (samples == 0) {
+            return 0;
+        }
+
+        long target = (long) Math.ceil(samples * percentile / 100.0);
+        long seen = 0;
+        for (int i = 0; i < buckets.length; i++) {
+            seen += buckets[i].sum();
+            if (seen >= target) {
+                return i == buckets.length - 1 ? Double.POSITIVE_INFINITY : BUCKET_BOUNDS_MICROS[i] / 1000.0;
+            }
+        }
+        return Double.POSITIVE_INFINITY;
+    }
+
+    // Bucket counts keyed by a label such as "<=1ms", in order.
+    public Map<String, Long> getBuckets() {
+        Map<String, Long> result = new LinkedHashMap<>();
+        for (int i = 0; i < buckets.length; i++) {
+            String label = i == buckets.length - 1
+                    ? ">" + BUCKET_BOUNDS_MICROS[i - 1] / 1000.0 + "ms"
+                    : "<=" + BUCKET_BOUNDS_MICROS[i] / 1000.0 + "ms";
+            result.put(label, buckets[i].sum());
+        }
+        return result;
+    }
+}
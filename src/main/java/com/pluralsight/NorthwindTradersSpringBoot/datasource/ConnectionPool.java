@@ -0,0 +1,28 @@
+package com.pluralsight.NorthwindTradersSpringBoot.datasource;
+
+import javax.sql.DataSource;
+
+// A connection pool, whichever library implements it.
+// It hands out the DataSource to use and reports what the pool is doing right now.
+public interface ConnectionPool extends AutoCloseable {
+
+    // The name of the library behind this pool, e.g. "dbcp2" or "hikari".
+    String getImplementation();
+
+    DataSource getDataSource();
+
+    // Connections currently borrowed by callers.
+    int getActiveConnections();
+
+    // Connections sitting in the pool, ready to be borrowed.
+    int getIdleConnections();
+
+    // Threads currently blocked waiting for a connection.
+    int getWaitingThreads();
+
+    // The most connections the pool will open.
+    int getMaxConnections();
+
+    @Override
+    void close();
+}
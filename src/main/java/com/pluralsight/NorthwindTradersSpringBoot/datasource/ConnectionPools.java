@@ -0,0 +1,19 @@
+package com.pluralsight.NorthwindTradersSpringBoot.datasource;
+
+import com.pluralsight.NorthwindTradersSpringBoot.config.PoolProperties;
+
+// Creates the ConnectionPool picked by datasource.pool.type.
+public final class ConnectionPools {
+
+    private ConnectionPools() {
+    }
+
+    public static ConnectionPool create(String url, String username, String password, PoolProperties properties) {
+        return switch (properties.getType()) {
+            case "dbcp2" -> new Dbcp2ConnectionPool(url, username, password, properties);
+            case "hikari" -> new HikariConnectionPool(url, username, password, properties);
+            default -> throw new IllegalArgumentException(
+                    "Unknown datasource.pool.type '" + properties.getType() + "' (expected dbcp2 or hikari)");
+        };
+    }
+}
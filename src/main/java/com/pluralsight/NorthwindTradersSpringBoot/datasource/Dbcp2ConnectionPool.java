@@ -0,0 +1,93 @@
+package com.pluralsight.NorthwindTradersSpringBoot.datasource;
+
+import com.pluralsight.NorthwindTradersSpringBoot.config.PoolProperties;
+import org.apache.commons.dbcp2.BasicDataSource;
+import org.apache.commons.pool2.impl.GenericObjectPool;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import javax.sql.DataSource;
+import java.sql.SQLException;
+import java.time.Duration;
+
+// A ConnectionPool backed by Apache Commons DBCP2's BasicDataSource.
+public class Dbcp2ConnectionPool implements ConnectionPool {
+
+    private static final Logger log = LoggerFactory.getLogger(Dbcp2ConnectionPool.class);
+
+    private final BasicDataSource basicDataSource;
+
+    public Dbcp2ConnectionPool(String url, String username, String password, PoolProperties properties) {
+
+        // Build the BasicDataSource.
+        basicDataSource = new BasicDataSource();
+        basicDataSource.setUrl(url);
+        basicDataSource.setUsername(username);
+        basicDataSource.setPassword(password);
+
+        // Pool sizes and how long a caller may wait for a connection.
+        basicDataSource.setMinIdle(properties.getMinIdle());
+        basicDataSource.setMaxIdle(properties.getMaxIdle());
+        basicDataSource.setMaxTotal(properties.getMaxTotal());
+        basicDataSource.setMaxWait(Duration.ofMillis(properties.getMaxWaitMillis()));
+
+        // Prepared statement caching.
+        basicDataSource.setPoolPreparedStatements(properties.isPoolPreparedStatements());
+        basicDataSource.setMaxOpenPreparedStatements(properties.getMaxOpenPreparedStatements());
+
+        // Validation.
+        basicDataSource.setValidationQuery(properties.getValidationQuery());
+        basicDataSource.setValidationQueryTimeout(Duration.ofSeconds(properties.getValidationTimeoutSeconds()));
+        basicDataSource.setTestOnBorrow(properties.isTestOnBorrow());
+        basicDataSource.setTestWhileIdle(properties.isTestWhileIdle());
+
+        // Eviction of idle connections.
+        basicDataSource.setDurationBetweenEvictionRuns(Duration.ofMillis(properties.getTimeBetweenEvictionRunsMillis()));
+        basicDataSource.setMinEvictableIdle(Duration.ofMillis(properties.getMinEvictableIdleTimeMillis()));
+
+        if (properties.isJmxEnabled()) {
+            basicDataSource.setJmxName("org.apache.commons.dbcp2:DataSource=" + properties.getName());
+        }
+    }
+
+    @Override
+    public String getImplementation() {
+        return "dbcp2";
+    }
+
+    @Override
+    public DataSource getDataSource() {
+        return basicDataSource;
+    }
+
+    @Override
+    public int getActiveConnections() {
+        return basicDataSource.getNumActive();
+    }
+
+    @Override
+    public int getIdleConnections() {
+        return basicDataSource.getNumIdle();
+    }
+
+    @Override
+    public int getWaitingThreads() {
+        // The underlying pool only exists once the first connection has been asked for.
+        GenericObjectPool<?> pool = basicDataSource.getConnectionPool();
+        return pool == null ? 0 : pool.getNumWaiters();
+    }
+
+    @Override
+    public int getMaxConnections() {
+        return basicDataSource.getMaxTotal();
+    }
+
+    @Override
+    public void close() {
+        try {
+            basicDataSource.close();
+        } catch (SQLException e) {
+            log.error("Unable to close the connection pool", e);
+        }
+    }
+}
@@ -0,0 +1,87 @@
+package com.pluralsight.NorthwindTradersSpringBoot.datasource;
+
+import com.pluralsight.NorthwindTradersSpringBoot.config.PoolProperties;
+import com.zaxxer.hikari.HikariConfig;
+import com.zaxxer.hikari.HikariDataSource;
+import com.zaxxer.hikari.HikariPoolMXBean;
+
+import javax.sql.DataSource;
+
+// A ConnectionPool backed by HikariCP, configured from the same datasource.pool.* keys as the DBCP2 pool.
+public class HikariConnectionPool implements ConnectionPool {
+
+    private final HikariDataSource hikariDataSource;
+
+    public HikariConnectionPool(String url, String username, String password, PoolProperties properties) {
+        HikariConfig config = new HikariConfig();
+        config.setPoolName(properties.getName());
+        config.setJdbcUrl(url);
+        config.setUsername(username);
+        config.setPassword(password);
+
+        // Pool sizes and how long a caller may wait for a connection.
+        // Hikari has no max-idle setting; it keeps between minimumIdle and maximumPoolSize connections.
+        config.setMinimumIdle(properties.getMinIdle());
+        config.setMaximumPoolSize(properties.getMaxTotal());
+        config.setConnectionTimeout(properties.getMaxWaitMillis());
+
+        // Hikari leaves statement caching to the driver, so turn on the MySQL driver's cache instead.
+        if (properties.isPoolPreparedStatements()) {
+            config.addDataSourceProperty("cachePrepStmts", "true");
+            config.addDataSourceProperty("prepStmtCacheSize", String.valueOf(properties.getMaxOpenPreparedStatements()));
+            config.addDataSourceProperty("useServerPrepStmts", "true");
+        }
+
+        // Validation (Hikari always validates on borrow; without a query it uses Connection.isValid).
+        config.setConnectionTestQuery(properties.getValidationQuery());
+        config.setValidationTimeout(properties.getValidationTimeoutSeconds() * 1000L);
+
+        // Idle connections are retired after this long (Hikari's own housekeeping decides when to check).
+        config.setIdleTimeout(properties.getMinEvictableIdleTimeMillis());
+
+        config.setRegisterMbeans(properties.isJmxEnabled());
+
+        // Don't fail at startup if the database can't be reached yet, the same as BasicDataSource.
+        config.setInitializationFailTimeout(-1);
+
+        hikariDataSource = new HikariDataSource(config);
+    }
+
+    @Override
+    public String getImplementation() {
+        return "hikari";
+    }
+
+    @Override
+    public DataSource getDataSource() {
+        return hikariDataSource;
+    }
+
+    @Override
+    public int getActiveConnections() {
+        HikariPoolMXBean pool = hikariDataSource.getHikariPoolMXBean();
+        return pool == null ? 0 : pool.getActiveConnections();
+    }
+
+    @Override
+    public int getIdleConnections() {
+        HikariPoolMXBean pool = hikariDataSource.getHikariPoolMXBean();
+        return pool == null ? 0 : pool.getIdleConnections();
+    }
+
+    @Override
+    public int getWaitingThreads() {
+        HikariPoolMXBean pool = hikariDataSource.getHikariPoolMXBean();
+        return pool == null ? 0 : pool.getThreadsAwaitingConnection();
+    }
+
+    @Override
+    public int getMaxConnections() {
+        return hikariDataSource.getMaximumPoolSize();
+    }
+
+    @Override
+    public void close() {
+        hikariDataSource.close();
+    }
+}
@@ -0,0 +1,112 @@
+package com.pluralsight.NorthwindTradersSpringBoot.datasource;
+
+import javax.sql.DataSource;
+import java.io.PrintWriter;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.SQLFeatureNotSupportedException;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.LongConsumer;
+import java.util.logging.Logger;
+
+// A DataSource that passes every call on to another DataSource, but times how long getConnection() takes.
+// Wrapped around a pool, that is how long callers wait to borrow a connection.
+public class InstrumentedDataSource implements DataSource {
+
+    private final DataSource delegate;
+    private final BorrowTimeHistogram borrowTimes = new BorrowTimeHistogram();
+    private final LongAdder borrowFailures = new LongAdder();
+
+    // Optional extra receiver for every borrow time in nanoseconds (used to feed the Micrometer timer).
+    private volatile LongConsumer borrowListener;
+
+    public InstrumentedDataSource(DataSource delegate) {
+        this.delegate = delegate;
+    }
+
+    @Override
+    public Connection getConnection() throws SQLException {
+        long start = System.nanoTime();
+        try {
+            Connection connection = delegate.getConnection();
+            recordBorrow(System.nanoTime() - start);
+            return connection;
+        } catch (SQLException e) {
+            borrowFailures.increment();
+            throw e;
+        }
+    }
+
+    @Override
+    public Connection getConnection(String username, String password) throws SQLException {
+        long start = System.nanoTime();
+        try {
+            Connection connection = delegate.getConnection(username, password);
+            recordBorrow(System.nanoTime() - start);
+            return connection;
+        } catch (SQLException e) {
+            borrowFailures.increment();
+            throw e;
+        }
+    }
+
+    private void recordBorrow(long nanos) {
+        borrowTimes.record(nanos);
+        LongConsumer listener = borrowListener;
+        if (listener != null) {
+            listener.accept(nanos);
+        }
+    }
+
+    public void setBorrowListener(LongConsumer borrowListener) {
+        this.borrowListener = borrowListener;
+    }
+
+    public BorrowTimeHistogram getBorrowTimes() {
+        return borrowTimes;
+    }
+
+    // How many times getConnection() failed (for example because the pool's max wait ran out).
+    public long getBorrowFailures() {
+        return borrowFailures.sum();
+    }
+
+    public DataSource getDelegate() {
+        return delegate;
+    }
+
+    @Override
+    public PrintWriter getLogWriter() throws SQLException {
+        return delegate.getLogWriter();
+    }
+
+    @Override
+    public void setLogWriter(PrintWriter out) throws SQLException {
+        delegate.setLogWriter(out);
+    }
+
+    @Override
+    public void setLoginTimeout(int seconds) throws SQLException {
+        delegate.setLoginTimeout(seconds);
+    }
+
+    @Override
+    public int getLoginTimeout() throws SQLException {
+        return delegate.getLoginTimeout();
+    }
+
+    @Override
+    public Logger getParentLogger() throws SQLFeatureNotSupportedException {
+        return delegate.getParentLogger();
+    }
+
+    @Override
+    public <T> T unwrap(Class<T> iface) throws SQLException {
+        return iface.isInstance(this) ? iface.cast(this) : delegate.unwrap(iface);
+    }
+
+    @Override
+    public boolean isWrapperFor(Class<?> iface) throws SQLException {
+        return iface.isInstance(this) || delegate.isWrapperFor(iface);
+    }
+}
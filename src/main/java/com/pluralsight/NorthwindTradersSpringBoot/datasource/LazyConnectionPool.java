@@ -0,0 +1,161 @@
+package com.pluralsight.NorthwindTradersSpringBoot.datasource;
+
+import javax.sql.DataSource;
+import java.io.PrintWriter;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.SQLFeatureNotSupportedException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Supplier;
+import java.util.logging.Logger;
+
+// A ConnectionPool that doesn't build the real pool until it is first needed: the first getConnection(), or
+// warmUp(), which the application calls on a background thread once it has started.
+// This keeps loading the pool library and the JDBC driver, registering JMX beans and (for Hikari) starting the
+// pool's threads off the startup path. Until the pool exists, its metrics all read 0.
+public class LazyConnectionPool implements ConnectionPool {
+
+    private final String implementation;
+    private final int maxConnections;
+    private final Supplier<ConnectionPool> factory;
+    private final DataSource dataSource = new LazyDataSource();
+
+    private volatile ConnectionPool pool;
+    private boolean closed;
+
+    public LazyConnectionPool(String implementation, int maxConnections, Supplier<ConnectionPool> factory) {
+        this.implementation = implementation;
+        this.maxConnections = maxConnections;
+        this.factory = factory;
+    }
+
+    // Whether the real pool has been built yet.
+    public boolean isStarted() {
+        return pool != null;
+    }
+
+    // Builds the pool and opens the given number of connections at once, then returns them to the pool,
+    // so the first requests find them ready instead of each paying for a TCP and login handshake.
+    public void warmUp(int connections) throws SQLException {
+        List<Connection> opened = new ArrayList<>();
+        try {
+            for (int i = 0; i < connections; i++) {
+                opened.add(dataSource.getConnection());
+            }
+        } finally {
+            for (Connection connection : opened) {
+                connection.close();
+            }
+        }
+    }
+
+    @Override
+    public String getImplementation() {
+        return implementation;
+    }
+
+    @Override
+    public DataSource getDataSource() {
+        return dataSource;
+    }
+
+    @Override
+    public int getActiveConnections() {
+        ConnectionPool current = pool;
+        return current == null ? 0 : current.getActiveConnections();
+    }
+
+    @Override
+    public int getIdleConnections() {
+        ConnectionPool current = pool;
+        return current == null ? 0 : current.getIdleConnections();
+    }
+
+    @Override
+    public int getWaitingThreads() {
+        ConnectionPool current = pool;
+        return current == null ? 0 : current.getWaitingThreads();
+    }
+
+    @Override
+    public int getMaxConnections() {
+        return maxConnections;
+    }
+
+    @Override
+    public synchronized void close() {
+        closed = true;
+        if (pool != null) {
+            pool.close();
+        }
+    }
+
+    private ConnectionPool pool() throws SQLException {
+        ConnectionPool current = pool;
+        if (current != null) {
+            return current;
+        }
+        synchronized (this) {
+            if (closed) {
+                throw new SQLException("The connection pool is closed", "08003");
+            }
+            if (pool == null) {
+                pool = factory.get();
+            }
+            return pool;
+        }
+    }
+
+    // The DataSource handed out before the pool exists. Every call goes to the real pool, building it if need be.
+    private final class LazyDataSource implements DataSource {
+
+        @Override
+        public Connection getConnection() throws SQLException {
+            return pool().getDataSource().getConnection();
+        }
+
+        @Override
+        public Connection getConnection(String username, String password) throws SQLException {
+            return pool().getDataSource().getConnection(username, password);
+        }
+
+        @Override
+        public PrintWriter getLogWriter() throws SQLException {
+            return pool().getDataSource().getLogWriter();
+        }
+
+        @Override
+        public void setLogWriter(PrintWriter out) throws SQLException {
+            pool().getDataSource().setLogWriter(out);
+        }
+
+        @Override
+        public void setLoginTimeout(int seconds) throws SQLException {
+            pool().getDataSource().setLoginTimeout(seconds);
+        }
+
+        @Override
+        public int getLoginTimeout() throws SQLException {
+            return pool().getDataSource().getLoginTimeout();
+        }
+
+        @Override
+        public Logger getParentLogger() throws SQLFeatureNotSupportedException {
+            throw new SQLFeatureNotSupportedException();
+        }
+
+        @Override
+        public <T> T unwrap(Class<T> type) throws SQLException {
+            if (type.isInstance(this)) {
+                return type.cast(this);
+            }
+            return pool().getDataSource().unwrap(type);
+        }
+
+        @Override
+        public boolean isWrapperFor(Class<?> type) throws SQLException {
+            return type.isInstance(this) || pool().getDataSource().isWrapperFor(type);
+        }
+    }
+}
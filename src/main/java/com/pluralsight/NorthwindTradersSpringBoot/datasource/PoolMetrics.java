@@ -0,0 +1,34 @@
+package com.pluralsight.NorthwindTradersSpringBoot.datasource;
+
+import java.util.Map;
+
+// A point-in-time view of the connection pool, returned by the /pool/metrics endpoint.
+public record PoolMetrics(
+        String implementation,
+        int activeConnections,
+        int idleConnections,
+        int waitingThreads,
+        int maxConnections,
+        long borrowCount,
+        long borrowFailures,
+        double borrowMeanMillis,
+        double borrowP50Millis,
+        double borrowP99Millis,
+        Map<String, Long> borrowTimeBuckets) {
+
+    public static PoolMetrics of(ConnectionPool pool, InstrumentedDataSource dataSource) {
+        BorrowTimeHistogram borrowTimes = dataSource.getBorrowTimes();
+        return new PoolMetrics(
+                pool.getImplementation(),
+                pool.getActiveConnections(),
+                pool.getIdleConnections(),
+                pool.getWaitingThreads(),
+                pool.getMaxConnections(),
+                borrowTimes.getCount(),
+                dataSource.getBorrowFailures(),
+                borrowTimes.getMeanMillis(),
+                borrowTimes.getPercentileMillis(50),
+                borrowTimes.getPercentileMillis(99),
+                borrowTimes.getBuckets());
+    }
+}
@@ -0,0 +1,83 @@
+package com.pluralsight.NorthwindTradersSpringBoot.datasource;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+// Per-thread routing hints for RoutingDataSource.
+// A DAO marks the calls that only read, so their connections can come from a replica, and records when the
+// caller last wrote, so that caller keeps reading from the primary until replication has had time to catch up.
+// Who "the caller" is: while a web request runs, ReadRoutingFilter sets the caller id the client sent, and writes
+// are remembered for that id across requests (and threads). Without a caller id a write only counts for the rest
+// of the same request (or, outside a request, for the rest of the thread's work until clear() is called).
+public final class ReadRoutingContext {
+
+    private static final ThreadLocal<Boolean> READ_ONLY = ThreadLocal.withInitial(() -> Boolean.FALSE);
+
+    // System.nanoTime() of this thread's last write, or 0 if it has not written.
+    private static final ThreadLocal<long[]> LAST_WRITE = ThreadLocal.withInitial(() -> new long[1]);
+
+    // The caller the current thread is working for, or null if it isn't known.
+    private static final ThreadLocal<String> CALLER = new ThreadLocal<>();
+
+    // System.nanoTime() of each known caller's last write.
+    private static final Map<String, Long> CALLER_WRITES = new ConcurrentHashMap<>();
+
+    private ReadRoutingContext() {
+    }
+
+    // Marks the current thread as running a read-only call. Returns the previous setting, to pass to endRead().
+    public static boolean beginRead() {
+        boolean previous = READ_ONLY.get();
+        READ_ONLY.set(Boolean.TRUE);
+        return previous;
+    }
+
+    public static void endRead(boolean previous) {
+        READ_ONLY.set(previous);
+    }
+
+    public static boolean isReadOnly() {
+        return READ_ONLY.get();
+    }
+
+    // Says which caller the current thread is working for, until clear().
+    public static void setCaller(String callerId) {
+        CALLER.set(callerId);
+    }
+
+    // Called after the current thread has written to the primary.
+    public static void markWrite() {
+        long now = System.nanoTime();
+        LAST_WRITE.get()[0] = now;
+        String caller = CALLER.get();
+        if (caller != null) {
+            CALLER_WRITES.put(caller, now);
+        }
+    }
+
+    // True if the current thread, or the caller it is working for, wrote within the last windowNanos.
+    public static boolean wroteWithin(long windowNanos) {
+        long lastWrite = LAST_WRITE.get()[0];
+        String caller = CALLER.get();
+        if (caller != null) {
+            Long callerWrite = CALLER_WRITES.get(caller);
+            if (callerWrite != null && (lastWrite == 0 || callerWrite - lastWrite > 0)) {
+                lastWrite = callerWrite;
+            }
+        }
+        return lastWrite != 0 && System.nanoTime() - lastWrite < windowNanos;
+    }
+
+    // Forgets the callers whose last write is older than windowNanos, so the map doesn't grow forever.
+    public static void forgetWritesOlderThan(long windowNanos) {
+        long now = System.nanoTime();
+        CALLER_WRITES.values().removeIf(lastWrite -> now - lastWrite >= windowNanos);
+    }
+
+    // Forgets this thread's read flag, last write and caller (for pooled threads that move on to another caller).
+    public static void clear() {
+        READ_ONLY.remove();
+        LAST_WRITE.remove();
+        CALLER.remove();
+    }
+}
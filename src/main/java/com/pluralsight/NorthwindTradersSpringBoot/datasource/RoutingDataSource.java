@@ -0,0 +1,246 @@
+package com.pluralsight.NorthwindTradersSpringBoot.datasource;
+
+import org.slf4j.LoggerFactory;
+
+import javax.sql.DataSource;
+import java.io.PrintWriter;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.SQLFeatureNotSupportedException;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.IntSupplier;
+import java.util.logging.Logger;
+
+// A DataSource that sends read-only calls to replica databases and everything else to the primary.
+// A call is read-only when the DAO marked it with ReadRoutingContext.beginRead(). A caller that wrote within the
+// read-your-writes window keeps reading from the primary, so it always sees its own changes (see
+// ReadRoutingContext for how a caller is recognised).
+// Replicas are checked in the background; a replica that fails is skipped until a health check passes again,
+// and if no replica is healthy the read simply goes to the primary.
+public class RoutingDataSource implements DataSource, AutoCloseable {
+
+    private static final org.slf4j.Logger log = LoggerFactory.getLogger(RoutingDataSource.class);
+
+    // How a replica is picked for each read.
+    public enum Selection {
+        ROUND_ROBIN,
+        LEAST_CONNECTIONS;
+
+        // Accepts the property spelling, e.g. "round-robin" or "least-connections".
+        public static Selection parse(String value) {
+            return valueOf(value.trim().toUpperCase().replace('-', '_'));
+        }
+    }
+
+    // One replica database: its DataSource, how many connections are in use right now, and whether it is healthy.
+    public static class Replica {
+
+        private final String name;
+        private final DataSource dataSource;
+        private final IntSupplier activeConnections;
+        private final ConnectionPool pool;
+        private volatile boolean healthy = true;
+
+        public Replica(String name, DataSource dataSource, IntSupplier activeConnections) {
+            this(name, dataSource, activeConnections, null);
+        }
+
+        private Replica(String name, DataSource dataSource, IntSupplier activeConnections, ConnectionPool pool) {
+            this.name = name;
+            this.dataSource = dataSource;
+            this.activeConnections = activeConnections;
+            this.pool = pool;
+        }
+
+        // A replica backed by its own connection pool, which is closed along with the RoutingDataSource.
+        public static Replica of(String name, ConnectionPool pool) {
+            return new Replica(name, pool.getDataSource(), pool::getActiveConnections, pool);
+        }
+
+        public String getName() {
+            return name;
+        }
+
+        public boolean isHealthy() {
+            return healthy;
+        }
+    }
+
+    private static final int HEALTH_CHECK_TIMEOUT_SECONDS = 2;
+
+    private final DataSource primary;
+    private final List<Replica> replicas;
+    private final Selection selection;
+    private final long readYourWritesNanos;
+    private final AtomicInteger nextReplica = new AtomicInteger();
+    private final ScheduledExecutorService healthChecker;
+
+    private final LongAdder primaryConnections = new LongAdder();
+    private final LongAdder replicaConnections = new LongAdder();
+
+    public RoutingDataSource(DataSource primary, List<Replica> replicas, Selection selection,
+                             Duration healthCheckInterval, Duration readYourWritesWindow) {
+        this.primary = primary;
+        this.replicas = List.copyOf(replicas);
+        this.selection = selection;
+        this.readYourWritesNanos = readYourWritesWindow.toNanos();
+
+        if (!healthCheckInterval.isZero() && !healthCheckInterval.isNegative() && !this.replicas.isEmpty()) {
+            healthChecker = Executors.newSingleThreadScheduledExecutor(runnable -> {
+                Thread thread = new Thread(runnable, "replica-health-check");
+                thread.setDaemon(true);
+                return thread;
+            });
+            healthChecker.scheduleWithFixedDelay(this::checkReplicas,
+                    healthCheckInterval.toMillis(), healthCheckInterval.toMillis(), TimeUnit.MILLISECONDS);
+        } else {
+            healthChecker = null;
+        }
+    }
+
+    @Override
+    public Connection getConnection() throws SQLException {
+        if (ReadRoutingContext.isReadOnly() && !ReadRoutingContext.wroteWithin(readYourWritesNanos)) {
+
+            // Try healthy replicas until one hands out a connection; a replica that fails is marked unhealthy.
+            for (int attempt = 0; attempt < replicas.size(); attempt++) {
+                Replica replica = pickReplica();
+                if (replica == null) {
+                    break;
+                }
+                try {
+                    Connection connection = replica.dataSource.getConnection();
+                    replicaConnections.increment();
+                    return connection;
+                } catch (SQLException e) {
+                    replica.healthy = false;
+                    log.warn("Replica {} is unavailable, reading from the primary", replica.name, e);
+                }
+            }
+        }
+
+        primaryConnections.increment();
+        return primary.getConnection();
+    }
+
+    @Override
+    public Connection getConnection(String username, String password) throws SQLException {
+        primaryConnections.increment();
+        return primary.getConnection(username, password);
+    }
+
+    // Picks a healthy replica, or returns null if there is none.
+    private Replica pickReplica() {
+        int count = replicas.size();
+        if (selection == Selection.LEAST_CONNECTIONS) {
+            Replica best = null;
+            int bestActive = Integer.MAX_VALUE;
+            for (Replica replica : replicas) {
+                if (replica.healthy) {
+                    int active = replica.activeConnections.getAsInt();
+                    if (active < bestActive) {
+                        best = replica;
+                        bestActive = active;
+                    }
+                }
+            }
+            return best;
+        }
+
+        int start = Math.floorMod(nextReplica.getAndIncrement(), Math.max(count, 1));
+        for (int i = 0; i < count; i++) {
+            Replica replica = replicas.get((start + i) % count);
+            if (replica.healthy) {
+                return replica;
+            }
+        }
+        return null;
+    }
+
+    // Marks each replica healthy or unhealthy depending on whether it hands out a valid connection.
+    void checkReplicas() {
+        for (Replica replica : replicas) {
+            boolean wasHealthy = replica.healthy;
+            try (Connection connection = replica.dataSource.getConnection()) {
+                replica.healthy = connection.isValid(HEALTH_CHECK_TIMEOUT_SECONDS);
+            } catch (SQLException e) {
+                replica.healthy = false;
+            }
+            if (wasHealthy != replica.healthy) {
+                log.info("Replica {} is now {}", replica.name, replica.healthy ? "healthy" : "unhealthy");
+            }
+        }
+    }
+
+    public List<Replica> getReplicas() {
+        return replicas;
+    }
+
+    // How many connections were handed out from the primary and from replicas.
+    public long getPrimaryConnections() {
+        return primaryConnections.sum();
+    }
+
+    public long getReplicaConnections() {
+        return replicaConnections.sum();
+    }
+
+    public DataSource getPrimary() {
+        return primary;
+    }
+
+    // Stops the health checks and closes the replica pools. The primary is closed by whoever created it.
+    @Override
+    public void close() {
+        if (healthChecker != null) {
+            healthChecker.shutdownNow();
+        }
+        for (Replica replica : replicas) {
+            if (replica.pool != null) {
+                replica.pool.close();
+            }
+        }
+    }
+
+    // The login timeout, log writer and parent logger are those of the primary.
+    @Override
+    public PrintWriter getLogWriter() throws SQLException {
+        return primary.getLogWriter();
+    }
+
+    @Override
+    public void setLogWriter(PrintWriter out) throws SQLException {
+        primary.setLogWriter(out);
+    }
+
+    @Override
+    public void setLoginTimeout(int seconds) throws SQLException {
+        primary.setLoginTimeout(seconds);
+    }
+
+    @Override
+    public int getLoginTimeout() throws SQLException {
+        return primary.getLoginTimeout();
+    }
+
+    @Override
+    public Logger getParentLogger() throws SQLFeatureNotSupportedException {
+        return primary.getParentLogger();
+    }
+
+    @Override
+    public <T> T unwrap(Class<T> iface) throws SQLException {
+        return iface.isInstance(this) ? iface.cast(this) : primary.unwrap(iface);
+    }
+
+    @Override
+    public boolean isWrapperFor(Class<?> iface) throws SQLException {
+        return iface.isInstance(this) || primary.isWrapperFor(iface);
+    }
+}
@@ -0,0 +1,100 @@
+package com.pluralsight.NorthwindTradersSpringBoot.export;
+
+import com.pluralsight.NorthwindTradersSpringBoot.dao.ProductRow;
+
+import java.io.IOException;
+import java.sql.SQLException;
+
+// The file formats the product catalog can be exported in, and how each one encodes a row.
+public enum ExportFormat {
+
+    // RFC 4180 CSV with a header line. Names are quoted only when they need it.
+    CSV("text/csv", "csv") {
+        @Override
+        void writeHeader(ExportWriter writer) throws IOException {
+            writer.putAscii("ProductID,ProductName,CategoryID,UnitPrice\n");
+        }
+
+        @Override
+        void writeRow(ProductRow row, ExportWriter writer) throws SQLException, IOException {
+            writer.putDecimal(row.productId());
+            writer.putByte(',');
+            writer.putCsvField(nameOf(row));
+            writer.putByte(',');
+            writer.putDecimal(row.categoryId());
+            writer.putByte(',');
+            writer.putPrice(row.unitPrice());
+            writer.putByte('\n');
+        }
+    },
+
+    // One JSON object per line, with the same field names as the REST API.
+    NDJSON("application/x-ndjson", "ndjson") {
+        @Override
+        void writeRow(ProductRow row, ExportWriter writer) throws SQLException, IOException {
+            writer.putAscii("{\"productId\":");
+            writer.putDecimal(row.productId());
+            writer.putAscii(",\"productName\":");
+            writer.putJsonString(nameOf(row));
+            writer.putAscii(",\"categoryId\":");
+            writer.putDecimal(row.categoryId());
+            writer.putAscii(",\"unitPrice\":");
+            writer.putPrice(row.unitPrice());
+            writer.putAscii("}\n");
+        }
+    },
+
+    // A compact big-endian binary format: the 4 magic bytes "NWP1", then for each product
+    // int productId, int categoryId, double unitPrice, int nameLength and nameLength bytes of UTF-8 name.
+    BINARY("application/octet-stream", "bin") {
+        @Override
+        void writeHeader(ExportWriter writer) throws IOException {
+            writer.putAscii(BINARY_MAGIC);
+        }
+
+        @Override
+        void writeRow(ProductRow row, ExportWriter writer) throws SQLException, IOException {
+            String name = nameOf(row);
+            writer.putInt(row.productId());
+            writer.putInt(row.categoryId());
+            writer.putDouble(row.unitPrice());
+            writer.putInt(ExportWriter.utf8Length(name));
+            writer.putUtf8(name);
+        }
+    };
+
+    public static final String BINARY_MAGIC = "NWP1";
+
+    private final String contentType;
+    private final String fileExtension;
+
+    ExportFormat(String contentType, String fileExtension) {
+        this.contentType = contentType;
+        this.fileExtension = fileExtension;
+    }
+
+    public String getContentType() {
+        return contentType;
+    }
+
+    public String getFileExtension() {
+        return fileExtension;
+    }
+
+    // Accepts the lower-case spelling used in URLs, e.g. "csv" or "ndjson".
+    public static ExportFormat parse(String value) {
+        return valueOf(value.trim().toUpperCase());
+    }
+
+    // Written once before the first row (nothing by default).
+    void writeHeader(ExportWriter writer) throws IOException {
+    }
+
+    abstract void writeRow(ProductRow row, ExportWriter writer) throws SQLException, IOException;
+
+    // A NULL name is exported as an empty one.
+    private static String nameOf(ProductRow row) throws SQLException {
+        String name = row.productName();
+        return name == null ? "" : name;
+    }
+}
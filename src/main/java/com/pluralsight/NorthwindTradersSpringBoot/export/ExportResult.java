@@ -0,0 +1,5 @@
+package com.pluralsight.NorthwindTradersSpringBoot.export;
+
+// What an export wrote: the number of products, and the number of bytes before any compression.
+public record ExportResult(long rows, long bytes) {
+}
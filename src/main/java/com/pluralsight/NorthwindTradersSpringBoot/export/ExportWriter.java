@@ -0,0 +1,200 @@
+package com.pluralsight.NorthwindTradersSpringBoot.export;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.WritableByteChannel;
+
+// Encodes values straight into a ByteBuffer and writes the buffer to a channel whenever it fills up.
+// Numbers and text are encoded by hand, character by character, so exporting a row creates no Strings or byte arrays.
+final class ExportWriter {
+
+    private final ByteBuffer buffer;
+    private final WritableByteChannel channel;
+
+    // Scratch space for the digits of one number.
+    private final byte[] digits = new byte[20];
+
+    private long bytesWritten;
+
+    ExportWriter(ByteBuffer buffer, WritableByteChannel channel) {
+        this.buffer = buffer;
+        this.channel = channel;
+    }
+
+    // Makes sure at least n more bytes fit, writing out what is buffered if they don't.
+    private void ensure(int n) throws IOException {
+        if (buffer.remaining() < n) {
+            flush();
+        }
+    }
+
+    void flush() throws IOException {
+        buffer.flip();
+        while (buffer.hasRemaining()) {
+            bytesWritten += channel.write(buffer);
+        }
+        buffer.clear();
+    }
+
+    long bytesWritten() {
+        return bytesWritten;
+    }
+
+    void putByte(int b) throws IOException {
+        ensure(1);
+        buffer.put((byte) b);
+    }
+
+    void putInt(int value) throws IOException {
+        ensure(4);
+        buffer.putInt(value);
+    }
+
+    void putDouble(double value) throws IOException {
+        ensure(8);
+        buffer.putDouble(value);
+    }
+
+    // Text that is known to be plain ASCII (headers, field names).
+    void putAscii(String text) throws IOException {
+        for (int i = 0; i < text.length(); i++) {
+            putByte(text.charAt(i));
+        }
+    }
+
+    // A whole number in decimal.
+    void putDecimal(long value) throws IOException {
+        ensure(20);
+        if (value < 0) {
+            buffer.put((byte) '-');
+            value = -value;
+        }
+        int count = 0;
+        do {
+            digits[count++] = (byte) ('0' + value % 10);
+            value /= 10;
+        } while (value != 0);
+        while (count > 0) {
+            buffer.put(digits[--count]);
+        }
+    }
+
+    // A price in decimal with up to four decimal places (the scale of the UnitPrice column), e.g. 18.0 or 9.65.
+    void putPrice(double price) throws IOException {
+        long scaled = Math.round(price * 10_000);
+        if (scaled < 0) {
+            putByte('-');
+            scaled = -scaled;
+        }
+        putDecimal(scaled / 10_000);
+        putByte('.');
+
+        // Write the four decimals, dropping trailing zeros but keeping at least one digit.
+        int fraction = (int) (scaled % 10_000);
+        int divisor = 1000;
+        do {
+            putByte('0' + fraction / divisor);
+            fraction %= divisor;
+            divisor /= 10;
+        } while (fraction != 0 && divisor != 0);
+    }
+
+    // Text encoded as UTF-8.
+    void putUtf8(String text) throws IOException {
+        for (int i = 0; i < text.length(); i++) {
+            i = putUtf8Char(text, i);
+        }
+    }
+
+    // The number of bytes putUtf8 will write for text.
+    static int utf8Length(String text) {
+        int length = 0;
+        for (int i = 0; i < text.length(); i++) {
+            char c = text.charAt(i);
+            if (c < 0x80) {
+                length += 1;
+            } else if (c < 0x800) {
+                length += 2;
+            } else if (Character.isHighSurrogate(c) && i + 1 < text.length() && Character.isLowSurrogate(text.charAt(i + 1))) {
+                length += 4;
+                i++;
+            } else {
+                length += 3;
+            }
+        }
+        return length;
+    }
+
+    // A CSV field: quoted (with quotes doubled) only if it contains a comma, quote or line break.
+    void putCsvField(String text) throws IOException {
+        boolean needsQuotes = false;
+        for (int i = 0; i < text.length() && !needsQuotes; i++) {
+            char c = text.charAt(i);
+            needsQuotes = c == ',' || c == '"' || c == '\n' || c == '\r';
+        }
+        if (!needsQuotes) {
+            putUtf8(text);
+            return;
+        }
+
+        putByte('"');
+        for (int i = 0; i < text.length(); i++) {
+            if (text.charAt(i) == '"') {
+                putByte('"');
+            }
+            i = putUtf8Char(text, i);
+        }
+        putByte('"');
+    }
+
+    // A JSON string literal, with quotes, backslashes and control characters escaped.
+    void putJsonString(String text) throws IOException {
+        putByte('"');
+        for (int i = 0; i < text.length(); i++) {
+            char c = text.charAt(i);
+            switch (c) {
+                case '"' -> putAscii("\\\"");
+                case '\\' -> putAscii("\\\\");
+                case '\n' -> putAscii("\\n");
+                case '\r' -> putAscii("\\r");
+                case '\t' -> putAscii("\\t");
+                default -> {
+                    if (c < 0x20) {
+                        putAscii("\\u00");
+                        putByte(HEX[c >> 4]);
+                        putByte(HEX[c & 0xF]);
+                    } else {
+                        i = putUtf8Char(text, i);
+                    }
+                }
+            }
+        }
+        putByte('"');
+    }
+
+    private static final byte[] HEX = {'0', '1', '2', '3', '4', '5', '6', '7', '8', '9', 'a', 'b', 'c', 'd', 'e', 'f'};
+
+    // Encodes the character at index i (two chars for a surrogate pair) and returns the index of the last char used.
+    private int putUtf8Char(String text, int i) throws IOException {
+        ensure(4);
+        char c = text.charAt(i);
+        if (c < 0x80) {
+            buffer.put((byte) c);
+        } else if (c < 0x800) {
+            buffer.put((byte) (0xC0 | c >> 6));
+            buffer.put((byte) (0x80 | c & 0x3F));
+        } else if (Character.isHighSurrogate(c) && i + 1 < text.length() && Character.isLowSurrogate(text.charAt(i + 1))) {
+            int codePoint = Character.toCodePoint(c, text.charAt(i + 1));
+            buffer.put((byte) (0xF0 | codePoint >> 18));
+            buffer.put((byte) (0x80 | codePoint >> 12 & 0x3F));
+            buffer.put((byte) (0x80 | codePoint >> 6 & 0x3F));
+            buffer.put((byte) (0x80 | codePoint & 0x3F));
+            return i + 1;
+        } else {
+            buffer.put((byte) (0xE0 | c >> 12));
+            buffer.put((byte) (0x80 | c >> 6 & 0x3F));
+            buffer.put((byte) (0x80 | c & 0x3F));
+        }
+        return i;
+    }
+}
@@ -0,0 +1,135 @@
+package com.pluralsight.NorthwindTradersSpringBoot.export;
+
+import com.pluralsight.NorthwindTradersSpringBoot.dao.IProductDao;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.stereotype.Component;
+
+import java.io.BufferedOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.zip.GZIPOutputStream;
+
+// Exports the whole product catalog as CSV, NDJSON or binary, optionally gzipped.
+// Rows go straight from the JDBC cursor (IProductDao.forEach) into a direct ByteBuffer and from there to the
+// channel, so memory use stays the same whatever the size of the table, and no String is built per row.
+// The direct buffers are pooled, because allocating them is slow and their memory is released only lazily.
+@Component
+public class ProductExporter {
+
+    private static final int BUFFER_SIZE = 64 * 1024;
+    private static final int POOLED_BUFFERS = 8;
+
+    private final IProductDao productDao;
+    private final BlockingQueue<ByteBuffer> buffers = new ArrayBlockingQueue<>(POOLED_BUFFERS);
+
+    public ProductExporter(@Qualifier("jdbcProductDao") IProductDao productDao) {
+        this.productDao = productDao;
+    }
+
+    // Writes every product to the channel. Returns how many products were written.
+    public ExportResult export(ExportFormat format, WritableByteChannel channel) throws IOException {
+        ByteBuffer buffer = borrowBuffer();
+        try {
+            ExportWriter writer = new ExportWriter(buffer, channel);
+            format.writeHeader(writer);
+
+            long[] rows = new long[1];
+            try {
+                productDao.forEach(row -> {
+                    try {
+                        format.writeRow(row, writer);
+                    } catch (IOException e) {
+                        // forEach only lets SQLExceptions through, so carry the IOException out unchecked.
+                        throw new UncheckedIOException(e);
+                    }
+                    rows[0]++;
+                });
+            } catch (UncheckedIOException e) {
+                throw e.getCause();
+            }
+
+            writer.flush();
+            return new ExportResult(rows[0], writer.bytesWritten());
+        } finally {
+            returnBuffer(buffer);
+        }
+    }
+
+    // Writes every product to an OutputStream (for example an HTTP response), gzipped if asked.
+    // The stream is flushed but not closed.
+    public ExportResult export(ExportFormat format, OutputStream out, boolean gzip) throws IOException {
+        if (!gzip) {
+            return export(format, Channels.newChannel(out));
+        }
+
+        // Closing the gzip stream writes its trailer and frees the native compressor, but leaves out open.
+        try (GZIPOutputStream gzipOut = new GZIPOutputStream(new NonClosingOutputStream(out), BUFFER_SIZE)) {
+            return export(format, Channels.newChannel(gzipOut));
+        }
+    }
+
+    // Writes every product to a file, replacing it if it exists. Without gzip the direct buffer is written to
+    // the FileChannel as it is, so the data is never copied onto the Java heap.
+    public ExportResult exportToFile(ExportFormat format, Path file, boolean gzip) throws IOException {
+        if (!gzip) {
+            try (FileChannel channel = FileChannel.open(file,
+                    StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE)) {
+                return export(format, channel);
+            }
+        }
+
+        try (OutputStream out = new BufferedOutputStream(Files.newOutputStream(file), BUFFER_SIZE)) {
+            return export(format, out, true);
+        }
+    }
+
+    private ByteBuffer borrowBuffer() {
+        ByteBuffer buffer = buffers.poll();
+        return buffer != null ? buffer : ByteBuffer.allocateDirect(BUFFER_SIZE);
+    }
+
+    private void returnBuffer(ByteBuffer buffer) {
+        buffer.clear();
+        buffers.offer(buffer);
+    }
+
+    // Lets the gzip stream be finished without closing the stream underneath (the servlet container owns that).
+    private static final class NonClosingOutputStream extends OutputStream {
+
+        private final OutputStream out;
+
+        NonClosingOutputStream(OutputStream out) {
+            this.out = out;
+        }
+
+        @Override
+        public void write(int b) throws IOException {
+            out.write(b);
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) throws IOException {
+            out.write(b, off, len);
+        }
+
+        @Override
+        public void flush() throws IOException {
+            out.flush();
+        }
+
+        @Override
+        public void close() throws IOException {
+            out.flush();
+        }
+    }
+}
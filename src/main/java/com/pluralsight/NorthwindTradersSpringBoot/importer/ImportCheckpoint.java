@@ -0,0 +1,72 @@
+package com.pluralsight.NorthwindTradersSpringBoot.importer;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.io.Writer;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.Properties;
+import java.util.UUID;
+
+// How far an import got: everything before offset (which ends on line line - 1) has been loaded.
+// fileSize and fileModified identify the input file, so a checkpoint is never applied to a different file.
+// loadId names this import in the ProductLoads table (see IProductDao.addAllOnce).
+record ImportCheckpoint(long fileSize, long fileModified, String loadId, long offset, long line, long imported,
+                        long rejected, boolean complete) {
+
+    // Where a new import starts.
+    static ImportCheckpoint start(long fileSize, long fileModified, String loadId) {
+        return new ImportCheckpoint(fileSize, fileModified, loadId, 0, 1, 0, 0, false);
+    }
+
+    boolean matches(long size, long modified) {
+        return fileSize == size && fileModified == modified;
+    }
+
+    // Reads a checkpoint, or returns null if there isn't one.
+    static ImportCheckpoint read(Path file) throws IOException {
+        if (!Files.exists(file)) {
+            return null;
+        }
+        Properties properties = new Properties();
+        try (Reader reader = Files.newBufferedReader(file)) {
+            properties.load(reader);
+        }
+        return new ImportCheckpoint(
+                Long.parseLong(properties.getProperty("file.size")),
+                Long.parseLong(properties.getProperty("file.modified")),
+                // A checkpoint written before imports had load ids gets a new one.
+                properties.getProperty("load.id", UUID.randomUUID().toString()),
+                Long.parseLong(properties.getProperty("offset")),
+                Long.parseLong(properties.getProperty("line")),
+                Long.parseLong(properties.getProperty("imported")),
+                Long.parseLong(properties.getProperty("rejected")),
+                Boolean.parseBoolean(properties.getProperty("complete")));
+    }
+
+    // Writes the checkpoint to a temporary file and then renames it over the old one,
+    // so a crash part way through leaves the previous checkpoint rather than half a file.
+    void write(Path file) throws IOException {
+        Properties properties = new Properties();
+        properties.setProperty("file.size", Long.toString(fileSize));
+        properties.setProperty("file.modified", Long.toString(fileModified));
+        properties.setProperty("load.id", loadId);
+        properties.setProperty("offset", Long.toString(offset));
+        properties.setProperty("line", Long.toString(line));
+        properties.setProperty("imported", Long.toString(imported));
+        properties.setProperty("rejected", Long.toString(rejected));
+        properties.setProperty("complete", Boolean.toString(complete));
+
+        Path temp = file.resolveSibling(file.getFileName() + ".tmp");
+        try (Writer writer = Files.newBufferedWriter(temp)) {
+            properties.store(writer, "Product import checkpoint");
+        }
+        try {
+            Files.move(temp, file, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+        } catch (AtomicMoveNotSupportedException e) {
+            Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING);
+        }
+    }
+}
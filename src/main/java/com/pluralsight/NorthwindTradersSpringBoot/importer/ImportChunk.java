@@ -0,0 +1,10 @@
+package com.pluralsight.NorthwindTradersSpringBoot.importer;
+
+// A run of whole records in the input file: bytes [start, end), starting on line firstLine.
+// nextLine is the line the following chunk starts on.
+record ImportChunk(long start, long end, long firstLine, long nextLine) {
+
+    int length() {
+        return (int) (end - start);
+    }
+}
@@ -0,0 +1,61 @@
+package com.pluralsight.NorthwindTradersSpringBoot.importer;
+
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.ArrayList;
+import java.util.List;
+
+// Splits a file into chunks of roughly chunkBytes that each end on a record boundary, so they can be parsed in parallel.
+// This is one quick sequential pass over the memory-mapped file: it only looks for newlines (and, for CSV, double
+// quotes, because a quoted field may contain a newline) and counts lines, so every chunk knows its first line number.
+final class ImportChunker {
+
+    // How much of the file is mapped at a time while scanning (a single mapping can't exceed 2 GB).
+    private static final long WINDOW_BYTES = 256L * 1024 * 1024;
+
+    private ImportChunker() {
+    }
+
+    static List<ImportChunk> split(FileChannel file, long startOffset, long startLine, int chunkBytes, boolean csvQuotes)
+            throws IOException {
+        List<ImportChunk> chunks = new ArrayList<>();
+        long size = file.size();
+
+        // A stray quote in a malformed CSV file would otherwise make the rest of the file look like one record.
+        // Past this size a chunk is cut at the next newline even inside quotes; the broken record is then rejected.
+        long maxChunkBytes = 4L * chunkBytes;
+
+        long chunkStart = startOffset;
+        long chunkLine = startLine;
+        long line = startLine;
+        boolean inQuotes = false;
+
+        for (long windowStart = startOffset; windowStart < size; windowStart += WINDOW_BYTES) {
+            long windowLength = Math.min(WINDOW_BYTES, size - windowStart);
+            MappedByteBuffer window = file.map(FileChannel.MapMode.READ_ONLY, windowStart, windowLength);
+
+            for (int i = 0; i < windowLength; i++) {
+                byte b = window.get(i);
+                if (b == '"' && csvQuotes) {
+                    inQuotes = !inQuotes;
+                } else if (b == '\n') {
+                    line++;
+                    long position = windowStart + i + 1;
+                    long chunkLength = position - chunkStart;
+                    if (chunkLength >= chunkBytes && (!inQuotes || chunkLength >= maxChunkBytes)) {
+                        chunks.add(new ImportChunk(chunkStart, position, chunkLine, line));
+                        chunkStart = position;
+                        chunkLine = line;
+                        inQuotes = false;
+                    }
+                }
+            }
+        }
+
+        if (chunkStart < size) {
+            chunks.add(new ImportChunk(chunkStart, size, chunkLine, line));
+        }
+        return chunks;
+    }
+}
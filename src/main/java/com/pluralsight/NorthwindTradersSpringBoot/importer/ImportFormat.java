@@ -0,0 +1,26 @@
+package com.pluralsight.NorthwindTradersSpringBoot.importer;
+
+import java.nio.file.Path;
+
+// The file formats products can be imported from (the same layouts /products/export writes).
+public enum ImportFormat {
+
+    // One product per line: ProductName,CategoryID,UnitPrice or ProductID,ProductName,CategoryID,UnitPrice
+    // (the ProductID is ignored, new ids are generated). A header line is skipped. Fields may be quoted as in RFC 4180.
+    CSV,
+
+    // One JSON object per line with productName, categoryId and unitPrice (any productId is ignored).
+    NDJSON;
+
+    // Picks the format from a file name ending in .csv, .ndjson or .jsonl.
+    public static ImportFormat forFile(Path file) {
+        String name = file.getFileName().toString().toLowerCase();
+        if (name.endsWith(".csv")) {
+            return CSV;
+        }
+        if (name.endsWith(".ndjson") || name.endsWith(".jsonl")) {
+            return NDJSON;
+        }
+        throw new IllegalArgumentException("Can't tell the format of " + file + " (expected .csv or .ndjson)");
+    }
+}
@@ -0,0 +1,17 @@
+package com.pluralsight.NorthwindTradersSpringBoot.importer;
+
+import java.time.Duration;
+
+// How far an import has got. Reported after every chunk is loaded.
+public record ImportProgress(long bytesDone, long totalBytes, long rowsImported, long rowsRejected, Duration elapsed) {
+
+    public double percentDone() {
+        return totalBytes == 0 ? 100 : 100.0 * bytesDone / totalBytes;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("%.1f%% done, %,d imported, %,d rejected, %s elapsed",
+                percentDone(), rowsImported, rowsRejected, elapsed.withNanos(0));
+    }
+}
@@ -0,0 +1,8 @@
+package com.pluralsight.NorthwindTradersSpringBoot.importer;
+
+import java.time.Duration;
+
+// The outcome of an import: rows loaded and rejected in total (including any earlier, resumed runs),
+// and whether this run started from a checkpoint.
+public record ImportResult(long rowsImported, long rowsRejected, boolean resumed, Duration elapsed) {
+}
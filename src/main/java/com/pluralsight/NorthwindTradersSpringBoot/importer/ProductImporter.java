@@ -0,0 +1,219 @@
+package com.pluralsight.NorthwindTradersSpringBoot.importer;
+
+import com.pluralsight.NorthwindTradersSpringBoot.dao.ICategoryDao;
+import com.pluralsight.NorthwindTradersSpringBoot.dao.IProductDao;
+import com.pluralsight.NorthwindTradersSpringBoot.model.Product;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.function.Consumer;
+
+// Imports products from a CSV or NDJSON file (the layouts /products/export writes).
+//
+// The file is memory-mapped and split into chunks of about chunk-bytes that end on a record boundary.
+// Chunks are parsed and checked in parallel on a ForkJoinPool, a few ahead of the loader, while the loader inserts
+// them one at a time, in file order, through IProductDao.addAllOnce (batched, multi-row INSERTs on MySQL).
+//
+// Records that can't be imported (bad numbers, unknown category, name too long, negative price, ...) don't stop the
+// import; they are written to the reject file with their line number and the reason.
+//
+// After each chunk is loaded the checkpoint file is rewritten. If the import stops part way (a crash, or the
+// database going away), running it again with the same checkpoint file carries on after the last loaded chunk.
+// The checkpoint file is written after the chunk's transaction commits, so a crash in between leaves the checkpoint
+// one chunk behind. That chunk isn't loaded twice: each import has a load id (kept in the checkpoint), and
+// addAllOnce records how far that load has got in the same transaction as the chunk's products, so the database
+// skips a chunk it already has. This needs the ProductLoads table (db/product-loads.sql).
+@Component
+public class ProductImporter {
+
+    private final IProductDao productDao;
+    private final ICategoryDao categoryDao;
+    private final int parallelism;
+    private final int chunkBytes;
+
+    public ProductImporter(@Qualifier("jdbcProductDao") IProductDao productDao,
+                           ICategoryDao categoryDao,
+                           @Value("${product-import.parallelism:0}") int parallelism,
+                           @Value("${product-import.chunk-bytes:8388608}") int chunkBytes) {
+        this.productDao = productDao;
+        this.categoryDao = categoryDao;
+        // 0 means one parser per processor.
+        this.parallelism = parallelism > 0 ? parallelism : Runtime.getRuntime().availableProcessors();
+        this.chunkBytes = chunkBytes;
+    }
+
+    // Imports a file, picking the format from its extension. Rejects go to <file>.rejects.csv and the
+    // checkpoint to <file>.checkpoint.
+    public ImportResult importFile(Path input, Consumer<ImportProgress> progress) throws IOException {
+        return importFile(input, ImportFormat.forFile(input),
+                input.resolveSibling(input.getFileName() + ".rejects.csv"),
+                input.resolveSibling(input.getFileName() + ".checkpoint"),
+                progress);
+    }
+
+    public ImportResult importFile(Path input, ImportFormat format, Path rejectFile, Path checkpointFile,
+                                   Consumer<ImportProgress> progress) throws IOException {
+        long startTime = System.nanoTime();
+        long fileSize = Files.size(input);
+        long fileModified = Files.getLastModifiedTime(input).toMillis();
+
+        // Carry on from an earlier run of this import, if there was one.
+        ImportCheckpoint checkpoint = ImportCheckpoint.read(checkpointFile);
+        boolean resumed = checkpoint != null;
+        if (checkpoint != null && !checkpoint.matches(fileSize, fileModified)) {
+            throw new IllegalArgumentException("The checkpoint " + checkpointFile + " belongs to a different version of "
+                    + input + "; delete it to import the file from the start");
+        }
+        if (checkpoint == null) {
+            // Written before anything is loaded, so a rerun after a crash uses the same load id.
+            checkpoint = ImportCheckpoint.start(fileSize, fileModified, UUID.randomUUID().toString());
+            checkpoint.write(checkpointFile);
+        }
+        if (checkpoint.complete()) {
+            return new ImportResult(checkpoint.imported(), checkpoint.rejected(), true, elapsedSince(startTime));
+        }
+
+        ProductLineParser parser = new ProductLineParser(format, Set.copyOf(categoryDao.getCategoryIds()));
+        ForkJoinPool pool = new ForkJoinPool(parallelism);
+
+        try (
+                FileChannel file = FileChannel.open(input, StandardOpenOption.READ);
+                BufferedWriter rejects = openRejectFile(rejectFile, resumed)
+        ) {
+            List<ImportChunk> chunks = ImportChunker.split(file, checkpoint.offset(), checkpoint.line(), chunkBytes,
+                    format == ImportFormat.CSV);
+
+            // Keep a few chunks parsing ahead of the loader, but no more, so memory use stays bounded.
+            Iterator<ImportChunk> toParse = chunks.iterator();
+            Deque<ForkJoinTask<ProductLineParser.ParsedChunk>> parsing = new ArrayDeque<>();
+            while (toParse.hasNext() && parsing.size() <= parallelism) {
+                parsing.add(submitParse(pool, file, parser, toParse.next()));
+            }
+
+            while (!parsing.isEmpty()) {
+                ProductLineParser.ParsedChunk parsed = join(parsing.removeFirst());
+                if (toParse.hasNext()) {
+                    parsing.add(submitParse(pool, file, parser, toParse.next()));
+                }
+
+                load(checkpoint.loadId(), parsed);
+
+                // The rejects are on disk before the checkpoint that counts them.
+                writeRejects(rejects, parsed.rejects());
+                ImportChunk chunk = parsed.chunk();
+                checkpoint = new ImportCheckpoint(fileSize, fileModified, checkpoint.loadId(), chunk.end(), chunk.nextLine(),
+                        checkpoint.imported() + parsed.products().size(),
+                        checkpoint.rejected() + parsed.rejects().size(),
+                        false);
+                checkpoint.write(checkpointFile);
+
+                if (progress != null) {
+                    progress.accept(new ImportProgress(chunk.end(), fileSize, checkpoint.imported(),
+                            checkpoint.rejected(), elapsedSince(startTime)));
+                }
+            }
+
+            // Mark the import as done, so running it again doesn't load the file a second time.
+            checkpoint = new ImportCheckpoint(fileSize, fileModified, checkpoint.loadId(), fileSize, checkpoint.line(),
+                    checkpoint.imported(), checkpoint.rejected(), true);
+            checkpoint.write(checkpointFile);
+        } finally {
+            pool.shutdownNow();
+        }
+
+        Duration elapsed = elapsedSince(startTime);
+        if (progress != null) {
+            progress.accept(new ImportProgress(fileSize, fileSize, checkpoint.imported(), checkpoint.rejected(), elapsed));
+        }
+        return new ImportResult(checkpoint.imported(), checkpoint.rejected(), resumed, elapsed);
+    }
+
+    private ForkJoinTask<ProductLineParser.ParsedChunk> submitParse(ForkJoinPool pool, FileChannel file,
+                                                                   ProductLineParser parser, ImportChunk chunk) {
+        return pool.submit(() -> parser.parse(chunk, read(file, chunk)));
+    }
+
+    // Copies one chunk out of the mapped file in a single bulk get.
+    private static byte[] read(FileChannel file, ImportChunk chunk) throws IOException {
+        byte[] bytes = new byte[chunk.length()];
+        file.map(FileChannel.MapMode.READ_ONLY, chunk.start(), chunk.length()).get(bytes);
+        return bytes;
+    }
+
+    // The chunk's end offset is the load's position once the chunk is in, so a chunk that an earlier run already
+    // committed is skipped by the database.
+    private void load(String loadId, ProductLineParser.ParsedChunk parsed) {
+        List<Product> products = parsed.products();
+        if (products.isEmpty()) {
+            return;
+        }
+        productDao.addAllOnce(loadId, parsed.chunk().end(), products);
+    }
+
+    private static ProductLineParser.ParsedChunk join(ForkJoinTask<ProductLineParser.ParsedChunk> task) throws IOException {
+        try {
+            return task.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Interrupted while importing", e);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof IOException io) {
+                throw io;
+            }
+            if (e.getCause() instanceof RuntimeException runtime) {
+                throw runtime;
+            }
+            throw new UncheckedIOException(new IOException(e.getCause()));
+        }
+    }
+
+    private static BufferedWriter openRejectFile(Path rejectFile, boolean append) throws IOException {
+        if (append) {
+            return Files.newBufferedWriter(rejectFile, StandardCharsets.UTF_8,
+                    StandardOpenOption.CREATE, StandardOpenOption.APPEND);
+        }
+        BufferedWriter writer = Files.newBufferedWriter(rejectFile, StandardCharsets.UTF_8);
+        writer.write("LineNumber,Reason,Line\n");
+        return writer;
+    }
+
+    // Writes each reject as a CSV row, quoting the reason and the original text.
+    private static void writeRejects(BufferedWriter writer, List<ProductLineParser.Reject> rejects) throws IOException {
+        for (ProductLineParser.Reject reject : rejects) {
+            writer.write(Long.toString(reject.lineNumber()));
+            writer.write(',');
+            writer.write(quote(reject.reason()));
+            writer.write(',');
+            writer.write(quote(reject.line()));
+            writer.write('\n');
+        }
+        writer.flush();
+    }
+
+    private static String quote(String text) {
+        return '"' + text.replace("\"", "\"\"") + '"';
+    }
+
+    private static Duration elapsedSince(long startNanos) {
+        return Duration.ofNanos(System.nanoTime() - startNanos);
+    }
+}
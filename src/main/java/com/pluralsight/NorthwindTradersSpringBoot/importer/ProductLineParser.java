@@ -0,0 +1,228 @@
+package com.pluralsight.NorthwindTradersSpringBoot.importer;
+
+import com.pluralsight.NorthwindTradersSpringBoot.model.Product;
+import tools.jackson.core.JacksonException;
+import tools.jackson.databind.JsonNode;
+import tools.jackson.databind.json.JsonMapper;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+
+// Turns the bytes of one chunk into Products, checking each one, and collects the records it couldn't use.
+// One parser is used by one thread at a time; each chunk gets its own.
+final class ProductLineParser {
+
+    // Products.ProductName is a VARCHAR(40).
+    static final int MAX_NAME_LENGTH = 40;
+
+    private static final JsonMapper JSON = JsonMapper.builder().build();
+
+    private final ImportFormat format;
+    private final Set<Integer> categoryIds;
+
+    ProductLineParser(ImportFormat format, Set<Integer> categoryIds) {
+        this.format = format;
+        this.categoryIds = categoryIds;
+    }
+
+    // A record that couldn't be imported: where it started, why, and the text as it was in the file.
+    record Reject(long lineNumber, String reason, String line) {
+    }
+
+    // What one chunk parsed into.
+    record ParsedChunk(ImportChunk chunk, List<Product> products, List<Reject> rejects) {
+    }
+
+    ParsedChunk parse(ImportChunk chunk, byte[] bytes) {
+        List<Product> products = new ArrayList<>();
+        List<Reject> rejects = new ArrayList<>();
+
+        long line = chunk.firstLine();
+        int recordStart = 0;
+        long recordLine = line;
+        boolean inQuotes = false;
+
+        for (int i = 0; i <= bytes.length; i++) {
+            boolean endOfChunk = i == bytes.length;
+            byte b = endOfChunk ? (byte) '\n' : bytes[i];
+
+            if (b == '"' && format == ImportFormat.CSV) {
+                inQuotes = !inQuotes;
+                continue;
+            }
+            if (b != '\n') {
+                continue;
+            }
+            if (inQuotes && !endOfChunk) {
+                // A newline inside a quoted CSV field belongs to the field.
+                line++;
+                continue;
+            }
+
+            // Drop the \r of a Windows line ending.
+            int recordEnd = i > recordStart && bytes[i - 1] == '\r' ? i - 1 : i;
+            if (recordEnd > recordStart) {
+                parseRecord(bytes, recordStart, recordEnd, recordLine, products, rejects);
+            }
+
+            line++;
+            recordStart = i + 1;
+            recordLine = line;
+            inQuotes = false;
+        }
+
+        return new ParsedChunk(chunk, products, rejects);
+    }
+
+    private void parseRecord(byte[] bytes, int start, int end, long lineNumber, List<Product> products, List<Reject> rejects) {
+        try {
+            Product product = format == ImportFormat.CSV
+                    ? parseCsv(bytes, start, end, lineNumber)
+                    : parseJson(bytes, start, end);
+            if (product == null) {
+                // The CSV header line.
+                return;
+            }
+            String problem = validate(product);
+            if (problem != null) {
+                rejects.add(new Reject(lineNumber, problem, text(bytes, start, end)));
+            } else {
+                products.add(product);
+            }
+        } catch (IllegalArgumentException | JacksonException e) {
+            rejects.add(new Reject(lineNumber, e.getMessage(), text(bytes, start, end)));
+        }
+    }
+
+    // ProductName,CategoryID,UnitPrice — or the export layout, with ProductID first.
+    private Product parseCsv(byte[] bytes, int start, int end, long lineNumber) {
+        List<String> fields = splitCsv(bytes, start, end);
+
+        if (lineNumber == 1 && (fields.get(0).equalsIgnoreCase("ProductID") || fields.get(0).equalsIgnoreCase("ProductName"))) {
+            return null;
+        }
+
+        int first;
+        if (fields.size() == 3) {
+            first = 0;
+        } else if (fields.size() == 4) {
+            first = 1;
+        } else {
+            throw new IllegalArgumentException("Expected 3 or 4 fields but found " + fields.size());
+        }
+
+        Product product = new Product();
+        product.setProductName(fields.get(first));
+        product.setCategoryId(parseInt("CategoryID", fields.get(first + 1)));
+        product.setUnitPrice(parseDouble("UnitPrice", fields.get(first + 2)));
+        return product;
+    }
+
+    private Product parseJson(byte[] bytes, int start, int end) {
+        JsonNode node = JSON.readTree(bytes, start, end - start);
+        if (!node.isObject()) {
+            throw new IllegalArgumentException("Expected a JSON object");
+        }
+
+        Product product = new Product();
+        product.setProductName(required(node, "productName").asString());
+        product.setCategoryId(parseInt("categoryId", required(node, "categoryId").asString()));
+        product.setUnitPrice(parseDouble("unitPrice", required(node, "unitPrice").asString()));
+        return product;
+    }
+
+    private String validate(Product product) {
+        String name = product.getProductName();
+        if (name == null || name.isBlank()) {
+            return "ProductName is empty";
+        }
+        if (name.length() > MAX_NAME_LENGTH) {
+            return "ProductName is longer than " + MAX_NAME_LENGTH + " characters";
+        }
+        if (!categoryIds.contains(product.getCategoryId())) {
+            return "CategoryID " + product.getCategoryId() + " does not exist";
+        }
+        double price = product.getUnitPrice();
+        if (Double.isNaN(price) || Double.isInfinite(price) || price < 0) {
+            return "UnitPrice must be zero or more";
+        }
+        return null;
+    }
+
+    // Splits one CSV record into fields, undoing RFC 4180 quoting ("a ""b"", c" -> a "b", c).
+    private static List<String> splitCsv(byte[] bytes, int start, int end) {
+        List<String> fields = new ArrayList<>(4);
+        int i = start;
+        while (true) {
+            if (i < end && bytes[i] == '"') {
+                // A quoted field runs to the next quote that isn't doubled.
+                int contentStart = i + 1;
+                int j = contentStart;
+                boolean escapedQuotes = false;
+                while (true) {
+                    if (j >= end) {
+                        throw new IllegalArgumentException("Unclosed quoted field");
+                    }
+                    if (bytes[j] == '"') {
+                        if (j + 1 < end && bytes[j + 1] == '"') {
+                            escapedQuotes = true;
+                            j += 2;
+                            continue;
+                        }
+                        break;
+                    }
+                    j++;
+                }
+                String field = text(bytes, contentStart, j);
+                fields.add(escapedQuotes ? field.replace("\"\"", "\"") : field);
+                i = j + 1;
+                if (i < end && bytes[i] != ',') {
+                    throw new IllegalArgumentException("Unexpected text after a quoted field");
+                }
+            } else {
+                int j = i;
+                while (j < end && bytes[j] != ',') {
+                    j++;
+                }
+                fields.add(text(bytes, i, j));
+                i = j;
+            }
+
+            if (i >= end) {
+                return fields;
+            }
+            // Skip the comma.
+            i++;
+        }
+    }
+
+    private static JsonNode required(JsonNode node, String field) {
+        JsonNode value = node.get(field);
+        if (value == null || value.isNull()) {
+            throw new IllegalArgumentException(field + " is missing");
+        }
+        return value;
+    }
+
+    private static int parseInt(String field, String text) {
+        try {
+            return Integer.parseInt(text.trim());
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException(field + " is not a whole number");
+        }
+    }
+
+    private static double parseDouble(String field, String text) {
+        try {
+            return Double.parseDouble(text.trim());
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException(field + " is not a number");
+        }
+    }
+
+    private static String text(byte[] bytes, int start, int end) {
+        return new String(bytes, start, end - start, StandardCharsets.UTF_8);
+    }
+}
@@ -0,0 +1,22 @@
+package com.pluralsight.NorthwindTradersSpringBoot.model;
+
+// Price statistics for the products in one category.
+// The percentiles use the nearest-rank method: the p-th percentile of n prices is the ceil(p * n / 100)-th smallest,
+// so it is always a price that actually occurs in the category.
+public record CategoryStats(int categoryId,
+                            long productCount,
+                            double minPrice,
+                            double maxPrice,
+                            double averagePrice,
+                            double medianPrice,
+                            double p90Price,
+                            double p99Price) {
+
+    // The percentiles every CategoryStats reports, in the order of its fields.
+    public static final int[] PERCENTILES = {50, 90, 99};
+
+    // The 1-based position, in ascending price order, of the given percentile among productCount prices.
+    public static long rankOf(int percentile, long productCount) {
+        return Math.max(1, (productCount * percentile + 99) / 100);
+    }
+}
@@ -1,5 +1,7 @@
 package com.pluralsight.NorthwindTradersSpringBoot.model;
 
+import com.fasterxml.jackson.annotation.JsonCreator;
+
 public class Product {
 
     // CLASS ATTRIBUTES
@@ -8,8 +10,15 @@ public class Product {
     private int categoryId;
     private double unitPrice;
 
+    // The row's Version when this product was read from the database (it goes up by one on every update).
+    // JdbcProductDao.update only succeeds if the row still has this version. 0 means "not read from the database"
+    // (for example a product built by hand), and such an update overwrites the row whatever its version.
+    private int version;
+
     // CONSTRUCTORS
     // empty constructor
+    // (also the one JSON uses, so a request body may leave out fields such as productId)
+    @JsonCreator
     public Product() {
     }
 
@@ -21,6 +30,12 @@ public class Product {
         this.unitPrice = unitPrice;
     }
 
+    // parameterized constructor, with the row version
+    public Product(int productId, String productName, int categoryId, double unitPrice, int version) {
+        this(productId, productName, categoryId, unitPrice);
+        this.version = version;
+    }
+
     // GETTER AND SETTERS
     public double getUnitPrice() {
         return unitPrice;
@@ -54,6 +69,14 @@ public class Product {
         this.productId = productId;
     }
 
+    public int getVersion() {
+        return version;
+    }
+
+    public void setVersion(int version) {
+        this.version = version;
+    }
+
     // toString method...
     @Override
     public String toString() {
@@ -62,6 +85,7 @@ public class Product {
                 ", productName='" + productName + '\'' +
                 ", categoryId=" + categoryId +
                 ", unitPrice=" + unitPrice +
+                ", version=" + version +
                 '}';
     }
 }
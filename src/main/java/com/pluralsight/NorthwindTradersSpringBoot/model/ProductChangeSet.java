@@ -0,0 +1,13 @@
+package com.pluralsight.NorthwindTradersSpringBoot.model;
+
+import java.util.List;
+
+// The products that changed after a change-log watermark.
+// changed holds the current row of every product added or updated (ordered by ProductID), deletedIds the products
+// that no longer exist (tombstones), and watermark is what to pass to the next getChangesSince call.
+public record ProductChangeSet(List<Product> changed, int[] deletedIds, long watermark) {
+
+    public boolean isEmpty() {
+        return changed.isEmpty() && deletedIds.length == 0;
+    }
+}
@@ -0,0 +1,15 @@
+package com.pluralsight.NorthwindTradersSpringBoot.model;
+
+// An immutable Product. It can be shared between threads and kept in caches without defensive copies.
+public record ProductRecord(int productId, String productName, int categoryId, double unitPrice, int version) {
+
+    public static ProductRecord of(Product product) {
+        return new ProductRecord(product.getProductId(), product.getProductName(), product.getCategoryId(),
+                product.getUnitPrice(), product.getVersion());
+    }
+
+    // A mutable copy, for code that works with Product.
+    public Product toProduct() {
+        return new Product(productId, productName, categoryId, unitPrice, version);
+    }
+}
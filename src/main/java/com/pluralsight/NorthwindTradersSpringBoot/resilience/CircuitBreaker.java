@@ -0,0 +1,157 @@
+package com.pluralsight.NorthwindTradersSpringBoot.resilience;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.Consumer;
+import java.util.function.LongSupplier;
+
+// A circuit breaker: stops calling something that keeps failing, so callers fail fast instead of piling up on it,
+// and checks now and then whether it has recovered.
+//
+//   CLOSED    every call goes through. The outcomes of the last windowSize calls are kept; once at least
+//             minimumCalls are recorded and failureRatePercent of them failed, the breaker opens.
+//   OPEN      no call goes through, until openDuration has passed. Then it is half-open.
+//   HALF_OPEN up to halfOpenProbes trial calls go through (the rest are still turned away). If they all succeed the
+//             breaker closes again; if any fails it opens for another openDuration.
+//
+// Usage: long permit = tryAcquire(); if it is negative, don't make the call. Otherwise make it and report the outcome
+// with onSuccess(permit) or onFailure(permit). A permit belongs to one state period, so a slow call that started
+// before the breaker changed state doesn't count towards the new one.
+public class CircuitBreaker {
+
+    public enum State { CLOSED, OPEN, HALF_OPEN }
+
+    private final int minimumCalls;
+    private final int failureRatePercent;
+    private final long openNanos;
+    private final int halfOpenProbes;
+    private final LongSupplier nanoClock;
+    private final List<Consumer<State>> listeners = new CopyOnWriteArrayList<>();
+
+    // The last windowSize outcomes (true = failed) as a ring buffer.
+    private final boolean[] outcomes;
+    private int next;
+    private int recorded;
+    private int failures;
+
+    private volatile State state = State.CLOSED;
+
+    // Goes up on every state change; it is the permit handed out by tryAcquire().
+    private long period;
+    private long openUntilNanos;
+    private int probesInFlight;
+    private int probesSucceeded;
+
+    public CircuitBreaker(int windowSize, int minimumCalls, int failureRatePercent, Duration openDuration,
+                          int halfOpenProbes) {
+        this(windowSize, minimumCalls, failureRatePercent, openDuration, halfOpenProbes, System::nanoTime);
+    }
+
+    // nanoClock stands in for System.nanoTime(), so tests can move time forward.
+    public CircuitBreaker(int windowSize, int minimumCalls, int failureRatePercent, Duration openDuration,
+                          int halfOpenProbes, LongSupplier nanoClock) {
+        if (windowSize < 1 || minimumCalls < 1 || minimumCalls > windowSize) {
+            throw new IllegalArgumentException("minimumCalls must be between 1 and windowSize");
+        }
+        if (failureRatePercent < 1 || failureRatePercent > 100) {
+            throw new IllegalArgumentException("failureRatePercent must be between 1 and 100");
+        }
+        if (halfOpenProbes < 1) {
+            throw new IllegalArgumentException("halfOpenProbes must be at least 1");
+        }
+        this.outcomes = new boolean[windowSize];
+        this.minimumCalls = minimumCalls;
+        this.failureRatePercent = failureRatePercent;
+        this.openNanos = openDuration.toNanos();
+        this.halfOpenProbes = halfOpenProbes;
+        this.nanoClock = nanoClock;
+    }
+
+    // Called with the new state after every state change (while the breaker's lock is held, so keep it short).
+    public void onStateChange(Consumer<State> listener) {
+        listeners.add(listener);
+    }
+
+    public State state() {
+        return state;
+    }
+
+    // Returns a permit (zero or more) if a call may go ahead, or -1 if it must not.
+    public synchronized long tryAcquire() {
+        if (state == State.OPEN) {
+            if (nanoClock.getAsLong() - openUntilNanos < 0) {
+                return -1;
+            }
+            transitionTo(State.HALF_OPEN);
+        }
+        if (state == State.HALF_OPEN) {
+            if (probesInFlight + probesSucceeded >= halfOpenProbes) {
+                return -1;
+            }
+            probesInFlight++;
+        }
+        return period;
+    }
+
+    public synchronized void onSuccess(long permit) {
+        if (permit != period) {
+            return;
+        }
+        if (state == State.CLOSED) {
+            record(false);
+        } else if (state == State.HALF_OPEN) {
+            probesInFlight--;
+            if (++probesSucceeded >= halfOpenProbes) {
+                transitionTo(State.CLOSED);
+            }
+        }
+    }
+
+    public synchronized void onFailure(long permit) {
+        if (permit != period) {
+            return;
+        }
+        if (state == State.CLOSED) {
+            record(true);
+            if (recorded >= minimumCalls && failures * 100 >= failureRatePercent * recorded) {
+                transitionTo(State.OPEN);
+            }
+        } else if (state == State.HALF_OPEN) {
+            transitionTo(State.OPEN);
+        }
+    }
+
+    private void record(boolean failed) {
+        if (recorded == outcomes.length) {
+            if (outcomes[next]) {
+                failures--;
+            }
+        } else {
+            recorded++;
+        }
+        outcomes[next] = failed;
+        if (failed) {
+            failures++;
+        }
+        next = (next + 1) % outcomes.length;
+    }
+
+    private void transitionTo(State newState) {
+        state = newState;
+        period++;
+        probesInFlight = 0;
+        probesSucceeded = 0;
+        if (newState == State.OPEN) {
+            openUntilNanos = nanoClock.getAsLong() + openNanos;
+        } else if (newState == State.CLOSED) {
+            // Start counting afresh, so the failures that opened the breaker don't open it again straight away.
+            next = 0;
+            recorded = 0;
+            failures = 0;
+        }
+        for (Consumer<State> listener : listeners) {
+            listener.accept(newState);
+        }
+    }
+}
@@ -0,0 +1,522 @@
+package com.pluralsight.NorthwindTradersSpringBoot.search;
+
+import com.pluralsight.NorthwindTradersSpringBoot.snapshot.IntIndexMap;
+
+import java.text.Normalizer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.PriorityQueue;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+// An in-memory search index over product names that tolerates typos.
+// Every name is broken into trigrams: each word is lower-cased, stripped of accents, padded as "  word " and cut into
+// overlapping 3-character pieces ("  c", " ch", "cha", "hai", "ai "). A query is broken up the same way, and a name
+// scores higher the more of the query's trigrams it shares, then the closer its own trigram count is to the query's
+// (see score()). A name is only a match if it shares at least half of the query's trigrams, or all but the ones a
+// typo or two can change (one typo changes up to 3), whichever asks for fewer.
+//
+// For every trigram the index keeps posting lists of the names containing it, in ascending order, one list per
+// name length (trigram count). Searching never adds up whole posting lists:
+//   - Within one length, a name sharing at least t of the q query trigrams must be in one of the q - t + 1 shortest
+//     lists. So the search starts from the shortest list only (t = q: names containing every trigram) and adds longer
+//     lists one by one.
+//   - The best score a name of a given length sharing t trigrams can reach is known up front, so once there are
+//     `limit` hits, a length is dropped as soon as its names not seen yet can't beat them. The better the top hits
+//     get, the fewer misses a candidate may have, so most candidates are rejected after a lookup or two.
+// Common trigrams like "  p" or "pro" are then usually never read at all.
+//
+// Writes replace or remove one product at a time. A replaced or removed name stays in the posting lists, marked as
+// removed, until such names outnumber the live ones; then the index is rebuilt. Putting the name a product already
+// has changes nothing. Reads and writes are guarded by a read/write lock.
+public final class ProductNameIndex {
+
+    // Marks an empty slot in the posting list hash table; keys are never negative.
+    private static final long NO_KEY = -1L;
+
+    // Names with this many trigrams or more share the last length bucket.
+    private static final int LAST_BUCKET = 255;
+
+    // Names are numbered in the order they were added ("documents"). A removed document has a null name.
+    private int[] productIds = new int[1024];
+    private String[] names = new String[1024];
+    private int[] gramCounts = new int[1024];
+    private int documentCount;
+    private int liveCount;
+    private IntIndexMap documentsByProductId = new IntIndexMap(1024);
+
+    // Live documents per length bucket.
+    private int[] bucketSizes = new int[LAST_BUCKET + 1];
+
+    // (trigram, length bucket) -> posting list number, as an open-addressing hash table.
+    private long[] listKeys = new long[1024];
+    private int[] listNumbers = new int[1024];
+    private int listCount;
+
+    // The posting lists: postings[n][0 .. postingSizes[n]) are the documents in list n, ascending.
+    private int[][] postings = new int[512][];
+    private int[] postingSizes = new int[512];
+
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+
+    public ProductNameIndex() {
+        Arrays.fill(listKeys, NO_KEY);
+    }
+
+    // Adds a product's name, replacing the name it had before.
+    public void put(int productId, String productName) {
+        String name = productName == null ? "" : productName;
+        lock.writeLock().lock();
+        try {
+            // Most product updates don't touch the name, so there is nothing to re-index.
+            int document = documentsByProductId.get(productId);
+            if (document >= 0 && names[document].equals(name)) {
+                return;
+            }
+            removeDocument(productId);
+            addDocument(productId, name);
+            compactIfNeeded();
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public void remove(int productId) {
+        lock.writeLock().lock();
+        try {
+            removeDocument(productId);
+            compactIfNeeded();
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    // The number of products in the index.
+    public int size() {
+        lock.readLock().lock();
+        try {
+            return liveCount;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    // The number of documents held, counting replaced and removed names that haven't been compacted away yet.
+    int documentCount() {
+        lock.readLock().lock();
+        try {
+            return documentCount;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    // The best `limit` matches for the query, best first (ties go to the lower ProductID).
+    public List<ProductSearchHit> search(String query, int limit) {
+        long[] grams = gramsOf(query);
+        int q = grams.length;
+        if (q == 0 || limit <= 0) {
+            return List.of();
+        }
+        int allowedMisses = allowedMisses(q);
+
+        lock.readLock().lock();
+        try {
+            // The best hits so far, worst on top so it can be dropped when a better one turns up.
+            Comparator<ProductSearchHit> better = Comparator.comparingDouble(ProductSearchHit::score)
+                    .thenComparing(ProductSearchHit::productId, Comparator.reverseOrder());
+            PriorityQueue<ProductSearchHit> top = new PriorityQueue<>(limit + 1, better);
+
+            // Each bucket's query posting lists, shortest first, loaded when the bucket is first visited.
+            int[] buckets = bucketsBestFirst(q);
+            int[][][] bucketLists = new int[buckets.length][][];
+            int[][] bucketListSizes = new int[buckets.length][];
+            int[] cursors = new int[q];
+
+            // Pass m adds list m in every bucket, which finds the names missing exactly m of the lists before it.
+            // Going wide before deep fills the top hits with the closest matches of every length first, so the
+            // long lists of common trigrams are only read for lengths that can still produce a top hit.
+            for (int m = 0; m <= allowedMisses; m++) {
+                boolean anyBucket = false;
+                for (int b = 0; b < buckets.length; b++) {
+                    int bucket = buckets[b];
+                    int maxMisses = missesToEnterTop(top, limit, bucket, q, allowedMisses);
+                    if (m > maxMisses) {
+                        continue;
+                    }
+                    anyBucket = true;
+
+                    if (bucketLists[b] == null) {
+                        bucketLists[b] = new int[q][];
+                        bucketListSizes[b] = new int[q];
+                        for (int i = 0; i < q; i++) {
+                            int number = listNumber(listKey(grams[i], bucket));
+                            bucketLists[b][i] = number < 0 ? null : postings[number];
+                            bucketListSizes[b][i] = number < 0 ? 0 : postingSizes[number];
+                        }
+                        sortBySize(bucketLists[b], bucketListSizes[b]);
+                    }
+                    int[][] lists = bucketLists[b];
+                    int[] sizes = bucketListSizes[b];
+
+                    int[] list = lists[m];
+                    Arrays.fill(cursors, 0);
+                    for (int p = 0, size = sizes[m]; p < size && m <= maxMisses; p++) {
+                        int document = list[p];
+                        if (names[document] == null) {
+                            continue;
+                        }
+                        int shared = sharedGrams(document, lists, sizes, cursors, m, maxMisses);
+                        if (shared < 0) {
+                            continue;
+                        }
+                        double score = score(shared, q, gramCounts[document]);
+                        if (top.size() < limit || score >= top.peek().score()) {
+                            top.add(new ProductSearchHit(productIds[document], names[document], score));
+                            if (top.size() > limit) {
+                                top.poll();
+                            }
+                            maxMisses = missesToEnterTop(top, limit, bucket, q, allowedMisses);
+                        }
+                    }
+                }
+                if (!anyBucket) {
+                    break;
+                }
+            }
+
+            List<ProductSearchHit> hits = new ArrayList<>(top);
+            hits.sort(better.reversed());
+            return hits;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    // How many of a query's q trigrams a name may miss and still match: all but half of them, or the 3 trigrams one
+    // typo can change (6 for two typos in a longer query), whichever allows more — but at least one must be shared.
+    static int allowedMisses(int q) {
+        return Math.min(q - 1, Math.max(q / 2, q < 8 ? 3 : 6));
+    }
+
+    // The score of a name with d trigrams that shares `shared` of the query's q. The shared count decides first
+    // (each shared trigram is worth more than the whole Dice coefficient), then the Dice coefficient 2s / (q + d),
+    // which prefers names about as long as the query. An exact match scores 1.
+    static double score(int shared, int q, int d) {
+        double dice = 2.0 * shared / (q + d);
+        return (shared + dice) / (q + 1);
+    }
+
+    // The most query trigrams a name in a length bucket may miss and still get into the top hits (it has to at least
+    // tie the worst of them), or -1 if no name of that length can.
+    private static int missesToEnterTop(PriorityQueue<ProductSearchHit> top, int limit, int bucket, int q,
+                                        int allowedMisses) {
+        if (top.size() < limit) {
+            return allowedMisses;
+        }
+        double worst = top.peek().score();
+        int misses = -1;
+        while (misses < allowedMisses && bestScore(bucket, q, q - misses - 1) >= worst) {
+            misses++;
+        }
+        return misses;
+    }
+
+    // The best score a name in a length bucket can reach if it shares at most maxShared trigrams.
+    private static double bestScore(int bucket, int q, int maxShared) {
+        if (maxShared <= 0) {
+            return 0;
+        }
+        // The last bucket holds every length from LAST_BUCKET up, so its best case is the length closest to q.
+        int d = bucket == LAST_BUCKET ? Math.max(bucket, q) : bucket;
+        int shared = Math.min(maxShared, d);
+        return score(shared, q, d);
+    }
+
+    // The non-empty length buckets, in order of the best score a name in them can reach for a q-trigram query
+    // (so the first pass fills the top hits from the most promising lengths).
+    private int[] bucketsBestFirst(int q) {
+        int count = 0;
+        int[] buckets = new int[LAST_BUCKET + 1];
+        for (int bucket = 1; bucket <= LAST_BUCKET; bucket++) {
+            if (bucketSizes[bucket] > 0) {
+                buckets[count++] = bucket;
+            }
+        }
+
+        // Insertion sort, best first; there are only as many buckets as distinct name lengths.
+        double[] best = new double[count];
+        for (int i = 0; i < count; i++) {
+            int bucket = buckets[i];
+            double score = bestScore(bucket, q, q);
+            int k = i - 1;
+            while (k >= 0 && best[k] < score) {
+                buckets[k + 1] = buckets[k];
+                best[k + 1] = best[k];
+                k--;
+            }
+            buckets[k + 1] = bucket;
+            best[k + 1] = score;
+        }
+        return Arrays.copyOf(buckets, count);
+    }
+
+    // How many query trigrams a document found in list j shares, or -1 if it was already counted from an earlier
+    // (shorter) list or misses more than maxMisses trigrams.
+    // The documents of list j are checked in ascending order, so each other list is searched forward from where
+    // the previous document's search ended (cursors), instead of from the start.
+    private static int sharedGrams(int document, int[][] lists, int[] sizes, int[] cursors, int j, int maxMisses) {
+        for (int i = 0; i < j; i++) {
+            if (contains(lists[i], sizes[i], cursors, i, document)) {
+                return -1;
+            }
+        }
+        int misses = j;
+        for (int i = j + 1; i < lists.length; i++) {
+            if (!contains(lists[i], sizes[i], cursors, i, document) && ++misses > maxMisses) {
+                return -1;
+            }
+        }
+        return lists.length - misses;
+    }
+
+    // Whether a sorted list holds the document, galloping forward from cursors[i] (doubling the step until it passes
+    // the document, then a binary search in the last step). Leaves cursors[i] at the first entry >= document.
+    private static boolean contains(int[] list, int size, int[] cursors, int i, int document) {
+        int low = cursors[i];
+        int step = 1;
+        int high = low;
+        while (high < size && list[high] < document) {
+            low = high + 1;
+            high += step;
+            step <<= 1;
+        }
+        high = Math.min(high, size);
+
+        // Now every entry before low is < document, and list[high] >= document (or high == size).
+        while (low < high) {
+            int middle = (low + high) >>> 1;
+            if (list[middle] < document) {
+                low = middle + 1;
+            } else {
+                high = middle;
+            }
+        }
+        cursors[i] = low;
+        return low < size && list[low] == document;
+    }
+
+    // Orders the lists by size with an insertion sort (queries have only a handful of trigrams).
+    private static void sortBySize(int[][] lists, int[] sizes) {
+        for (int i = 1; i < sizes.length; i++) {
+            int[] list = lists[i];
+            int size = sizes[i];
+            int k = i - 1;
+            while (k >= 0 && sizes[k] > size) {
+                lists[k + 1] = lists[k];
+                sizes[k + 1] = sizes[k];
+                k--;
+            }
+            lists[k + 1] = list;
+            sizes[k + 1] = size;
+        }
+    }
+
+    private void addDocument(int productId, String productName) {
+        if (documentCount == productIds.length) {
+            int capacity = documentCount * 2;
+            productIds = Arrays.copyOf(productIds, capacity);
+            names = Arrays.copyOf(names, capacity);
+            gramCounts = Arrays.copyOf(gramCounts, capacity);
+        }
+        int document = documentCount++;
+        liveCount++;
+        productIds[document] = productId;
+        names[document] = productName;
+        documentsByProductId.put(productId, document);
+
+        // Documents are numbered in increasing order, so appending keeps every posting list sorted.
+        long[] grams = gramsOf(productName);
+        int bucket = Math.min(grams.length, LAST_BUCKET);
+        gramCounts[document] = grams.length;
+        bucketSizes[bucket]++;
+        for (long gram : grams) {
+            int number = listNumberOrAdd(listKey(gram, bucket));
+            if (postingSizes[number] == postings[number].length) {
+                postings[number] = Arrays.copyOf(postings[number], postings[number].length * 2);
+            }
+            postings[number][postingSizes[number]++] = document;
+        }
+    }
+
+    private void removeDocument(int productId) {
+        int document = documentsByProductId.get(productId);
+        if (document >= 0) {
+            names[document] = null;
+            documentsByProductId.put(productId, -1);
+            bucketSizes[Math.min(gramCounts[document], LAST_BUCKET)]--;
+            liveCount--;
+        }
+    }
+
+    // Compacts once the removed documents outnumber the live ones (and there are enough of them to be worth it).
+    private void compactIfNeeded() {
+        if (documentCount - liveCount > Math.max(1024, liveCount)) {
+            compact();
+        }
+    }
+
+    // Rebuilds the index from its live documents, dropping the removed ones from the posting lists.
+    private void compact() {
+        int[] liveIds = new int[liveCount];
+        String[] liveNames = new String[liveCount];
+        int live = 0;
+        for (int document = 0; document < documentCount; document++) {
+            if (names[document] != null) {
+                liveIds[live] = productIds[document];
+                liveNames[live++] = names[document];
+            }
+        }
+
+        documentCount = 0;
+        liveCount = 0;
+        documentsByProductId = new IntIndexMap(live);
+        bucketSizes = new int[LAST_BUCKET + 1];
+        listKeys = new long[listKeys.length];
+        Arrays.fill(listKeys, NO_KEY);
+        listCount = 0;
+        postings = new int[postings.length][];
+        postingSizes = new int[postingSizes.length];
+        for (int i = 0; i < live; i++) {
+            addDocument(liveIds[i], liveNames[i]);
+        }
+    }
+
+    // The key of the posting list for a trigram in a length bucket: the bucket goes above the trigram's 48 bits.
+    private static long listKey(long gram, int bucket) {
+        return ((long) bucket << 48) | gram;
+    }
+
+    // The posting list number for a key, or -1 if no name has that trigram at that length.
+    private int listNumber(long key) {
+        int mask = listKeys.length - 1;
+        int slot = mix(key) & mask;
+        while (listKeys[slot] != NO_KEY) {
+            if (listKeys[slot] == key) {
+                return listNumbers[slot];
+            }
+            slot = (slot + 1) & mask;
+        }
+        return -1;
+    }
+
+    private int listNumberOrAdd(long key) {
+        int number = listNumber(key);
+        if (number >= 0) {
+            return number;
+        }
+        if ((listCount + 1) * 2 > listKeys.length) {
+            growLists();
+        }
+        number = listCount++;
+        insertKey(key, number);
+        if (number == postings.length) {
+            postings = Arrays.copyOf(postings, number * 2);
+            postingSizes = Arrays.copyOf(postingSizes, number * 2);
+        }
+        postings[number] = new int[4];
+        return number;
+    }
+
+    private void insertKey(long key, int number) {
+        int mask = listKeys.length - 1;
+        int slot = mix(key) & mask;
+        while (listKeys[slot] != NO_KEY) {
+            slot = (slot + 1) & mask;
+        }
+        listKeys[slot] = key;
+        listNumbers[slot] = number;
+    }
+
+    private void growLists() {
+        long[] oldKeys = listKeys;
+        int[] oldNumbers = listNumbers;
+        listKeys = new long[oldKeys.length * 2];
+        listNumbers = new int[oldNumbers.length * 2];
+        Arrays.fill(listKeys, NO_KEY);
+        for (int i = 0; i < oldKeys.length; i++) {
+            if (oldKeys[i] != NO_KEY) {
+                insertKey(oldKeys[i], oldNumbers[i]);
+            }
+        }
+    }
+
+    private static int mix(long key) {
+        long h = key * 0x9E3779B97F4A7C15L;
+        return (int) (h ^ (h >>> 32));
+    }
+
+    // The distinct trigrams of a text, each packed as three 16-bit chars into a long, in ascending order.
+    static long[] gramsOf(String text) {
+        String normalized = normalize(text);
+        long[] grams = new long[normalized.length() * 2];
+        int count = 0;
+
+        // Each word is padded as "  word " (two spaces in front weight the start of a word more).
+        int wordStart = -1;
+        for (int i = 0; i <= normalized.length(); i++) {
+            boolean inWord = i < normalized.length() && normalized.charAt(i) != ' ';
+            if (inWord && wordStart < 0) {
+                wordStart = i;
+            } else if (!inWord && wordStart >= 0) {
+                char previous2 = ' ';
+                char previous1 = ' ';
+                for (int k = wordStart; k <= i; k++) {
+                    char c = k < i ? normalized.charAt(k) : ' ';
+                    grams[count++] = ((long) previous2 << 32) | ((long) previous1 << 16) | c;
+                    previous2 = previous1;
+                    previous1 = c;
+                }
+                wordStart = -1;
+            }
+        }
+
+        Arrays.sort(grams, 0, count);
+        int distinct = 0;
+        for (int i = 0; i < count; i++) {
+            if (distinct == 0 || grams[distinct - 1] != grams[i]) {
+                grams[distinct++] = grams[i];
+            }
+        }
+        return Arrays.copyOf(grams, distinct);
+    }
+
+    // Lower-cases the text, drops accents ("Crème" -> "creme") and turns everything but letters and digits into
+    // single spaces.
+    static String normalize(String text) {
+        if (text == null) {
+            return "";
+        }
+        boolean ascii = true;
+        for (int i = 0; i < text.length() && ascii; i++) {
+            ascii = text.charAt(i) < 128;
+        }
+        String decomposed = ascii ? text : Normalizer.normalize(text, Normalizer.Form.NFD);
+
+        StringBuilder normalized = new StringBuilder(decomposed.length());
+        boolean space = true;
+        for (int i = 0; i < decomposed.length(); i++) {
+            char c = decomposed.charAt(i);
+            if (Character.isLetterOrDigit(c)) {
+                normalized.append(Character.toLowerCase(c));
+                space = false;
+            } else if (Character.getType(c) != Character.NON_SPACING_MARK && !space) {
+                normalized.append(' ');
+                space = true;
+            }
+        }
+        return normalized.toString().trim();
+    }
+}
@@ -0,0 +1,133 @@
+package com.pluralsight.NorthwindTradersSpringBoot.search;
+
+import com.pluralsight.NorthwindTradersSpringBoot.dao.IProductDao;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Consumer;
+
+// Owns the ProductNameIndex behind /products/search: loads it from the Products table and keeps it in step with
+// the writes SearchIndexingProductDao reports.
+// Writes that happen while a load is running are applied to the current index and also remembered, then replayed
+// onto the new index before it is swapped in, so a write is never lost to a load that read the row just before it.
+// (Replaying is harmless for writes the load did see: put and remove simply set the final state again.)
+@Component
+public class ProductNameSearch {
+
+    private static final Logger log = LoggerFactory.getLogger(ProductNameSearch.class);
+
+    private final IProductDao productDao;
+    private final boolean loadOnStartup;
+    private final Object loadLock = new Object();
+
+    // Null until the first load has finished.
+    private volatile ProductNameIndex index;
+
+    // The writes seen since the running load started, or null when no load is running. Guarded by this.
+    private List<Consumer<ProductNameIndex>> writesDuringLoad;
+
+    // The index is loaded straight from the JDBC (or sharded) DAO, not through the cache or other layers in front of it.
+    @Autowired
+    public ProductNameSearch(@Qualifier("productDaoTarget") IProductDao productDao,
+                             @Value("${product-search.load-on-startup:true}") boolean loadOnStartup) {
+        this.productDao = productDao;
+        this.loadOnStartup = loadOnStartup;
+    }
+
+    public ProductNameSearch(IProductDao productDao) {
+        this(productDao, false);
+    }
+
+    // The best matches for a name query, best first. Loads the index first if that hasn't happened yet.
+    public List<ProductSearchHit> search(String query, int limit) {
+        return loadedIndex().search(query, limit);
+    }
+
+    public boolean isLoaded() {
+        return index != null;
+    }
+
+    // Reads every product name and swaps in a freshly built index.
+    public void reload() {
+        synchronized (loadLock) {
+            synchronized (this) {
+                writesDuringLoad = new ArrayList<>();
+            }
+            try {
+                long start = System.nanoTime();
+                ProductNameIndex loaded = new ProductNameIndex();
+                productDao.forEach(row -> loaded.put(row.productId(), row.productName()));
+
+                synchronized (this) {
+                    writesDuringLoad.forEach(write -> write.accept(loaded));
+                    index = loaded;
+                }
+                log.info("Loaded {} product names into the search index in {} ms",
+                        loaded.size(), (System.nanoTime() - start) / 1_000_000);
+            } finally {
+                synchronized (this) {
+                    writesDuringLoad = null;
+                }
+            }
+        }
+    }
+
+    // A product was added or changed in the database.
+    public void productSaved(int productId, String productName) {
+        apply(target -> target.put(productId, productName));
+    }
+
+    // A product was deleted from the database.
+    public void productDeleted(int productId) {
+        apply(target -> target.remove(productId));
+    }
+
+    // With product-search.load-on-startup=true, loads the index in the background once the application is ready,
+    // so the first search doesn't have to wait for it.
+    @EventListener(ApplicationReadyEvent.class)
+    public void onReady() {
+        if (!loadOnStartup) {
+            return;
+        }
+        Thread thread = new Thread(() -> {
+            try {
+                loadedIndex();
+            } catch (RuntimeException e) {
+                // The first search tries again.
+                log.warn("Unable to load the product search index: {}", e.toString());
+            }
+        }, "product-search-load");
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    private synchronized void apply(Consumer<ProductNameIndex> write) {
+        if (index != null) {
+            write.accept(index);
+        }
+        if (writesDuringLoad != null) {
+            writesDuringLoad.add(write);
+        }
+    }
+
+    private ProductNameIndex loadedIndex() {
+        ProductNameIndex current = index;
+        if (current == null) {
+            synchronized (loadLock) {
+                if (index == null) {
+                    reload();
+                }
+            }
+            current = index;
+        }
+        return current;
+    }
+}
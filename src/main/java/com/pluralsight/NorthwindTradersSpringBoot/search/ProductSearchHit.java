@@ -0,0 +1,6 @@
+package com.pluralsight.NorthwindTradersSpringBoot.search;
+
+// One product name search result. The score is between 0 and 1, where 1 means the name is exactly the query
+// (ignoring case, accents and punctuation).
+public record ProductSearchHit(int productId, String productName, double score) {
+}
@@ -0,0 +1,87 @@
+package com.pluralsight.NorthwindTradersSpringBoot.snapshot;
+
+import java.util.Arrays;
+
+// A hash map from int keys to int values that stores both in plain int arrays (no boxing, no entry objects).
+// It uses open addressing with linear probing. Integer.MIN_VALUE can't be used as a key because it marks empty slots.
+public class IntIndexMap {
+
+    private static final int EMPTY = Integer.MIN_VALUE;
+
+    private int[] keys;
+    private int[] values;
+    private int size;
+
+    public IntIndexMap(int expectedSize) {
+        // Keep the table at most half full so probe sequences stay short.
+        int capacity = Integer.highestOneBit(Math.max(4, expectedSize) * 2 - 1) << 1;
+        keys = new int[capacity];
+        values = new int[capacity];
+        Arrays.fill(keys, EMPTY);
+    }
+
+    // Returns the value for key, or -1 if the key isn't in the map.
+    public int get(int key) {
+        int mask = keys.length - 1;
+        int slot = mix(key) & mask;
+        while (true) {
+            int current = keys[slot];
+            if (current == key) {
+                return values[slot];
+            }
+            if (current == EMPTY) {
+                return -1;
+            }
+            slot = (slot + 1) & mask;
+        }
+    }
+
+    public void put(int key, int value) {
+        if (key == EMPTY) {
+            throw new IllegalArgumentException("Integer.MIN_VALUE can't be used as a key");
+        }
+        if ((size + 1) * 2 > keys.length) {
+            grow();
+        }
+
+        int mask = keys.length - 1;
+        int slot = mix(key) & mask;
+        while (keys[slot] != EMPTY && keys[slot] != key) {
+            slot = (slot + 1) & mask;
+        }
+        if (keys[slot] == EMPTY) {
+            size++;
+        }
+        keys[slot] = key;
+        values[slot] = value;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    // Bytes used by the two arrays (including their object headers).
+    public long estimatedBytes() {
+        return 2 * (16 + 4L * keys.length);
+    }
+
+    private void grow() {
+        int[] oldKeys = keys;
+        int[] oldValues = values;
+        keys = new int[oldKeys.length * 2];
+        values = new int[oldValues.length * 2];
+        Arrays.fill(keys, EMPTY);
+        size = 0;
+        for (int i = 0; i < oldKeys.length; i++) {
+            if (oldKeys[i] != EMPTY) {
+                put(oldKeys[i], oldValues[i]);
+            }
+        }
+    }
+
+    // Spreads sequential ids across the table (ids are often 1, 2, 3, ...).
+    private static int mix(int key) {
+        int h = key * 0x9E3779B9;
+        return h ^ (h >>> 16);
+    }
+}
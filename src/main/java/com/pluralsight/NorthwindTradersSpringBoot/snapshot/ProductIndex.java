@@ -0,0 +1,189 @@
+package com.pluralsight.NorthwindTradersSpringBoot.snapshot;
+
+import com.pluralsight.NorthwindTradersSpringBoot.model.Product;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Locale;
+
+// Secondary indexes over a ProductSnapshot, so the category, price-range and name-prefix queries
+// can be answered from memory. Results come back in the same order as the SQL versions in JdbcProductDao.
+// (Rows are assumed to be in ProductID order, which is how ProductSnapshotHolder builds snapshots.)
+public final class ProductIndex {
+
+    private final ProductSnapshot snapshot;
+
+    // Category postings: the rows of the category in slot s are categoryRows[categoryStarts[s] .. categoryStarts[s + 1]).
+    private final IntIndexMap categorySlots;
+    private final int[] categoryStarts;
+    private final int[] categoryRows;
+
+    // Rows sorted by (UnitPrice, ProductID), with their prices alongside for binary search.
+    private final int[] rowsByPrice;
+    private final double[] sortedPrices;
+
+    // Rows sorted by (lower-case name, ProductID), with the lower-case names alongside for binary search.
+    private final int[] rowsByName;
+    private final String[] sortedNames;
+
+    private ProductIndex(ProductSnapshot snapshot) {
+        this.snapshot = snapshot;
+        int size = snapshot.size();
+
+        // Category postings: count the rows per category, turn the counts into start offsets, then fill in the rows.
+        categorySlots = new IntIndexMap(64);
+        int[] counts = new int[16];
+        int slotCount = 0;
+        for (int row = 0; row < size; row++) {
+            int slot = categorySlots.get(snapshot.categoryIdAt(row));
+            if (slot < 0) {
+                slot = slotCount++;
+                categorySlots.put(snapshot.categoryIdAt(row), slot);
+                if (slot == counts.length) {
+                    counts = Arrays.copyOf(counts, counts.length * 2);
+                }
+            }
+            counts[slot]++;
+        }
+        categoryStarts = new int[slotCount + 1];
+        for (int slot = 0; slot < slotCount; slot++) {
+            categoryStarts[slot + 1] = categoryStarts[slot] + counts[slot];
+        }
+        categoryRows = new int[size];
+        int[] next = Arrays.copyOf(categoryStarts, slotCount);
+        for (int row = 0; row < size; row++) {
+            categoryRows[next[categorySlots.get(snapshot.categoryIdAt(row))]++] = row;
+        }
+
+        // Price order.
+        rowsByPrice = allRows(size);
+        sortRows(rowsByPrice, (a, b) -> {
+            int byPrice = Double.compare(snapshot.unitPriceAt(a), snapshot.unitPriceAt(b));
+            return byPrice != 0 ? byPrice : Integer.compare(snapshot.productIdAt(a), snapshot.productIdAt(b));
+        });
+        sortedPrices = new double[size];
+        for (int i = 0; i < size; i++) {
+            sortedPrices[i] = snapshot.unitPriceAt(rowsByPrice[i]);
+        }
+
+        // Name order.
+        String[] lowerNames = new String[size];
+        for (int row = 0; row < size; row++) {
+            lowerNames[row] = snapshot.productNameAt(row).toLowerCase(Locale.ROOT);
+        }
+        rowsByName = allRows(size);
+        sortRows(rowsByName, (a, b) -> {
+            int byName = lowerNames[a].compareTo(lowerNames[b]);
+            return byName != 0 ? byName : Integer.compare(snapshot.productIdAt(a), snapshot.productIdAt(b));
+        });
+        sortedNames = new String[size];
+        for (int i = 0; i < size; i++) {
+            sortedNames[i] = lowerNames[rowsByName[i]];
+        }
+    }
+
+    public static ProductIndex build(ProductSnapshot snapshot) {
+        return new ProductIndex(snapshot);
+    }
+
+    public ProductSnapshot snapshot() {
+        return snapshot;
+    }
+
+    public List<Product> findByCategory(int categoryId) {
+        int slot = categorySlots.get(categoryId);
+        if (slot < 0) {
+            return new ArrayList<>();
+        }
+        return productsAt(categoryRows, categoryStarts[slot], categoryStarts[slot + 1]);
+    }
+
+    public List<Product> findByPriceRange(double minPrice, double maxPrice) {
+        int from = firstPriceAtLeast(minPrice);
+        int to = from;
+        while (to < sortedPrices.length && sortedPrices[to] <= maxPrice) {
+            to++;
+        }
+        return productsAt(rowsByPrice, from, to);
+    }
+
+    public List<Product> findByNamePrefix(String prefix) {
+        String lowerPrefix = prefix.toLowerCase(Locale.ROOT);
+
+        // Binary search for the first name >= prefix; every match follows it contiguously.
+        int low = 0;
+        int high = sortedNames.length;
+        while (low < high) {
+            int middle = (low + high) >>> 1;
+            if (sortedNames[middle].compareTo(lowerPrefix) < 0) {
+                low = middle + 1;
+            } else {
+                high = middle;
+            }
+        }
+
+        int to = low;
+        while (to < sortedNames.length && sortedNames[to].startsWith(lowerPrefix)) {
+            to++;
+        }
+        return productsAt(rowsByName, low, to);
+    }
+
+    private int firstPriceAtLeast(double price) {
+        int low = 0;
+        int high = sortedPrices.length;
+        while (low < high) {
+            int middle = (low + high) >>> 1;
+            if (sortedPrices[middle] < price) {
+                low = middle + 1;
+            } else {
+                high = middle;
+            }
+        }
+        return low;
+    }
+
+    private List<Product> productsAt(int[] rows, int from, int to) {
+        List<Product> products = new ArrayList<>(to - from);
+        for (int i = from; i < to; i++) {
+            products.add(snapshot.productAt(rows[i]));
+        }
+        return products;
+    }
+
+    private static int[] allRows(int size) {
+        int[] rows = new int[size];
+        for (int i = 0; i < size; i++) {
+            rows[i] = i;
+        }
+        return rows;
+    }
+
+    // Compares two row numbers.
+    @FunctionalInterface
+    private interface RowComparator {
+        int compare(int a, int b);
+    }
+
+    // A merge sort on an int[] of row numbers, so we never have to box the rows to use a Comparator.
+    private static void sortRows(int[] rows, RowComparator comparator) {
+        int[] buffer = new int[rows.length];
+        for (int width = 1; width < rows.length; width *= 2) {
+            for (int start = 0; start < rows.length; start += 2 * width) {
+                int middle = Math.min(start + width, rows.length);
+                int end = Math.min(start + 2 * width, rows.length);
+                int left = start;
+                int right = middle;
+                for (int i = start; i < end; i++) {
+                    if (left < middle && (right >= end || comparator.compare(rows[left], rows[right]) <= 0)) {
+                        buffer[i] = rows[left++];
+                    } else {
+                        buffer[i] = rows[right++];
+                    }
+                }
+            }
+            System.arraycopy(buffer, 0, rows, 0, rows.length);
+        }
+    }
+}
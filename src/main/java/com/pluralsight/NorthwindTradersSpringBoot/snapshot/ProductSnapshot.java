@@ -0,0 +1,229 @@
+package com.pluralsight.NorthwindTradersSpringBoot.snapshot;
+
+import com.pluralsight.NorthwindTradersSpringBoot.model.Product;
+import com.pluralsight.NorthwindTradersSpringBoot.model.ProductChangeSet;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.List;
+import java.util.stream.Stream;
+
+// A read-only copy of the Products table stored column by column in primitive arrays.
+// Row i is productIds[i], categoryIds[i], unitPrices[i], versions[i] and the UTF-8 bytes names[nameOffsets[i] .. nameOffsets[i + 1]).
+// Compared with a List<Product> there is no object per row, no String per name, and scans walk contiguous memory.
+public final class ProductSnapshot {
+
+    private static final ProductSnapshot EMPTY = new Builder(0).build();
+
+    private final int size;
+    private final int[] productIds;
+    private final int[] categoryIds;
+    private final double[] unitPrices;
+    private final int[] versions;
+    private final byte[] names;
+    private final int[] nameOffsets;
+
+    // ProductID -> row number.
+    private final IntIndexMap rowsById;
+
+    private ProductSnapshot(int size, int[] productIds, int[] categoryIds, double[] unitPrices, int[] versions,
+                            byte[] names, int[] nameOffsets, IntIndexMap rowsById) {
+        this.size = size;
+        this.productIds = productIds;
+        this.categoryIds = categoryIds;
+        this.unitPrices = unitPrices;
+        this.versions = versions;
+        this.names = names;
+        this.nameOffsets = nameOffsets;
+        this.rowsById = rowsById;
+    }
+
+    public static ProductSnapshot empty() {
+        return EMPTY;
+    }
+
+    // Builds a snapshot from a stream of products (for example IProductDao.streamAll()).
+    public static ProductSnapshot of(Stream<Product> products) {
+        Builder builder = new Builder(1024);
+        products.forEach(builder::add);
+        return builder.build();
+    }
+
+    // Returns a new snapshot with a change set applied: changed products replace (or join) their rows and deleted
+    // products are dropped. Unchanged rows are copied column to column (names as raw bytes) and merged with the
+    // changed rows in ProductID order, so this needs one pass over the snapshot and no database reads.
+    public ProductSnapshot withChanges(ProductChangeSet changes) {
+        if (changes.isEmpty()) {
+            return this;
+        }
+
+        // Every id that must not be copied from this snapshot.
+        List<Product> changed = changes.changed();
+        IntIndexMap replaced = new IntIndexMap(changed.size() + changes.deletedIds().length);
+        for (Product product : changed) {
+            replaced.put(product.getProductId(), 0);
+        }
+        for (int productId : changes.deletedIds()) {
+            replaced.put(productId, 0);
+        }
+
+        Builder builder = new Builder(size + changed.size());
+        int next = 0;
+        for (int row = 0; row < size; row++) {
+            int productId = productIds[row];
+            while (next < changed.size() && changed.get(next).getProductId() < productId) {
+                builder.add(changed.get(next++));
+            }
+            if (replaced.get(productId) < 0) {
+                builder.addEncoded(productId, names, nameOffsets[row], nameOffsets[row + 1] - nameOffsets[row],
+                        categoryIds[row], unitPrices[row], versions[row]);
+            }
+        }
+        while (next < changed.size()) {
+            builder.add(changed.get(next++));
+        }
+        return builder.build();
+    }
+
+    public int size() {
+        return size;
+    }
+
+    // The row number of a product, or -1 if it isn't in the snapshot. O(1).
+    public int rowOf(int productId) {
+        return rowsById.get(productId);
+    }
+
+    public int productIdAt(int row) {
+        return productIds[row];
+    }
+
+    public int categoryIdAt(int row) {
+        return categoryIds[row];
+    }
+
+    public double unitPriceAt(int row) {
+        return unitPrices[row];
+    }
+
+    public int versionAt(int row) {
+        return versions[row];
+    }
+
+    // The CategoryID and UnitPrice columns themselves, for the parallel scans in SnapshotProductStatsDao.
+    // Not copies — callers in this package must only read them.
+    int[] categoryIdColumn() {
+        return categoryIds;
+    }
+
+    double[] unitPriceColumn() {
+        return unitPrices;
+    }
+
+    // Decodes the name of a row into a String (this allocates, so scans should avoid it).
+    public String productNameAt(int row) {
+        return new String(names, nameOffsets[row], nameOffsets[row + 1] - nameOffsets[row], StandardCharsets.UTF_8);
+    }
+
+    // Creates a Product for a row, or returns null if the id isn't in the snapshot.
+    public Product findById(int productId) {
+        int row = rowOf(productId);
+        return row < 0 ? null : productAt(row);
+    }
+
+    public Product productAt(int row) {
+        return new Product(productIds[row], productNameAt(row), categoryIds[row], unitPrices[row], versions[row]);
+    }
+
+    // Approximate heap used by this snapshot, counting array contents and headers.
+    public long estimatedBytes() {
+        long arrays = (16 + 4L * productIds.length)
+                + (16 + 4L * categoryIds.length)
+                + (16 + 8L * unitPrices.length)
+                + (16 + 4L * versions.length)
+                + (16 + names.length)
+                + (16 + 4L * nameOffsets.length);
+        return arrays + rowsById.estimatedBytes();
+    }
+
+    public double bytesPerRow() {
+        return size == 0 ? 0 : estimatedBytes() / (double) size;
+    }
+
+    // Collects rows and then freezes them into a ProductSnapshot.
+    public static final class Builder {
+
+        private int size;
+        private int[] productIds;
+        private int[] categoryIds;
+        private double[] unitPrices;
+        private int[] versions;
+        private byte[] names;
+        private int namesLength;
+        private int[] nameOffsets;
+
+        public Builder(int expectedRows) {
+            int capacity = Math.max(expectedRows, 16);
+            productIds = new int[capacity];
+            categoryIds = new int[capacity];
+            unitPrices = new double[capacity];
+            versions = new int[capacity];
+            names = new byte[capacity * 16];
+            nameOffsets = new int[capacity + 1];
+        }
+
+        public Builder add(Product product) {
+            return add(product.getProductId(), product.getProductName(), product.getCategoryId(), product.getUnitPrice(),
+                    product.getVersion());
+        }
+
+        public Builder add(int productId, String productName, int categoryId, double unitPrice, int version) {
+            byte[] name = productName == null ? new byte[0] : productName.getBytes(StandardCharsets.UTF_8);
+            return addEncoded(productId, name, 0, name.length, categoryId, unitPrice, version);
+        }
+
+        // Adds a row whose name is already UTF-8 encoded in name[nameStart .. nameStart + nameLength).
+        private Builder addEncoded(int productId, byte[] name, int nameStart, int nameLength, int categoryId,
+                                   double unitPrice, int version) {
+            if (size == productIds.length) {
+                int capacity = size * 2;
+                productIds = Arrays.copyOf(productIds, capacity);
+                categoryIds = Arrays.copyOf(categoryIds, capacity);
+                unitPrices = Arrays.copyOf(unitPrices, capacity);
+                versions = Arrays.copyOf(versions, capacity);
+                nameOffsets = Arrays.copyOf(nameOffsets, capacity + 1);
+            }
+
+            if (namesLength + nameLength > names.length) {
+                names = Arrays.copyOf(names, Math.max(names.length * 2, namesLength + nameLength));
+            }
+            System.arraycopy(name, nameStart, names, namesLength, nameLength);
+            namesLength += nameLength;
+
+            productIds[size] = productId;
+            categoryIds[size] = categoryId;
+            unitPrices[size] = unitPrice;
+            versions[size] = version;
+            size++;
+            nameOffsets[size] = namesLength;
+            return this;
+        }
+
+        public ProductSnapshot build() {
+            IntIndexMap rowsById = new IntIndexMap(size);
+            for (int row = 0; row < size; row++) {
+                rowsById.put(productIds[row], row);
+            }
+
+            // Trim the arrays to their final size so the snapshot doesn't keep spare capacity around.
+            return new ProductSnapshot(size,
+                    Arrays.copyOf(productIds, size),
+                    Arrays.copyOf(categoryIds, size),
+                    Arrays.copyOf(unitPrices, size),
+                    Arrays.copyOf(versions, size),
+                    Arrays.copyOf(names, namesLength),
+                    Arrays.copyOf(nameOffsets, size + 1),
+                    rowsById);
+        }
+    }
+}
@@ -0,0 +1,80 @@
+package com.pluralsight.NorthwindTradersSpringBoot.snapshot;
+
+import com.pluralsight.NorthwindTradersSpringBoot.dao.IProductDao;
+import com.pluralsight.NorthwindTradersSpringBoot.model.ProductChangeSet;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.atomic.AtomicReference;
+
+// Keeps the current in-memory ProductSnapshot.
+// refresh() builds a whole new snapshot from the database and then swaps it in with one atomic write,
+// so readers always see either the old snapshot or the new one, never a half-built one.
+// With the change log on, refreshChanges() applies only the products changed since the last refresh.
+@Component
+public class ProductSnapshotHolder {
+
+    private final IProductDao productDao;
+    private final boolean changeLogEnabled;
+    private final AtomicReference<ProductSnapshot> current = new AtomicReference<>(ProductSnapshot.empty());
+
+    // The change-log watermark the current snapshot is up to date with, or -1 before the first full load.
+    private long watermark = -1;
+
+    // Snapshots are loaded straight from the JDBC (or sharded) DAO, not through the cache or other layers in front of it.
+    @Autowired
+    public ProductSnapshotHolder(@Qualifier("productDaoTarget") IProductDao productDao,
+                                 @Value("${product-changes.enabled:false}") boolean changeLogEnabled) {
+        this.productDao = productDao;
+        this.changeLogEnabled = changeLogEnabled;
+    }
+
+    // A holder that always reloads the whole table.
+    public ProductSnapshotHolder(IProductDao productDao) {
+        this(productDao, false);
+    }
+
+    // The latest snapshot (empty until the first refresh).
+    public ProductSnapshot current() {
+        return current.get();
+    }
+
+    // Reloads every product and swaps the new snapshot in. Returns the new snapshot.
+    public synchronized ProductSnapshot refresh() {
+
+        // Take the watermark first: a change that lands during the load is then applied again by the next
+        // refreshChanges(), which is harmless, instead of being missed.
+        long loadWatermark = changeLogEnabled ? productDao.getChangeWatermark() : -1;
+
+        // The rows are copied straight into the snapshot's columns, without a Product per row.
+        ProductSnapshot.Builder builder = new ProductSnapshot.Builder(1024);
+        productDao.forEach(row -> builder.add(row.productId(), row.productName(), row.categoryId(), row.unitPrice(),
+                row.version()));
+        ProductSnapshot snapshot = builder.build();
+        current.set(snapshot);
+        watermark = loadWatermark;
+        return snapshot;
+    }
+
+    // Applies the changes since the last refresh and swaps the result in. The database only returns the changed
+    // rows, so this costs as much as the number of changes, not the size of the table.
+    // Falls back to a full refresh() if the change log is off or nothing has been loaded yet.
+    public synchronized ProductSnapshot refreshChanges() {
+        if (!changeLogEnabled || watermark < 0) {
+            return refresh();
+        }
+
+        ProductChangeSet changes = productDao.getChangesSince(watermark);
+        ProductSnapshot snapshot = current.get().withChanges(changes);
+        current.set(snapshot);
+        watermark = changes.watermark();
+        return snapshot;
+    }
+
+    // Replaces the current snapshot with one built elsewhere.
+    public void replace(ProductSnapshot snapshot) {
+        current.set(snapshot);
+    }
+}
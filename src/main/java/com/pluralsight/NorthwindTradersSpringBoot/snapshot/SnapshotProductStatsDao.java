@@ -0,0 +1,294 @@
+package com.pluralsight.NorthwindTradersSpringBoot.snapshot;
+
+import com.pluralsight.NorthwindTradersSpringBoot.dao.IProductStatsDao;
+import com.pluralsight.NorthwindTradersSpringBoot.model.CategoryStats;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.function.IntConsumer;
+import java.util.function.Supplier;
+
+// Computes the per-category statistics from the in-memory ProductSnapshot, in parallel on its own ForkJoinPool.
+// It works straight on the snapshot's CategoryID and UnitPrice columns, with no Product objects and no boxing:
+//   1. The rows are split into chunks. Each chunk counts its rows per category and sums up their prices
+//      into its own arrays, indexed by category, so the chunks never share anything they write.
+//   2. The chunk counts give every (chunk, category) pair its own range in one grouped price array,
+//      and the chunks copy their prices there in parallel.
+//   3. The percentiles of each category are selected from its range (quickselect, no full sort), in parallel
+//      across categories.
+// Categories are indexed by CategoryID - smallest CategoryID when the ids are close together (the usual case),
+// and through an IntIndexMap otherwise.
+@Component
+public class SnapshotProductStatsDao implements IProductStatsDao, AutoCloseable {
+
+    // Below this many rows a chunk isn't worth a task of its own.
+    private static final int MIN_CHUNK_ROWS = 16_384;
+
+    // The widest CategoryID range that is indexed directly; wider ranges go through an IntIndexMap.
+    private static final int MAX_DIRECT_RANGE = 1 << 16;
+
+    private final Supplier<ProductSnapshot> snapshots;
+    private final ForkJoinPool pool;
+
+    // Uses the current snapshot, loading one first if nothing has been loaded yet.
+    // A parallelism of 0 means one thread per CPU.
+    @Autowired
+    public SnapshotProductStatsDao(ProductSnapshotHolder snapshotHolder,
+                                   @Value("${product-stats.parallelism:0}") int parallelism) {
+        this(() -> {
+            ProductSnapshot snapshot = snapshotHolder.current();
+            return snapshot.size() > 0 ? snapshot : snapshotHolder.refresh();
+        }, parallelism);
+    }
+
+    public SnapshotProductStatsDao(Supplier<ProductSnapshot> snapshots, int parallelism) {
+        this.snapshots = snapshots;
+        this.pool = new ForkJoinPool(parallelism > 0 ? parallelism : Runtime.getRuntime().availableProcessors());
+    }
+
+    @Override
+    public List<CategoryStats> getCategoryStats() {
+        return compute(snapshots.get());
+    }
+
+    public int getParallelism() {
+        return pool.getParallelism();
+    }
+
+    // Spring calls this at shutdown.
+    @Override
+    public void close() {
+        pool.shutdown();
+    }
+
+    // The statistics of one snapshot.
+    public List<CategoryStats> compute(ProductSnapshot snapshot) {
+        int rows = snapshot.size();
+        if (rows == 0) {
+            return List.of();
+        }
+        double[] prices = snapshot.unitPriceColumn();
+        int[] categoryIds = snapshot.categoryIdColumn();
+
+        int chunks = (int) Math.min(pool.getParallelism() * 4L, Math.max(1, rows / MIN_CHUNK_ROWS));
+        int chunkRows = (rows + chunks - 1) / chunks;
+
+        // Find the CategoryID range, each chunk writing its own min and max.
+        int[] chunkLowest = new int[chunks];
+        int[] chunkHighest = new int[chunks];
+        forEachChunk(chunks, chunk -> {
+            int lowest = Integer.MAX_VALUE;
+            int highest = Integer.MIN_VALUE;
+            for (int row = chunk * chunkRows, end = Math.min(rows, row + chunkRows); row < end; row++) {
+                lowest = Math.min(lowest, categoryIds[row]);
+                highest = Math.max(highest, categoryIds[row]);
+            }
+            chunkLowest[chunk] = lowest;
+            chunkHighest[chunk] = highest;
+        });
+        int lowest = Arrays.stream(chunkLowest).min().getAsInt();
+        int highest = Arrays.stream(chunkHighest).max().getAsInt();
+
+        // The category index of each row: CategoryID - lowest, or a lookup when the ids are far apart.
+        int[] keys;
+        int keyBase;
+        int keyCount;
+        int[] categoryOfKey;
+        if ((long) highest - lowest < MAX_DIRECT_RANGE) {
+            keys = categoryIds;
+            keyBase = lowest;
+            keyCount = highest - lowest + 1;
+            categoryOfKey = null;
+        } else {
+            IntIndexMap keyOfCategory = new IntIndexMap(1024);
+            int[] distinct = new int[1024];
+            keys = new int[rows];
+            keyBase = 0;
+            int count = 0;
+            for (int row = 0; row < rows; row++) {
+                int key = keyOfCategory.get(categoryIds[row]);
+                if (key < 0) {
+                    key = count++;
+                    keyOfCategory.put(categoryIds[row], key);
+                    if (key == distinct.length) {
+                        distinct = Arrays.copyOf(distinct, key * 2);
+                    }
+                    distinct[key] = categoryIds[row];
+                }
+                keys[row] = key;
+            }
+            keyCount = count;
+            categoryOfKey = distinct;
+        }
+
+        // 1. Count, sum, min and max per category, per chunk.
+        int[][] chunkCounts = new int[chunks][keyCount];
+        double[][] chunkSums = new double[chunks][keyCount];
+        double[][] chunkMins = new double[chunks][keyCount];
+        double[][] chunkMaxes = new double[chunks][keyCount];
+        forEachChunk(chunks, chunk -> {
+            int[] counts = chunkCounts[chunk];
+            double[] sums = chunkSums[chunk];
+            double[] mins = chunkMins[chunk];
+            double[] maxes = chunkMaxes[chunk];
+            Arrays.fill(mins, Double.POSITIVE_INFINITY);
+            Arrays.fill(maxes, Double.NEGATIVE_INFINITY);
+            for (int row = chunk * chunkRows, end = Math.min(rows, row + chunkRows); row < end; row++) {
+                int key = keys[row] - keyBase;
+                double price = prices[row];
+                counts[key]++;
+                sums[key] += price;
+                mins[key] = Math.min(mins[key], price);
+                maxes[key] = Math.max(maxes[key], price);
+            }
+        });
+
+        // Combine the chunks, and turn each chunk's counts into the position its prices start at in the grouped array.
+        long[] counts = new long[keyCount];
+        double[] sums = new double[keyCount];
+        double[] mins = new double[keyCount];
+        double[] maxes = new double[keyCount];
+        int[] starts = new int[keyCount + 1];
+        Arrays.fill(mins, Double.POSITIVE_INFINITY);
+        Arrays.fill(maxes, Double.NEGATIVE_INFINITY);
+        int position = 0;
+        for (int key = 0; key < keyCount; key++) {
+            starts[key] = position;
+            for (int chunk = 0; chunk < chunks; chunk++) {
+                int count = chunkCounts[chunk][key];
+                chunkCounts[chunk][key] = position;
+                position += count;
+                counts[key] += count;
+                sums[key] += chunkSums[chunk][key];
+                mins[key] = Math.min(mins[key], chunkMins[chunk][key]);
+                maxes[key] = Math.max(maxes[key], chunkMaxes[chunk][key]);
+            }
+        }
+        starts[keyCount] = position;
+
+        // 2. Copy every price into its category's range of the grouped array.
+        double[] grouped = new double[rows];
+        forEachChunk(chunks, chunk -> {
+            int[] next = chunkCounts[chunk];
+            for (int row = chunk * chunkRows, end = Math.min(rows, row + chunkRows); row < end; row++) {
+                grouped[next[keys[row] - keyBase]++] = prices[row];
+            }
+        });
+
+        // 3. Pick each category's percentiles out of its range, in parallel across categories.
+        // Selecting the highest percentile first leaves everything below it in front of it, so each lower
+        // percentile only has to search what is left in front of the previous one.
+        double[][] percentiles = new double[keyCount][];
+        forEachChunk(keyCount, key -> {
+            int from = starts[key];
+            int to = starts[key + 1];
+            if (from == to) {
+                return;
+            }
+            double[] values = new double[CategoryStats.PERCENTILES.length];
+            int end = to;
+            for (int i = values.length - 1; i >= 0; i--) {
+                int index = from + (int) CategoryStats.rankOf(CategoryStats.PERCENTILES[i], to - from) - 1;
+                values[i] = select(grouped, from, end, index);
+                end = index + 1;
+            }
+            percentiles[key] = values;
+        });
+
+        List<CategoryStats> stats = new ArrayList<>();
+        for (int key = 0; key < keyCount; key++) {
+            if (counts[key] == 0) {
+                continue;
+            }
+            int categoryId = categoryOfKey == null ? key + keyBase : categoryOfKey[key];
+            stats.add(new CategoryStats(categoryId, counts[key], mins[key], maxes[key], sums[key] / counts[key],
+                    percentiles[key][0], percentiles[key][1], percentiles[key][2]));
+        }
+        if (categoryOfKey != null) {
+            stats.sort(Comparator.comparingInt(CategoryStats::categoryId));
+        }
+        return stats;
+    }
+
+    // Rearranges values[from .. to) so that values[index] holds the value a full sort would put there, with nothing
+    // larger in front of it, and returns it. This is quickselect: O(n) on average instead of a sort's O(n log n).
+    // It partitions three ways (less than, equal to, greater than the pivot) because prices repeat a lot.
+    static double select(double[] values, int from, int to, int index) {
+        while (to - from > 1) {
+            // Random pivot positions: fixed ones (first, middle, last) degrade badly on prices that repeat in a pattern.
+            ThreadLocalRandom random = ThreadLocalRandom.current();
+            double pivot = medianOfThree(values[random.nextInt(from, to)], values[random.nextInt(from, to)],
+                    values[random.nextInt(from, to)]);
+            int less = from;
+            int greater = to - 1;
+            int i = from;
+            while (i <= greater) {
+                double value = values[i];
+                if (value < pivot) {
+                    values[i++] = values[less];
+                    values[less++] = value;
+                } else if (value > pivot) {
+                    values[i] = values[greater];
+                    values[greater--] = value;
+                } else {
+                    i++;
+                }
+            }
+
+            // Now [from, less) < pivot, [less, greater] == pivot and (greater, to) > pivot.
+            if (index < less) {
+                to = less;
+            } else if (index > greater) {
+                from = greater + 1;
+            } else {
+                return pivot;
+            }
+        }
+        return values[index];
+    }
+
+    private static double medianOfThree(double a, double b, double c) {
+        return Math.max(Math.min(a, b), Math.min(Math.max(a, b), c));
+    }
+
+    // Runs work(0) .. work(count - 1) on the pool and waits for all of them.
+    private void forEachChunk(int count, IntConsumer work) {
+        if (count == 1) {
+            work.accept(0);
+            return;
+        }
+        pool.invoke(new ChunkTask(0, count, work));
+    }
+
+    // Splits a range of chunk numbers in half until one is left, so idle workers can steal the other halves.
+    private static final class ChunkTask extends RecursiveAction {
+
+        private final int from;
+        private final int to;
+        private final IntConsumer work;
+
+        ChunkTask(int from, int to, IntConsumer work) {
+            this.from = from;
+            this.to = to;
+            this.work = work;
+        }
+
+        @Override
+        protected void compute() {
+            if (to - from == 1) {
+                work.accept(from);
+                return;
+            }
+            int middle = (from + to) >>> 1;
+            invokeAll(new ChunkTask(from, middle, work), new ChunkTask(middle, to, work));
+        }
+    }
+}
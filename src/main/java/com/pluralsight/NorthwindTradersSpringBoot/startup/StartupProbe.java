@@ -0,0 +1,74 @@
+package com.pluralsight.NorthwindTradersSpringBoot.startup;
+
+import com.pluralsight.NorthwindTradersSpringBoot.dao.IProductDao;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.boot.SpringApplication;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.env.Environment;
+import org.springframework.stereotype.Component;
+
+import java.lang.management.ManagementFactory;
+import java.util.concurrent.TimeUnit;
+
+// Measures how long a cold start takes to be useful: with startup.probe.enabled=true, calls getAll() as soon as the
+// application is ready (trying again until it works or startup.probe.timeout-millis passes) and prints
+//   STARTUP-PROBE ready-millis=<context ready> first-getall-millis=<first successful getAll> products=<rows>
+// with both times counted from JVM start. startup.probe.exit=true then shuts the application down, which is how
+// the StartupTimeHarness runs it.
+//
+// The properties are read when the event fires rather than through @ConditionalOnProperty, so the probe still
+// works in an AOT-processed build, where conditions are fixed at build time.
+@Component
+public class StartupProbe {
+
+    private final Environment env;
+    private final ObjectProvider<IProductDao> productDao;
+
+    public StartupProbe(Environment env, @Qualifier("jdbcProductDao") ObjectProvider<IProductDao> productDao) {
+        this.env = env;
+        this.productDao = productDao;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void onReady(ApplicationReadyEvent event) {
+        if (!env.getProperty("startup.probe.enabled", Boolean.class, false)) {
+            return;
+        }
+        long readyMillis = ManagementFactory.getRuntimeMXBean().getUptime();
+        long deadline = System.nanoTime()
+                + TimeUnit.MILLISECONDS.toNanos(env.getProperty("startup.probe.timeout-millis", Long.class, 60_000L));
+
+        int products = -1;
+        RuntimeException lastError = null;
+        while (products < 0 && System.nanoTime() < deadline) {
+            try {
+                products = productDao.getObject().getAll().size();
+            } catch (RuntimeException e) {
+                lastError = e;
+                sleepQuietly(50);
+            }
+        }
+
+        if (products < 0) {
+            System.out.println("STARTUP-PROBE ready-millis=" + readyMillis + " failed=" + lastError);
+        } else {
+            System.out.println("STARTUP-PROBE ready-millis=" + readyMillis
+                    + " first-getall-millis=" + ManagementFactory.getRuntimeMXBean().getUptime()
+                    + " products=" + products);
+        }
+
+        if (env.getProperty("startup.probe.exit", Boolean.class, false)) {
+            System.exit(SpringApplication.exit(event.getApplicationContext(), () -> 0));
+        }
+    }
+
+    private static void sleepQuietly(long millis) {
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,59 @@
+package com.pluralsight.NorthwindTradersSpringBoot.startup;
+
+import com.pluralsight.NorthwindTradersSpringBoot.config.PoolProperties;
+import com.pluralsight.NorthwindTradersSpringBoot.dao.IProductDao;
+import com.pluralsight.NorthwindTradersSpringBoot.datasource.ConnectionPool;
+import com.pluralsight.NorthwindTradersSpringBoot.datasource.LazyConnectionPool;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+// With datasource.pool.warm-up=true, does the expensive first-use work on a background thread as soon as the
+// application is ready, instead of on the first request: builds a lazy pool and opens min-idle connections,
+// then makes one small query through the whole DAO stack (which creates the layers if beans are lazy, loads their
+// classes and prepares the statement). The application already accepts requests while this runs.
+@Component
+public class StartupWarmUp {
+
+    private static final Logger log = LoggerFactory.getLogger(StartupWarmUp.class);
+
+    private final ConnectionPool connectionPool;
+    private final PoolProperties poolProperties;
+    private final ObjectProvider<IProductDao> productDao;
+
+    // The DAO is looked up only when the warm-up runs, so a lazily initialised stack stays lazy until then.
+    public StartupWarmUp(ConnectionPool connectionPool, PoolProperties poolProperties,
+                         @Qualifier("jdbcProductDao") ObjectProvider<IProductDao> productDao) {
+        this.connectionPool = connectionPool;
+        this.poolProperties = poolProperties;
+        this.productDao = productDao;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void onReady() {
+        if (!poolProperties.isWarmUp()) {
+            return;
+        }
+        Thread thread = new Thread(this::warmUp, "startup-warm-up");
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    void warmUp() {
+        long start = System.nanoTime();
+        try {
+            if (connectionPool instanceof LazyConnectionPool lazyPool) {
+                lazyPool.warmUp(poolProperties.getMinIdle());
+            }
+            productDao.getObject().getPage(0, 1);
+            log.info("Warmed up the connection pool and product DAO in {} ms", (System.nanoTime() - start) / 1_000_000);
+        } catch (Exception e) {
+            // Nothing is lost: the first real request does the same work.
+            log.warn("Startup warm-up failed: {}", e.toString());
+        }
+    }
+}
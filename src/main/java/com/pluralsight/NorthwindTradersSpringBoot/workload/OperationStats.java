@@ -0,0 +1,78 @@
+package com.pluralsight.NorthwindTradersSpringBoot.workload;
+
+import org.HdrHistogram.Histogram;
+import org.HdrHistogram.Recorder;
+
+import java.util.concurrent.atomic.LongAdder;
+
+// The latencies of one operation during a workload run, in microseconds.
+// Two latencies are kept for every call:
+//   service  - from when the call really started to when it returned.
+//   response - from when the call was meant to start (its place in the arrival schedule) to when it returned.
+// When the system stalls, a load generator falls behind its schedule and sends fewer calls, so the stall shows up
+// in only a few samples ("coordinated omission"). Measuring from the intended start charges the wait to every call
+// that should have been sent during the stall, which is what a real user would have seen. Without a schedule
+// (an unpaced closed loop) both are the same.
+// Recorders take samples from many threads without locking; each report takes the interval's histograms out of them.
+final class OperationStats {
+
+    private final WorkloadOperation operation;
+    private final Recorder serviceRecorder = new Recorder(3);
+    private final Recorder responseRecorder = new Recorder(3);
+    private final LongAdder intervalErrors = new LongAdder();
+
+    // The totals of the measured intervals (warmup left out).
+    private final Histogram service = new Histogram(3);
+    private final Histogram response = new Histogram(3);
+    private long errors;
+
+    // Reused by every interval (Recorder swaps them in and out).
+    private Histogram intervalService;
+    private Histogram intervalResponse;
+
+    OperationStats(WorkloadOperation operation) {
+        this.operation = operation;
+    }
+
+    WorkloadOperation operation() {
+        return operation;
+    }
+
+    void record(long serviceNanos, long responseNanos) {
+        serviceRecorder.recordValue(serviceNanos / 1000);
+        responseRecorder.recordValue(responseNanos / 1000);
+    }
+
+    void failed() {
+        intervalErrors.increment();
+    }
+
+    // Takes everything recorded since the last call. Measured intervals are added to the totals.
+    Interval takeInterval(boolean measured) {
+        intervalService = serviceRecorder.getIntervalHistogram(intervalService);
+        intervalResponse = responseRecorder.getIntervalHistogram(intervalResponse);
+        long errorCount = intervalErrors.sumThenReset();
+        if (measured) {
+            service.add(intervalService);
+            response.add(intervalResponse);
+            errors += errorCount;
+        }
+        return new Interval(intervalService, intervalResponse, errorCount);
+    }
+
+    Histogram service() {
+        return service;
+    }
+
+    Histogram response() {
+        return response;
+    }
+
+    long errors() {
+        return errors;
+    }
+
+    // One report interval of an operation. The histograms are only valid until the next takeInterval.
+    record Interval(Histogram service, Histogram response, long errors) {
+    }
+}
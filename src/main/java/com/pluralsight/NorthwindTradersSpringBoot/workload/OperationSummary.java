@@ -0,0 +1,39 @@
+package com.pluralsight.NorthwindTradersSpringBoot.workload;
+
+import org.HdrHistogram.Histogram;
+
+import java.util.Locale;
+
+// The measured results of one operation (or of a group such as "all", "reads" or "writes") over a workload run.
+// Latencies are in milliseconds. The p* and max columns are measured from each call's intended start, so they are
+// corrected for coordinated omission; the service* columns are measured from when the call really started.
+public record OperationSummary(String operation, String type, long count, long errors, double throughputPerSecond,
+                               double serviceP50Millis, double serviceP99Millis, double serviceMaxMillis,
+                               double p50Millis, double p90Millis, double p99Millis, double p999Millis,
+                               double maxMillis) {
+
+    static final String CSV_HEADER = "operation,type,count,errors,throughput_per_second,"
+            + "service_p50_ms,service_p99_ms,service_max_ms,p50_ms,p90_ms,p99_ms,p999_ms,max_ms";
+
+    // Histograms in microseconds, measured over seconds.
+    static OperationSummary of(String operation, String type, Histogram service, Histogram response, long errors,
+                               double seconds) {
+        return new OperationSummary(operation, type, response.getTotalCount(), errors,
+                seconds > 0 ? response.getTotalCount() / seconds : 0,
+                millis(service.getValueAtPercentile(50)), millis(service.getValueAtPercentile(99)),
+                millis(service.getMaxValue()),
+                millis(response.getValueAtPercentile(50)), millis(response.getValueAtPercentile(90)),
+                millis(response.getValueAtPercentile(99)), millis(response.getValueAtPercentile(99.9)),
+                millis(response.getMaxValue()));
+    }
+
+    String toCsv() {
+        return String.format(Locale.ROOT, "%s,%s,%d,%d,%.1f,%.3f,%.3f,%.3f,%.3f,%.3f,%.3f,%.3f,%.3f",
+                operation, type, count, errors, throughputPerSecond, serviceP50Millis, serviceP99Millis,
+                serviceMaxMillis, p50Millis, p90Millis, p99Millis, p999Millis, maxMillis);
+    }
+
+    private static double millis(long micros) {
+        return micros / 1000.0;
+    }
+}
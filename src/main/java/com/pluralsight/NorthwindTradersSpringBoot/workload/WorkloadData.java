@@ -0,0 +1,153 @@
+package com.pluralsight.NorthwindTradersSpringBoot.workload;
+
+import com.pluralsight.NorthwindTradersSpringBoot.dao.IProductDao;
+import com.pluralsight.NorthwindTradersSpringBoot.model.Product;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.TreeSet;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicLong;
+
+// What the operations of one workload run pick their arguments from: the ids, categories, prices and names that
+// were in the table when the run started, and the products the run has added and not yet deleted ("owned").
+class WorkloadData {
+
+    // How many prices and names are kept to pick from (a random sample of the table).
+    private static final int SAMPLE_SIZE = 10_000;
+
+    private final int[] productIds;
+    private final int[] categoryIds;
+    private final double[] prices;
+    private final String[] namePrefixes;
+    private final int batchSize;
+    private final AtomicLong productNumber = new AtomicLong();
+
+    // Guarded by this.
+    private final List<Product> owned = new ArrayList<>();
+
+    WorkloadData(int[] productIds, int[] categoryIds, double[] prices, String[] namePrefixes, int batchSize) {
+        this.productIds = productIds.length > 0 ? productIds : new int[]{1};
+        this.categoryIds = categoryIds.length > 0 ? categoryIds : new int[]{1};
+        this.prices = prices.length > 0 ? prices : new double[]{1};
+        this.namePrefixes = namePrefixes.length > 0 ? namePrefixes : new String[]{"A"};
+        this.batchSize = batchSize;
+    }
+
+    // Reads the table once: every id, every category, and a random sample of prices and names.
+    static WorkloadData load(IProductDao productDao, int batchSize) {
+        int[][] ids = {new int[1024]};
+        int[] count = {0};
+        TreeSet<Integer> categories = new TreeSet<>();
+        double[] prices = new double[SAMPLE_SIZE];
+        String[] prefixes = new String[SAMPLE_SIZE];
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+
+        productDao.forEach(row -> {
+            int n = count[0]++;
+            if (n == ids[0].length) {
+                ids[0] = Arrays.copyOf(ids[0], n * 2);
+            }
+            ids[0][n] = row.productId();
+            categories.add(row.categoryId());
+
+            // Reservoir sampling: every row has the same chance of being in the sample, however big the table.
+            int slot = n < SAMPLE_SIZE ? n : random.nextInt(n + 1);
+            if (slot < SAMPLE_SIZE) {
+                prices[slot] = row.unitPrice();
+                String name = row.productName();
+                prefixes[slot] = name.substring(0, Math.min(3, name.length()));
+            }
+        });
+
+        int sampled = Math.min(count[0], SAMPLE_SIZE);
+        return new WorkloadData(Arrays.copyOf(ids[0], count[0]),
+                categories.stream().mapToInt(Integer::intValue).toArray(),
+                Arrays.copyOf(prices, sampled), Arrays.copyOf(prefixes, sampled), batchSize);
+    }
+
+    int batchSize() {
+        return batchSize;
+    }
+
+    int tableSize() {
+        return productIds.length;
+    }
+
+    int randomId(ThreadLocalRandom random) {
+        return productIds[random.nextInt(productIds.length)];
+    }
+
+    int[] randomIds(ThreadLocalRandom random) {
+        int[] ids = new int[batchSize];
+        for (int i = 0; i < ids.length; i++) {
+            ids[i] = randomId(random);
+        }
+        return ids;
+    }
+
+    int randomCategoryId(ThreadLocalRandom random) {
+        return categoryIds[random.nextInt(categoryIds.length)];
+    }
+
+    double randomPrice(ThreadLocalRandom random) {
+        return prices[random.nextInt(prices.length)];
+    }
+
+    String randomNamePrefix(ThreadLocalRandom random) {
+        return namePrefixes[random.nextInt(namePrefixes.length)];
+    }
+
+    Product newProduct(ThreadLocalRandom random) {
+        return new Product(0, "Workload product " + productNumber.incrementAndGet(), randomCategoryId(random),
+                random.nextInt(100, 10_000) / 100.0);
+    }
+
+    List<Product> newProducts(ThreadLocalRandom random, int count) {
+        List<Product> products = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            products.add(newProduct(random));
+        }
+        return products;
+    }
+
+    // Remembers products the workload has added.
+    synchronized void owned(List<Product> products) {
+        owned.addAll(products);
+    }
+
+    synchronized int ownedCount() {
+        return owned.size();
+    }
+
+    // Up to count owned products, as copies with a new price and version 0 (overwrite whatever version the row has,
+    // so concurrent updates of the same product don't fail on optimistic locking).
+    synchronized List<Product> pickOwned(ThreadLocalRandom random, int count) {
+        List<Product> picked = new ArrayList<>(Math.min(count, owned.size()));
+        for (int i = 0; i < count && !owned.isEmpty(); i++) {
+            Product product = owned.get(random.nextInt(owned.size()));
+            picked.add(new Product(product.getProductId(), product.getProductName(), product.getCategoryId(),
+                    random.nextInt(100, 10_000) / 100.0, 0));
+        }
+        return picked;
+    }
+
+    // Removes up to count random owned products and returns their ids, for the caller to delete.
+    synchronized int[] takeOwned(ThreadLocalRandom random, int count) {
+        int[] taken = new int[Math.min(count, owned.size())];
+        for (int i = 0; i < taken.length; i++) {
+            int index = random.nextInt(owned.size());
+            Product last = owned.remove(owned.size() - 1);
+            taken[i] = (index < owned.size() ? owned.set(index, last) : last).getProductId();
+        }
+        return taken;
+    }
+
+    // Removes every owned product and returns their ids.
+    synchronized int[] takeAllOwned() {
+        int[] taken = owned.stream().mapToInt(Product::getProductId).toArray();
+        owned.clear();
+        return taken;
+    }
+}
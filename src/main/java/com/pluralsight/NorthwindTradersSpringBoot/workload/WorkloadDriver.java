@@ -0,0 +1,412 @@
+package com.pluralsight.NorthwindTradersSpringBoot.workload;
+
+import com.pluralsight.NorthwindTradersSpringBoot.dao.IProductDao;
+import com.pluralsight.NorthwindTradersSpringBoot.model.Product;
+import org.HdrHistogram.Histogram;
+import org.HdrHistogram.HistogramLogWriter;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.io.PrintStream;
+import java.lang.reflect.Method;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.LockSupport;
+
+// Drives an IProductDao with a weighted mix of operations for a fixed time and measures every call.
+//   Closed loop: workload.clients callers each make one call after another. With rate-per-second above 0 each caller
+//   is paced to its share of the rate (so every call has an intended start time); otherwise it waits think-time
+//   between calls.
+//   Open loop: one dispatcher starts calls at rate-per-second on a fixed schedule, whether or not the earlier calls
+//   are done. At most clients calls run at once; when they are all busy the schedule keeps going and the late calls
+//   start as soon as a slot frees up, with the wait counted in their latency.
+// Calls run on virtual threads on Java 21+ and on a fixed pool of clients platform threads before that.
+// Every report interval prints a line and writes the interval to the timeline CSV and to an HdrHistogram interval
+// log; at the end the totals of the measured part (after warmup) are written to the summary CSV.
+public class WorkloadDriver {
+
+    private static final Logger log = LoggerFactory.getLogger(WorkloadDriver.class);
+
+    // Rows per addAll/deleteByIds when seeding and cleaning up.
+    private static final int SETUP_BATCH = 500;
+
+    private static final String TIMELINE_HEADER =
+            "elapsed_seconds,phase,operation,count,errors,throughput_per_second,p50_ms,p90_ms,p99_ms,p999_ms,max_ms";
+
+    private final IProductDao productDao;
+    private final WorkloadProperties properties;
+
+    // The operations with a weight above 0, and their running weight totals for picking one at random.
+    private final WorkloadOperation[] operations;
+    private final int[] cumulativeWeights;
+    private final Map<WorkloadOperation, OperationStats> stats = new EnumMap<>(WorkloadOperation.class);
+
+    // Set when the run is cut short by an error, so the callers stop straight away.
+    private volatile boolean stopped;
+
+    public WorkloadDriver(IProductDao productDao, WorkloadProperties properties) {
+        if (properties.getClients() < 1) {
+            throw new IllegalArgumentException("workload.clients must be at least 1");
+        }
+        if (properties.isOpenLoop() && properties.getRatePerSecond() <= 0) {
+            throw new IllegalArgumentException("An open-loop workload needs workload.rate-per-second above 0");
+        }
+        if (properties.getDurationSeconds() < 1 || properties.getReportIntervalSeconds() < 1) {
+            throw new IllegalArgumentException("workload.duration-seconds and report-interval-seconds must be at least 1");
+        }
+        this.productDao = productDao;
+        this.properties = properties;
+
+        List<WorkloadOperation> weighted = new ArrayList<>();
+        List<Integer> totals = new ArrayList<>();
+        int total = 0;
+        for (Map.Entry<WorkloadOperation, Integer> entry : properties.getMix().entrySet()) {
+            if (entry.getValue() > 0) {
+                total += entry.getValue();
+                weighted.add(entry.getKey());
+                totals.add(total);
+                stats.put(entry.getKey(), new OperationStats(entry.getKey()));
+            }
+        }
+        if (weighted.isEmpty()) {
+            throw new IllegalArgumentException("Every operation in workload.mix has weight 0");
+        }
+        this.operations = weighted.toArray(new WorkloadOperation[0]);
+        this.cumulativeWeights = totals.stream().mapToInt(Integer::intValue).toArray();
+    }
+
+    public WorkloadResult run() throws IOException, InterruptedException {
+        WorkloadData data = WorkloadData.load(productDao, properties.getBatchSize());
+        seed(data);
+
+        String runName = properties.getRunName().isBlank()
+                ? "run-" + LocalDateTime.now().format(DateTimeFormatter.ofPattern("yyyyMMdd-HHmmss"))
+                : properties.getRunName();
+        Path outputDir = Path.of(properties.getOutputDir());
+        Files.createDirectories(outputDir);
+        Path summaryFile = outputDir.resolve(runName + "-summary.csv");
+        Path timelineFile = outputDir.resolve(runName + "-timeline.csv");
+        Path histogramLogFile = outputDir.resolve(runName + ".hlog");
+
+        ExecutorService virtual = newVirtualThreadExecutor();
+        boolean virtualThreads = virtual != null;
+        ExecutorService executor = virtualThreads ? virtual : newPlatformThreadExecutor(properties.getClients());
+        String settings = describe(data, virtualThreads);
+        log.info("Starting workload {}: {}", runName, settings);
+
+        try (
+                PrintStream timeline = new PrintStream(Files.newOutputStream(timelineFile), false, StandardCharsets.UTF_8);
+                PrintStream histogramLog = new PrintStream(Files.newOutputStream(histogramLogFile), false, StandardCharsets.UTF_8)
+        ) {
+            long startMillis = System.currentTimeMillis();
+            HistogramLogWriter logWriter = new HistogramLogWriter(histogramLog);
+            logWriter.outputComment("NorthwindTradersSpringBoot workload " + runName + ": " + settings);
+            logWriter.outputComment("Tags: <operation> = latency from the intended start (corrected), "
+                    + "<operation>-service = from the actual start; values in microseconds");
+            logWriter.outputLogFormatVersion();
+            logWriter.outputStartTime(startMillis);
+            logWriter.setBaseTime(startMillis);
+            logWriter.outputLegend();
+            timeline.println(TIMELINE_HEADER);
+
+            // Throw away the (empty) interval from before the start, so the first interval starts now.
+            stats.values().forEach(operationStats -> operationStats.takeInterval(false));
+
+            long start = System.nanoTime();
+            long warmupEnd = start + TimeUnit.SECONDS.toNanos(properties.getWarmupSeconds());
+            long end = warmupEnd + TimeUnit.SECONDS.toNanos(properties.getDurationSeconds());
+            Thread generator = startLoad(executor, data, start, end);
+
+            // Report every interval, with one report exactly at the end of the warmup.
+            long intervalNanos = TimeUnit.SECONDS.toNanos(properties.getReportIntervalSeconds());
+            long previous = start;
+            while (previous < end) {
+                long next = Math.min(previous + intervalNanos, end);
+                if (previous < warmupEnd && next > warmupEnd) {
+                    next = warmupEnd;
+                }
+                parkUntil(next);
+                boolean measured = next > warmupEnd;
+                report(timeline, logWriter, start, previous, next, measured ? "measure" : "warmup", measured);
+                previous = next;
+            }
+
+            // Every call scheduled before the end is still made, even if it is late, and they all count towards the
+            // totals: dropping the late ones would hide the very stalls that made them late.
+            generator.join();
+            executor.shutdown();
+            if (!executor.awaitTermination(1, TimeUnit.MINUTES)) {
+                log.warn("Some workload calls were still running a minute after the end");
+            }
+            report(timeline, logWriter, start, previous, Math.max(previous + 1, System.nanoTime()), "drain", true);
+        } finally {
+            stopped = true;
+            executor.shutdownNow();
+        }
+
+        if (properties.isCleanup()) {
+            cleanup(data);
+        }
+
+        List<OperationSummary> summaries = summarize(properties.getDurationSeconds());
+        writeSummary(summaryFile, settings, summaries);
+        printSummary(runName, summaries);
+        return new WorkloadResult(summaries, summaryFile, timelineFile, histogramLogFile);
+    }
+
+    // Starts the callers (closed loop) or the dispatcher (open loop) on a thread of its own.
+    private Thread startLoad(ExecutorService executor, WorkloadData data, long start, long end) {
+        Runnable load = properties.isOpenLoop()
+                ? () -> dispatch(executor, data, start, end)
+                : () -> {
+                    for (int i = 0; i < properties.getClients(); i++) {
+                        executor.execute(() -> callInLoop(data, end));
+                    }
+                };
+        Thread generator = new Thread(load, "workload-generator");
+        generator.setDaemon(true);
+        generator.start();
+        return generator;
+    }
+
+    // Open loop: call number i is due at start + i / rate, no matter how the earlier calls are doing.
+    private void dispatch(ExecutorService executor, WorkloadData data, long start, long end) {
+        double intervalNanos = 1e9 / properties.getRatePerSecond();
+        Semaphore slots = new Semaphore(properties.getClients());
+        for (long i = 0; !stopped; i++) {
+            long intended = start + (long) (i * intervalNanos);
+            if (intended >= end) {
+                return;
+            }
+            parkUntil(intended);
+            slots.acquireUninterruptibly();
+            executor.execute(() -> {
+                try {
+                    call(data, intended);
+                } finally {
+                    slots.release();
+                }
+            });
+        }
+    }
+
+    // Closed loop: one caller. Paced callers start at a random point of their first interval so they don't all
+    // call at the same moment.
+    private void callInLoop(WorkloadData data, long end) {
+        long paceNanos = properties.getRatePerSecond() > 0
+                ? (long) (properties.getClients() * 1e9 / properties.getRatePerSecond())
+                : 0;
+        long thinkNanos = TimeUnit.MILLISECONDS.toNanos(properties.getThinkTimeMillis());
+        long intended = System.nanoTime() + (paceNanos > 0 ? ThreadLocalRandom.current().nextLong(paceNanos) : 0);
+
+        while (!stopped) {
+            if (paceNanos > 0) {
+                if (intended >= end) {
+                    return;
+                }
+                parkUntil(intended);
+            } else {
+                intended = System.nanoTime();
+                if (intended >= end) {
+                    return;
+                }
+            }
+
+            call(data, intended);
+
+            // A paced caller that has fallen behind starts its next call straight away, from its scheduled time.
+            if (paceNanos > 0) {
+                intended += paceNanos;
+            } else if (thinkNanos > 0) {
+                LockSupport.parkNanos(thinkNanos);
+            }
+        }
+    }
+
+    // Makes one call of a randomly picked operation and records it.
+    private void call(WorkloadData data, long intended) {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        int position = Arrays.binarySearch(cumulativeWeights, random.nextInt(cumulativeWeights[cumulativeWeights.length - 1]) + 1);
+        WorkloadOperation operation = operations[position >= 0 ? position : -position - 1];
+        OperationStats operationStats = stats.get(operation);
+
+        long started = System.nanoTime();
+        try {
+            operation.run(productDao, data, random);
+            long finished = System.nanoTime();
+            operationStats.record(finished - started, finished - intended);
+        } catch (RuntimeException e) {
+            operationStats.failed();
+            log.debug("Workload call {} failed", operation.label(), e);
+        }
+    }
+
+    // Takes the interval from every operation, writes it to the timeline and the histogram log, and prints a line.
+    private void report(PrintStream timeline, HistogramLogWriter logWriter, long start, long from, long to,
+                        String phase, boolean measured) {
+        double seconds = (to - from) / 1e9;
+        double elapsed = (to - start) / 1e9;
+        Histogram all = new Histogram(3);
+        long allErrors = 0;
+
+        for (OperationStats operationStats : stats.values()) {
+            OperationStats.Interval interval = operationStats.takeInterval(measured);
+            String label = operationStats.operation().label();
+            all.add(interval.response());
+            allErrors += interval.errors();
+            timeline.println(timelineRow(elapsed, phase, label, interval.response(), interval.errors(), seconds));
+
+            interval.response().setTag(label);
+            logWriter.outputIntervalHistogram(interval.response());
+            interval.service().setTag(label + "-service");
+            logWriter.outputIntervalHistogram(interval.service());
+        }
+        timeline.println(timelineRow(elapsed, phase, "all", all, allErrors, seconds));
+        timeline.flush();
+
+        System.out.printf(Locale.ROOT, "[%7.1fs] %-7s %9.1f ops/s  errors %d  p50 %.3f ms  p99 %.3f ms  max %.3f ms%n",
+                elapsed, phase, all.getTotalCount() / seconds, allErrors, all.getValueAtPercentile(50) / 1000.0,
+                all.getValueAtPercentile(99) / 1000.0, all.getMaxValue() / 1000.0);
+    }
+
+    private static String timelineRow(double elapsed, String phase, String operation, Histogram response, long errors,
+                                      double seconds) {
+        return String.format(Locale.ROOT, "%.1f,%s,%s,%d,%d,%.1f,%.3f,%.3f,%.3f,%.3f,%.3f",
+                elapsed, phase, operation, response.getTotalCount(), errors, response.getTotalCount() / seconds,
+                response.getValueAtPercentile(50) / 1000.0, response.getValueAtPercentile(90) / 1000.0,
+                response.getValueAtPercentile(99) / 1000.0, response.getValueAtPercentile(99.9) / 1000.0,
+                response.getMaxValue() / 1000.0);
+    }
+
+    // One summary per operation, then the reads, the writes and everything together.
+    private List<OperationSummary> summarize(double seconds) {
+        List<OperationSummary> summaries = new ArrayList<>();
+        Histogram[] readTotals = {new Histogram(3), new Histogram(3)};
+        Histogram[] writeTotals = {new Histogram(3), new Histogram(3)};
+        Histogram[] allTotals = {new Histogram(3), new Histogram(3)};
+        long readErrors = 0;
+        long writeErrors = 0;
+
+        for (OperationStats operationStats : stats.values()) {
+            WorkloadOperation operation = operationStats.operation();
+            summaries.add(OperationSummary.of(operation.label(), operation.isWrite() ? "write" : "read",
+                    operationStats.service(), operationStats.response(), operationStats.errors(), seconds));
+
+            Histogram[] totals = operation.isWrite() ? writeTotals : readTotals;
+            totals[0].add(operationStats.service());
+            totals[1].add(operationStats.response());
+            allTotals[0].add(operationStats.service());
+            allTotals[1].add(operationStats.response());
+            if (operation.isWrite()) {
+                writeErrors += operationStats.errors();
+            } else {
+                readErrors += operationStats.errors();
+            }
+        }
+
+        summaries.add(OperationSummary.of("reads", "group", readTotals[0], readTotals[1], readErrors, seconds));
+        summaries.add(OperationSummary.of("writes", "group", writeTotals[0], writeTotals[1], writeErrors, seconds));
+        summaries.add(OperationSummary.of("all", "group", allTotals[0], allTotals[1], readErrors + writeErrors, seconds));
+        return summaries;
+    }
+
+    // The summary CSV starts with the run's settings as # comment lines, so two files can be compared knowing
+    // what produced them.
+    private static void writeSummary(Path summaryFile, String settings, List<OperationSummary> summaries) throws IOException {
+        List<String> lines = new ArrayList<>();
+        lines.add("# " + settings);
+        lines.add(OperationSummary.CSV_HEADER);
+        for (OperationSummary summary : summaries) {
+            lines.add(summary.toCsv());
+        }
+        Files.write(summaryFile, lines, StandardCharsets.UTF_8);
+    }
+
+    private static void printSummary(String runName, List<OperationSummary> summaries) {
+        System.out.println();
+        System.out.println("Workload " + runName + " (latency in ms, measured from each call's intended start)");
+        System.out.printf(Locale.ROOT, "%-18s %10s %7s %10s %9s %9s %9s %9s %9s%n",
+                "operation", "count", "errors", "ops/s", "p50", "p90", "p99", "p99.9", "max");
+        for (OperationSummary summary : summaries) {
+            System.out.printf(Locale.ROOT, "%-18s %10d %7d %10.1f %9.3f %9.3f %9.3f %9.3f %9.3f%n",
+                    summary.operation(), summary.count(), summary.errors(), summary.throughputPerSecond(),
+                    summary.p50Millis(), summary.p90Millis(), summary.p99Millis(), summary.p999Millis(),
+                    summary.maxMillis());
+        }
+    }
+
+    private String describe(WorkloadData data, boolean virtualThreads) {
+        StringBuilder mix = new StringBuilder();
+        for (int i = 0; i < operations.length; i++) {
+            int weight = cumulativeWeights[i] - (i == 0 ? 0 : cumulativeWeights[i - 1]);
+            mix.append(i == 0 ? "" : " ").append(operations[i].label()).append('=').append(weight);
+        }
+        return String.format(Locale.ROOT,
+                "arrival=%s clients=%d rate-per-second=%.1f think-time-millis=%d warmup-seconds=%d "
+                        + "duration-seconds=%d virtual-threads=%s table-size=%d mix=[%s]",
+                properties.isOpenLoop() ? "open" : "closed", properties.getClients(), properties.getRatePerSecond(),
+                properties.getThinkTimeMillis(), properties.getWarmupSeconds(), properties.getDurationSeconds(),
+                virtualThreads, data.tableSize(), mix);
+    }
+
+    // Adds the seed products (not measured).
+    private void seed(WorkloadData data) {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        for (int added = 0; added < properties.getSeedProducts(); added += SETUP_BATCH) {
+            List<Product> products = data.newProducts(random, Math.min(SETUP_BATCH, properties.getSeedProducts() - added));
+            productDao.addAll(products);
+            data.owned(products);
+        }
+    }
+
+    // Deletes the products the workload added and didn't delete itself (not measured).
+    private void cleanup(WorkloadData data) {
+        int[] productIds = data.takeAllOwned();
+        for (int from = 0; from < productIds.length; from += SETUP_BATCH) {
+            productDao.deleteByIds(Arrays.copyOfRange(productIds, from, Math.min(from + SETUP_BATCH, productIds.length)));
+        }
+        log.info("Deleted the {} products the workload left behind", productIds.length);
+    }
+
+    private static void parkUntil(long deadline) {
+        long remaining;
+        while ((remaining = deadline - System.nanoTime()) > 0) {
+            LockSupport.parkNanos(remaining);
+        }
+    }
+
+    // Executors.newVirtualThreadPerTaskExecutor() if this JVM has it, otherwise null (like AsyncProductDao).
+    private static ExecutorService newVirtualThreadExecutor() {
+        try {
+            Method factory = Executors.class.getMethod("newVirtualThreadPerTaskExecutor");
+            return (ExecutorService) factory.invoke(null);
+        } catch (ReflectiveOperationException e) {
+            return null;
+        }
+    }
+
+    private static ExecutorService newPlatformThreadExecutor(int threads) {
+        AtomicInteger threadNumber = new AtomicInteger();
+        return Executors.newFixedThreadPool(threads, runnable -> {
+            Thread thread = new Thread(runnable, "workload-client-" + threadNumber.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+}
@@ -0,0 +1,119 @@
+package com.pluralsight.NorthwindTradersSpringBoot.workload;
+
+import com.pluralsight.NorthwindTradersSpringBoot.dao.IProductDao;
+import com.pluralsight.NorthwindTradersSpringBoot.model.Product;
+
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.stream.Stream;
+
+// Every IProductDao call the workload can make, with its default weight in the mix.
+// Reads pick ids, categories, prices and names that were in the table when the run started. Writes only touch
+// products the workload added itself, so a run never changes or deletes the products that were already there.
+// The adds and deletes are weighted so that, on average, as many rows are added as deleted.
+public enum WorkloadOperation {
+
+    FIND_BY_ID("findById", false, 40, (dao, data, random) -> dao.findById(data.randomId(random))),
+    FIND_BY_IDS("findByIds", false, 5, (dao, data, random) -> dao.findByIds(data.randomIds(random))),
+    FIND_BY_CATEGORY("findByCategory", false, 3, (dao, data, random) -> dao.findByCategory(data.randomCategoryId(random))),
+    FIND_BY_PRICE_RANGE("findByPriceRange", false, 3, (dao, data, random) -> {
+        double low = data.randomPrice(random);
+        dao.findByPriceRange(low, low + 1);
+    }),
+    FIND_BY_NAME_PREFIX("findByNamePrefix", false, 3, (dao, data, random) -> dao.findByNamePrefix(data.randomNamePrefix(random))),
+    GET_PAGE("getPage", false, 5, (dao, data, random) -> dao.getPage(data.randomId(random), data.batchSize())),
+
+    // The whole-table reads are off by default: on a big catalog one of them outweighs thousands of lookups.
+    GET_ALL("getAll", false, 0, (dao, data, random) -> dao.getAll()),
+    STREAM_ALL("streamAll", false, 0, (dao, data, random) -> {
+        try (Stream<Product> products = dao.streamAll()) {
+            products.forEach(product -> {
+            });
+        }
+    }),
+    FOR_EACH("forEach", false, 0, (dao, data, random) -> {
+        long[] rows = {0};
+        dao.forEach(row -> rows[0]++);
+    }),
+
+    // Needs product-changes.enabled=true. Reads the last 100 changes.
+    GET_CHANGES_SINCE("getChangesSince", false, 0,
+            (dao, data, random) -> dao.getChangesSince(Math.max(0, dao.getChangeWatermark() - 100))),
+
+    ADD("add", true, 10, (dao, data, random) -> {
+        Product product = data.newProduct(random);
+        dao.add(product);
+        data.owned(List.of(product));
+    }),
+    ADD_ALL("addAll", true, 2, (dao, data, random) -> {
+        List<Product> products = data.newProducts(random, data.batchSize());
+        dao.addAll(products);
+        data.owned(products);
+    }),
+    UPDATE("update", true, 15, (dao, data, random) -> {
+        List<Product> products = data.pickOwned(random, 1);
+        if (!products.isEmpty()) {
+            dao.update(products.get(0));
+        }
+    }),
+    UPDATE_ALL("updateAll", true, 2, (dao, data, random) -> {
+        List<Product> products = data.pickOwned(random, data.batchSize());
+        if (!products.isEmpty()) {
+            dao.updateAll(products);
+        }
+    }),
+    DELETE_BY_ID("deleteByID", true, 10, (dao, data, random) -> {
+        int[] productIds = data.takeOwned(random, 1);
+        if (productIds.length > 0) {
+            dao.deleteByID(productIds[0]);
+        }
+    }),
+    DELETE_BY_IDS("deleteByIds", true, 2, (dao, data, random) -> {
+        int[] productIds = data.takeOwned(random, data.batchSize());
+        if (productIds.length > 0) {
+            dao.deleteByIds(productIds);
+        }
+    });
+
+    // One call of an operation.
+    @FunctionalInterface
+    interface Call {
+        void run(IProductDao productDao, WorkloadData data, ThreadLocalRandom random);
+    }
+
+    private final String label;
+    private final boolean write;
+    private final int defaultWeight;
+    private final Call call;
+
+    WorkloadOperation(String label, boolean write, int defaultWeight, Call call) {
+        this.label = label;
+        this.write = write;
+        this.defaultWeight = defaultWeight;
+        this.call = call;
+    }
+
+    // The IProductDao method name, used in the reports.
+    public String label() {
+        return label;
+    }
+
+    public boolean isWrite() {
+        return write;
+    }
+
+    void run(IProductDao productDao, WorkloadData data, ThreadLocalRandom random) {
+        call.run(productDao, data, random);
+    }
+
+    // Every operation with its default weight.
+    public static Map<WorkloadOperation, Integer> defaultMix() {
+        Map<WorkloadOperation, Integer> mix = new EnumMap<>(WorkloadOperation.class);
+        for (WorkloadOperation operation : values()) {
+            mix.put(operation, operation.defaultWeight);
+        }
+        return mix;
+    }
+}
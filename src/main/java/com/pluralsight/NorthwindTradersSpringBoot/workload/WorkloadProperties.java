@@ -0,0 +1,170 @@
+package com.pluralsight.NorthwindTradersSpringBoot.workload;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.util.EnumMap;
+import java.util.Map;
+
+// Holds the workload runner settings from application.properties (every key starts with "workload.").
+// Only used with the "workload" profile (see WorkloadRunner).
+@ConfigurationProperties(prefix = "workload")
+public class WorkloadProperties {
+
+    // "closed": clients concurrent callers, each starting its next call when the last one is done (plus think time).
+    // "open": calls arrive at rate-per-second whether or not earlier ones have finished, like real traffic.
+    private String arrival = "closed";
+
+    // Closed loop: how many callers. Open loop: the most calls in flight at once (late arrivals queue up).
+    private int clients = 64;
+
+    // Open loop: the arrival rate. Closed loop: if above 0, each caller is paced to its share of this rate, so its
+    // calls have intended start times and the latencies can be corrected for coordinated omission.
+    private double ratePerSecond = 1000;
+
+    // Closed loop: pause between a caller's calls.
+    private long thinkTimeMillis = 0;
+
+    // Measured for duration-seconds after warmup-seconds that are reported but left out of the totals.
+    private long warmupSeconds = 10;
+    private long durationSeconds = 60;
+
+    // How often a line of throughput and latency is printed and written to the timeline.
+    private long reportIntervalSeconds = 5;
+
+    // The relative weight of each operation (an operation with weight 0 never runs).
+    private Map<WorkloadOperation, Integer> mix = WorkloadOperation.defaultMix();
+
+    // Products the workload adds before it starts, so updates and deletes have something of their own to change.
+    private int seedProducts = 1000;
+
+    // How many ids the bulk operations (findByIds, addAll, updateAll, deleteByIds) use, and the getPage size.
+    private int batchSize = 20;
+
+    // Deletes whatever products the workload added and didn't delete itself at the end.
+    private boolean cleanup = true;
+
+    // Results go to <output-dir>/<run-name>-summary.csv, -timeline.csv and .hlog (HdrHistogram interval log).
+    // A blank run name means "run-" plus the start time.
+    private String outputDir = "workload-results";
+    private String runName = "";
+
+    // Shut the application down once the run is over.
+    private boolean exit = true;
+
+    // GETTER AND SETTERS
+    public String getArrival() {
+        return arrival;
+    }
+
+    public void setArrival(String arrival) {
+        this.arrival = arrival;
+    }
+
+    public boolean isOpenLoop() {
+        return arrival.equalsIgnoreCase("open");
+    }
+
+    public int getClients() {
+        return clients;
+    }
+
+    public void setClients(int clients) {
+        this.clients = clients;
+    }
+
+    public double getRatePerSecond() {
+        return ratePerSecond;
+    }
+
+    public void setRatePerSecond(double ratePerSecond) {
+        this.ratePerSecond = ratePerSecond;
+    }
+
+    public long getThinkTimeMillis() {
+        return thinkTimeMillis;
+    }
+
+    public void setThinkTimeMillis(long thinkTimeMillis) {
+        this.thinkTimeMillis = thinkTimeMillis;
+    }
+
+    public long getWarmupSeconds() {
+        return warmupSeconds;
+    }
+
+    public void setWarmupSeconds(long warmupSeconds) {
+        this.warmupSeconds = warmupSeconds;
+    }
+
+    public long getDurationSeconds() {
+        return durationSeconds;
+    }
+
+    public void setDurationSeconds(long durationSeconds) {
+        this.durationSeconds = durationSeconds;
+    }
+
+    public long getReportIntervalSeconds() {
+        return reportIntervalSeconds;
+    }
+
+    public void setReportIntervalSeconds(long reportIntervalSeconds) {
+        this.reportIntervalSeconds = reportIntervalSeconds;
+    }
+
+    public Map<WorkloadOperation, Integer> getMix() {
+        return mix;
+    }
+
+    public void setMix(Map<WorkloadOperation, Integer> mix) {
+        this.mix = new EnumMap<>(mix);
+    }
+
+    public int getSeedProducts() {
+        return seedProducts;
+    }
+
+    public void setSeedProducts(int seedProducts) {
+        this.seedProducts = seedProducts;
+    }
+
+    public int getBatchSize() {
+        return batchSize;
+    }
+
+    public void setBatchSize(int batchSize) {
+        this.batchSize = batchSize;
+    }
+
+    public boolean isCleanup() {
+        return cleanup;
+    }
+
+    public void setCleanup(boolean cleanup) {
+        this.cleanup = cleanup;
+    }
+
+    public String getOutputDir() {
+        return outputDir;
+    }
+
+    public void setOutputDir(String outputDir) {
+        this.outputDir = outputDir;
+    }
+
+    public String getRunName() {
+        return runName;
+    }
+
+    public void setRunName(String runName) {
+        this.runName = runName;
+    }
+
+    public boolean isExit() {
+        return exit;
+    }
+
+    public void setExit(boolean exit) {
+        this.exit = exit;
+    }
+}
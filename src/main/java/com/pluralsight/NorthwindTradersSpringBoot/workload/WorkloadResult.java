@@ -0,0 +1,15 @@
+package com.pluralsight.NorthwindTradersSpringBoot.workload;
+
+import java.nio.file.Path;
+import java.util.List;
+
+// What a workload run measured, and where the files it wrote are.
+// operations has one summary per operation in the mix, then "reads", "writes" and "all".
+public record WorkloadResult(List<OperationSummary> operations, Path summaryFile, Path timelineFile,
+                             Path histogramLogFile) {
+
+    // The summary of an operation (by its IProductDao method name) or group, or null if it wasn't in the run.
+    public OperationSummary operation(String name) {
+        return operations.stream().filter(summary -> summary.operation().equals(name)).findFirst().orElse(null);
+    }
+}
@@ -0,0 +1,42 @@
+package com.pluralsight.NorthwindTradersSpringBoot.workload;
+
+import com.pluralsight.NorthwindTradersSpringBoot.dao.IProductDao;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.boot.CommandLineRunner;
+import org.springframework.boot.SpringApplication;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.ApplicationContext;
+import org.springframework.context.annotation.Profile;
+import org.springframework.stereotype.Component;
+
+// The headless alternative to the console menu: with the "workload" profile
+// (--spring.profiles.active=workload) the application runs the workload.* load test against the configured
+// product DAO (cache, replicas and all), writes the results to workload.output-dir and, with workload.exit=true,
+// shuts down.
+@Component
+@Profile("workload")
+@EnableConfigurationProperties(WorkloadProperties.class)
+public class WorkloadRunner implements CommandLineRunner {
+
+    private final IProductDao productDao;
+    private final WorkloadProperties properties;
+    private final ApplicationContext context;
+
+    public WorkloadRunner(@Qualifier("jdbcProductDao") IProductDao productDao, WorkloadProperties properties,
+                          ApplicationContext context) {
+        this.productDao = productDao;
+        this.properties = properties;
+        this.context = context;
+    }
+
+    @Override
+    public void run(String... args) throws Exception {
+        WorkloadResult result = new WorkloadDriver(productDao, properties).run();
+        System.out.println("Results written to " + result.summaryFile() + ", " + result.timelineFile() + " and "
+                + result.histogramLogFile());
+
+        if (properties.isExit()) {
+            System.exit(SpringApplication.exit(context, () -> 0));
+        }
+    }
+}
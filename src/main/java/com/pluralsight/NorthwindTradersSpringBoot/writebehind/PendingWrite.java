@@ -0,0 +1,36 @@
+package com.pluralsight.NorthwindTradersSpringBoot.writebehind;
+
+import com.pluralsight.NorthwindTradersSpringBoot.model.Product;
+
+// One buffered mutation of a product, waiting to be written to the database.
+// Only the latest pending write per ProductID is kept.
+// version is the row Version the update expects to find in the database (0 means "don't check"), exactly like
+// Product.version, so optimistic locking still applies when the write finally reaches the database.
+public record PendingWrite(Type type, int productId, String productName, int categoryId, double unitPrice,
+                           int version, long enqueuedNanos) {
+
+    public enum Type {
+        UPDATE,
+        DELETE
+    }
+
+    public static PendingWrite update(Product product) {
+        return new PendingWrite(Type.UPDATE, product.getProductId(), product.getProductName(),
+                product.getCategoryId(), product.getUnitPrice(), product.getVersion(), System.nanoTime());
+    }
+
+    public static PendingWrite delete(int productId) {
+        return new PendingWrite(Type.DELETE, productId, null, 0, 0, 0, System.nanoTime());
+    }
+
+    // The product to send to the database.
+    public Product toProduct() {
+        return new Product(productId, productName, categoryId, unitPrice, version);
+    }
+
+    // The product as readers should see it: once this update lands the row's version has gone up by one, so a
+    // caller that reads it, changes it and writes it back carries the right version.
+    public Product toReadProduct() {
+        return new Product(productId, productName, categoryId, unitPrice, version == 0 ? 0 : version + 1);
+    }
+}
@@ -0,0 +1,134 @@
+package com.pluralsight.NorthwindTradersSpringBoot.writebehind;
+
+import java.io.*;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+// An append-only log of buffered writes, so a write that was acknowledged but not yet flushed survives a crash.
+// The log is split into numbered segment files. rotate() starts a new segment and hands back the older ones;
+// once everything in them has reached the database they are deleted.
+public class WriteBehindJournal implements Closeable {
+
+    private static final String PREFIX = "journal-";
+    private static final String SUFFIX = ".log";
+
+    private final Path directory;
+    private final boolean fsync;
+
+    private long currentSegment;
+    private FileOutputStream fileStream;
+    private DataOutputStream output;
+
+    // Segments that have been rotated out but not yet confirmed flushed.
+    private final List<Path> closedSegments = new ArrayList<>();
+
+    // Opens (or creates) the journal in directory. If fsync is true, every append is forced to disk before returning.
+    public WriteBehindJournal(Path directory, boolean fsync) throws IOException {
+        this.directory = directory;
+        this.fsync = fsync;
+        Files.createDirectories(directory);
+
+        // Segments left over from a previous run stay "closed" until the writes replayed from them are flushed.
+        closedSegments.addAll(existingSegments());
+        currentSegment = closedSegments.isEmpty() ? 1 : segmentNumber(closedSegments.get(closedSegments.size() - 1)) + 1;
+        openSegment();
+    }
+
+    // Reads every write left in the journal (oldest first) and keeps the last one per ProductID.
+    public Map<Integer, PendingWrite> replay() throws IOException {
+        Map<Integer, PendingWrite> writes = new LinkedHashMap<>();
+        for (Path segment : closedSegments) {
+            try (DataInputStream input = new DataInputStream(new BufferedInputStream(Files.newInputStream(segment)))) {
+                while (true) {
+                    PendingWrite write;
+                    try {
+                        write = read(input);
+                    } catch (EOFException e) {
+                        // End of the segment, or a record cut short by a crash (which was never acknowledged).
+                        break;
+                    }
+                    writes.put(write.productId(), write);
+                }
+            }
+        }
+        return writes;
+    }
+
+    public synchronized void append(PendingWrite write) throws IOException {
+        output.writeByte(write.type().ordinal());
+        output.writeInt(write.productId());
+        if (write.type() == PendingWrite.Type.UPDATE) {
+            output.writeUTF(write.productName() == null ? "" : write.productName());
+            output.writeInt(write.categoryId());
+            output.writeDouble(write.unitPrice());
+            output.writeInt(write.version());
+        }
+        output.flush();
+        if (fsync) {
+            fileStream.getFD().sync();
+        }
+    }
+
+    // Starts a new segment for future appends and returns every segment that isn't flushed yet.
+    public synchronized List<Path> rotate() throws IOException {
+        output.close();
+        closedSegments.add(segmentPath(currentSegment));
+        currentSegment++;
+        openSegment();
+        return new ArrayList<>(closedSegments);
+    }
+
+    // Deletes segments whose writes are now in the database.
+    public synchronized void delete(List<Path> segments) throws IOException {
+        for (Path segment : segments) {
+            Files.deleteIfExists(segment);
+            closedSegments.remove(segment);
+        }
+    }
+
+    @Override
+    public synchronized void close() throws IOException {
+        output.close();
+    }
+
+    private void openSegment() throws IOException {
+        fileStream = new FileOutputStream(segmentPath(currentSegment).toFile(), true);
+        output = new DataOutputStream(new BufferedOutputStream(fileStream));
+    }
+
+    private static PendingWrite read(DataInputStream input) throws IOException {
+        PendingWrite.Type type = PendingWrite.Type.values()[input.readByte()];
+        int productId = input.readInt();
+        if (type == PendingWrite.Type.DELETE) {
+            return new PendingWrite(type, productId, null, 0, 0, 0, System.nanoTime());
+        }
+        String productName = input.readUTF();
+        int categoryId = input.readInt();
+        double unitPrice = input.readDouble();
+        int version = input.readInt();
+        return new PendingWrite(type, productId, productName, categoryId, unitPrice, version, System.nanoTime());
+    }
+
+    private List<Path> existingSegments() throws IOException {
+        List<Path> segments = new ArrayList<>();
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(directory, PREFIX + "*" + SUFFIX)) {
+            files.forEach(segments::add);
+        }
+        segments.sort((a, b) -> Long.compare(segmentNumber(a), segmentNumber(b)));
+        return segments;
+    }
+
+    private Path segmentPath(long segment) {
+        return directory.resolve(PREFIX + segment + SUFFIX);
+    }
+
+    private static long segmentNumber(Path segment) {
+        String name = segment.getFileName().toString();
+        return Long.parseLong(name.substring(PREFIX.length(), name.length() - SUFFIX.length()));
+    }
+}
@@ -0,0 +1,17 @@
+package com.pluralsight.NorthwindTradersSpringBoot.writebehind;
+
+// Counters for the write-behind queue.
+// lagMillis is the age of the oldest write that hasn't reached the database yet.
+// deadLetteredWrites counts writes the database refused for good (a version conflict, a bad value); they are
+// logged and dropped instead of being retried forever.
+public record WriteBehindStats(
+        int pendingWrites,
+        long acceptedWrites,
+        long coalescedWrites,
+        long flushedWrites,
+        long flushes,
+        long failedFlushes,
+        long deadLetteredWrites,
+        double lastFlushMillis,
+        double lagMillis) {
+}
@@ -0,0 +1,17 @@
+-- Change log for the Products table, written by JdbcProductDao when product-changes.enabled=true.
+-- Every add/update/delete inserts a row here in the same transaction, so in-memory copies can catch up with
+-- getChangesSince(watermark) instead of reloading the whole table. ChangeID is the watermark.
+-- ChangeIDs are handed out at insert time, not at commit, so a reader holds its watermark below any recent gap
+-- (a write still in progress) and skips a gap only once it is older than product-changes.gap-grace-seconds.
+CREATE TABLE ProductChanges (
+    ChangeID BIGINT AUTO_INCREMENT PRIMARY KEY,
+    ProductID INT NOT NULL,
+    Operation CHAR(1) NOT NULL, -- 'U' for an insert or update, 'D' for a delete
+    ChangedAt TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP
+);
+
+-- Finds the changes made within the grace period (getChangeWatermark) and the old ones to clean up (below).
+CREATE INDEX IX_ProductChanges_ChangedAt ON ProductChanges(ChangedAt);
+
+-- Old entries are only needed until every reader has moved past them, e.g.:
+-- DELETE FROM ProductChanges WHERE ChangedAt < NOW() - INTERVAL 7 DAY;
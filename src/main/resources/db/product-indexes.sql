@@ -0,0 +1,13 @@
+-- Indexes for the IProductDao query methods (run once against the northwind database).
+-- The Northwind sample schema already has an index on ProductName, which serves findByNamePrefix
+-- (a LIKE 'prefix%' seeks on it, and the default collation ignores case).
+
+-- findByCategory: equality on CategoryID, rows returned in ProductID order.
+CREATE INDEX idx_products_category_id ON Products (CategoryID, ProductID);
+
+-- findByPriceRange: range scan on UnitPrice, rows returned in (UnitPrice, ProductID) order.
+CREATE INDEX idx_products_unit_price ON Products (UnitPrice, ProductID);
+
+-- Category statistics (JdbcProductStatsDao): GROUP BY CategoryID and the window functions ordered by UnitPrice
+-- within each category both read this index in order instead of sorting the table.
+CREATE INDEX idx_products_category_price ON Products (CategoryID, UnitPrice);
@@ -0,0 +1,10 @@
+-- How far each resumable load of products (the ProductImporter) has got. JdbcProductDao.addAllOnce inserts a
+-- step's products and moves LoadPosition in the same transaction, so a step repeated after a crash is skipped
+-- instead of adding its products a second time. LoadID is the id the importer keeps in its checkpoint file.
+CREATE TABLE ProductLoads (
+    LoadID VARCHAR(64) PRIMARY KEY,
+    LoadPosition BIGINT NOT NULL
+);
+
+-- A finished load's row is no longer needed once its checkpoint file is gone, e.g.:
+-- DELETE FROM ProductLoads WHERE LoadID = '...';
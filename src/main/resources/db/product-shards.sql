@@ -0,0 +1,11 @@
+-- Id blocks for sharded Products (datasource.shards.urls). Create this on the main database (datasource.url);
+-- every shard database needs the Products table itself, as usual.
+-- HiLoIdGenerator reserves blocks of datasource.shards.id-block-size ProductIDs from here, so ids stay unique
+-- across all shards. Block b owns ids b * block-size + 1 .. (b + 1) * block-size.
+CREATE TABLE ProductIdBlocks (
+    NextBlock BIGINT NOT NULL
+);
+
+-- Start past every existing ProductID. With the default block size of 1000 and existing data, use
+-- FLOOR(MAX(ProductID) / 1000) + 1 over all the databases the products are moved from instead of 0.
+INSERT INTO ProductIdBlocks(NextBlock) VALUES(0);
@@ -0,0 +1,4 @@
+-- Row version for optimistic locking. JdbcProductDao reads it with every product and only updates a row whose
+-- Version is still the one the product was read with, bumping it by one (see OptimisticLockException).
+-- Run this once before deploying; existing rows start at version 1, like new ones.
+ALTER TABLE Products ADD COLUMN Version INT NOT NULL DEFAULT 1;
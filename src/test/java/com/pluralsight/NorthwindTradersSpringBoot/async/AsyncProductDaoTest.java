@@ -0,0 +1,177 @@
+package com.pluralsight.NorthwindTradersSpringBoot.async;
+
+import com.pluralsight.NorthwindTradersSpringBoot.dao.JdbcProductDao;
+import com.pluralsight.NorthwindTradersSpringBoot.dao.ProductTestDatabase;
+import com.pluralsight.NorthwindTradersSpringBoot.model.Product;
+import org.apache.commons.dbcp2.BasicDataSource;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Flow;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class AsyncProductDaoTest {
+
+    private BasicDataSource dataSource;
+    private AsyncProductDao asyncDao;
+
+    @BeforeEach
+    void setUp() {
+        dataSource = ProductTestDatabase.create();
+        ProductTestDatabase.insertProducts(dataSource, 10);
+        asyncDao = new AsyncProductDao(new JdbcProductDao(dataSource, 2, 100), 4);
+    }
+
+    @AfterEach
+    void tearDown() throws SQLException {
+        asyncDao.close();
+        dataSource.close();
+    }
+
+    @Test
+    void usesVirtualThreadsOnlyWhereTheJvmHasThem() {
+        assertEquals(Runtime.version().feature() >= 21, asyncDao.usesVirtualThreads());
+    }
+
+    @Test
+    void completesCallsOnTheExecutor() throws Exception {
+        List<Product> products = asyncDao.findById(3).get(5, TimeUnit.SECONDS);
+        assertEquals("Product 3", products.get(0).getProductName());
+
+        Product added = asyncDao.add(new Product(0, "Async", 1, 2.0)).get(5, TimeUnit.SECONDS);
+        assertEquals(11, added.getProductId());
+        assertEquals(11, asyncDao.getAll().get(5, TimeUnit.SECONDS).size());
+    }
+
+    @Test
+    void fanOutKeepsTheOrderOfTheIdsAndSkipsMissingOnes() throws Exception {
+        List<Product> products = asyncDao.findByIds(7, 99, 2, 5).get(5, TimeUnit.SECONDS);
+
+        assertEquals(List.of(7, 2, 5), products.stream().map(Product::getProductId).toList());
+    }
+
+    @Test
+    void publisherOnlyDeliversWhatWasRequested() throws Exception {
+        RecordingSubscriber subscriber = new RecordingSubscriber();
+        asyncDao.publishAll().subscribe(subscriber);
+
+        subscriber.subscription.request(3);
+        subscriber.awaitCount(3);
+        Thread.sleep(100);
+        assertEquals(3, subscriber.received.size());
+        assertFalse(subscriber.completed.getCount() == 0);
+
+        subscriber.subscription.request(100);
+        assertTrue(subscriber.completed.await(5, TimeUnit.SECONDS));
+        assertEquals(List.of(1, 2, 3, 4, 5, 6, 7, 8, 9, 10),
+                subscriber.received.stream().map(Product::getProductId).toList());
+        assertNull(subscriber.error);
+        assertEquals(0, dataSource.getNumActive());
+    }
+
+    @Test
+    void cancellingReleasesTheConnection() throws Exception {
+        RecordingSubscriber subscriber = new RecordingSubscriber();
+        asyncDao.publishAll().subscribe(subscriber);
+
+        subscriber.subscription.request(2);
+        subscriber.awaitCount(2);
+        assertEquals(1, dataSource.getNumActive());
+
+        subscriber.subscription.cancel();
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (dataSource.getNumActive() > 0 && System.nanoTime() < deadline) {
+            Thread.sleep(10);
+        }
+        assertEquals(0, dataSource.getNumActive());
+        assertEquals(2, subscriber.received.size());
+    }
+
+    @Test
+    void invalidRequestIsReportedAsAnError() throws Exception {
+        RecordingSubscriber subscriber = new RecordingSubscriber();
+        asyncDao.publishAll().subscribe(subscriber);
+
+        subscriber.subscription.request(0);
+
+        assertTrue(subscriber.completed.await(5, TimeUnit.SECONDS));
+        assertInstanceOf(IllegalArgumentException.class, subscriber.error);
+    }
+
+    @Test
+    void callsWaitingForAPermitDoNotTieUpTheExecutor() throws Exception {
+        // Every permit (and, on Java 17, every pool thread) is taken by an open cursor waiting for demand.
+        List<RecordingSubscriber> subscribers = new ArrayList<>();
+        for (int i = 0; i < 4; i++) {
+            RecordingSubscriber subscriber = new RecordingSubscriber();
+            asyncDao.publishAll().subscribe(subscriber);
+            subscriber.subscription.request(1);
+            subscriber.awaitCount(1);
+            subscribers.add(subscriber);
+        }
+
+        // These have to wait for a permit, but they must not sit on the executor threads while they do.
+        List<CompletableFuture<List<Product>>> lookups = new ArrayList<>();
+        for (int productId = 1; productId <= 4; productId++) {
+            lookups.add(asyncDao.findById(productId));
+        }
+        Thread.sleep(100);
+        assertTrue(lookups.stream().noneMatch(CompletableFuture::isDone));
+
+        // The open cursors can still be drained, and finishing them lets the waiting calls run.
+        for (RecordingSubscriber subscriber : subscribers) {
+            subscriber.subscription.request(100);
+            assertTrue(subscriber.completed.await(5, TimeUnit.SECONDS));
+            assertEquals(10, subscriber.received.size());
+        }
+        for (CompletableFuture<List<Product>> lookup : lookups) {
+            assertEquals(1, lookup.get(5, TimeUnit.SECONDS).size());
+        }
+    }
+
+    // Records what it is sent. completed counts down on onComplete or onError.
+    private static final class RecordingSubscriber implements Flow.Subscriber<Product> {
+
+        final List<Product> received = new CopyOnWriteArrayList<>();
+        final CountDownLatch completed = new CountDownLatch(1);
+        volatile Flow.Subscription subscription;
+        volatile Throwable error;
+
+        @Override
+        public void onSubscribe(Flow.Subscription subscription) {
+            this.subscription = subscription;
+        }
+
+        @Override
+        public void onNext(Product item) {
+            received.add(item);
+        }
+
+        @Override
+        public void onError(Throwable throwable) {
+            error = throwable;
+            completed.countDown();
+        }
+
+        @Override
+        public void onComplete() {
+            completed.countDown();
+        }
+
+        void awaitCount(int count) throws InterruptedException {
+            long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+            while (received.size() < count && System.nanoTime() < deadline) {
+                Thread.sleep(5);
+            }
+        }
+    }
+}
@@ -0,0 +1,144 @@
+package com.pluralsight.NorthwindTradersSpringBoot.benchmark;
+
+import com.pluralsight.NorthwindTradersSpringBoot.async.AsyncProductDao;
+import com.pluralsight.NorthwindTradersSpringBoot.dao.ForwardingProductDao;
+import com.pluralsight.NorthwindTradersSpringBoot.dao.IProductDao;
+import com.pluralsight.NorthwindTradersSpringBoot.dao.JdbcProductDao;
+import com.pluralsight.NorthwindTradersSpringBoot.dao.ProductTestDatabase;
+import com.pluralsight.NorthwindTradersSpringBoot.model.Product;
+import org.apache.commons.dbcp2.BasicDataSource;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Flow;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+import java.util.stream.Stream;
+
+// The blocking DAO against AsyncProductDao with the same budget: a pool of 8 connections and at most 8 calls in
+// flight. H2 runs in-process, so rttMicros adds a pause to every call to stand in for the network round trip
+// to MySQL — that waiting is what fan-out overlaps.
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+public class AsyncProductDaoBenchmark {
+
+    private static final int BUDGET = 8;
+    private static final int TABLE_SIZE = 10_000;
+    private static final int IDS_PER_LOOKUP = 16;
+
+    @Param({"0", "200"})
+    public long rttMicros;
+
+    private BasicDataSource dataSource;
+    private IProductDao blockingDao;
+    private AsyncProductDao asyncDao;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        dataSource = ProductTestDatabase.create();
+        dataSource.setMaxTotal(BUDGET);
+        ProductTestDatabase.insertProducts(dataSource, TABLE_SIZE);
+
+        long rttNanos = TimeUnit.MICROSECONDS.toNanos(rttMicros);
+        blockingDao = new ForwardingProductDao(new JdbcProductDao(dataSource)) {
+            @Override
+            public List<Product> findById(int productId) {
+                LockSupport.parkNanos(rttNanos);
+                return super.findById(productId);
+            }
+
+            @Override
+            public Stream<Product> streamAll() {
+                LockSupport.parkNanos(rttNanos);
+                return super.streamAll();
+            }
+        };
+        asyncDao = new AsyncProductDao(blockingDao, BUDGET);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws SQLException {
+        asyncDao.close();
+        dataSource.close();
+    }
+
+    // 16 ids looked up one after another on the caller's thread.
+    @Benchmark
+    public List<Product> lookupBlocking() {
+        List<Product> products = new ArrayList<>(IDS_PER_LOOKUP);
+        for (int productId : randomIds()) {
+            products.addAll(blockingDao.findById(productId));
+        }
+        return products;
+    }
+
+    // The same 16 ids fanned out concurrently.
+    @Benchmark
+    public List<Product> lookupFanOut() {
+        return asyncDao.findByIds(randomIds()).join();
+    }
+
+    // The whole table through the blocking stream.
+    @Benchmark
+    public long streamAllBlocking(Blackhole blackhole) {
+        try (Stream<Product> products = blockingDao.streamAll()) {
+            return products.peek(blackhole::consume).count();
+        }
+    }
+
+    // The whole table through the publisher, requesting 256 products at a time.
+    @Benchmark
+    public long publishAllBackpressured(Blackhole blackhole) throws InterruptedException {
+        CountDownLatch done = new CountDownLatch(1);
+        long[] count = new long[1];
+        asyncDao.publishAll().subscribe(new Flow.Subscriber<>() {
+            private Flow.Subscription subscription;
+            private int left;
+
+            @Override
+            public void onSubscribe(Flow.Subscription subscription) {
+                this.subscription = subscription;
+                left = 256;
+                subscription.request(256);
+            }
+
+            @Override
+            public void onNext(Product item) {
+                blackhole.consume(item);
+                count[0]++;
+                if (--left == 0) {
+                    left = 256;
+                    subscription.request(256);
+                }
+            }
+
+            @Override
+            public void onError(Throwable throwable) {
+                done.countDown();
+            }
+
+            @Override
+            public void onComplete() {
+                done.countDown();
+            }
+        });
+        done.await();
+        return count[0];
+    }
+
+    private static int[] randomIds() {
+        int[] ids = new int[IDS_PER_LOOKUP];
+        for (int i = 0; i < ids.length; i++) {
+            ids[i] = 1 + ThreadLocalRandom.current().nextInt(TABLE_SIZE);
+        }
+        return ids;
+    }
+}
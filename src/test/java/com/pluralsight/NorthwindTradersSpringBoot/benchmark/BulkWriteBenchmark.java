@@ -0,0 +1,86 @@
+package com.pluralsight.NorthwindTradersSpringBoot.benchmark;
+
+import com.pluralsight.NorthwindTradersSpringBoot.dao.JdbcProductDao;
+import com.pluralsight.NorthwindTradersSpringBoot.dao.ProductTestDatabase;
+import com.pluralsight.NorthwindTradersSpringBoot.model.Product;
+import org.apache.commons.dbcp2.BasicDataSource;
+import org.openjdk.jmh.annotations.*;
+
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+// Compares writing a set of products one row at a time with the batched bulk methods.
+// One operation = writing all rowsPerCall products.
+// Each benchmark thread updates its own rows (OwnRows), so with -t > 1 the threads don't fight over the same
+// versions and fail with OptimisticLockException.
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+public class BulkWriteBenchmark {
+
+    @Param({"1000"})
+    public int rowsPerCall;
+
+    private BasicDataSource dataSource;
+    private JdbcProductDao productDao;
+
+    // rowsPerCall products that only one benchmark thread updates.
+    @State(Scope.Thread)
+    public static class OwnRows {
+
+        private List<Product> products;
+
+        @Setup(Level.Trial)
+        public void setUp(BulkWriteBenchmark benchmark) {
+            products = benchmark.newProducts();
+            benchmark.productDao.addAll(products);
+        }
+    }
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        dataSource = ProductTestDatabase.create();
+        productDao = new JdbcProductDao(dataSource);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws SQLException {
+        dataSource.close();
+    }
+
+    @Benchmark
+    public void addOneByOne() {
+        for (Product product : newProducts()) {
+            productDao.add(product);
+        }
+    }
+
+    @Benchmark
+    public int[] addAll() {
+        return productDao.addAll(newProducts());
+    }
+
+    @Benchmark
+    public void updateOneByOne(OwnRows rows) {
+        for (Product product : rows.products) {
+            productDao.update(product);
+        }
+    }
+
+    @Benchmark
+    public void updateAll(OwnRows rows) {
+        productDao.updateAll(rows.products);
+    }
+
+    private List<Product> newProducts() {
+        List<Product> products = new ArrayList<>(rowsPerCall);
+        for (int i = 0; i < rowsPerCall; i++) {
+            products.add(new Product(0, "Bulk product " + i, 1 + i % 8, i));
+        }
+        return products;
+    }
+}
@@ -0,0 +1,114 @@
+package com.pluralsight.NorthwindTradersSpringBoot.benchmark;
+
+import com.pluralsight.NorthwindTradersSpringBoot.dao.JdbcProductDao;
+import com.pluralsight.NorthwindTradersSpringBoot.dao.JdbcProductStatsDao;
+import com.pluralsight.NorthwindTradersSpringBoot.dao.ProductTestDatabase;
+import com.pluralsight.NorthwindTradersSpringBoot.model.CategoryStats;
+import com.pluralsight.NorthwindTradersSpringBoot.model.Product;
+import com.pluralsight.NorthwindTradersSpringBoot.snapshot.ProductSnapshot;
+import com.pluralsight.NorthwindTradersSpringBoot.snapshot.ProductSnapshotHolder;
+import com.pluralsight.NorthwindTradersSpringBoot.snapshot.SnapshotProductStatsDao;
+import org.apache.commons.dbcp2.BasicDataSource;
+import org.openjdk.jmh.annotations.*;
+
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.TimeUnit;
+
+// Per-category price statistics three ways, over the same rows:
+//   loopOverList  - what a caller of getAll() would do: group the List<Product> into boxed lists, sort, one thread
+//   snapshot      - SnapshotProductStatsDao on the columnar snapshot, at each parallelism
+//   sqlPushdown   - JdbcProductStatsDao, the database (H2 in memory here) does the work
+// Only snapshot depends on parallelism; it sits in its own state so the other two run once per row count.
+// Run with: mvn -B -Pbenchmark verify -Djmh.include=CategoryStatsBenchmark
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+public class CategoryStatsBenchmark {
+
+    @Param({"100000", "1000000"})
+    public int rowCount;
+
+    private BasicDataSource dataSource;
+    private JdbcProductStatsDao sqlStats;
+    private List<Product> products;
+    private ProductSnapshot snapshot;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        dataSource = ProductTestDatabase.create();
+        ProductTestDatabase.insertProducts(dataSource, rowCount);
+        ProductTestDatabase.execute(dataSource,
+                "CREATE INDEX idx_products_category_price ON Products (CategoryID, UnitPrice)");
+        sqlStats = new JdbcProductStatsDao(dataSource);
+
+        JdbcProductDao productDao = new JdbcProductDao(dataSource);
+        products = productDao.getAll();
+        snapshot = new ProductSnapshotHolder(productDao).refresh();
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws SQLException {
+        dataSource.close();
+    }
+
+    @State(Scope.Benchmark)
+    public static class Engine {
+
+        @Param({"1", "2", "4", "8"})
+        public int parallelism;
+
+        SnapshotProductStatsDao stats;
+
+        @Setup(Level.Trial)
+        public void setUp(CategoryStatsBenchmark benchmark) {
+            ProductSnapshot snapshot = benchmark.snapshot;
+            stats = new SnapshotProductStatsDao(() -> snapshot, parallelism);
+        }
+
+        @TearDown(Level.Trial)
+        public void tearDown() {
+            stats.close();
+        }
+    }
+
+    @Benchmark
+    public List<CategoryStats> snapshot(Engine engine) {
+        return engine.stats.getCategoryStats();
+    }
+
+    @Benchmark
+    public List<CategoryStats> sqlPushdown() {
+        return sqlStats.getCategoryStats();
+    }
+
+    @Benchmark
+    public List<CategoryStats> loopOverList() {
+        Map<Integer, List<Double>> pricesByCategory = new TreeMap<>();
+        for (Product product : products) {
+            pricesByCategory.computeIfAbsent(product.getCategoryId(), id -> new ArrayList<>()).add(product.getUnitPrice());
+        }
+
+        List<CategoryStats> stats = new ArrayList<>();
+        for (Map.Entry<Integer, List<Double>> entry : pricesByCategory.entrySet()) {
+            List<Double> prices = entry.getValue();
+            Collections.sort(prices);
+            double total = 0;
+            for (double price : prices) {
+                total += price;
+            }
+            int count = prices.size();
+            stats.add(new CategoryStats(entry.getKey(), count, prices.get(0), prices.get(count - 1), total / count,
+                    prices.get((int) CategoryStats.rankOf(50, count) - 1),
+                    prices.get((int) CategoryStats.rankOf(90, count) - 1),
+                    prices.get((int) CategoryStats.rankOf(99, count) - 1)));
+        }
+        return stats;
+    }
+}
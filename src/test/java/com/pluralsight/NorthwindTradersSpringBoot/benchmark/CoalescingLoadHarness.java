@@ -0,0 +1,135 @@
+package com.pluralsight.NorthwindTradersSpringBoot.benchmark;
+
+import com.pluralsight.NorthwindTradersSpringBoot.dao.CoalescingProductDao;
+import com.pluralsight.NorthwindTradersSpringBoot.dao.ForwardingProductDao;
+import com.pluralsight.NorthwindTradersSpringBoot.dao.IProductDao;
+import com.pluralsight.NorthwindTradersSpringBoot.dao.JdbcProductDao;
+import com.pluralsight.NorthwindTradersSpringBoot.dao.ProductTestDatabase;
+import com.pluralsight.NorthwindTradersSpringBoot.model.Product;
+import org.apache.commons.dbcp2.BasicDataSource;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+
+// Many clients call findById on random ids from a hot set, first straight against JdbcProductDao and then through
+// CoalescingProductDao with a few windows. Prints lookups per second, queries per second reaching the database,
+// and p50/p99 lookup latency for each run. rttMicros adds a pause to every query to stand in for the network
+// round trip to MySQL (H2 runs in-process).
+//
+// Run from the IDE, or: mvn test-compile exec:java -Dexec.classpathScope=test
+//   -Dexec.mainClass=com.pluralsight.NorthwindTradersSpringBoot.benchmark.CoalescingLoadHarness -Dexec.args="64 10 200"
+// Arguments: concurrent clients (default 64), seconds per run (default 10), rttMicros (default 200).
+public class CoalescingLoadHarness {
+
+    private static final int PRODUCT_COUNT = 10_000;
+    private static final int HOT_IDS = 1_000;
+    private static final int POOL_SIZE = 16;
+
+    public static void main(String[] args) throws Exception {
+        int clients = args.length > 0 ? Integer.parseInt(args[0]) : 64;
+        int seconds = args.length > 1 ? Integer.parseInt(args[1]) : 10;
+        long rttMicros = args.length > 2 ? Long.parseLong(args[2]) : 200;
+
+        BasicDataSource dataSource = ProductTestDatabase.create();
+        dataSource.setMaxTotal(POOL_SIZE);
+        ProductTestDatabase.insertProducts(dataSource, PRODUCT_COUNT);
+
+        System.out.println(clients + " clients, " + seconds + "s per run, " + rttMicros + "us round trip, "
+                + HOT_IDS + " hot ids, " + POOL_SIZE + " connections");
+        for (long windowMicros : new long[]{0, 100, 500, 2000}) {
+            System.out.println(run(dataSource, clients, seconds, rttMicros, windowMicros));
+        }
+        dataSource.close();
+    }
+
+    private static String run(BasicDataSource dataSource, int clients, int seconds, long rttMicros, long windowMicros)
+            throws Exception {
+        LongAdder queries = new LongAdder();
+        long rttNanos = rttMicros * 1000;
+
+        // Counts (and delays) every query that reaches the database.
+        IProductDao database = new ForwardingProductDao(new JdbcProductDao(dataSource)) {
+            @Override
+            public List<Product> findById(int productId) {
+                queries.increment();
+                LockSupport.parkNanos(rttNanos);
+                return super.findById(productId);
+            }
+
+            @Override
+            public List<Product> findByIds(int... productIds) {
+                queries.increment();
+                LockSupport.parkNanos(rttNanos);
+                return super.findByIds(productIds);
+            }
+        };
+
+        CoalescingProductDao coalescing = windowMicros == 0 ? null
+                : new CoalescingProductDao(database, Duration.ofNanos(windowMicros * 1000), 100, POOL_SIZE);
+        IProductDao productDao = coalescing == null ? database : coalescing;
+
+        long[] latencies = drive(productDao, clients, Duration.ofSeconds(seconds));
+        if (coalescing != null) {
+            coalescing.close();
+        }
+
+        Arrays.sort(latencies);
+        return String.format("%-22s lookups=%.0f/s queries=%.0f/s p50=%.2fms p99=%.2fms",
+                windowMicros == 0 ? "no coalescing" : "coalescing " + windowMicros + "us",
+                latencies.length / (double) seconds,
+                queries.sum() / (double) seconds,
+                percentile(latencies, 50) / 1e6,
+                percentile(latencies, 99) / 1e6);
+    }
+
+    // Each client looks up one id after another until the time is up, recording every latency in nanoseconds.
+    private static long[] drive(IProductDao productDao, int clients, Duration duration) throws Exception {
+        long deadline = System.nanoTime() + duration.toNanos();
+
+        ExecutorService clientThreads = Executors.newFixedThreadPool(clients);
+        try {
+            List<Future<long[]>> results = new ArrayList<>();
+            for (int i = 0; i < clients; i++) {
+                results.add(clientThreads.submit(() -> {
+                    long[] samples = new long[1024];
+                    int count = 0;
+                    while (System.nanoTime() < deadline) {
+                        int productId = ThreadLocalRandom.current().nextInt(1, HOT_IDS + 1);
+
+                        long start = System.nanoTime();
+                        productDao.findById(productId);
+                        if (count == samples.length) {
+                            samples = Arrays.copyOf(samples, count * 2);
+                        }
+                        samples[count++] = System.nanoTime() - start;
+                    }
+                    return Arrays.copyOf(samples, count);
+                }));
+            }
+
+            List<long[]> perClient = new ArrayList<>();
+            for (Future<long[]> result : results) {
+                perClient.add(result.get());
+            }
+            return perClient.stream().flatMapToLong(Arrays::stream).toArray();
+        } finally {
+            clientThreads.shutdownNow();
+        }
+    }
+
+    private static long percentile(long[] sorted, double percentile) {
+        if (sorted.length == 0) {
+            return 0;
+        }
+        int index = (int) Math.ceil(sorted.length * percentile / 100.0) - 1;
+        return sorted[Math.max(0, Math.min(index, sorted.length - 1))];
+    }
+}
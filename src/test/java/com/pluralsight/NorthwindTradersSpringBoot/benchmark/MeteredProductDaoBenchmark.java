@@ -0,0 +1,50 @@
+package com.pluralsight.NorthwindTradersSpringBoot.benchmark;
+
+import com.pluralsight.NorthwindTradersSpringBoot.dao.ForwardingProductDao;
+import com.pluralsight.NorthwindTradersSpringBoot.dao.IProductDao;
+import com.pluralsight.NorthwindTradersSpringBoot.dao.MeteredProductDao;
+import com.pluralsight.NorthwindTradersSpringBoot.model.Product;
+import io.micrometer.prometheusmetrics.PrometheusConfig;
+import io.micrometer.prometheusmetrics.PrometheusMeterRegistry;
+import org.openjdk.jmh.annotations.*;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+// Measures what MeteredProductDao adds to a single call. The DAO underneath returns a constant list, so the
+// difference between the two benchmarks is the metrics layer alone (run with -prof gc to see it allocates nothing).
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+public class MeteredProductDaoBenchmark {
+
+    private IProductDao plain;
+    private IProductDao metered;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        List<Product> result = List.of(new Product(1, "Chai", 1, 18.0));
+
+        // Only findById is called, so there is nothing underneath to forward the other methods to.
+        plain = new ForwardingProductDao(null) {
+            @Override
+            public List<Product> findById(int productId) {
+                return result;
+            }
+        };
+        metered = new MeteredProductDao(plain, new PrometheusMeterRegistry(PrometheusConfig.DEFAULT), Duration.ofSeconds(1));
+    }
+
+    @Benchmark
+    public List<Product> plainFindById() {
+        return plain.findById(1);
+    }
+
+    @Benchmark
+    public List<Product> meteredFindById() {
+        return metered.findById(1);
+    }
+}
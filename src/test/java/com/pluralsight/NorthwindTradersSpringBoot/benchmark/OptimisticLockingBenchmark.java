@@ -0,0 +1,89 @@
+package com.pluralsight.NorthwindTradersSpringBoot.benchmark;
+
+import com.pluralsight.NorthwindTradersSpringBoot.dao.JdbcProductDao;
+import com.pluralsight.NorthwindTradersSpringBoot.dao.ProductTestDatabase;
+import com.pluralsight.NorthwindTradersSpringBoot.dao.RetryingProductUpdater;
+import com.pluralsight.NorthwindTradersSpringBoot.model.Product;
+import org.apache.commons.dbcp2.BasicDataSource;
+import org.openjdk.jmh.annotations.*;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+// Eight threads add 1.00 to the price of a random product among hotRows: hotRows = 1 is one row everyone fights
+// over, 100 is light contention. Optimistic: read, change, conditional UPDATE, retry on conflict.
+// Pessimistic: SELECT ... FOR UPDATE then UPDATE in one transaction, so writers queue on the row lock.
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Threads(8)
+public class OptimisticLockingBenchmark {
+
+    @Param({"1", "100"})
+    public int hotRows;
+
+    private BasicDataSource dataSource;
+    private RetryingProductUpdater updater;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        dataSource = ProductTestDatabase.create();
+        dataSource.setMaxTotal(16);
+        ProductTestDatabase.insertProducts(dataSource, hotRows);
+        updater = new RetryingProductUpdater(new JdbcProductDao(dataSource), Integer.MAX_VALUE);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws SQLException {
+        dataSource.close();
+    }
+
+    @Benchmark
+    public Product optimisticRetry() {
+        return updater.update(randomRow(), product -> {
+            product.setUnitPrice(product.getUnitPrice() + 1);
+            return product;
+        });
+    }
+
+    @Benchmark
+    public int pessimisticSelectForUpdate() throws SQLException {
+        int productId = randomRow();
+        try (Connection connection = dataSource.getConnection()) {
+            connection.setAutoCommit(false);
+            try (
+                    PreparedStatement select = connection.prepareStatement(
+                            "SELECT UnitPrice FROM Products WHERE ProductID = ? FOR UPDATE");
+                    PreparedStatement update = connection.prepareStatement(
+                            "UPDATE Products SET UnitPrice = ? WHERE ProductID = ?")
+            ) {
+                select.setInt(1, productId);
+                double price;
+                try (ResultSet results = select.executeQuery()) {
+                    results.next();
+                    price = results.getDouble(1);
+                }
+                update.setDouble(1, price + 1);
+                update.setInt(2, productId);
+                int rows = update.executeUpdate();
+                connection.commit();
+                return rows;
+            } catch (SQLException e) {
+                connection.rollback();
+                throw e;
+            } finally {
+                connection.setAutoCommit(true);
+            }
+        }
+    }
+
+    private int randomRow() {
+        return 1 + ThreadLocalRandom.current().nextInt(hotRows);
+    }
+}
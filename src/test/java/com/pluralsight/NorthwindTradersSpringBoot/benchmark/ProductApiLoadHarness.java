@@ -0,0 +1,126 @@
+package com.pluralsight.NorthwindTradersSpringBoot.benchmark;
+
+import com.pluralsight.NorthwindTradersSpringBoot.NorthwindTradersSpringBootApplication;
+import com.pluralsight.NorthwindTradersSpringBoot.dao.ProductTestDatabase;
+import org.springframework.boot.SpringApplication;
+import org.springframework.boot.web.server.context.WebServerApplicationContext;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import javax.sql.DataSource;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadLocalRandom;
+
+// Starts the application twice against an in-memory H2 database — once with virtual-thread request handling and once
+// with Tomcat's platform thread pool — and drives GET /products/{id} with many concurrent clients in each mode.
+// Prints throughput and p50/p99 latency for both. Run it on a Java 21+ JVM: the virtual-thread mode only exists there
+// (on an older JVM both runs use platform threads, and the harness says so).
+//
+// Run from the IDE, or: mvn test-compile exec:java -Dexec.classpathScope=test
+//   -Dexec.mainClass=com.pluralsight.NorthwindTradersSpringBoot.benchmark.ProductApiLoadHarness -Dexec.args="2000 20"
+// Arguments: concurrent clients (default 1000), seconds per run (default 20).
+public class ProductApiLoadHarness {
+
+    private static final int PRODUCT_COUNT = 10_000;
+
+    public static void main(String[] args) throws Exception {
+        int clients = args.length > 0 ? Integer.parseInt(args[0]) : 1000;
+        int seconds = args.length > 1 ? Integer.parseInt(args[1]) : 20;
+
+        System.out.println("Java " + Runtime.version() + ", " + clients + " clients, " + seconds + "s per run");
+        if (Runtime.version().feature() < 21) {
+            System.out.println("WARNING: virtual threads need Java 21+, so both runs below use platform threads");
+        }
+        for (boolean virtualThreads : new boolean[]{true, false}) {
+            System.out.println(run(virtualThreads, clients, seconds));
+        }
+    }
+
+    private static String run(boolean virtualThreads, int clients, int seconds) throws Exception {
+        System.setProperty("dbUsername", "sa");
+        System.setProperty("dbPassword", "");
+
+        SpringApplication application = new SpringApplication(NorthwindTradersSpringBootApplication.class);
+        try (ConfigurableApplicationContext context = application.run(
+                "--server.port=0",
+                "--spring.threads.virtual.enabled=" + virtualThreads,
+                "--datasource.url=jdbc:h2:mem:" + UUID.randomUUID() + ";MODE=MySQL;DATABASE_TO_LOWER=TRUE;IGNORECASE=TRUE;DB_CLOSE_DELAY=-1",
+                "--datasource.pool.max-total=50",
+                "--datasource.pool.jmx-enabled=false",
+                "--logging.level.root=WARN")) {
+
+            DataSource dataSource = context.getBean(DataSource.class);
+            ProductTestDatabase.createSchema(dataSource);
+            ProductTestDatabase.insertProducts(dataSource, PRODUCT_COUNT);
+
+            int port = ((WebServerApplicationContext) context).getWebServer().getPort();
+            long[] latencies = drive(port, clients, Duration.ofSeconds(seconds));
+
+            Arrays.sort(latencies);
+            return String.format("%-16s requests=%d throughput=%.0f req/s p50=%.2fms p99=%.2fms",
+                    virtualThreads ? "virtual threads" : "platform threads",
+                    latencies.length,
+                    latencies.length / (double) seconds,
+                    percentile(latencies, 50) / 1e6,
+                    percentile(latencies, 99) / 1e6);
+        }
+    }
+
+    // Each client sends one request after another until the time is up, recording every latency in nanoseconds.
+    private static long[] drive(int port, int clients, Duration duration) throws Exception {
+        ExecutorService httpThreads = Executors.newFixedThreadPool(64);
+        HttpClient httpClient = HttpClient.newBuilder().executor(httpThreads).build();
+        long deadline = System.nanoTime() + duration.toNanos();
+
+        ExecutorService clientThreads = Executors.newFixedThreadPool(clients);
+        try {
+            List<Future<long[]>> results = new ArrayList<>();
+            for (int i = 0; i < clients; i++) {
+                results.add(clientThreads.submit(() -> {
+                    long[] samples = new long[1024];
+                    int count = 0;
+                    while (System.nanoTime() < deadline) {
+                        int productId = ThreadLocalRandom.current().nextInt(1, PRODUCT_COUNT + 1);
+                        HttpRequest request = HttpRequest.newBuilder(
+                                URI.create("http://localhost:" + port + "/products/" + productId)).build();
+
+                        long start = System.nanoTime();
+                        httpClient.send(request, HttpResponse.BodyHandlers.discarding());
+                        if (count == samples.length) {
+                            samples = Arrays.copyOf(samples, count * 2);
+                        }
+                        samples[count++] = System.nanoTime() - start;
+                    }
+                    return Arrays.copyOf(samples, count);
+                }));
+            }
+
+            List<long[]> perClient = new ArrayList<>();
+            for (Future<long[]> result : results) {
+                perClient.add(result.get());
+            }
+            return perClient.stream().flatMapToLong(Arrays::stream).toArray();
+        } finally {
+            clientThreads.shutdownNow();
+            httpThreads.shutdownNow();
+        }
+    }
+
+    private static long percentile(long[] sorted, double percentile) {
+        if (sorted.length == 0) {
+            return 0;
+        }
+        int index = (int) Math.ceil(sorted.length * percentile / 100.0) - 1;
+        return sorted[Math.max(0, Math.min(index, sorted.length - 1))];
+    }
+}
@@ -0,0 +1,71 @@
+package com.pluralsight.NorthwindTradersSpringBoot.benchmark;
+
+import com.pluralsight.NorthwindTradersSpringBoot.dao.JdbcProductDao;
+import com.pluralsight.NorthwindTradersSpringBoot.dao.ProductTestDatabase;
+import com.pluralsight.NorthwindTradersSpringBoot.model.Product;
+import org.apache.commons.dbcp2.BasicDataSource;
+import org.openjdk.jmh.annotations.*;
+
+import java.sql.SQLException;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+// Measures the JdbcProductDao calls against an in-memory H2 database running in MySQL mode.
+// Run with: mvn -Pbenchmark verify -Djmh.include=ProductDaoBenchmark -Djmh.threads=4
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+public class ProductDaoBenchmark {
+
+    // How many products are in the table before the benchmark starts.
+    @Param({"1000", "100000"})
+    public int tableSize;
+
+    private BasicDataSource dataSource;
+    private JdbcProductDao productDao;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        dataSource = ProductTestDatabase.create();
+        dataSource.setMaxTotal(64);
+        ProductTestDatabase.insertProducts(dataSource, tableSize);
+        productDao = new JdbcProductDao(dataSource);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws SQLException {
+        dataSource.close();
+    }
+
+    @Benchmark
+    public List<Product> getAll() {
+        return productDao.getAll();
+    }
+
+    @Benchmark
+    public List<Product> findById() {
+        return productDao.findById(randomProductId());
+    }
+
+    @Benchmark
+    public Product add() {
+        Product product = new Product(0, "Benchmark product", 1, 9.99);
+        productDao.add(product);
+        return product;
+    }
+
+    @Benchmark
+    public Product update() {
+        int productId = randomProductId();
+        Product product = new Product(productId, "Product " + productId, 2, 19.99);
+        productDao.update(product);
+        return product;
+    }
+
+    private int randomProductId() {
+        return ThreadLocalRandom.current().nextInt(1, tableSize + 1);
+    }
+}
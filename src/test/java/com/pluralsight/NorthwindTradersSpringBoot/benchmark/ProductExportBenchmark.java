@@ -0,0 +1,66 @@
+package com.pluralsight.NorthwindTradersSpringBoot.benchmark;
+
+import com.pluralsight.NorthwindTradersSpringBoot.dao.JdbcProductDao;
+import com.pluralsight.NorthwindTradersSpringBoot.dao.ProductTestDatabase;
+import com.pluralsight.NorthwindTradersSpringBoot.export.ExportFormat;
+import com.pluralsight.NorthwindTradersSpringBoot.export.ExportResult;
+import com.pluralsight.NorthwindTradersSpringBoot.export.ProductExporter;
+import com.pluralsight.NorthwindTradersSpringBoot.model.Product;
+import org.apache.commons.dbcp2.BasicDataSource;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.sql.SQLException;
+import java.util.concurrent.TimeUnit;
+
+// Exports the whole table to a stream that discards the bytes, so only reading and encoding is measured.
+// The baseline is the old way: getAll() and toString() on every product.
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+public class ProductExportBenchmark {
+
+    @Param({"100000"})
+    public int tableSize;
+
+    @Param({"CSV", "NDJSON", "BINARY"})
+    public ExportFormat format;
+
+    private BasicDataSource dataSource;
+    private JdbcProductDao productDao;
+    private ProductExporter exporter;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        dataSource = ProductTestDatabase.create();
+        ProductTestDatabase.insertProducts(dataSource, tableSize);
+        productDao = new JdbcProductDao(dataSource);
+        exporter = new ProductExporter(productDao);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws SQLException {
+        dataSource.close();
+    }
+
+    @Benchmark
+    public ExportResult export() throws IOException {
+        return exporter.export(format, OutputStream.nullOutputStream(), false);
+    }
+
+    @Benchmark
+    public long getAllToString() throws IOException {
+        OutputStream out = OutputStream.nullOutputStream();
+        long bytes = 0;
+        for (Product product : productDao.getAll()) {
+            byte[] line = (product + "\n").getBytes(StandardCharsets.UTF_8);
+            out.write(line);
+            bytes += line.length;
+        }
+        return bytes;
+    }
+}
@@ -0,0 +1,99 @@
+package com.pluralsight.NorthwindTradersSpringBoot.benchmark;
+
+import com.pluralsight.NorthwindTradersSpringBoot.dao.JdbcCategoryDao;
+import com.pluralsight.NorthwindTradersSpringBoot.dao.JdbcProductDao;
+import com.pluralsight.NorthwindTradersSpringBoot.dao.ProductTestDatabase;
+import com.pluralsight.NorthwindTradersSpringBoot.importer.ImportFormat;
+import com.pluralsight.NorthwindTradersSpringBoot.importer.ImportResult;
+import com.pluralsight.NorthwindTradersSpringBoot.importer.ProductImporter;
+import com.pluralsight.NorthwindTradersSpringBoot.model.Product;
+import org.apache.commons.dbcp2.BasicDataSource;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.sql.SQLException;
+import java.util.concurrent.TimeUnit;
+
+// Imports a generated CSV file into a fresh, empty database each time (an import is a one-off job, so this is
+// single-shot). The baseline reads the file line by line and inserts every product with add().
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+public class ProductImportBenchmark {
+
+    @Param({"200000"})
+    public int rowCount;
+
+    @Param({"1", "4"})
+    public int parallelism;
+
+    private Path dir;
+    private Path input;
+    private BasicDataSource dataSource;
+    private JdbcProductDao productDao;
+    private ProductImporter importer;
+
+    @Setup(Level.Trial)
+    public void writeFile() throws IOException {
+        dir = Files.createTempDirectory("product-import");
+        input = dir.resolve("products.csv");
+        try (BufferedWriter writer = Files.newBufferedWriter(input)) {
+            writer.write("ProductName,CategoryID,UnitPrice\n");
+            for (int i = 1; i <= rowCount; i++) {
+                writer.write("\"Product " + i + "\"," + (1 + i % 8) + "," + (1 + (i % 1000) / 4.0) + "\n");
+            }
+        }
+    }
+
+    @Setup(Level.Invocation)
+    public void setUp() throws IOException {
+        dataSource = ProductTestDatabase.create();
+        ProductTestDatabase.createCategories(dataSource, 8);
+        productDao = new JdbcProductDao(dataSource);
+        importer = new ProductImporter(productDao, new JdbcCategoryDao(dataSource), parallelism, 1 << 20);
+        Files.deleteIfExists(dir.resolve("products.csv.checkpoint"));
+    }
+
+    @TearDown(Level.Invocation)
+    public void tearDown() throws SQLException {
+        dataSource.close();
+    }
+
+    @TearDown(Level.Trial)
+    public void deleteFiles() throws IOException {
+        try (var files = Files.list(dir)) {
+            for (Path file : files.toList()) {
+                Files.delete(file);
+            }
+        }
+        Files.delete(dir);
+    }
+
+    @Benchmark
+    public ImportResult importer() throws IOException {
+        return importer.importFile(input, ImportFormat.CSV, dir.resolve("products.csv.rejects.csv"),
+                dir.resolve("products.csv.checkpoint"), null);
+    }
+
+    @Benchmark
+    public int readLinesAndAddEach() throws IOException {
+        int rows = 0;
+        try (BufferedReader reader = Files.newBufferedReader(input)) {
+            reader.readLine();
+            String line;
+            while ((line = reader.readLine()) != null) {
+                String[] fields = line.split(",");
+                productDao.add(new Product(0, fields[0].replace("\"", ""),
+                        Integer.parseInt(fields[1]), Double.parseDouble(fields[2])));
+                rows++;
+            }
+        }
+        return rows;
+    }
+}
@@ -0,0 +1,84 @@
+package com.pluralsight.NorthwindTradersSpringBoot.benchmark;
+
+import com.pluralsight.NorthwindTradersSpringBoot.dao.ProductRowMapper;
+import com.pluralsight.NorthwindTradersSpringBoot.model.Product;
+import com.pluralsight.NorthwindTradersSpringBoot.model.ProductRecord;
+import org.h2.tools.SimpleResultSet;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.sql.SQLException;
+import java.sql.Types;
+import java.util.concurrent.TimeUnit;
+
+// Measures only the ResultSet-to-Product mapping, using an in-memory ResultSet so no database work is included.
+// One operation = mapping every row once.
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+public class ProductMappingBenchmark {
+
+    @Param({"1000", "100000"})
+    public int rowCount;
+
+    private SimpleResultSet results;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        results = new SimpleResultSet();
+        results.setAutoClose(false);
+        results.addColumn("ProductID", Types.INTEGER, 10, 0);
+        results.addColumn("ProductName", Types.VARCHAR, 40, 0);
+        results.addColumn("CategoryID", Types.INTEGER, 10, 0);
+        results.addColumn("UnitPrice", Types.DOUBLE, 10, 4);
+        results.addColumn("Version", Types.INTEGER, 10, 0);
+        for (int i = 1; i <= rowCount; i++) {
+            results.addRow(i, "Product " + i, 1 + i % 8, 1 + (i % 1000) / 4.0, 1);
+        }
+    }
+
+    // The old mapping: every column looked up by name on every row, then a setter per column.
+    @Benchmark
+    public void byColumnName(Blackhole blackhole) throws SQLException {
+        results.beforeFirst();
+        while (results.next()) {
+            Product product = new Product();
+            product.setProductId(results.getInt("ProductID"));
+            product.setProductName(results.getString("ProductName"));
+            product.setCategoryId(results.getInt("CategoryID"));
+            product.setUnitPrice(results.getDouble("UnitPrice"));
+            product.setVersion(results.getInt("Version"));
+            blackhole.consume(product);
+        }
+    }
+
+    @Benchmark
+    public void mapperToProduct(Blackhole blackhole) throws SQLException {
+        results.beforeFirst();
+        ProductRowMapper mapper = new ProductRowMapper(results);
+        while (results.next()) {
+            blackhole.consume(mapper.toProduct());
+        }
+    }
+
+    @Benchmark
+    public void mapperToRecord(Blackhole blackhole) throws SQLException {
+        results.beforeFirst();
+        ProductRowMapper mapper = new ProductRowMapper(results);
+        while (results.next()) {
+            ProductRecord record = mapper.toRecord();
+            blackhole.consume(record);
+        }
+    }
+
+    // Visitor mode reading only the primitive columns: no Product, record or String per row.
+    @Benchmark
+    public double visitorPrimitiveColumns() throws SQLException {
+        results.beforeFirst();
+        double[] total = new double[1];
+        new ProductRowMapper(results).forEachRemaining(row -> total[0] += row.unitPrice() * row.categoryId());
+        return total[0];
+    }
+}
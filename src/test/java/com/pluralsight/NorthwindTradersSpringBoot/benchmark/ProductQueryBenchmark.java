@@ -0,0 +1,95 @@
+package com.pluralsight.NorthwindTradersSpringBoot.benchmark;
+
+import com.pluralsight.NorthwindTradersSpringBoot.dao.JdbcProductDao;
+import com.pluralsight.NorthwindTradersSpringBoot.dao.ProductTestDatabase;
+import com.pluralsight.NorthwindTradersSpringBoot.model.Product;
+import com.pluralsight.NorthwindTradersSpringBoot.snapshot.ProductIndex;
+import com.pluralsight.NorthwindTradersSpringBoot.snapshot.ProductSnapshotHolder;
+import org.apache.commons.dbcp2.BasicDataSource;
+import org.openjdk.jmh.annotations.*;
+
+import java.sql.SQLException;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+// Compares the category, price-range and name-prefix queries pushed down to SQL (H2 in MySQL mode, with the
+// indexes from db/product-indexes.sql) with the same queries answered by the in-memory ProductIndex.
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+public class ProductQueryBenchmark {
+
+    @Param({"100000"})
+    public int tableSize;
+
+    private BasicDataSource dataSource;
+    private JdbcProductDao productDao;
+    private ProductIndex index;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        dataSource = ProductTestDatabase.create();
+        ProductTestDatabase.insertProducts(dataSource, tableSize);
+        ProductTestDatabase.execute(dataSource, "CREATE INDEX idx_products_category_id ON Products (CategoryID, ProductID)");
+        ProductTestDatabase.execute(dataSource, "CREATE INDEX idx_products_unit_price ON Products (UnitPrice, ProductID)");
+        ProductTestDatabase.execute(dataSource, "CREATE INDEX idx_products_name ON Products (ProductName)");
+
+        productDao = new JdbcProductDao(dataSource);
+        index = ProductIndex.build(new ProductSnapshotHolder(productDao).refresh());
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws SQLException {
+        dataSource.close();
+    }
+
+    // Category queries return ~1/8 of the table, so they are dominated by building the result.
+    @Benchmark
+    public List<Product> categorySql() {
+        return productDao.findByCategory(randomCategory());
+    }
+
+    @Benchmark
+    public List<Product> categoryInMemory() {
+        return index.findByCategory(randomCategory());
+    }
+
+    // A narrow price band (~0.4% of the rows).
+    @Benchmark
+    public List<Product> priceRangeSql() {
+        double min = randomPrice();
+        return productDao.findByPriceRange(min, min + 1);
+    }
+
+    @Benchmark
+    public List<Product> priceRangeInMemory() {
+        double min = randomPrice();
+        return index.findByPriceRange(min, min + 1);
+    }
+
+    // "Product 1234" matches ~11 rows.
+    @Benchmark
+    public List<Product> namePrefixSql() {
+        return productDao.findByNamePrefix(randomPrefix());
+    }
+
+    @Benchmark
+    public List<Product> namePrefixInMemory() {
+        return index.findByNamePrefix(randomPrefix());
+    }
+
+    private static int randomCategory() {
+        return ThreadLocalRandom.current().nextInt(1, 9);
+    }
+
+    private static double randomPrice() {
+        return 1 + ThreadLocalRandom.current().nextInt(0, 250);
+    }
+
+    private static String randomPrefix() {
+        return "Product " + ThreadLocalRandom.current().nextInt(1000, 10000);
+    }
+}
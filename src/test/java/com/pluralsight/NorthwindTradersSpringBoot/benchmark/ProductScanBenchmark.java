@@ -0,0 +1,71 @@
+package com.pluralsight.NorthwindTradersSpringBoot.benchmark;
+
+import com.pluralsight.NorthwindTradersSpringBoot.dao.JdbcProductDao;
+import com.pluralsight.NorthwindTradersSpringBoot.dao.ProductTestDatabase;
+import com.pluralsight.NorthwindTradersSpringBoot.model.Product;
+import org.apache.commons.dbcp2.BasicDataSource;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.sql.SQLException;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+// A full scan of a million-row table (H2 in MySQL mode) through each read path of JdbcProductDao.
+// One operation = reading every row once. Compare gc.alloc.rate.norm to see what each path allocates per scan.
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+public class ProductScanBenchmark {
+
+    @Param({"1000000"})
+    public int tableSize;
+
+    private BasicDataSource dataSource;
+    private JdbcProductDao productDao;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        dataSource = ProductTestDatabase.create();
+        for (int inserted = 0; inserted < tableSize; inserted += 100_000) {
+            ProductTestDatabase.insertProducts(dataSource, Math.min(100_000, tableSize - inserted));
+        }
+        productDao = new JdbcProductDao(dataSource);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws SQLException {
+        dataSource.close();
+    }
+
+    // Every row becomes a Product in one big List.
+    @Benchmark
+    public List<Product> getAll() {
+        return productDao.getAll();
+    }
+
+    // Every row becomes a Product, but only one is live at a time.
+    @Benchmark
+    public void streamAll(Blackhole blackhole) {
+        try (Stream<Product> products = productDao.streamAll()) {
+            products.forEach(blackhole::consume);
+        }
+    }
+
+    // Every row becomes an immutable record.
+    @Benchmark
+    public void forEachRecord(Blackhole blackhole) {
+        productDao.forEach(row -> blackhole.consume(row.toRecord()));
+    }
+
+    // Only primitive columns are read, so nothing is created per row by the mapping layer.
+    @Benchmark
+    public double forEachPrimitiveColumns() {
+        double[] total = new double[1];
+        productDao.forEach(row -> total[0] += row.unitPrice() * row.categoryId());
+        return total[0];
+    }
+}
@@ -0,0 +1,120 @@
+package com.pluralsight.NorthwindTradersSpringBoot.benchmark;
+
+import com.pluralsight.NorthwindTradersSpringBoot.dao.ProductTestDatabase;
+import com.pluralsight.NorthwindTradersSpringBoot.search.ProductNameIndex;
+import com.pluralsight.NorthwindTradersSpringBoot.search.ProductSearchHit;
+import org.apache.commons.dbcp2.BasicDataSource;
+import org.openjdk.jmh.annotations.*;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+// Name search two ways over the same generated catalog (names like "Nordic Smoked Salmon 24"):
+//   index    - ProductNameIndex.search, typo-tolerant, top 10
+//   sqlLike  - WHERE ProductName LIKE '%query%' LIMIT 10 on in-memory H2, exact substrings only
+// Each call runs the next query from a fixed list that mixes exact words, typos and several words.
+// The setup prints the index build time.
+// Run with: mvn -B -Pbenchmark verify -Djmh.include=ProductSearchBenchmark
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+public class ProductSearchBenchmark {
+
+    private static final String[] ORIGINS = {"Nordic", "Louisiana", "Alice", "Queso", "Gustaf's", "Sir Rodney's",
+            "Uncle Bob's", "Grandma's", "Northwoods", "Mishi", "Tofu", "Genen", "Pavlova", "Tarte", "Gnocchi",
+            "Wimmers", "Raclette", "Camembert", "Vegie", "Outback", "Rhönbräu", "Lakkalikööri", "Original",
+            "Chef Anton's", "Manjimup", "Perth", "Escargots", "Valkoinen", "Filo", "Sasquatch"};
+    private static final String[] STYLES = {"Smoked", "Dried", "Organic", "Spicy", "Hot", "Sweet", "Fresh", "Frozen",
+            "Pickled", "Roasted", "Creamy", "Mild", "Aged", "Crispy", "Golden", "Dark", "Wild", "Classic"};
+    private static final String[] FOODS = {"Salmon", "Chocolate", "Cheese", "Syrup", "Seasoning", "Sauce", "Tea",
+            "Coffee", "Lager", "Ale", "Bread", "Crab Meat", "Herring", "Mutton", "Apples", "Pears", "Marmalade",
+            "Scones", "Biscuits", "Noodles", "Tofu", "Gumbo", "Caviar", "Oysters", "Pasta", "Ravioli", "Sausages",
+            "Cranberry", "Mozzarella", "Gorgonzola", "Mascarpone", "Spread", "Chips", "Crackers", "Lemonade"};
+
+    private static final String[] QUERIES = {"salmon", "smoked salmon", "chocolat", "mozarella", "gorgonzola",
+            "sir rodneys marmalade", "oystres", "lager", "cranbery sauce", "dark chocolate biscuits", "tea",
+            "camembert", "crab meat", "gnochi", "uncle bob"};
+
+    @Param({"100000", "1000000"})
+    public int rowCount;
+
+    private ProductNameIndex index;
+    private BasicDataSource dataSource;
+    private int next;
+
+    @Setup(Level.Trial)
+    public void setUp() throws SQLException {
+        List<String> names = names(rowCount);
+
+        long start = System.nanoTime();
+        index = new ProductNameIndex();
+        for (int i = 0; i < names.size(); i++) {
+            index.put(i + 1, names.get(i));
+        }
+        System.out.printf("%nBuilt the name index for %d products in %d ms%n",
+                rowCount, (System.nanoTime() - start) / 1_000_000);
+
+        dataSource = ProductTestDatabase.create();
+        try (Connection connection = dataSource.getConnection();
+             PreparedStatement insert = connection.prepareStatement(
+                     "INSERT INTO Products(ProductName, CategoryID, UnitPrice) VALUES(?, 1, 1)")) {
+            for (int i = 0; i < names.size(); i++) {
+                insert.setString(1, names.get(i));
+                insert.addBatch();
+                if (i % 10_000 == 9_999) {
+                    insert.executeBatch();
+                }
+            }
+            insert.executeBatch();
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws SQLException {
+        dataSource.close();
+    }
+
+    @Benchmark
+    public List<ProductSearchHit> index() {
+        return index.search(nextQuery(), 10);
+    }
+
+    @Benchmark
+    public List<Integer> sqlLike() throws SQLException {
+        String sql = "SELECT ProductID FROM Products WHERE ProductName LIKE ? LIMIT 10";
+        try (Connection connection = dataSource.getConnection();
+             PreparedStatement preparedStatement = connection.prepareStatement(sql)) {
+            preparedStatement.setString(1, "%" + nextQuery() + "%");
+            List<Integer> productIds = new ArrayList<>();
+            try (ResultSet results = preparedStatement.executeQuery()) {
+                while (results.next()) {
+                    productIds.add(results.getInt(1));
+                }
+            }
+            return productIds;
+        }
+    }
+
+    private String nextQuery() {
+        next = (next + 1) % QUERIES.length;
+        return QUERIES[next];
+    }
+
+    private static List<String> names(int count) {
+        Random random = new Random(42);
+        List<String> names = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            names.add(ORIGINS[random.nextInt(ORIGINS.length)] + " " + STYLES[random.nextInt(STYLES.length)] + " "
+                    + FOODS[random.nextInt(FOODS.length)] + " " + (1 + random.nextInt(48)));
+        }
+        return names;
+    }
+}
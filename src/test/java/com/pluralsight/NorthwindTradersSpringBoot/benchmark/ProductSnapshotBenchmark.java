@@ -0,0 +1,100 @@
+package com.pluralsight.NorthwindTradersSpringBoot.benchmark;
+
+import com.pluralsight.NorthwindTradersSpringBoot.model.Product;
+import com.pluralsight.NorthwindTradersSpringBoot.snapshot.ProductSnapshot;
+import org.openjdk.jmh.annotations.*;
+
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+// Compares a columnar ProductSnapshot with an ArrayList<Product> holding the same rows:
+// a full scan (average price of one category) and random lookups by id.
+// The setup also prints the measured heap bytes per row of each structure.
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+public class ProductSnapshotBenchmark {
+
+    @Param({"100000", "1000000"})
+    public int rowCount;
+
+    private List<Product> list;
+    private ProductSnapshot snapshot;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        list = measure("ArrayList<Product>", this::buildList);
+        snapshot = measure("ProductSnapshot", () -> ProductSnapshot.of(buildList().stream()));
+        System.out.printf("%nProductSnapshot.estimatedBytes per row: %.1f%n", snapshot.bytesPerRow());
+    }
+
+    @Benchmark
+    public double scanList() {
+        double total = 0;
+        int count = 0;
+        for (Product product : list) {
+            if (product.getCategoryId() == 3) {
+                total += product.getUnitPrice();
+                count++;
+            }
+        }
+        return total / count;
+    }
+
+    @Benchmark
+    public double scanSnapshot() {
+        ProductSnapshot current = snapshot;
+        double total = 0;
+        int count = 0;
+        for (int row = 0; row < current.size(); row++) {
+            if (current.categoryIdAt(row) == 3) {
+                total += current.unitPriceAt(row);
+                count++;
+            }
+        }
+        return total / count;
+    }
+
+    @Benchmark
+    public double lookupList() {
+        // A List has no id index; the ids here are dense, so we can index it directly (its best case).
+        int productId = ThreadLocalRandom.current().nextInt(1, rowCount + 1);
+        return list.get(productId - 1).getUnitPrice();
+    }
+
+    @Benchmark
+    public double lookupSnapshot() {
+        int productId = ThreadLocalRandom.current().nextInt(1, rowCount + 1);
+        return snapshot.unitPriceAt(snapshot.rowOf(productId));
+    }
+
+    private List<Product> buildList() {
+        List<Product> products = new ArrayList<>(rowCount);
+        for (int id = 1; id <= rowCount; id++) {
+            products.add(new Product(id, "Product " + id, id % 8, 1 + (id % 1000) / 4.0));
+        }
+        return products;
+    }
+
+    // Builds a structure and prints how much the live heap grew, per row.
+    private <T> T measure(String label, Supplier<T> builder) {
+        long before = usedHeapAfterGc();
+        T result = builder.get();
+        long after = usedHeapAfterGc();
+        System.out.printf("%n%s: %.1f bytes per row%n", label, (after - before) / (double) rowCount);
+        return result;
+    }
+
+    private static long usedHeapAfterGc() {
+        for (int i = 0; i < 3; i++) {
+            System.gc();
+        }
+        return ManagementFactory.getMemoryMXBean().getHeapMemoryUsage().getUsed();
+    }
+}
@@ -0,0 +1,117 @@
+package com.pluralsight.NorthwindTradersSpringBoot.benchmark;
+
+import com.pluralsight.NorthwindTradersSpringBoot.dao.HiLoIdGenerator;
+import com.pluralsight.NorthwindTradersSpringBoot.dao.JdbcProductDao;
+import com.pluralsight.NorthwindTradersSpringBoot.dao.ProductTestDatabase;
+import com.pluralsight.NorthwindTradersSpringBoot.dao.ShardedProductDao;
+import com.pluralsight.NorthwindTradersSpringBoot.model.Product;
+import org.apache.commons.dbcp2.BasicDataSource;
+import org.openjdk.jmh.annotations.*;
+
+import javax.sql.DataSource;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Proxy;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+
+// Throughput of ShardedProductDao as shards are added, with many client threads.
+// Every shard is an in-process H2 database, so on their own the shards would all share this machine's CPUs and
+// adding shards couldn't add capacity. serviceMicros stands in for a real database server instead: each shard
+// accepts at most SERVER_CONNECTIONS connections, and every connection is held for serviceMicros of "server work"
+// before the statement runs. That per-shard capacity is what sharding multiplies.
+// Run with: mvn -Pbenchmark verify -Djmh.include=ShardedProductDaoBenchmark -Djmh.threads=16
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+public class ShardedProductDaoBenchmark {
+
+    private static final int TABLE_SIZE = 20_000;
+    private static final int SERVER_CONNECTIONS = 2;
+
+    @Param({"1", "2", "4"})
+    public int shards;
+
+    @Param({"0", "500"})
+    public long serviceMicros;
+
+    private BasicDataSource mainDataSource;
+    private final List<BasicDataSource> shardDataSources = new ArrayList<>();
+    private ShardedProductDao productDao;
+    private int[] productIds;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        mainDataSource = ProductTestDatabase.create();
+        ProductTestDatabase.createIdBlocks(mainDataSource);
+
+        long serviceNanos = TimeUnit.MICROSECONDS.toNanos(serviceMicros);
+        List<JdbcProductDao> shardDaos = new ArrayList<>();
+        for (int i = 0; i < shards; i++) {
+            BasicDataSource shardDataSource = ProductTestDatabase.create();
+            shardDataSource.setMaxTotal(SERVER_CONNECTIONS);
+            shardDataSource.setMaxIdle(SERVER_CONNECTIONS);
+            shardDataSources.add(shardDataSource);
+            shardDaos.add(new JdbcProductDao(withServiceTime(shardDataSource, serviceNanos)));
+        }
+        productDao = new ShardedProductDao(shardDaos, new HiLoIdGenerator(mainDataSource, 1000), 64);
+
+        List<Product> products = new ArrayList<>();
+        for (int i = 1; i <= TABLE_SIZE; i++) {
+            products.add(new Product(0, "Product " + i, 1 + i % 8, 1 + (i % 1000) / 4.0));
+        }
+        productIds = productDao.addAll(products);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws SQLException {
+        productDao.close();
+        for (BasicDataSource shardDataSource : shardDataSources) {
+            shardDataSource.close();
+        }
+        shardDataSources.clear();
+        mainDataSource.close();
+    }
+
+    // Goes to exactly one shard.
+    @Benchmark
+    public List<Product> findById() {
+        return productDao.findById(productIds[ThreadLocalRandom.current().nextInt(productIds.length)]);
+    }
+
+    // One shard, plus a trip to ProductIdBlocks every 1000 adds.
+    @Benchmark
+    public Product add() {
+        Product product = new Product(0, "Benchmark product", 1, 9.99);
+        productDao.add(product);
+        return product;
+    }
+
+    // Goes to every shard at once and merges the results.
+    @Benchmark
+    public int findByPriceRange() {
+        double low = ThreadLocalRandom.current().nextInt(1, 250);
+        return productDao.findByPriceRange(low, low + 0.5).size();
+    }
+
+    // A DataSource whose getConnection() holds the connection for serviceNanos before handing it out.
+    private static DataSource withServiceTime(DataSource target, long serviceNanos) {
+        return (DataSource) Proxy.newProxyInstance(DataSource.class.getClassLoader(), new Class<?>[]{DataSource.class},
+                (proxy, method, args) -> {
+                    try {
+                        Object result = method.invoke(target, args);
+                        if (method.getName().equals("getConnection") && serviceNanos > 0) {
+                            LockSupport.parkNanos(serviceNanos);
+                        }
+                        return result;
+                    } catch (InvocationTargetException e) {
+                        throw e.getCause();
+                    }
+                });
+    }
+}
@@ -0,0 +1,174 @@
+package com.pluralsight.NorthwindTradersSpringBoot.benchmark;
+
+import com.pluralsight.NorthwindTradersSpringBoot.NorthwindTradersSpringBootApplication;
+import com.pluralsight.NorthwindTradersSpringBoot.dao.ProductTestDatabase;
+import org.apache.commons.dbcp2.BasicDataSource;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.net.URISyntaxException;
+import java.net.URL;
+import java.net.URLClassLoader;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.jar.JarFile;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+// Cold-starts the application in a fresh JVM again and again, in each startup mode, and reports the time from JVM
+// start until the first getAll() succeeds (measured inside the application by StartupProbe), plus when the context
+// was ready. Every run uses the same H2 database file with PRODUCT_COUNT products.
+//
+// Modes: the default (eager) boot and the fast-startup profile, both from the class path. If target/cds-app exists
+// (mvn -Paot,cds package) the extracted jar is also started with the fast-startup profile: plain, with the
+// AOT-generated context, and with AOT plus the CDS archive.
+//
+// Run from the IDE, or: mvn test-compile exec:java -Dexec.classpathScope=test
+//   -Dexec.mainClass=com.pluralsight.NorthwindTradersSpringBoot.benchmark.StartupTimeHarness -Dexec.args="5"
+// Arguments: runs per mode (default 5).
+public class StartupTimeHarness {
+
+    private static final int PRODUCT_COUNT = 1_000;
+    private static final Pattern PROBE_LINE =
+            Pattern.compile("STARTUP-PROBE ready-millis=(\\d+) first-getall-millis=(\\d+) products=(\\d+)");
+
+    public static void main(String[] args) throws Exception {
+        int runs = args.length > 0 ? Integer.parseInt(args[0]) : 5;
+
+        Path work = Path.of("target", "startup-harness").toAbsolutePath();
+        Files.createDirectories(work);
+        String url = createDatabase(work);
+
+        String classPath = testClassPath();
+        String h2Jar = Arrays.stream(classPath.split(File.pathSeparator))
+                .filter(entry -> new File(entry).getName().startsWith("h2-"))
+                .findFirst()
+                .orElseThrow(() -> new IllegalStateException("H2 is not on the test class path"));
+
+        List<Mode> modes = new ArrayList<>();
+        modes.add(new Mode("class path, eager", classPath, List.of(), List.of()));
+        modes.add(new Mode("class path, fast-startup", classPath, List.of(), List.of("--spring.profiles.active=fast-startup")));
+
+        Path cdsApp = Path.of("target", "cds-app").toAbsolutePath();
+        Path jar = cdsApp.resolve("NorthwindTradersSpringBoot-0.0.1-SNAPSHOT.jar");
+        if (Files.exists(jar)) {
+            // The H2 driver is only a test dependency, so it goes after the jar (CDS allows extra entries at the end).
+            String jarClassPath = jar + File.pathSeparator + h2Jar;
+            List<String> fast = List.of("--spring.profiles.active=fast-startup");
+            modes.add(new Mode("jar, fast-startup", jarClassPath, List.of(), fast));
+            if (hasAotClasses(jar)) {
+                modes.add(new Mode("jar, fast-startup + AOT", jarClassPath, List.of("-Dspring.aot.enabled=true"), fast));
+                Path archive = cdsApp.resolve("application.jsa");
+                if (Files.exists(archive)) {
+                    modes.add(new Mode("jar, fast-startup + AOT + CDS", jarClassPath,
+                            List.of("-Dspring.aot.enabled=true", "-XX:SharedArchiveFile=" + archive), fast));
+                }
+            }
+        } else {
+            System.out.println("(no target/cds-app: run mvn -Paot,cds package to include the jar, AOT and CDS modes)");
+        }
+
+        System.out.println("Java " + Runtime.version() + ", " + runs + " runs per mode, " + PRODUCT_COUNT + " products");
+        for (Mode mode : modes) {
+            long[] ready = new long[runs];
+            long[] firstGetAll = new long[runs];
+            for (int i = 0; i < runs; i++) {
+                long[] result = startOnce(mode, url);
+                ready[i] = result[0];
+                firstGetAll[i] = result[1];
+            }
+            Arrays.sort(ready);
+            Arrays.sort(firstGetAll);
+            System.out.printf("%-32s first getAll: median %5d ms (min %5d)   context ready: median %5d ms%n",
+                    mode.name(), firstGetAll[runs / 2], firstGetAll[0], ready[runs / 2]);
+        }
+    }
+
+    private record Mode(String name, String classPath, List<String> jvmArgs, List<String> appArgs) {
+    }
+
+    // Starts the application in a new JVM and returns {context ready, first getAll} in milliseconds from JVM start.
+    private static long[] startOnce(Mode mode, String url) throws IOException, InterruptedException {
+        List<String> command = new ArrayList<>();
+        command.add(Path.of(System.getProperty("java.home"), "bin", "java").toString());
+        command.addAll(mode.jvmArgs());
+        command.add("-cp");
+        command.add(mode.classPath());
+        command.add(NorthwindTradersSpringBootApplication.class.getName());
+        command.add("--datasource.url=" + url);
+        command.add("--server.port=0");
+        command.add("--logging.level.root=WARN");
+        command.add("--startup.probe.enabled=true");
+        command.add("--startup.probe.exit=true");
+        command.addAll(mode.appArgs());
+
+        ProcessBuilder builder = new ProcessBuilder(command).redirectErrorStream(true);
+        builder.environment().put("username", "sa");
+        builder.environment().put("password", "startup");
+        Process process = builder.start();
+
+        long[] result = null;
+        List<String> output = new ArrayList<>();
+        try (BufferedReader reader = new BufferedReader(new InputStreamReader(process.getInputStream()))) {
+            for (String line = reader.readLine(); line != null; line = reader.readLine()) {
+                output.add(line);
+                Matcher matcher = PROBE_LINE.matcher(line);
+                if (matcher.find()) {
+                    if (Integer.parseInt(matcher.group(3)) != PRODUCT_COUNT) {
+                        throw new IllegalStateException("Expected " + PRODUCT_COUNT + " products: " + line);
+                    }
+                    result = new long[]{Long.parseLong(matcher.group(1)), Long.parseLong(matcher.group(2))};
+                }
+            }
+        }
+        process.waitFor();
+
+        if (result == null) {
+            throw new IllegalStateException(mode.name() + " never reported a successful getAll:\n"
+                    + String.join("\n", output));
+        }
+        return result;
+    }
+
+    // A file database (so every JVM sees the same rows) with the Products table filled in.
+    private static String createDatabase(Path work) throws Exception {
+        String url = "jdbc:h2:file:" + work.resolve("northwind")
+                + ";MODE=MySQL;DATABASE_TO_LOWER=TRUE;IGNORECASE=TRUE";
+        Files.deleteIfExists(work.resolve("northwind.mv.db"));
+
+        try (BasicDataSource dataSource = new BasicDataSource()) {
+            dataSource.setUrl(url);
+            dataSource.setUsername("sa");
+            dataSource.setPassword("startup");
+            ProductTestDatabase.createSchema(dataSource);
+            ProductTestDatabase.insertProducts(dataSource, PRODUCT_COUNT);
+        }
+        return url;
+    }
+
+    // The test class path, whether we were started by the IDE (java.class.path) or by exec:java (a URLClassLoader).
+    private static String testClassPath() throws URISyntaxException {
+        if (Thread.currentThread().getContextClassLoader() instanceof URLClassLoader loader) {
+            List<String> entries = new ArrayList<>();
+            for (URL entry : loader.getURLs()) {
+                entries.add(Path.of(entry.toURI()).toString());
+            }
+            return String.join(File.pathSeparator, entries);
+        }
+        return System.getProperty("java.class.path");
+    }
+
+    // Whether mvn -Paot put the generated context initializer into the jar.
+    private static boolean hasAotClasses(Path jar) throws IOException {
+        String initializer = NorthwindTradersSpringBootApplication.class.getName().replace('.', '/')
+                + "__ApplicationContextInitializer.class";
+        try (JarFile jarFile = new JarFile(jar.toFile())) {
+            return jarFile.getEntry(initializer) != null;
+        }
+    }
+}
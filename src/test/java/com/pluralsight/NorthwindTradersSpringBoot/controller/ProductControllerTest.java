@@ -0,0 +1,130 @@
+package com.pluralsight.NorthwindTradersSpringBoot.controller;
+
+import com.pluralsight.NorthwindTradersSpringBoot.dao.FaultInjectingDataSource;
+import com.pluralsight.NorthwindTradersSpringBoot.dao.JdbcProductDao;
+import com.pluralsight.NorthwindTradersSpringBoot.dao.ProductTestDatabase;
+import org.apache.commons.dbcp2.BasicDataSource;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+
+import java.sql.SQLException;
+
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+class ProductControllerTest {
+
+    private BasicDataSource dataSource;
+    private MockMvc mockMvc;
+
+    @BeforeEach
+    void setUp() {
+        dataSource = ProductTestDatabase.create();
+        ProductTestDatabase.insertProducts(dataSource, 5);
+        mockMvc = MockMvcBuilders.standaloneSetup(new ProductController(new JdbcProductDao(dataSource))).build();
+    }
+
+    @AfterEach
+    void tearDown() throws SQLException {
+        dataSource.close();
+    }
+
+    @Test
+    void listsProductsOnePageAtATime() throws Exception {
+        mockMvc.perform(get("/products").param("size", "3"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.products.length()").value(3))
+                .andExpect(jsonPath("$.nextAfter").value(3));
+
+        mockMvc.perform(get("/products").param("after", "3").param("size", "3"))
+                .andExpect(jsonPath("$.products.length()").value(2))
+                .andExpect(jsonPath("$.nextAfter").doesNotExist());
+    }
+
+    @Test
+    void getsOneProductOr404() throws Exception {
+        mockMvc.perform(get("/products/2"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.productName").value("Product 2"));
+
+        mockMvc.perform(get("/products/99")).andExpect(status().isNotFound());
+    }
+
+    @Test
+    void createsUpdatesAndDeletesAProduct() throws Exception {
+        mockMvc.perform(post("/products")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"productName\":\"Chai\",\"categoryId\":1,\"unitPrice\":18.0}"))
+                .andExpect(status().isCreated())
+                .andExpect(header().string("Location", "/products/6"))
+                .andExpect(jsonPath("$.productId").value(6));
+
+        mockMvc.perform(put("/products/6")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"productName\":\"Chai Tea\",\"categoryId\":1,\"unitPrice\":19.0}"))
+                .andExpect(status().isOk());
+        mockMvc.perform(get("/products/6")).andExpect(jsonPath("$.productName").value("Chai Tea"));
+
+        mockMvc.perform(delete("/products/6")).andExpect(status().isNoContent());
+        mockMvc.perform(get("/products/6")).andExpect(status().isNotFound());
+    }
+
+    @Test
+    void updateWithAStaleVersionIsAConflict() throws Exception {
+        mockMvc.perform(get("/products/2")).andExpect(jsonPath("$.version").value(1));
+
+        mockMvc.perform(put("/products/2")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"productName\":\"First\",\"categoryId\":1,\"unitPrice\":1.0,\"version\":1}"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.version").value(2));
+
+        mockMvc.perform(put("/products/2")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"productName\":\"Second\",\"categoryId\":1,\"unitPrice\":2.0,\"version\":1}"))
+                .andExpect(status().isConflict());
+        mockMvc.perform(get("/products/2")).andExpect(jsonPath("$.productName").value("First"));
+    }
+
+    @Test
+    void updateOfAMissingProductIsNotFound() throws Exception {
+        mockMvc.perform(put("/products/99")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"productName\":\"Ghost\",\"categoryId\":1,\"unitPrice\":1.0}"))
+                .andExpect(status().isNotFound());
+    }
+
+    @Test
+    void databaseErrorsAreServiceUnavailable() throws Exception {
+        FaultInjectingDataSource faulty = new FaultInjectingDataSource(dataSource);
+        MockMvc faultyMvc = MockMvcBuilders.standaloneSetup(new ProductController(new JdbcProductDao(faulty))).build();
+
+        faulty.failNext(1, "08S01");
+        faultyMvc.perform(get("/products/2"))
+                .andExpect(status().isServiceUnavailable())
+                .andExpect(header().exists("Retry-After"));
+
+        faulty.failNext(1, "42S02");
+        faultyMvc.perform(get("/products/2")).andExpect(status().isInternalServerError());
+    }
+
+    @Test
+    void bulkEndpointsWriteManyProducts() throws Exception {
+        mockMvc.perform(post("/products/bulk")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("[{\"productName\":\"A\",\"categoryId\":1,\"unitPrice\":1.0},"
+                                + "{\"productName\":\"B\",\"categoryId\":1,\"unitPrice\":2.0}]"))
+                .andExpect(status().isCreated())
+                .andExpect(jsonPath("$[0]").value(6))
+                .andExpect(jsonPath("$[1]").value(7));
+
+        mockMvc.perform(delete("/products").param("ids", "1,2,6"))
+                .andExpect(status().isNoContent());
+        mockMvc.perform(get("/products"))
+                .andExpect(jsonPath("$.products.length()").value(4));
+    }
+}
@@ -0,0 +1,74 @@
+package com.pluralsight.NorthwindTradersSpringBoot.controller;
+
+import com.pluralsight.NorthwindTradersSpringBoot.dao.JdbcProductDao;
+import com.pluralsight.NorthwindTradersSpringBoot.dao.ProductTestDatabase;
+import com.pluralsight.NorthwindTradersSpringBoot.export.ProductExporter;
+import org.apache.commons.dbcp2.BasicDataSource;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+
+import java.io.ByteArrayInputStream;
+import java.nio.charset.StandardCharsets;
+import java.sql.SQLException;
+import java.util.zip.GZIPInputStream;
+
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+class ProductExportControllerTest {
+
+    private BasicDataSource dataSource;
+    private MockMvc mockMvc;
+
+    @BeforeEach
+    void setUp() {
+        dataSource = ProductTestDatabase.create();
+        ProductTestDatabase.insertProducts(dataSource, 5);
+        ProductExporter exporter = new ProductExporter(new JdbcProductDao(dataSource));
+        mockMvc = MockMvcBuilders.standaloneSetup(new ProductExportController(exporter)).build();
+    }
+
+    @AfterEach
+    void tearDown() throws SQLException {
+        dataSource.close();
+    }
+
+    @Test
+    void streamsNdjson() throws Exception {
+        MvcResult result = mockMvc.perform(get("/products/export").param("format", "ndjson"))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+
+        mockMvc.perform(asyncDispatch(result))
+                .andExpect(status().isOk())
+                .andExpect(header().string("Content-Type", "application/x-ndjson"))
+                .andExpect(header().string("Content-Disposition", "attachment; filename=\"products.ndjson\""))
+                .andExpect(content().string(org.hamcrest.Matchers.startsWith("{\"productId\":1,\"productName\":\"Product 1\"")));
+    }
+
+    @Test
+    void streamsGzippedCsv() throws Exception {
+        MvcResult result = mockMvc.perform(get("/products/export").param("gzip", "true"))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+
+        byte[] body = mockMvc.perform(asyncDispatch(result))
+                .andExpect(status().isOk())
+                .andExpect(header().string("Content-Type", "application/gzip"))
+                .andReturn().getResponse().getContentAsByteArray();
+
+        String csv = new String(new GZIPInputStream(new ByteArrayInputStream(body)).readAllBytes(), StandardCharsets.UTF_8);
+        assertTrue(csv.startsWith("ProductID,ProductName,CategoryID,UnitPrice\n1,Product 1,2,1.25\n"));
+    }
+
+    @Test
+    void unknownFormatIsABadRequest() throws Exception {
+        mockMvc.perform(get("/products/export").param("format", "xml"))
+                .andExpect(status().isBadRequest());
+    }
+}
@@ -0,0 +1,62 @@
+package com.pluralsight.NorthwindTradersSpringBoot.controller;
+
+import com.pluralsight.NorthwindTradersSpringBoot.async.AsyncProductDao;
+import com.pluralsight.NorthwindTradersSpringBoot.dao.JdbcProductDao;
+import com.pluralsight.NorthwindTradersSpringBoot.dao.ProductTestDatabase;
+import org.apache.commons.dbcp2.BasicDataSource;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+
+import java.sql.SQLException;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+class ProductLookupControllerTest {
+
+    private BasicDataSource dataSource;
+    private AsyncProductDao asyncProductDao;
+    private MockMvc mockMvc;
+
+    @BeforeEach
+    void setUp() {
+        dataSource = ProductTestDatabase.create();
+        ProductTestDatabase.insertProducts(dataSource, 5);
+        asyncProductDao = new AsyncProductDao(new JdbcProductDao(dataSource), 4);
+        mockMvc = MockMvcBuilders.standaloneSetup(new ProductLookupController(asyncProductDao)).build();
+    }
+
+    @AfterEach
+    void tearDown() throws SQLException {
+        asyncProductDao.close();
+        dataSource.close();
+    }
+
+    @Test
+    void looksUpManyIdsAsynchronously() throws Exception {
+        MvcResult result = mockMvc.perform(get("/products/lookup").param("ids", "4,9,1"))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+
+        mockMvc.perform(asyncDispatch(result))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.length()").value(2))
+                .andExpect(jsonPath("$[0].productId").value(4))
+                .andExpect(jsonPath("$[1].productId").value(1));
+    }
+
+    @Test
+    void tooManyIdsIsABadRequest() throws Exception {
+        String ids = IntStream.rangeClosed(1, 1001).mapToObj(Integer::toString).collect(Collectors.joining(","));
+
+        MvcResult result = mockMvc.perform(get("/products/lookup").param("ids", ids)).andReturn();
+
+        mockMvc.perform(asyncDispatch(result)).andExpect(status().isBadRequest());
+    }
+}
@@ -0,0 +1,53 @@
+package com.pluralsight.NorthwindTradersSpringBoot.controller;
+
+import com.pluralsight.NorthwindTradersSpringBoot.dao.JdbcProductDao;
+import com.pluralsight.NorthwindTradersSpringBoot.dao.ProductTestDatabase;
+import com.pluralsight.NorthwindTradersSpringBoot.search.ProductNameSearch;
+import org.apache.commons.dbcp2.BasicDataSource;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+
+import java.sql.SQLException;
+
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+class ProductSearchControllerTest {
+
+    private BasicDataSource dataSource;
+    private MockMvc mockMvc;
+
+    @BeforeEach
+    void setUp() {
+        dataSource = ProductTestDatabase.create();
+        ProductTestDatabase.insertProducts(dataSource, 30);
+        mockMvc = MockMvcBuilders.standaloneSetup(
+                new ProductSearchController(new ProductNameSearch(new JdbcProductDao(dataSource)))).build();
+    }
+
+    @AfterEach
+    void tearDown() throws SQLException {
+        dataSource.close();
+    }
+
+    @Test
+    void returnsTheBestMatchesFirst() throws Exception {
+        mockMvc.perform(get("/products/search").param("q", "prodcut 12").param("limit", "3"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.length()").value(3))
+                .andExpect(jsonPath("$[0].productId").value(12))
+                .andExpect(jsonPath("$[0].productName").value("Product 12"));
+    }
+
+    @Test
+    void blankQueryOrBadLimitIsABadRequest() throws Exception {
+        mockMvc.perform(get("/products/search").param("q", " ")).andExpect(status().isBadRequest());
+        mockMvc.perform(get("/products/search").param("q", "chai").param("limit", "0"))
+                .andExpect(status().isBadRequest());
+        mockMvc.perform(get("/products/search").param("q", "chai").param("limit", "101"))
+                .andExpect(status().isBadRequest());
+    }
+}
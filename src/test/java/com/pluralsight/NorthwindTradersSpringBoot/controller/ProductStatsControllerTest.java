@@ -0,0 +1,61 @@
+package com.pluralsight.NorthwindTradersSpringBoot.controller;
+
+import com.pluralsight.NorthwindTradersSpringBoot.dao.JdbcProductDao;
+import com.pluralsight.NorthwindTradersSpringBoot.dao.JdbcProductStatsDao;
+import com.pluralsight.NorthwindTradersSpringBoot.dao.ProductTestDatabase;
+import com.pluralsight.NorthwindTradersSpringBoot.snapshot.ProductSnapshotHolder;
+import com.pluralsight.NorthwindTradersSpringBoot.snapshot.SnapshotProductStatsDao;
+import org.apache.commons.dbcp2.BasicDataSource;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+
+import java.sql.SQLException;
+
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+class ProductStatsControllerTest {
+
+    private BasicDataSource dataSource;
+    private SnapshotProductStatsDao snapshotStats;
+    private MockMvc mockMvc;
+
+    @BeforeEach
+    void setUp() {
+        dataSource = ProductTestDatabase.create();
+        ProductTestDatabase.insertProducts(dataSource, 16);
+        snapshotStats = new SnapshotProductStatsDao(new ProductSnapshotHolder(new JdbcProductDao(dataSource)), 2);
+        mockMvc = MockMvcBuilders.standaloneSetup(
+                new ProductStatsController(new JdbcProductStatsDao(dataSource), snapshotStats)).build();
+    }
+
+    @AfterEach
+    void tearDown() throws SQLException {
+        snapshotStats.close();
+        dataSource.close();
+    }
+
+    @Test
+    void returnsStatsFromEitherSource() throws Exception {
+        // Products 1 to 16 fall into categories 1 + i % 8, two per category; category 1 holds products 8 and 16.
+        for (String source : new String[]{"database", "snapshot"}) {
+            mockMvc.perform(get("/products/stats").param("source", source))
+                    .andExpect(status().isOk())
+                    .andExpect(jsonPath("$.length()").value(8))
+                    .andExpect(jsonPath("$[0].categoryId").value(1))
+                    .andExpect(jsonPath("$[0].productCount").value(2))
+                    .andExpect(jsonPath("$[0].minPrice").value(3.0))
+                    .andExpect(jsonPath("$[0].maxPrice").value(5.0))
+                    .andExpect(jsonPath("$[0].medianPrice").value(3.0))
+                    .andExpect(jsonPath("$[0].p99Price").value(5.0));
+        }
+    }
+
+    @Test
+    void unknownSourceIsABadRequest() throws Exception {
+        mockMvc.perform(get("/products/stats").param("source", "cache")).andExpect(status().isBadRequest());
+    }
+}
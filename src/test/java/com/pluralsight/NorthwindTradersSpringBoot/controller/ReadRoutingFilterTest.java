@@ -0,0 +1,65 @@
+package com.pluralsight.NorthwindTradersSpringBoot.controller;
+
+import com.pluralsight.NorthwindTradersSpringBoot.config.ReplicaProperties;
+import com.pluralsight.NorthwindTradersSpringBoot.datasource.ReadRoutingContext;
+import jakarta.servlet.Filter;
+import jakarta.servlet.http.HttpServlet;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockFilterChain;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ReadRoutingFilterTest {
+
+    private static final long WINDOW_NANOS = TimeUnit.MINUTES.toNanos(1);
+
+    private final ReadRoutingFilter filter = new ReadRoutingFilter(new ReplicaProperties());
+
+    @AfterEach
+    void tearDown() {
+        ReadRoutingContext.clear();
+    }
+
+    @Test
+    void aRequestDoesNotInheritTheWindowOfTheRequestBeforeIt() throws Exception {
+        // Left behind by whatever this pooled thread did last.
+        ReadRoutingContext.markWrite();
+
+        assertFalse(wroteWithinRequest(null));
+        assertFalse(ReadRoutingContext.wroteWithin(WINDOW_NANOS));
+    }
+
+    @Test
+    void theCallerHeaderCarriesTheWindowIntoTheCallersNextRequest() throws Exception {
+        run(request("client-a"), (request, response, chain) -> ReadRoutingContext.markWrite());
+
+        assertTrue(wroteWithinRequest("client-a"));
+        assertFalse(wroteWithinRequest("client-b"));
+        assertFalse(wroteWithinRequest(null));
+    }
+
+    private boolean wroteWithinRequest(String callerId) throws Exception {
+        boolean[] wrote = new boolean[1];
+        run(request(callerId), (request, response, chain) -> wrote[0] = ReadRoutingContext.wroteWithin(WINDOW_NANOS));
+        return wrote[0];
+    }
+
+    private static MockHttpServletRequest request(String callerId) {
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/products/1");
+        if (callerId != null) {
+            request.addHeader(ReadRoutingFilter.CALLER_HEADER, callerId);
+        }
+        return request;
+    }
+
+    // Runs the filter with `handler` standing in for the controller.
+    private void run(MockHttpServletRequest request, Filter handler) throws Exception {
+        filter.doFilter(request, new MockHttpServletResponse(), new MockFilterChain(new HttpServlet() {
+        }, handler));
+    }
+}
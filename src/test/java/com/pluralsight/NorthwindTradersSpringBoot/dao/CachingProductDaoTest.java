@@ -0,0 +1,116 @@
+package com.pluralsight.NorthwindTradersSpringBoot.dao;
+
+import com.pluralsight.NorthwindTradersSpringBoot.model.Product;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.apache.commons.dbcp2.BasicDataSource;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.sql.SQLException;
+import java.time.Duration;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class CachingProductDaoTest {
+
+    private BasicDataSource dataSource;
+    private CachingProductDao productDao;
+
+    @BeforeEach
+    void setUp() {
+        dataSource = ProductTestDatabase.create();
+        ProductTestDatabase.insertProducts(dataSource, 20);
+        productDao = new CachingProductDao(new JdbcProductDao(dataSource), 5, Duration.ofMinutes(5));
+    }
+
+    @AfterEach
+    void tearDown() throws SQLException {
+        dataSource.close();
+    }
+
+    @Test
+    void repeatedLookupsAreServedFromTheCache() {
+        productDao.findById(1);
+        productDao.findById(1);
+        productDao.findById(1);
+
+        assertEquals(1, productDao.stats().missCount());
+        assertEquals(2, productDao.stats().hitCount());
+    }
+
+    @Test
+    void hitsAndMissesArePublishedAsMeters() {
+        MeterRegistry registry = new SimpleMeterRegistry();
+        productDao.registerMeters(registry);
+
+        productDao.findById(1);
+        productDao.findById(1);
+
+        assertEquals(1, registry.get("cache.gets").tags("cache", "products", "result", "hit").functionCounter().count());
+        assertEquals(1, registry.get("cache.gets").tags("cache", "products", "result", "miss").functionCounter().count());
+        assertEquals(1, registry.get("cache.size").tags("cache", "products").gauge().value());
+    }
+
+    @Test
+    void findByIdsOnlyLoadsTheMisses() {
+        productDao.findById(2);
+        productDao.findById(4);
+
+        List<Product> products = productDao.findByIds(4, 3, 2, 99);
+
+        assertEquals(List.of(2, 3, 4), products.stream().map(Product::getProductId).toList());
+        assertEquals(2, productDao.stats().hitCount());
+        productDao.findById(3);
+        assertEquals(3, productDao.stats().hitCount());
+    }
+
+    @Test
+    void cachedProductsCannotBeChangedByCallers() {
+        productDao.findById(1).get(0).setProductName("changed by caller");
+
+        assertEquals("Product 1", productDao.findById(1).get(0).getProductName());
+    }
+
+    @Test
+    void updateIsVisibleOnTheNextRead() {
+        Product product = productDao.findById(3).get(0);
+        product.setUnitPrice(42.0);
+
+        productDao.update(product);
+
+        assertEquals(42.0, productDao.findById(3).get(0).getUnitPrice());
+    }
+
+    @Test
+    void deleteIsVisibleOnTheNextRead() {
+        productDao.findById(4);
+
+        productDao.deleteByID(4);
+        assertTrue(productDao.findById(4).isEmpty());
+
+        productDao.findById(5);
+        productDao.deleteByIds(new int[]{5});
+        assertTrue(productDao.findById(5).isEmpty());
+    }
+
+    @Test
+    void cacheStaysWithinItsMaximumSize() {
+        for (int productId = 1; productId <= 20; productId++) {
+            productDao.findById(productId);
+        }
+
+        assertTrue(productDao.stats().evictionCount() > 0);
+        assertTrue(productDao.size() <= 5);
+    }
+
+    @Test
+    void missingProductsAreNotCached() {
+        List<Product> products = productDao.findById(999);
+
+        assertTrue(products.isEmpty());
+        assertEquals(0, productDao.size());
+    }
+}
@@ -0,0 +1,175 @@
+package com.pluralsight.NorthwindTradersSpringBoot.dao;
+
+import com.pluralsight.NorthwindTradersSpringBoot.model.Product;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.apache.commons.dbcp2.BasicDataSource;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.sql.SQLException;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.IntUnaryOperator;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class CoalescingProductDaoTest {
+
+    private BasicDataSource dataSource;
+    private JdbcProductDao jdbcProductDao;
+    private AtomicInteger queries;
+    private CoalescingProductDao productDao;
+    private ExecutorService callers;
+
+    @BeforeEach
+    void setUp() {
+        dataSource = ProductTestDatabase.create();
+        ProductTestDatabase.insertProducts(dataSource, 100);
+        jdbcProductDao = new JdbcProductDao(dataSource);
+        queries = new AtomicInteger();
+
+        // Counts the batched queries that reach the database.
+        IProductDao counting = new ForwardingProductDao(jdbcProductDao) {
+            @Override
+            public List<Product> findByIds(int... productIds) {
+                queries.incrementAndGet();
+                return super.findByIds(productIds);
+            }
+        };
+        productDao = new CoalescingProductDao(counting, Duration.ofMillis(50), 100, 2);
+        callers = Executors.newFixedThreadPool(20);
+    }
+
+    @AfterEach
+    void tearDown() throws SQLException {
+        callers.shutdownNow();
+        productDao.close();
+        dataSource.close();
+    }
+
+    @Test
+    void concurrentLookupsShareOneQuery() throws Exception {
+        List<Future<List<Product>>> results = lookUpTogether(20, i -> 1 + i);
+
+        for (int i = 0; i < results.size(); i++) {
+            assertEquals("Product " + (1 + i), results.get(i).get(5, TimeUnit.SECONDS).get(0).getProductName());
+        }
+        assertEquals(1, queries.get());
+        assertEquals(new CoalescingStats(20, 0, 1, 20), productDao.stats());
+    }
+
+    @Test
+    void lookupsOfTheSameIdAreSingleFlightButGetTheirOwnCopies() throws Exception {
+        List<Future<List<Product>>> results = lookUpTogether(10, i -> 5);
+
+        Product first = results.get(0).get(5, TimeUnit.SECONDS).get(0);
+        Product second = results.get(1).get(5, TimeUnit.SECONDS).get(0);
+        assertNotSame(first, second);
+        assertEquals(1, queries.get());
+        assertEquals(9, productDao.stats().sharedLookups());
+        assertEquals(1, productDao.stats().idsQueried());
+    }
+
+    @Test
+    void batchSizesAndSharedLookupsArePublishedAsMeters() throws Exception {
+        MeterRegistry registry = new SimpleMeterRegistry();
+        productDao.registerMeters(registry);
+
+        // Ten lookups of two ids: one batch of two, and eight lookups that share one already in flight.
+        for (Future<List<Product>> result : lookUpTogether(10, i -> 1 + i % 2)) {
+            result.get(5, TimeUnit.SECONDS);
+        }
+
+        assertEquals(10, registry.get("product.dao.coalescing.lookups").functionCounter().count());
+        assertEquals(8, registry.get("product.dao.coalescing.shared.lookups").functionCounter().count());
+        DistributionSummary batchSize = registry.get("product.dao.coalescing.batch.size").summary();
+        assertEquals(1, batchSize.count());
+        assertEquals(2, batchSize.totalAmount());
+    }
+
+    @Test
+    void fullBatchIsSentWithoutWaitingForTheWindow() {
+        CoalescingProductDao slowWindow = new CoalescingProductDao(jdbcProductDao, Duration.ofSeconds(30), 1, 1);
+
+        long start = System.nanoTime();
+        assertEquals("Product 3", slowWindow.findById(3).get(0).getProductName());
+        assertTrue(System.nanoTime() - start < TimeUnit.SECONDS.toNanos(5));
+        slowWindow.close();
+    }
+
+    @Test
+    void missingIdsComeBackEmpty() {
+        assertTrue(productDao.findById(999).isEmpty());
+    }
+
+    @Test
+    void errorsReachEveryWaitingCaller() throws Exception {
+        CoalescingProductDao failing = new CoalescingProductDao(new ForwardingProductDao(jdbcProductDao) {
+            @Override
+            public List<Product> findByIds(int... productIds) {
+                throw new IllegalStateException("database down");
+            }
+        }, Duration.ofMillis(20), 100, 1);
+
+        Future<List<Product>> a = callers.submit(() -> failing.findById(1));
+        Future<List<Product>> b = callers.submit(() -> failing.findById(2));
+
+        for (Future<List<Product>> result : List.of(a, b)) {
+            Exception e = assertThrows(Exception.class, () -> result.get(5, TimeUnit.SECONDS));
+            assertInstanceOf(IllegalStateException.class, e.getCause());
+        }
+        failing.close();
+    }
+
+    @Test
+    void lookupAfterAWriteDoesNotShareAnOlderQuery() {
+        productDao.findById(4);
+        productDao.update(new Product(4, "Renamed", 1, 1.0));
+
+        assertEquals("Renamed", productDao.findById(4).get(0).getProductName());
+    }
+
+    @Test
+    void lookupWriteLookupInsideOneWindowAnswersBothCallers() throws Exception {
+        CoalescingProductDao slowWindow = new CoalescingProductDao(jdbcProductDao, Duration.ofMillis(500), 100, 1);
+
+        // The first lookup waits in the unsent batch while the write detaches its id, so the second lookup for the
+        // same id joins that batch with a future of its own. Both must be answered.
+        Future<List<Product>> first = callers.submit(() -> slowWindow.findById(4));
+        while (slowWindow.stats().lookups() == 0) {
+            Thread.sleep(1);
+        }
+        slowWindow.update(new Product(4, "Renamed", 1, 1.0));
+        Future<List<Product>> second = callers.submit(() -> slowWindow.findById(4));
+
+        assertEquals(4, first.get(5, TimeUnit.SECONDS).get(0).getProductId());
+        assertEquals("Renamed", second.get(5, TimeUnit.SECONDS).get(0).getProductName());
+        assertEquals(0, slowWindow.stats().sharedLookups());
+        slowWindow.close();
+    }
+
+    // Starts count lookups at the same moment, lookup i asking for id(i).
+    private List<Future<List<Product>>> lookUpTogether(int count, IntUnaryOperator id) {
+        CountDownLatch start = new CountDownLatch(1);
+        List<Future<List<Product>>> results = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            int productId = id.applyAsInt(i);
+            results.add(callers.submit(() -> {
+                start.await();
+                return productDao.findById(productId);
+            }));
+        }
+        start.countDown();
+        return results;
+    }
+}
@@ -0,0 +1,193 @@
+package com.pluralsight.NorthwindTradersSpringBoot.dao;
+
+import javax.sql.DataSource;
+import java.io.PrintWriter;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.SQLFeatureNotSupportedException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.logging.Logger;
+
+// Wraps a real DataSource and makes getConnection() fail on demand with a chosen SQLState and vendor error code,
+// standing in for a database that is down, overloaded or rejecting statements.
+// It also remembers the last query timeout, fetch size and result set type any statement was given, and counts
+// the rows read through ResultSet.next().
+public final class FaultInjectingDataSource implements DataSource {
+
+    private final DataSource target;
+    private final AtomicInteger connectionAttempts = new AtomicInteger();
+    private final AtomicInteger lastQueryTimeout = new AtomicInteger(-1);
+    private final AtomicInteger lastFetchSize = new AtomicInteger(-1);
+    private final AtomicInteger lastResultSetType = new AtomicInteger(-1);
+    private final AtomicInteger lastResultSetConcurrency = new AtomicInteger(-1);
+    private final AtomicInteger rowsRead = new AtomicInteger();
+
+    // How many of the next getConnection() calls fail (-1 = every one until heal()), and with what.
+    private int failuresLeft;
+    private String sqlState;
+    private int errorCode;
+
+    public FaultInjectingDataSource(DataSource target) {
+        this.target = target;
+    }
+
+    // The next count calls to getConnection() throw an SQLException with this SQLState.
+    public synchronized void failNext(int count, String sqlState) {
+        failNext(count, sqlState, 0);
+    }
+
+    public synchronized void failNext(int count, String sqlState, int errorCode) {
+        this.failuresLeft = count;
+        this.sqlState = sqlState;
+        this.errorCode = errorCode;
+    }
+
+    // Every call to getConnection() fails until heal() is called.
+    public synchronized void failAlways(String sqlState) {
+        failNext(-1, sqlState);
+    }
+
+    public synchronized void heal() {
+        failuresLeft = 0;
+    }
+
+    public int connectionAttempts() {
+        return connectionAttempts.get();
+    }
+
+    // The timeout passed to the most recent setQueryTimeout() call, or -1 if there was none.
+    public int lastQueryTimeout() {
+        return lastQueryTimeout.get();
+    }
+
+    // The fetch size passed to the most recent setFetchSize() call, or -1 if there was none.
+    public int lastFetchSize() {
+        return lastFetchSize.get();
+    }
+
+    // The ResultSet type and concurrency of the most recent prepareStatement() call that gave them, or -1.
+    public int lastResultSetType() {
+        return lastResultSetType.get();
+    }
+
+    public int lastResultSetConcurrency() {
+        return lastResultSetConcurrency.get();
+    }
+
+    // How many times ResultSet.next() has returned a row.
+    public int rowsRead() {
+        return rowsRead.get();
+    }
+
+    @Override
+    public Connection getConnection() throws SQLException {
+        connectionAttempts.incrementAndGet();
+        synchronized (this) {
+            if (failuresLeft != 0) {
+                if (failuresLeft > 0) {
+                    failuresLeft--;
+                }
+                throw new SQLException("Injected failure", sqlState, errorCode);
+            }
+        }
+        return recordingTimeouts(target.getConnection());
+    }
+
+    @Override
+    public Connection getConnection(String username, String password) throws SQLException {
+        return getConnection();
+    }
+
+    // Wraps the connection so every PreparedStatement it creates reports its settings to us, and every ResultSet
+    // counts its rows.
+    private Connection recordingTimeouts(Connection connection) {
+        return (Connection) Proxy.newProxyInstance(getClass().getClassLoader(), new Class<?>[]{Connection.class},
+                (proxy, method, args) -> {
+                    Object result = invoke(connection, method, args);
+                    if (result instanceof PreparedStatement statement) {
+                        if (method.getName().equals("prepareStatement") && args.length >= 3) {
+                            lastResultSetType.set((Integer) args[1]);
+                            lastResultSetConcurrency.set((Integer) args[2]);
+                        }
+                        return recording(statement);
+                    }
+                    return result;
+                });
+    }
+
+    private PreparedStatement recording(PreparedStatement statement) {
+        return (PreparedStatement) Proxy.newProxyInstance(getClass().getClassLoader(),
+                new Class<?>[]{PreparedStatement.class}, (proxy, method, args) -> {
+                    switch (method.getName()) {
+                        case "setQueryTimeout" -> lastQueryTimeout.set((Integer) args[0]);
+                        case "setFetchSize" -> lastFetchSize.set((Integer) args[0]);
+                        default -> {
+                        }
+                    }
+                    Object result = invoke(statement, method, args);
+                    if (result instanceof ResultSet results && method.getName().equals("executeQuery")) {
+                        return counting(results);
+                    }
+                    return result;
+                });
+    }
+
+    private ResultSet counting(ResultSet results) {
+        return (ResultSet) Proxy.newProxyInstance(getClass().getClassLoader(), new Class<?>[]{ResultSet.class},
+                (proxy, method, args) -> {
+                    Object result = invoke(results, method, args);
+                    if (method.getName().equals("next") && Boolean.TRUE.equals(result)) {
+                        rowsRead.incrementAndGet();
+                    }
+                    return result;
+                });
+    }
+
+    private static Object invoke(Object target, Method method, Object[] args) throws Throwable {
+        try {
+            return method.invoke(target, args);
+        } catch (InvocationTargetException e) {
+            throw e.getCause();
+        }
+    }
+
+    @Override
+    public PrintWriter getLogWriter() throws SQLException {
+        return target.getLogWriter();
+    }
+
+    @Override
+    public void setLogWriter(PrintWriter out) throws SQLException {
+        target.setLogWriter(out);
+    }
+
+    @Override
+    public void setLoginTimeout(int seconds) throws SQLException {
+        target.setLoginTimeout(seconds);
+    }
+
+    @Override
+    public int getLoginTimeout() throws SQLException {
+        return target.getLoginTimeout();
+    }
+
+    @Override
+    public Logger getParentLogger() throws SQLFeatureNotSupportedException {
+        return target.getParentLogger();
+    }
+
+    @Override
+    public <T> T unwrap(Class<T> type) throws SQLException {
+        return target.unwrap(type);
+    }
+
+    @Override
+    public boolean isWrapperFor(Class<?> type) throws SQLException {
+        return target.isWrapperFor(type);
+    }
+}
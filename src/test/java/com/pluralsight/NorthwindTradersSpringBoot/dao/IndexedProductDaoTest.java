@@ -0,0 +1,70 @@
+package com.pluralsight.NorthwindTradersSpringBoot.dao;
+
+import com.pluralsight.NorthwindTradersSpringBoot.model.Product;
+import com.pluralsight.NorthwindTradersSpringBoot.snapshot.ProductSnapshotHolder;
+import org.apache.commons.dbcp2.BasicDataSource;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.sql.SQLException;
+import java.time.Duration;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class IndexedProductDaoTest {
+
+    private BasicDataSource dataSource;
+    private JdbcProductDao jdbcProductDao;
+    private IndexedProductDao productDao;
+
+    @BeforeEach
+    void setUp() {
+        dataSource = ProductTestDatabase.create();
+        ProductTestDatabase.insertProducts(dataSource, 2_000);
+        jdbcProductDao = new JdbcProductDao(dataSource);
+        productDao = new IndexedProductDao(jdbcProductDao, new ProductSnapshotHolder(jdbcProductDao), Duration.ZERO);
+        productDao.refresh();
+    }
+
+    @AfterEach
+    void tearDown() throws SQLException {
+        productDao.close();
+        dataSource.close();
+    }
+
+    @Test
+    void inMemoryQueriesMatchTheSqlQueries() {
+        assertTrue(productDao.isIndexCurrent());
+
+        for (int categoryId = 0; categoryId <= 9; categoryId++) {
+            assertSameProducts(jdbcProductDao.findByCategory(categoryId), productDao.findByCategory(categoryId));
+        }
+
+        assertSameProducts(jdbcProductDao.findByPriceRange(10.0, 25.5), productDao.findByPriceRange(10.0, 25.5));
+        assertSameProducts(jdbcProductDao.findByPriceRange(0, 1), productDao.findByPriceRange(0, 1));
+        assertSameProducts(jdbcProductDao.findByPriceRange(300, 200), productDao.findByPriceRange(300, 200));
+
+        assertSameProducts(jdbcProductDao.findByNamePrefix("product 19"), productDao.findByNamePrefix("product 19"));
+        assertSameProducts(jdbcProductDao.findByNamePrefix("PRODUCT 2"), productDao.findByNamePrefix("PRODUCT 2"));
+        assertSameProducts(jdbcProductDao.findByNamePrefix("x"), productDao.findByNamePrefix("x"));
+    }
+
+    @Test
+    void writesSendQueriesToTheDatabaseUntilTheNextRefresh() {
+        productDao.add(new Product(0, "Zucchini", 42, 3.0));
+
+        assertFalse(productDao.isIndexCurrent());
+        assertEquals(1, productDao.findByCategory(42).size());
+
+        productDao.refresh();
+
+        assertTrue(productDao.isIndexCurrent());
+        assertEquals("Zucchini", productDao.findByCategory(42).get(0).getProductName());
+    }
+
+    private static void assertSameProducts(List<Product> expected, List<Product> actual) {
+        assertEquals(expected.stream().map(Product::toString).toList(), actual.stream().map(Product::toString).toList());
+    }
+}
@@ -0,0 +1,251 @@
+package com.pluralsight.NorthwindTradersSpringBoot.dao;
+
+import com.pluralsight.NorthwindTradersSpringBoot.model.Product;
+import com.pluralsight.NorthwindTradersSpringBoot.model.ProductRecord;
+import org.apache.commons.dbcp2.BasicDataSource;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class JdbcProductDaoTest {
+
+    private BasicDataSource dataSource;
+    private JdbcProductDao productDao;
+
+    @BeforeEach
+    void setUp() {
+        dataSource = ProductTestDatabase.create();
+        productDao = new JdbcProductDao(dataSource, 100, 64);
+    }
+
+    @AfterEach
+    void tearDown() throws SQLException {
+        dataSource.close();
+    }
+
+    @Test
+    void streamAllReturnsEveryProductInIdOrder() {
+        ProductTestDatabase.insertProducts(dataSource, 1_000);
+
+        try (Stream<Product> products = productDao.streamAll()) {
+            int[] ids = products.mapToInt(Product::getProductId).toArray();
+
+            assertEquals(1_000, ids.length);
+            for (int i = 1; i < ids.length; i++) {
+                assertTrue(ids[i - 1] < ids[i]);
+            }
+        }
+    }
+
+    @Test
+    void streamAllReleasesItsConnectionWhenClosed() {
+        ProductTestDatabase.insertProducts(dataSource, 10);
+
+        try (Stream<Product> products = productDao.streamAll()) {
+            products.findFirst();
+            assertEquals(1, dataSource.getNumActive());
+        }
+
+        assertEquals(0, dataSource.getNumActive());
+    }
+
+    @Test
+    void streamAllUsesAForwardOnlyCursorAndReadsRowsOnlyAsTheyAreNeeded() {
+        ProductTestDatabase.insertProducts(dataSource, 5_000);
+        FaultInjectingDataSource recording = new FaultInjectingDataSource(dataSource);
+        JdbcProductDao streamingDao = new JdbcProductDao(recording, 250, 64);
+
+        try (Stream<Product> products = streamingDao.streamAll()) {
+            Iterator<Product> iterator = products.iterator();
+            for (int i = 0; i < 10; i++) {
+                iterator.next();
+            }
+
+            // The settings that make MySQL (with useCursorFetch=true) send rows in fetch-size chunks instead of the
+            // whole table at once.
+            assertEquals(250, recording.lastFetchSize());
+            assertEquals(ResultSet.TYPE_FORWARD_ONLY, recording.lastResultSetType());
+            assertEquals(ResultSet.CONCUR_READ_ONLY, recording.lastResultSetConcurrency());
+
+            // Nothing reads ahead of the caller: only the rows handed out so far have been read.
+            assertEquals(10, recording.rowsRead());
+        }
+    }
+
+    @Test
+    void findByIdsLooksEachIdUpOnceAcrossChunks() {
+        ProductTestDatabase.insertProducts(dataSource, 200);
+
+        // 150 distinct ids (three chunks of up to 64, the last one padded), out of order, with repeats and misses.
+        int[] ids = new int[160];
+        for (int i = 0; i < 150; i++) {
+            ids[i] = 150 - i;
+        }
+        for (int i = 150; i < 160; i++) {
+            ids[i] = i % 2 == 0 ? 7 : 1_000 + i;
+        }
+
+        List<Product> products = productDao.findByIds(ids);
+
+        assertEquals(150, products.size());
+        for (int i = 0; i < products.size(); i++) {
+            assertEquals(i + 1, products.get(i).getProductId());
+        }
+        assertEquals("Product 7", products.get(6).getProductName());
+        assertTrue(productDao.findByIds().isEmpty());
+        assertEquals(1, productDao.findByIds(42).size());
+    }
+
+    @Test
+    void forEachVisitsEveryRowInIdOrderThroughOneReusedRow() {
+        ProductTestDatabase.insertProducts(dataSource, 250);
+
+        List<Integer> ids = new ArrayList<>();
+        List<ProductRow> rows = new ArrayList<>();
+        double[] total = new double[1];
+        productDao.forEach(row -> {
+            ids.add(row.productId());
+            total[0] += row.unitPrice();
+            if (rows.isEmpty() || rows.get(rows.size() - 1) != row) {
+                rows.add(row);
+            }
+        });
+
+        assertEquals(250, ids.size());
+        assertEquals(1, ids.get(0));
+        assertEquals(250, ids.get(249));
+        assertEquals(1, rows.size());
+        assertEquals(productDao.getAll().stream().mapToDouble(Product::getUnitPrice).sum(), total[0], 1e-9);
+    }
+
+    @Test
+    void forEachCanCollectImmutableRecords() {
+        ProductTestDatabase.insertProducts(dataSource, 3);
+
+        List<ProductRecord> records = new ArrayList<>();
+        productDao.forEach(row -> records.add(row.toRecord()));
+
+        assertEquals(new ProductRecord(2, "Product 2", 3, 1.5, 1), records.get(1));
+        assertEquals(productDao.findById(2).get(0).getProductName(), records.get(1).toProduct().getProductName());
+    }
+
+    @Test
+    void getPageWalksTheTableByKeyset() {
+        ProductTestDatabase.insertProducts(dataSource, 250);
+
+        int afterProductId = 0;
+        int total = 0;
+        List<Product> page;
+        while (!(page = productDao.getPage(afterProductId, 100)).isEmpty()) {
+            assertTrue(page.size() <= 100);
+            assertTrue(page.get(0).getProductId() > afterProductId);
+            afterProductId = page.get(page.size() - 1).getProductId();
+            total += page.size();
+        }
+
+        assertEquals(250, total);
+    }
+
+    @Test
+    void addSetsTheGeneratedProductId() {
+        Product product = new Product(0, "Chai", 1, 18.0);
+
+        productDao.add(product);
+
+        assertTrue(product.getProductId() > 0);
+        assertEquals("Chai", productDao.findById(product.getProductId()).get(0).getProductName());
+    }
+
+    @Test
+    void addAllReturnsGeneratedIdsAcrossSeveralBatches() {
+        List<Product> products = new ArrayList<>();
+        for (int i = 0; i < 200; i++) {
+            products.add(new Product(0, "Bulk " + i, 2, i));
+        }
+
+        int[] productIds = productDao.addAll(products);
+
+        assertEquals(200, productIds.length);
+        for (int i = 0; i < productIds.length; i++) {
+            assertEquals(productIds[i], products.get(i).getProductId());
+            assertEquals("Bulk " + i, productDao.findById(productIds[i]).get(0).getProductName());
+        }
+    }
+
+    @Test
+    void updateAllAndDeleteByIdsChangeEveryRow() {
+        ProductTestDatabase.insertProducts(dataSource, 150);
+        List<Product> products = productDao.getAll();
+        products.forEach(product -> product.setUnitPrice(99.5));
+
+        productDao.updateAll(products);
+        assertTrue(productDao.getAll().stream().allMatch(product -> product.getUnitPrice() == 99.5));
+
+        productDao.deleteByIds(products.stream().limit(100).mapToInt(Product::getProductId).toArray());
+        assertEquals(50, productDao.getAll().size());
+    }
+
+    @Test
+    void findsProductsByCategoryPriceAndNamePrefix() {
+        productDao.add(new Product(0, "Chai", 1, 18.0));
+        productDao.add(new Product(0, "Chang", 1, 19.0));
+        productDao.add(new Product(0, "Aniseed Syrup", 2, 10.0));
+        productDao.add(new Product(0, "chef Anton's Gumbo", 2, 21.35));
+        productDao.add(new Product(0, "100%_Juice", 3, 5.0));
+
+        assertEquals(List.of("Chai", "Chang"), names(productDao.findByCategory(1)));
+        assertEquals(List.of("Aniseed Syrup", "Chai", "Chang"), names(productDao.findByPriceRange(10.0, 19.0)));
+        assertEquals(List.of("Chai", "Chang", "chef Anton's Gumbo"), names(productDao.findByNamePrefix("CH")));
+
+        // LIKE wildcards in the prefix match literally.
+        assertEquals(List.of("100%_Juice"), names(productDao.findByNamePrefix("100%_")));
+        assertTrue(productDao.findByNamePrefix("1_").isEmpty());
+    }
+
+    @Test
+    void databaseErrorsAreThrownAndClassified() {
+        FaultInjectingDataSource faulty = new FaultInjectingDataSource(dataSource);
+        JdbcProductDao faultyDao = new JdbcProductDao(faulty, 100, 64);
+
+        // A lost connection may work next time...
+        faulty.failNext(1, "08S01");
+        ProductDataAccessException lost = assertThrows(ProductDataAccessException.class, () -> faultyDao.findById(1));
+        assertTrue(lost.isTransient());
+        assertEquals("08S01", lost.getSqlState());
+
+        // ...a missing table won't.
+        faulty.failNext(1, "42S02");
+        assertFalse(assertThrows(ProductDataAccessException.class, faultyDao::getAll).isTransient());
+
+        // An empty result is still just an empty list.
+        assertTrue(faultyDao.findById(1).isEmpty());
+    }
+
+    @Test
+    void eachKindOfStatementGetsItsOwnQueryTimeout() {
+        FaultInjectingDataSource recording = new FaultInjectingDataSource(dataSource);
+        JdbcProductDao timedDao = new JdbcProductDao(recording, 100, 64, false, new QueryTimeouts(2, 30, 5, 60));
+
+        timedDao.add(new Product(0, "Chai", 1, 18.0));
+        assertEquals(5, recording.lastQueryTimeout());
+        timedDao.findById(1);
+        assertEquals(2, recording.lastQueryTimeout());
+        timedDao.findByCategory(1);
+        assertEquals(30, recording.lastQueryTimeout());
+        timedDao.addAll(List.of(new Product(0, "Chang", 1, 19.0)));
+        assertEquals(60, recording.lastQueryTimeout());
+    }
+
+    private static List<String> names(List<Product> products) {
+        return products.stream().map(Product::getProductName).toList();
+    }
+}
@@ -0,0 +1,92 @@
+package com.pluralsight.NorthwindTradersSpringBoot.dao;
+
+import com.pluralsight.NorthwindTradersSpringBoot.model.Product;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import io.micrometer.prometheusmetrics.PrometheusConfig;
+import io.micrometer.prometheusmetrics.PrometheusMeterRegistry;
+import org.apache.commons.dbcp2.BasicDataSource;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.sql.SQLException;
+import java.time.Duration;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class MeteredProductDaoTest {
+
+    private BasicDataSource dataSource;
+    private SimpleMeterRegistry registry;
+    private MeteredProductDao productDao;
+
+    @BeforeEach
+    void setUp() {
+        dataSource = ProductTestDatabase.create();
+        ProductTestDatabase.insertProducts(dataSource, 20);
+        registry = new SimpleMeterRegistry();
+        productDao = new MeteredProductDao(new JdbcProductDao(dataSource), registry, Duration.ofSeconds(1));
+    }
+
+    @AfterEach
+    void tearDown() throws SQLException {
+        dataSource.close();
+    }
+
+    @Test
+    void everyCallIsTimedPerOperation() {
+        productDao.findById(1);
+        productDao.findById(2);
+        productDao.getPage(0, 5);
+
+        assertEquals(2, timer("findById").count());
+        assertEquals(1, timer("getPage").count());
+        assertEquals(0, timer("getAll").count());
+    }
+
+    @Test
+    void rowCountsAreRecorded() {
+        productDao.getPage(0, 5);
+        productDao.findByCategory(1);
+
+        assertEquals(5, registry.get("product.dao.rows").tag("operation", "getPage").summary().totalAmount());
+        assertTrue(registry.get("product.dao.rows").tag("operation", "findByCategory").summary().totalAmount() > 0);
+    }
+
+    @Test
+    void exceptionsAreCountedAndRethrown() {
+        MeteredProductDao failing = new MeteredProductDao(new ForwardingProductDao(productDao) {
+            @Override
+            public List<Product> findById(int productId) {
+                throw new IllegalStateException("database is down");
+            }
+        }, registry, Duration.ofSeconds(1));
+
+        assertThrows(IllegalStateException.class, () -> failing.findById(1));
+
+        assertEquals(1, registry.get("product.dao.errors").tag("operation", "findById").counter().count());
+        assertEquals(1, timer("findById").count());
+    }
+
+    @Test
+    void changeWatermarkCallsAreTimedWithHistogramBuckets() {
+        PrometheusMeterRegistry prometheus = new PrometheusMeterRegistry(PrometheusConfig.DEFAULT);
+        MeteredProductDao withChangeLog = new MeteredProductDao(new JdbcProductDao(dataSource, 100, 50, true), prometheus,
+                Duration.ofSeconds(1));
+        ProductTestDatabase.createChangeLog(dataSource);
+
+        withChangeLog.getChangeWatermark();
+
+        assertEquals(1, prometheus.get("product.dao.calls").tag("operation", "getChangeWatermark").timer().count());
+        // Buckets, not precomputed percentiles, so they can be summed across instances.
+        String scrape = prometheus.scrape();
+        assertTrue(scrape.contains("product_dao_calls_seconds_bucket{"), scrape);
+        assertFalse(scrape.contains("quantile="), scrape);
+    }
+
+    private Timer timer(String operation) {
+        return registry.get("product.dao.calls").tag("operation", operation).timer();
+    }
+}
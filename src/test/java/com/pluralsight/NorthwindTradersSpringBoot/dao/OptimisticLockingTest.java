@@ -0,0 +1,159 @@
+package com.pluralsight.NorthwindTradersSpringBoot.dao;
+
+import com.pluralsight.NorthwindTradersSpringBoot.model.Product;
+import org.apache.commons.dbcp2.BasicDataSource;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class OptimisticLockingTest {
+
+    private BasicDataSource dataSource;
+    private JdbcProductDao productDao;
+
+    @BeforeEach
+    void setUp() {
+        dataSource = ProductTestDatabase.create();
+        ProductTestDatabase.insertProducts(dataSource, 10);
+        dataSource.setMaxTotal(20);
+        productDao = new JdbcProductDao(dataSource, 100, 4);
+    }
+
+    @AfterEach
+    void tearDown() throws SQLException {
+        dataSource.close();
+    }
+
+    @Test
+    void updateBumpsTheVersion() {
+        Product product = productDao.findById(3).get(0);
+        assertEquals(1, product.getVersion());
+
+        product.setUnitPrice(9.0);
+        productDao.update(product);
+
+        assertEquals(2, product.getVersion());
+        assertEquals(2, productDao.findById(3).get(0).getVersion());
+    }
+
+    @Test
+    void updateFromAStaleReadIsRefused() {
+        Product first = productDao.findById(3).get(0);
+        Product second = productDao.findById(3).get(0);
+
+        first.setProductName("First");
+        productDao.update(first);
+
+        second.setProductName("Second");
+        OptimisticLockException conflict = assertThrows(OptimisticLockException.class, () -> productDao.update(second));
+        assertEquals(3, conflict.getProductId());
+        assertEquals(1, conflict.getExpectedVersion());
+        assertEquals(2, conflict.getCurrentVersion());
+
+        assertEquals("First", productDao.findById(3).get(0).getProductName());
+        assertEquals(1, second.getVersion());
+    }
+
+    @Test
+    void productWithoutAVersionOverwrites() {
+        productDao.update(new Product(3, "Overwritten", 1, 1.0));
+
+        Product product = productDao.findById(3).get(0);
+        assertEquals("Overwritten", product.getProductName());
+        assertEquals(2, product.getVersion());
+    }
+
+    @Test
+    void updatingAMissingProductIsReportedAndKeepsTheVersion() {
+        Product ghost = new Product(99, "Ghost", 1, 1.0, 5);
+
+        ProductNotFoundException notFound = assertThrows(ProductNotFoundException.class, () -> productDao.update(ghost));
+
+        assertEquals(99, notFound.getProductId());
+        assertEquals(5, ghost.getVersion());
+        assertThrows(ProductNotFoundException.class, () -> productDao.update(new Product(99, "Ghost", 1, 1.0)));
+    }
+
+    @Test
+    void updateAllRollsBackTheChunkWithTheConflict() {
+        List<Product> products = productDao.getAll();
+
+        // Someone else updates product 6 (in the second chunk of four) first.
+        productDao.update(new Product(6, "Elsewhere", 1, 1.0));
+
+        products.forEach(product -> product.setProductName("Bulk " + product.getProductId()));
+        OptimisticLockException conflict = assertThrows(OptimisticLockException.class, () -> productDao.updateAll(products));
+        assertEquals(6, conflict.getProductId());
+
+        // The first chunk (1-4) was committed, the second (5-8) rolled back and the third never ran.
+        assertEquals("Bulk 4", productDao.findById(4).get(0).getProductName());
+        assertEquals("Product 5", productDao.findById(5).get(0).getProductName());
+        assertEquals("Elsewhere", productDao.findById(6).get(0).getProductName());
+        assertEquals("Product 9", productDao.findById(9).get(0).getProductName());
+
+        // Only the products in the committed chunk have their new version.
+        assertEquals(List.of(2, 2, 2, 2, 1, 1, 1, 1, 1, 1),
+                products.stream().map(Product::getVersion).toList());
+        assertEquals(2, productDao.findById(4).get(0).getVersion());
+    }
+
+    @Test
+    void concurrentRetryingUpdatesLoseNothing() throws Exception {
+        int threads = 8;
+        int updatesPerThread = 50;
+        double startPrice = productDao.findById(1).get(0).getUnitPrice();
+        RetryingProductUpdater updater = new RetryingProductUpdater(productDao, 1_000);
+
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        CountDownLatch start = new CountDownLatch(1);
+        List<Future<?>> results = new ArrayList<>();
+        for (int t = 0; t < threads; t++) {
+            results.add(executor.submit(() -> {
+                start.await();
+                for (int i = 0; i < updatesPerThread; i++) {
+                    updater.update(1, product -> {
+                        product.setUnitPrice(product.getUnitPrice() + 1);
+                        return product;
+                    });
+                }
+                return null;
+            }));
+        }
+        start.countDown();
+        for (Future<?> result : results) {
+            result.get(30, TimeUnit.SECONDS);
+        }
+        executor.shutdown();
+
+        // Every one of the 400 increments is there: none was overwritten by a racing writer.
+        Product product = productDao.findById(1).get(0);
+        assertEquals(startPrice + threads * updatesPerThread, product.getUnitPrice());
+        assertEquals(1 + threads * updatesPerThread, product.getVersion());
+    }
+
+    @Test
+    void updaterGivesUpAfterMaxAttempts() {
+        RetryingProductUpdater updater = new RetryingProductUpdater(productDao, 3);
+        int[] attempts = new int[1];
+
+        // Every attempt races with another writer, so every attempt conflicts.
+        assertThrows(OptimisticLockException.class, () -> updater.update(2, product -> {
+            attempts[0]++;
+            productDao.update(new Product(2, "Racing", 1, 1.0));
+            return product;
+        }));
+        assertEquals(3, attempts[0]);
+        assertNull(updater.update(99, product -> product));
+    }
+}
@@ -0,0 +1,182 @@
+package com.pluralsight.NorthwindTradersSpringBoot.dao;
+
+import com.pluralsight.NorthwindTradersSpringBoot.model.Product;
+import com.pluralsight.NorthwindTradersSpringBoot.model.ProductChangeSet;
+import com.pluralsight.NorthwindTradersSpringBoot.snapshot.ProductSnapshot;
+import com.pluralsight.NorthwindTradersSpringBoot.snapshot.ProductSnapshotHolder;
+import org.apache.commons.dbcp2.BasicDataSource;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.Duration;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ProductChangeFeedTest {
+
+    private BasicDataSource dataSource;
+    private JdbcProductDao productDao;
+
+    @BeforeEach
+    void setUp() {
+        dataSource = ProductTestDatabase.create();
+        ProductTestDatabase.createChangeLog(dataSource);
+        ProductTestDatabase.insertProducts(dataSource, 20);
+        productDao = new JdbcProductDao(dataSource, 100, 64, true);
+    }
+
+    @AfterEach
+    void tearDown() throws SQLException {
+        dataSource.close();
+    }
+
+    @Test
+    void returnsOnlyWhatChangedSinceTheWatermark() {
+        long watermark = productDao.getChangeWatermark();
+
+        Product added = new Product(0, "New", 2, 3.0);
+        productDao.add(added);
+        productDao.update(new Product(5, "Renamed", 1, 9.0));
+        productDao.deleteByID(7);
+
+        ProductChangeSet changes = productDao.getChangesSince(watermark);
+
+        assertEquals(List.of(5, added.getProductId()),
+                changes.changed().stream().map(Product::getProductId).toList());
+        assertEquals("Renamed", changes.changed().get(0).getProductName());
+        assertArrayEquals(new int[]{7}, changes.deletedIds());
+        assertTrue(changes.watermark() > watermark);
+
+        assertTrue(productDao.getChangesSince(changes.watermark()).isEmpty());
+    }
+
+    @Test
+    void productChangedSeveralTimesIsReturnedOnceWithItsLatestRow() {
+        long watermark = productDao.getChangeWatermark();
+
+        productDao.update(new Product(3, "First", 1, 1.0));
+        productDao.update(new Product(3, "Second", 1, 1.0));
+
+        ProductChangeSet changes = productDao.getChangesSince(watermark);
+
+        assertEquals(1, changes.changed().size());
+        assertEquals("Second", changes.changed().get(0).getProductName());
+    }
+
+    @Test
+    void bulkWritesAreLogged() {
+        long watermark = productDao.getChangeWatermark();
+
+        productDao.addAll(List.of(new Product(0, "A", 1, 1.0), new Product(0, "B", 1, 1.0)));
+        productDao.updateAll(List.of(new Product(1, "Changed", 1, 1.0)));
+        productDao.deleteByIds(new int[]{2, 4});
+
+        ProductChangeSet changes = productDao.getChangesSince(watermark);
+
+        assertEquals(3, changes.changed().size());
+        assertArrayEquals(new int[]{2, 4}, changes.deletedIds());
+    }
+
+    @Test
+    void aWriteThatCommitsAfterALaterOneIsNotSkipped() throws SQLException {
+        long watermark = productDao.getChangeWatermark();
+
+        // Writer A takes a ChangeID but doesn't commit yet; writer B takes the next one and commits.
+        try (Connection slowWriter = dataSource.getConnection()) {
+            slowWriter.setAutoCommit(false);
+            writeChange(slowWriter, 3, "Slow");
+            productDao.update(new Product(4, "Fast", 1, 4.0));
+
+            ProductChangeSet first = productDao.getChangesSince(watermark);
+            assertEquals(List.of(4), first.changed().stream().map(Product::getProductId).toList());
+            // The watermark stays below A's ChangeID, and so does a fresh one.
+            assertEquals(watermark, first.watermark());
+            assertEquals(watermark, productDao.getChangeWatermark());
+
+            slowWriter.commit();
+
+            // A's change is found next time; B's is returned again, which is harmless.
+            ProductChangeSet second = productDao.getChangesSince(first.watermark());
+            assertEquals(List.of(3, 4), second.changed().stream().map(Product::getProductId).toList());
+            assertEquals("Slow", second.changed().get(0).getProductName());
+            assertTrue(productDao.getChangesSince(second.watermark()).isEmpty());
+        }
+    }
+
+    @Test
+    void aRolledBackWriteIsSkippedOnceItIsOlderThanTheGracePeriod() throws Exception {
+        JdbcProductDao noGrace = new JdbcProductDao(dataSource, 100, 64, true, 0, QueryTimeouts.NONE);
+        long watermark = noGrace.getChangeWatermark();
+
+        try (Connection abandoned = dataSource.getConnection()) {
+            abandoned.setAutoCommit(false);
+            writeChange(abandoned, 3, "Never");
+            abandoned.rollback();
+        }
+        noGrace.update(new Product(4, "Fast", 1, 4.0));
+        Thread.sleep(50);
+
+        ProductChangeSet changes = noGrace.getChangesSince(watermark);
+        assertEquals(List.of(4), changes.changed().stream().map(Product::getProductId).toList());
+        assertTrue(noGrace.getChangesSince(changes.watermark()).isEmpty());
+        assertEquals(changes.watermark(), noGrace.getChangeWatermark());
+    }
+
+    @Test
+    void changeFeedNeedsTheChangeLogSwitchedOn() {
+        JdbcProductDao withoutLog = new JdbcProductDao(dataSource);
+
+        assertThrows(UnsupportedOperationException.class, withoutLog::getChangeWatermark);
+        assertThrows(UnsupportedOperationException.class, () -> withoutLog.getChangesSince(0));
+    }
+
+    @Test
+    void snapshotCatchesUpFromTheChangeLog() {
+        ProductSnapshotHolder holder = new ProductSnapshotHolder(productDao, true);
+        holder.refresh();
+
+        productDao.update(new Product(5, "Renamed", 1, 9.0));
+        productDao.deleteByID(7);
+        Product added = new Product(0, "New", 2, 3.0);
+        productDao.add(added);
+
+        ProductSnapshot snapshot = holder.refreshChanges();
+
+        assertEquals(20, snapshot.size());
+        assertEquals("Renamed", snapshot.findById(5).getProductName());
+        assertNull(snapshot.findById(7));
+        assertEquals("New", snapshot.findById(added.getProductId()).getProductName());
+        assertEquals("Product 6", snapshot.findById(6).getProductName());
+
+        // Nothing changed since, so the same snapshot is kept.
+        assertSame(snapshot, holder.refreshChanges());
+    }
+
+    @Test
+    void cacheDropsProductsChangedBySomeoneElse() {
+        CachingProductDao cachingProductDao = new CachingProductDao(productDao, 100, Duration.ofMinutes(5));
+        long watermark = productDao.getChangeWatermark();
+        cachingProductDao.findById(5);
+
+        // Written straight to the JDBC DAO, so the cache doesn't see it.
+        productDao.update(new Product(5, "Renamed", 1, 9.0));
+        assertEquals("Product 5", cachingProductDao.findById(5).get(0).getProductName());
+
+        cachingProductDao.applyChanges(productDao.getChangesSince(watermark));
+
+        assertEquals("Renamed", cachingProductDao.findById(5).get(0).getProductName());
+    }
+
+    // Updates a product and logs the change on the given connection, as JdbcProductDao does, without committing.
+    private static void writeChange(Connection connection, int productId, String productName) throws SQLException {
+        try (Statement statement = connection.createStatement()) {
+            statement.executeUpdate("UPDATE Products SET ProductName = '" + productName + "' WHERE ProductID = " + productId);
+            statement.executeUpdate("INSERT INTO ProductChanges(ProductID, Operation) VALUES(" + productId + ", 'U')");
+        }
+    }
+}
@@ -0,0 +1,111 @@
+package com.pluralsight.NorthwindTradersSpringBoot.dao;
+
+import org.apache.commons.dbcp2.BasicDataSource;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.UUID;
+
+// An in-memory H2 database (running in MySQL mode) that stands in for the Northwind MySQL database in tests.
+// IGNORECASE makes text comparisons case-insensitive, like MySQL's default collation.
+public final class ProductTestDatabase {
+
+    private ProductTestDatabase() {
+    }
+
+    // Creates a fresh, empty database with a Products table and returns a pooled DataSource for it.
+    public static BasicDataSource create() {
+        BasicDataSource dataSource = new BasicDataSource();
+        dataSource.setUrl("jdbc:h2:mem:" + UUID.randomUUID() + ";MODE=MySQL;DATABASE_TO_LOWER=TRUE;IGNORECASE=TRUE;DB_CLOSE_DELAY=-1");
+        dataSource.setUsername("sa");
+        dataSource.setPassword("");
+
+        createSchema(dataSource);
+        return dataSource;
+    }
+
+    // Creates the Products table (with the Version column from db/product-versions.sql) in an empty database.
+    public static void createSchema(DataSource dataSource) {
+        execute(dataSource, """
+                CREATE TABLE Products (
+                    ProductID INT AUTO_INCREMENT PRIMARY KEY,
+                    ProductName VARCHAR(40) NOT NULL,
+                    CategoryID INT,
+                    UnitPrice DECIMAL(10, 4),
+                    Version INT NOT NULL DEFAULT 1
+                )
+                """);
+    }
+
+    // Creates the ProductChanges change-log table (same shape as db/product-changes.sql).
+    public static void createChangeLog(DataSource dataSource) {
+        execute(dataSource, """
+                CREATE TABLE ProductChanges (
+                    ChangeID BIGINT AUTO_INCREMENT PRIMARY KEY,
+                    ProductID INT NOT NULL,
+                    Operation CHAR(1) NOT NULL,
+                    ChangedAt TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP
+                )
+                """);
+        execute(dataSource, "CREATE INDEX IX_ProductChanges_ChangedAt ON ProductChanges(ChangedAt)");
+    }
+
+    // Creates the ProductLoads table used by addAllOnce (same shape as db/product-loads.sql).
+    public static void createProductLoads(DataSource dataSource) {
+        execute(dataSource, "CREATE TABLE ProductLoads (LoadID VARCHAR(64) PRIMARY KEY, LoadPosition BIGINT NOT NULL)");
+    }
+
+    // Creates the ProductIdBlocks table used by HiLoIdGenerator (same shape as db/product-shards.sql).
+    public static void createIdBlocks(DataSource dataSource) {
+        execute(dataSource, "CREATE TABLE ProductIdBlocks (NextBlock BIGINT NOT NULL)");
+        execute(dataSource, "INSERT INTO ProductIdBlocks(NextBlock) VALUES(0)");
+    }
+
+    // Creates a Categories table holding categories 1 to categoryCount.
+    public static void createCategories(DataSource dataSource, int categoryCount) {
+        execute(dataSource, """
+                CREATE TABLE Categories (
+                    CategoryID INT AUTO_INCREMENT PRIMARY KEY,
+                    CategoryName VARCHAR(15) NOT NULL
+                )
+                """);
+        for (int i = 1; i <= categoryCount; i++) {
+            execute(dataSource, "INSERT INTO Categories(CategoryName) VALUES('Category " + i + "')");
+        }
+    }
+
+    // Inserts rowCount generated products (named "Product 1", "Product 2", ...) using one batch.
+    public static void insertProducts(DataSource dataSource, int rowCount) {
+        String sql = "INSERT INTO Products(ProductName, CategoryID, UnitPrice) VALUES(?, ?, ?)";
+
+        try (
+                Connection connection = dataSource.getConnection();
+                PreparedStatement preparedStatement = connection.prepareStatement(sql)
+        ) {
+            for (int i = 1; i <= rowCount; i++) {
+                preparedStatement.setString(1, "Product " + i);
+                preparedStatement.setInt(2, 1 + i % 8);
+                preparedStatement.setDouble(3, 1 + (i % 1000) / 4.0);
+                preparedStatement.addBatch();
+            }
+            preparedStatement.executeBatch();
+        } catch (SQLException e) {
+            throw new IllegalStateException("Unable to insert test products", e);
+        }
+    }
+
+    // Runs a single SQL statement, failing the test if it doesn't work.
+    public static void execute(DataSource dataSource, String sql) {
+        try (
+                Connection connection = dataSource.getConnection();
+                Statement statement = connection.createStatement()
+        ) {
+            statement.execute(sql);
+        } catch (SQLException e) {
+            throw new IllegalStateException("Unable to run " + sql, e);
+        }
+    }
+}
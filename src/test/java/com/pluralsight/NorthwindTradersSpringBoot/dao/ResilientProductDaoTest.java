@@ -0,0 +1,121 @@
+package com.pluralsight.NorthwindTradersSpringBoot.dao;
+
+import com.pluralsight.NorthwindTradersSpringBoot.model.Product;
+import com.pluralsight.NorthwindTradersSpringBoot.resilience.CircuitBreaker;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.apache.commons.dbcp2.BasicDataSource;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.sql.SQLException;
+import java.sql.SQLTransientConnectionException;
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ResilientProductDaoTest {
+
+    private BasicDataSource dataSource;
+    private FaultInjectingDataSource faulty;
+    private AtomicLong clock;
+    private SimpleMeterRegistry registry;
+    private ResilientProductDao productDao;
+
+    @BeforeEach
+    void setUp() {
+        dataSource = ProductTestDatabase.create();
+        ProductTestDatabase.insertProducts(dataSource, 10);
+        faulty = new FaultInjectingDataSource(dataSource);
+
+        // Opens when half of the last 10 calls (at least 4) failed, stays open for 1s, then needs 2 good probes.
+        clock = new AtomicLong();
+        CircuitBreaker circuitBreaker = new CircuitBreaker(10, 4, 50, Duration.ofSeconds(1), 2, clock::get);
+        registry = new SimpleMeterRegistry();
+        productDao = new ResilientProductDao(new JdbcProductDao(faulty), circuitBreaker, 3,
+                Duration.ofNanos(1000), Duration.ofNanos(10_000), registry);
+    }
+
+    @AfterEach
+    void tearDown() throws SQLException {
+        dataSource.close();
+    }
+
+    @Test
+    void transientReadFailuresAreRetried() {
+        faulty.failNext(2, "08S01");
+
+        assertEquals(1, productDao.findById(1).size());
+        assertEquals(3, faulty.connectionAttempts());
+        assertEquals(2, registry.get("product.dao.retries").counter().count());
+    }
+
+    @Test
+    void permanentErrorsAndWritesAreNotRetried() {
+        faulty.failNext(1, "42000");
+        assertFalse(assertThrows(ProductDataAccessException.class, productDao::getAll).isTransient());
+        assertEquals(1, faulty.connectionAttempts());
+
+        faulty.failNext(1, "08S01");
+        assertThrows(ProductDataAccessException.class, () -> productDao.add(new Product(0, "Chai", 1, 18.0)));
+        assertEquals(2, faulty.connectionAttempts());
+        assertEquals(10, productDao.getAll().size());
+    }
+
+    @Test
+    void breakerOpensFailsFastAndClosesAfterGoodProbes() {
+        faulty.failAlways("08001");
+        assertThrows(ProductDataAccessException.class, () -> productDao.findById(1));
+        assertThrows(ProductDataAccessException.class, () -> productDao.findById(2));
+
+        // Four failed attempts opened the breaker part-way through the second call; now nothing reaches the database.
+        assertEquals(CircuitBreaker.State.OPEN, productDao.circuitState());
+        int attempts = faulty.connectionAttempts();
+        assertThrows(CircuitOpenException.class, () -> productDao.findById(3));
+        assertThrows(CircuitOpenException.class, () -> productDao.deleteByID(3));
+        assertEquals(attempts, faulty.connectionAttempts());
+        assertEquals(1, registry.get("product.dao.circuit.state").gauge().value());
+        assertTrue(registry.get("product.dao.circuit.rejected").counter().count() >= 2);
+
+        // After the open period a probe goes through; it fails, so the breaker opens again.
+        clock.addAndGet(Duration.ofSeconds(1).toNanos());
+        assertThrows(ProductDataAccessException.class, () -> productDao.findById(1));
+        assertEquals(CircuitBreaker.State.OPEN, productDao.circuitState());
+
+        // Once the database is back, two good probes close it.
+        faulty.heal();
+        clock.addAndGet(Duration.ofSeconds(1).toNanos());
+        assertEquals(1, productDao.findById(1).size());
+        assertEquals(CircuitBreaker.State.HALF_OPEN, productDao.circuitState());
+        assertEquals(1, productDao.findById(2).size());
+        assertEquals(CircuitBreaker.State.CLOSED, productDao.circuitState());
+        assertEquals(0, registry.get("product.dao.circuit.state").gauge().value());
+        assertEquals(1, registry.get("product.dao.circuit.transitions").tag("state", "closed").counter().count());
+    }
+
+    @Test
+    void permanentErrorsDoNotOpenTheBreaker() {
+        for (int i = 0; i < 10; i++) {
+            faulty.failNext(1, "23000");
+            assertThrows(ProductDataAccessException.class, () -> productDao.findById(1));
+        }
+        assertEquals(CircuitBreaker.State.CLOSED, productDao.circuitState());
+    }
+
+    @Test
+    void sqlStatesAreClassified() {
+        assertTrue(SqlErrorClassifier.isTransient(new SQLException("link failure", "08S01")));
+        assertTrue(SqlErrorClassifier.isTransient(new SQLException("deadlock", "40001", 1213)));
+        assertTrue(SqlErrorClassifier.isTransient(new SQLException("lock wait timeout", "HY000", 1205)));
+        assertTrue(SqlErrorClassifier.isTransient(new SQLException("statement cancelled", "57014")));
+        assertTrue(SqlErrorClassifier.isTransient(new SQLTransientConnectionException("pool exhausted")));
+        assertFalse(SqlErrorClassifier.isTransient(new SQLException("duplicate key", "23000", 1062)));
+        assertFalse(SqlErrorClassifier.isTransient(new SQLException("syntax error", "42000", 1064)));
+
+        // A transient error chained behind a generic one still counts.
+        SQLException batchError = new SQLException("batch failed", "HY000");
+        batchError.setNextException(new SQLException("deadlock", "40001"));
+        assertTrue(SqlErrorClassifier.isTransient(batchError));
+    }
+}
@@ -0,0 +1,93 @@
+package com.pluralsight.NorthwindTradersSpringBoot.dao;
+
+import com.pluralsight.NorthwindTradersSpringBoot.model.Product;
+import com.pluralsight.NorthwindTradersSpringBoot.search.ProductNameSearch;
+import com.pluralsight.NorthwindTradersSpringBoot.search.ProductSearchHit;
+import org.apache.commons.dbcp2.BasicDataSource;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.sql.SQLException;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class SearchIndexingProductDaoTest {
+
+    private BasicDataSource dataSource;
+    private JdbcProductDao jdbcProductDao;
+
+    @BeforeEach
+    void setUp() {
+        dataSource = ProductTestDatabase.create();
+        ProductTestDatabase.insertProducts(dataSource, 20);
+        jdbcProductDao = new JdbcProductDao(dataSource);
+    }
+
+    @AfterEach
+    void tearDown() throws SQLException {
+        dataSource.close();
+    }
+
+    private static List<Integer> ids(List<ProductSearchHit> hits) {
+        return hits.stream().map(ProductSearchHit::productId).toList();
+    }
+
+    @Test
+    void searchSeesWritesStraightAway() {
+        ProductNameSearch nameSearch = new ProductNameSearch(jdbcProductDao);
+        SearchIndexingProductDao productDao = new SearchIndexingProductDao(jdbcProductDao, nameSearch);
+
+        // The first search loads the index from the table.
+        assertEquals(List.of(7), ids(nameSearch.search("product 7", 1)));
+        assertTrue(nameSearch.isLoaded());
+
+        Product product = new Product(0, "Sir Rodney's Marmalade", 3, 81.0);
+        productDao.add(product);
+        assertEquals(List.of(product.getProductId()), ids(nameSearch.search("marmelade", 1)));
+
+        product.setProductName("Sir Rodney's Scones");
+        productDao.update(product);
+        assertEquals(List.of(), nameSearch.search("marmalade", 5));
+        assertEquals(List.of(product.getProductId()), ids(nameSearch.search("scones", 1)));
+
+        productDao.deleteByIds(new int[]{7, product.getProductId()});
+        assertEquals(List.of(), nameSearch.search("scones", 5));
+        assertFalse(ids(nameSearch.search("product 7", 20)).contains(7));
+    }
+
+    @Test
+    void writesDuringALoadAreNotLost() {
+        // A table scan that is overtaken by a delete of a row it has already read.
+        ProductNameSearch[] nameSearch = new ProductNameSearch[1];
+        IProductDao slowScan = new ForwardingProductDao(jdbcProductDao) {
+            @Override
+            public void forEach(ProductVisitor visitor) {
+                delegate.forEach(visitor);
+                jdbcProductDao.deleteByID(3);
+                nameSearch[0].productDeleted(3);
+            }
+        };
+        nameSearch[0] = new ProductNameSearch(slowScan);
+
+        nameSearch[0].reload();
+
+        assertFalse(ids(nameSearch[0].search("product 3", 20)).contains(3));
+        assertTrue(ids(nameSearch[0].search("product 4", 20)).contains(4));
+    }
+
+    @Test
+    void failedWritesLeaveTheIndexAlone() {
+        ProductNameSearch nameSearch = new ProductNameSearch(jdbcProductDao);
+        SearchIndexingProductDao productDao = new SearchIndexingProductDao(jdbcProductDao, nameSearch);
+        nameSearch.reload();
+
+        // Version 5 doesn't match the row's version 1, so the update is rejected.
+        Product stale = new Product(5, "Renamed", 1, 2.0, 5);
+        assertThrows(OptimisticLockException.class, () -> productDao.update(stale));
+
+        assertEquals(List.of(), nameSearch.search("renamed", 5));
+        assertEquals(List.of(5), ids(nameSearch.search("product 5", 1)));
+    }
+}
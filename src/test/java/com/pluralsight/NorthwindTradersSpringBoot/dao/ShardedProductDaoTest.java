@@ -0,0 +1,206 @@
+package com.pluralsight.NorthwindTradersSpringBoot.dao;
+
+import com.pluralsight.NorthwindTradersSpringBoot.model.Product;
+import org.apache.commons.dbcp2.BasicDataSource;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ShardedProductDaoTest {
+
+    private BasicDataSource mainDataSource;
+    private final List<BasicDataSource> shardDataSources = new ArrayList<>();
+    private final List<JdbcProductDao> shards = new ArrayList<>();
+    private ShardedProductDao productDao;
+
+    @BeforeEach
+    void setUp() {
+        mainDataSource = ProductTestDatabase.create();
+        ProductTestDatabase.createIdBlocks(mainDataSource);
+        for (int i = 0; i < 3; i++) {
+            BasicDataSource shardDataSource = ProductTestDatabase.create();
+            shardDataSources.add(shardDataSource);
+            shards.add(new JdbcProductDao(shardDataSource, 100, 7));
+        }
+        productDao = new ShardedProductDao(shards, new HiLoIdGenerator(mainDataSource, 10), 2);
+    }
+
+    @AfterEach
+    void tearDown() throws SQLException {
+        productDao.close();
+        for (BasicDataSource shardDataSource : shardDataSources) {
+            shardDataSource.close();
+        }
+        mainDataSource.close();
+    }
+
+    // Adds count products named "Product 1".."Product count", in categories 1..4, priced by id.
+    private List<Product> addProducts(int count) {
+        List<Product> products = new ArrayList<>();
+        for (int i = 1; i <= count; i++) {
+            products.add(new Product(0, "Product " + i, 1 + i % 4, (i * 7) % 50));
+        }
+        productDao.addAll(products);
+        return products;
+    }
+
+    private static List<Integer> ids(List<Product> products) {
+        return products.stream().map(Product::getProductId).toList();
+    }
+
+    @Test
+    void idsAreUniqueAcrossShardsAndEachProductLivesOnItsShard() {
+        List<Product> products = addProducts(100);
+        Product single = new Product(0, "Chai", 1, 18.0);
+        productDao.add(single);
+        products.add(single);
+
+        Set<Integer> seen = new HashSet<>();
+        for (Product product : products) {
+            assertTrue(seen.add(product.getProductId()), "duplicate id " + product.getProductId());
+            assertEquals(1, product.getVersion());
+
+            // The row is on its own shard and no other.
+            for (int shard = 0; shard < shards.size(); shard++) {
+                boolean expected = shard == productDao.shardOf(product.getProductId());
+                assertEquals(expected, !shards.get(shard).findById(product.getProductId()).isEmpty());
+            }
+        }
+
+        // Every shard got a fair share.
+        for (JdbcProductDao shard : shards) {
+            assertTrue(shard.getAll().size() > 15);
+        }
+    }
+
+    @Test
+    void idsComeFromReservedBlocks() {
+        HiLoIdGenerator first = new HiLoIdGenerator(mainDataSource, 10);
+        HiLoIdGenerator second = new HiLoIdGenerator(mainDataSource, 10);
+
+        assertEquals(1, first.next());
+        assertEquals(11, second.next());
+        assertArrayEquals(new int[]{2, 3}, first.next(2));
+
+        // Running out of a block reserves the next free one.
+        for (int i = 4; i <= 10; i++) {
+            first.next();
+        }
+        assertEquals(21, first.next());
+    }
+
+    @Test
+    void lookupsUpdatesAndDeletesGoToTheRightShard() {
+        List<Product> products = addProducts(30);
+        Product product = products.get(12);
+
+        assertEquals("Product 13", productDao.findById(product.getProductId()).get(0).getProductName());
+
+        product.setProductName("Renamed");
+        productDao.update(product);
+        assertEquals(2, product.getVersion());
+        assertEquals("Renamed", productDao.findById(product.getProductId()).get(0).getProductName());
+
+        products.forEach(p -> p.setUnitPrice(1));
+        productDao.updateAll(products);
+        assertTrue(productDao.getAll().stream().allMatch(p -> p.getUnitPrice() == 1));
+
+        productDao.deleteByID(product.getProductId());
+        assertTrue(productDao.findById(product.getProductId()).isEmpty());
+
+        int[] deleted = {products.get(0).getProductId(), products.get(1).getProductId(), products.get(2).getProductId()};
+        productDao.deleteByIds(deleted);
+        assertEquals(26, productDao.getAll().size());
+        assertTrue(productDao.findByIds(deleted).isEmpty());
+    }
+
+    @Test
+    void scansAreMergedInTheOrderEachMethodPromises() {
+        List<Product> products = addProducts(60);
+        List<Product> byId = products.stream().sorted(Comparator.comparingInt(Product::getProductId)).toList();
+
+        try (Stream<Product> stream = productDao.streamAll()) {
+            assertEquals(ids(byId), ids(stream.toList()));
+        }
+
+        List<Integer> visited = new ArrayList<>();
+        productDao.forEach(row -> visited.add(row.productId()));
+        assertEquals(ids(byId), visited);
+
+        int[] wanted = {byId.get(40).getProductId(), byId.get(3).getProductId(), -5, byId.get(17).getProductId()};
+        assertEquals(List.of(byId.get(3).getProductId(), byId.get(17).getProductId(), byId.get(40).getProductId()),
+                ids(productDao.findByIds(wanted)));
+
+        assertEquals(ids(byId.stream().filter(p -> p.getCategoryId() == 2).toList()), ids(productDao.findByCategory(2)));
+
+        List<Product> cheap = byId.stream().filter(p -> p.getUnitPrice() <= 20)
+                .sorted(Comparator.comparingDouble(Product::getUnitPrice).thenComparingInt(Product::getProductId))
+                .toList();
+        assertEquals(ids(cheap), ids(productDao.findByPriceRange(0, 20)));
+
+        // "Product 1" and "Product 10" to "Product 19", ordered by name.
+        List<Product> named = byId.stream().filter(p -> p.getProductName().startsWith("Product 1"))
+                .sorted(Comparator.comparing(Product::getProductName)).toList();
+        assertEquals(ids(named), ids(productDao.findByNamePrefix("product 1")));
+    }
+
+    @Test
+    void pagesWalkEveryShardInIdOrder() {
+        List<Product> products = addProducts(45);
+        List<Integer> expected = ids(products.stream().sorted(Comparator.comparingInt(Product::getProductId)).toList());
+
+        List<Integer> paged = new ArrayList<>();
+        int after = 0;
+        while (true) {
+            List<Product> page = productDao.getPage(after, 10);
+            if (page.isEmpty()) {
+                break;
+            }
+            assertTrue(page.size() <= 10);
+            paged.addAll(ids(page));
+            after = page.get(page.size() - 1).getProductId();
+        }
+        assertEquals(expected, paged);
+    }
+
+    @Test
+    void aFailingShardFailsTheWholeScanAndClosesTheOthers() throws SQLException {
+        addProducts(20);
+        shardDataSources.get(1).close();
+
+        assertThrows(ProductDataAccessException.class, () -> productDao.findByCategory(1));
+        assertThrows(ProductDataAccessException.class, () -> productDao.streamAll());
+
+        // The healthy shards gave back their connections.
+        assertEquals(0, shardDataSources.get(0).getNumActive());
+        assertEquals(0, shardDataSources.get(2).getNumActive());
+    }
+
+    @Test
+    void namesFromDifferentShardsAreOrderedIgnoringCaseAndAccents() {
+        List<Product> products = new ArrayList<>();
+        for (String name : List.of("Crème 2", "creme 1", "CREME 4", "Créme 3", "Cremer 5")) {
+            products.add(new Product(0, name, 1, 1.0));
+        }
+        productDao.addAll(products);
+
+        assertEquals(List.of("creme 1", "Crème 2", "Créme 3", "CREME 4", "Cremer 5"),
+                productDao.findByNamePrefix("cr").stream().map(Product::getProductName).toList());
+    }
+
+    @Test
+    void theChangeLogIsNotSupported() {
+        assertThrows(UnsupportedOperationException.class, () -> productDao.getChangeWatermark());
+        assertThrows(UnsupportedOperationException.class, () -> productDao.getChangesSince(0));
+    }
+}
@@ -0,0 +1,241 @@
+package com.pluralsight.NorthwindTradersSpringBoot.dao;
+
+import com.pluralsight.NorthwindTradersSpringBoot.model.Product;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.apache.commons.dbcp2.BasicDataSource;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Path;
+import java.sql.SQLException;
+import java.time.Duration;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class WriteBehindProductDaoTest {
+
+    // Long enough that the background flusher never runs during a test; tests call flush() themselves.
+    private static final Duration NO_BACKGROUND_FLUSH = Duration.ofHours(1);
+
+    @TempDir
+    Path journalDirectory;
+
+    private BasicDataSource dataSource;
+    private JdbcProductDao jdbcProductDao;
+
+    @BeforeEach
+    void setUp() {
+        dataSource = ProductTestDatabase.create();
+        ProductTestDatabase.insertProducts(dataSource, 10);
+        jdbcProductDao = new JdbcProductDao(dataSource);
+    }
+
+    @AfterEach
+    void tearDown() throws SQLException {
+        dataSource.close();
+    }
+
+    @Test
+    void writesAreCoalescedPerProductAndFlushedInTheBackground() {
+        WriteBehindProductDao productDao = writeBehind(100);
+
+        for (int price = 1; price <= 5; price++) {
+            productDao.update(new Product(1, "Product 1", 1, price));
+        }
+        productDao.deleteByID(2);
+
+        // Not in the database yet, but visible to findById through the write-behind DAO.
+        assertEquals(1.0 + (1 % 1000) / 4.0, jdbcProductDao.findById(1).get(0).getUnitPrice());
+        assertEquals(5.0, productDao.findById(1).get(0).getUnitPrice());
+        assertTrue(productDao.findById(2).isEmpty());
+        List<Product> products = productDao.findByIds(3, 2, 1);
+        assertEquals(List.of(1, 3), products.stream().map(Product::getProductId).toList());
+        assertEquals(5.0, products.get(0).getUnitPrice());
+        assertEquals(2, productDao.stats().pendingWrites());
+        assertEquals(4, productDao.stats().coalescedWrites());
+
+        productDao.flush();
+
+        assertEquals(5.0, jdbcProductDao.findById(1).get(0).getUnitPrice());
+        assertTrue(jdbcProductDao.findById(2).isEmpty());
+        assertEquals(0, productDao.stats().pendingWrites());
+        assertEquals(2, productDao.stats().flushedWrites());
+        productDao.close();
+    }
+
+    @Test
+    void unflushedWritesAreReplayedFromTheJournalAfterACrash() {
+        WriteBehindProductDao crashed = writeBehind(100);
+        crashed.update(new Product(3, "Renamed", 3, 33.0));
+        crashed.deleteByID(4);
+        // No flush and no close: simulate the process dying here.
+
+        WriteBehindProductDao restarted = writeBehind(100);
+        assertEquals(2, restarted.stats().pendingWrites());
+
+        restarted.flush();
+
+        assertEquals("Renamed", jdbcProductDao.findById(3).get(0).getProductName());
+        assertTrue(jdbcProductDao.findById(4).isEmpty());
+        restarted.close();
+
+        // Everything was flushed, so a third start has nothing to replay.
+        WriteBehindProductDao again = writeBehind(100);
+        assertEquals(0, again.stats().pendingWrites());
+        again.close();
+    }
+
+    @Test
+    void writersAreRejectedWhenTheBufferStaysFull() {
+        WriteBehindProductDao productDao = writeBehind(2);
+
+        productDao.update(new Product(1, "A", 1, 1));
+        productDao.update(new Product(2, "B", 1, 1));
+
+        // Replacing a pending write still works, a third product doesn't fit.
+        productDao.update(new Product(2, "B2", 1, 1));
+        assertThrows(RejectedExecutionException.class, () -> productDao.update(new Product(3, "C", 1, 1)));
+
+        productDao.flush();
+        productDao.update(new Product(3, "C", 1, 1));
+        assertEquals(List.of("C"), productDao.findById(3).stream().map(Product::getProductName).toList());
+        productDao.close();
+    }
+
+    @Test
+    void writesStayVisibleWhileTheyAreBeingFlushed() throws Exception {
+        CountDownLatch updating = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        IProductDao slowDatabase = new ForwardingProductDao(jdbcProductDao) {
+            @Override
+            public void updateAll(Collection<Product> products) {
+                updating.countDown();
+                try {
+                    release.await();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+                super.updateAll(products);
+            }
+        };
+        WriteBehindProductDao productDao = new WriteBehindProductDao(slowDatabase, journalDirectory, false, 100,
+                Duration.ofMillis(50), NO_BACKGROUND_FLUSH);
+        productDao.update(new Product(5, "Renamed", 5, 55.0));
+
+        Thread flusher = new Thread(productDao::flush);
+        flusher.start();
+        assertTrue(updating.await(5, TimeUnit.SECONDS));
+
+        // Out of the pending map but not committed yet: reads must still see the new row, not the old one.
+        assertEquals("Renamed", productDao.findById(5).get(0).getProductName());
+        assertEquals("Renamed", productDao.findByIds(5).get(0).getProductName());
+
+        release.countDown();
+        flusher.join();
+        assertEquals("Renamed", jdbcProductDao.findById(5).get(0).getProductName());
+        productDao.close();
+    }
+
+    @Test
+    void aWriteTheDatabaseRefusesIsDeadLetteredWithoutHoldingUpTheOthers() {
+        WriteBehindProductDao productDao = writeBehind(100);
+
+        // Product 6 is still at version 1, so an update expecting version 7 is refused; product 7 is fine.
+        productDao.update(new Product(6, "Stale", 6, 66.0, 7));
+        productDao.update(new Product(7, "Fresh", 7, 77.0));
+        productDao.flush();
+
+        assertEquals("Product 6", jdbcProductDao.findById(6).get(0).getProductName());
+        assertEquals("Fresh", jdbcProductDao.findById(7).get(0).getProductName());
+        assertEquals(1, productDao.stats().deadLetteredWrites());
+        assertEquals(1, productDao.stats().flushedWrites());
+        assertEquals(0, productDao.stats().pendingWrites());
+
+        // Nothing is left to retry.
+        productDao.flush();
+        assertEquals(0, productDao.stats().failedFlushes());
+        productDao.close();
+    }
+
+    @Test
+    void versionedUpdatesAreCheckedWhenTheyReachTheDatabase() {
+        WriteBehindProductDao productDao = writeBehind(100);
+
+        // Read, change, write back: the pending write already shows the version the row will have.
+        Product product = productDao.findById(8).get(0);
+        assertEquals(1, product.getVersion());
+        product.setUnitPrice(80.0);
+        productDao.update(product);
+        Product pending = productDao.findById(8).get(0);
+        assertEquals(2, pending.getVersion());
+
+        // A second versioned update of the same product sends the first one before it is buffered.
+        pending.setUnitPrice(81.0);
+        productDao.update(pending);
+        assertEquals(80.0, jdbcProductDao.findById(8).get(0).getUnitPrice());
+
+        // An update built from the version-1 row would undo both, so it is refused.
+        productDao.update(new Product(8, "Product 8", 8, 1.0, 1));
+        productDao.flush();
+
+        Product saved = jdbcProductDao.findById(8).get(0);
+        assertEquals(81.0, saved.getUnitPrice());
+        assertEquals(3, saved.getVersion());
+        assertEquals(1, productDao.stats().deadLetteredWrites());
+        productDao.close();
+    }
+
+    @Test
+    void theSameProductCanBeUpdatedTwice() {
+        WriteBehindProductDao productDao = writeBehind(100);
+
+        // Once the first write is queued, the caller's product carries the version the row will have.
+        Product product = productDao.findById(9).get(0);
+        product.setUnitPrice(90.0);
+        productDao.update(product);
+        assertEquals(2, product.getVersion());
+
+        product.setUnitPrice(91.0);
+        productDao.updateAll(List.of(product));
+        assertEquals(3, product.getVersion());
+        productDao.flush();
+
+        Product saved = jdbcProductDao.findById(9).get(0);
+        assertEquals(91.0, saved.getUnitPrice());
+        assertEquals(3, saved.getVersion());
+        assertEquals(0, productDao.stats().deadLetteredWrites());
+        productDao.close();
+    }
+
+    @Test
+    void theQueueIsPublishedAsMeters() {
+        WriteBehindProductDao productDao = writeBehind(100);
+        MeterRegistry registry = new SimpleMeterRegistry();
+        productDao.registerMeters(registry);
+
+        productDao.update(new Product(2, "Renamed", 2, 22.0));
+        productDao.update(new Product(3, "Stale", 3, 33.0, 7));
+        assertEquals(2, registry.get("product.dao.write.behind.pending").gauge().value());
+
+        productDao.flush();
+        assertEquals(0, registry.get("product.dao.write.behind.pending").gauge().value());
+        assertEquals(0, registry.get("product.dao.write.behind.lag").timeGauge().value(TimeUnit.MILLISECONDS));
+        assertEquals(1, registry.get("product.dao.write.behind.flushes").functionCounter().count());
+        assertEquals(1, registry.get("product.dao.write.behind.flushed").functionCounter().count());
+        assertEquals(1, registry.get("product.dao.write.behind.dead.lettered").functionCounter().count());
+        productDao.close();
+    }
+
+    private WriteBehindProductDao writeBehind(int capacity) {
+        return new WriteBehindProductDao(jdbcProductDao, journalDirectory, false, capacity,
+                Duration.ofMillis(50), NO_BACKGROUND_FLUSH);
+    }
+}
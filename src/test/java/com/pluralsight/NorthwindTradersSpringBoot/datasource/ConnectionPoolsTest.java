@@ -0,0 +1,101 @@
+package com.pluralsight.NorthwindTradersSpringBoot.datasource;
+
+import com.pluralsight.NorthwindTradersSpringBoot.config.PoolProperties;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+import org.junit.jupiter.api.Test;
+
+import java.sql.Connection;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ConnectionPoolsTest {
+
+    @ParameterizedTest
+    @ValueSource(strings = {"dbcp2", "hikari"})
+    void poolReportsBorrowedAndIdleConnections(String type) throws Exception {
+        PoolProperties properties = properties(type);
+
+        try (ConnectionPool pool = ConnectionPools.create(h2Url(), "sa", "", properties)) {
+            InstrumentedDataSource dataSource = new InstrumentedDataSource(pool.getDataSource());
+
+            assertEquals(type, pool.getImplementation());
+            assertEquals(4, pool.getMaxConnections());
+
+            try (Connection first = dataSource.getConnection(); Connection second = dataSource.getConnection()) {
+                assertEquals(2, pool.getActiveConnections());
+                assertEquals(0, pool.getWaitingThreads());
+            }
+
+            assertEquals(0, pool.getActiveConnections());
+            assertTrue(pool.getIdleConnections() >= 1);
+            assertEquals(2, dataSource.getBorrowTimes().getCount());
+            assertEquals(0, dataSource.getBorrowFailures());
+        }
+    }
+
+    @Test
+    void borrowingFromAnExhaustedPoolFailsAfterMaxWait() throws Exception {
+        PoolProperties properties = properties("dbcp2");
+        properties.setMaxTotal(1);
+        properties.setMaxWaitMillis(50);
+
+        try (ConnectionPool pool = ConnectionPools.create(h2Url(), "sa", "", properties)) {
+            InstrumentedDataSource dataSource = new InstrumentedDataSource(pool.getDataSource());
+
+            try (Connection only = dataSource.getConnection()) {
+                assertThrows(Exception.class, dataSource::getConnection);
+            }
+
+            assertEquals(1, dataSource.getBorrowFailures());
+        }
+    }
+
+    @Test
+    void lazyPoolIsBuiltOnFirstUseAndWarmedUp() throws Exception {
+        PoolProperties properties = properties("dbcp2");
+        int[] built = new int[1];
+
+        try (LazyConnectionPool pool = new LazyConnectionPool("dbcp2", 4, () -> {
+            built[0]++;
+            return ConnectionPools.create(h2Url(), "sa", "", properties);
+        })) {
+            // Nothing is built by creating the pool, handing out its DataSource or reading its metrics.
+            assertNotNull(pool.getDataSource());
+            assertEquals(0, pool.getIdleConnections());
+            assertFalse(pool.isStarted());
+            assertEquals(0, built[0]);
+
+            // The warm-up builds it once and leaves the connections it opened idle in the pool.
+            pool.warmUp(3);
+            assertTrue(pool.isStarted());
+            assertEquals(3, pool.getIdleConnections());
+            try (Connection connection = pool.getDataSource().getConnection()) {
+                assertEquals(1, pool.getActiveConnections());
+            }
+            assertEquals(1, built[0]);
+        }
+    }
+
+    @Test
+    void unknownPoolTypeIsRejected() {
+        assertThrows(IllegalArgumentException.class,
+                () -> ConnectionPools.create(h2Url(), "sa", "", properties("c3p0")));
+    }
+
+    private static PoolProperties properties(String type) {
+        PoolProperties properties = new PoolProperties();
+        properties.setType(type);
+        properties.setName("test-" + UUID.randomUUID());
+        properties.setMinIdle(0);
+        properties.setMaxTotal(4);
+        properties.setPoolPreparedStatements(false);
+        properties.setJmxEnabled(false);
+        return properties;
+    }
+
+    private static String h2Url() {
+        return "jdbc:h2:mem:" + UUID.randomUUID() + ";DB_CLOSE_DELAY=-1";
+    }
+}
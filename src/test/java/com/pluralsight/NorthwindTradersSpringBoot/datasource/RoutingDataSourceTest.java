@@ -0,0 +1,167 @@
+package com.pluralsight.NorthwindTradersSpringBoot.datasource;
+
+import com.pluralsight.NorthwindTradersSpringBoot.dao.JdbcProductDao;
+import com.pluralsight.NorthwindTradersSpringBoot.dao.ProductTestDatabase;
+import com.pluralsight.NorthwindTradersSpringBoot.dao.ReadRoutingProductDao;
+import com.pluralsight.NorthwindTradersSpringBoot.model.Product;
+import org.apache.commons.dbcp2.BasicDataSource;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.sql.SQLException;
+import java.time.Duration;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+// Two in-memory H2 databases stand in for the primary and a replica. They hold a different number of rows,
+// so the row count of a read shows which database answered it.
+class RoutingDataSourceTest {
+
+    private BasicDataSource primary;
+    private BasicDataSource replica;
+    private BasicDataSource secondReplica;
+
+    @BeforeEach
+    void setUp() {
+        primary = ProductTestDatabase.create();
+        ProductTestDatabase.insertProducts(primary, 10);
+        replica = ProductTestDatabase.create();
+        ProductTestDatabase.insertProducts(replica, 3);
+        secondReplica = ProductTestDatabase.create();
+        ProductTestDatabase.insertProducts(secondReplica, 5);
+        ReadRoutingContext.clear();
+    }
+
+    @AfterEach
+    void tearDown() throws SQLException {
+        ReadRoutingContext.clear();
+        primary.close();
+        replica.close();
+        secondReplica.close();
+    }
+
+    @Test
+    void readsGoToTheReplicaAndWritesToThePrimary() {
+        ReadRoutingProductDao productDao = productDao(routing(Duration.ZERO, replica("replica", replica)));
+
+        assertEquals(3, productDao.getAll().size());
+
+        productDao.add(new Product(0, "New", 1, 1.0));
+
+        assertEquals(11, new JdbcProductDao(primary).getAll().size());
+        assertEquals(3, new JdbcProductDao(replica).getAll().size());
+    }
+
+    @Test
+    void callerReadsItsOwnWritesFromThePrimaryDuringTheWindow() {
+        ReadRoutingProductDao productDao = productDao(routing(Duration.ofMinutes(1), replica("replica", replica)));
+
+        productDao.update(new Product(2, "Changed", 1, 1.0));
+
+        assertEquals("Changed", productDao.findById(2).get(0).getProductName());
+        assertEquals(10, productDao.getAll().size());
+    }
+
+    @Test
+    void otherCallersStillReadFromTheReplica() throws Exception {
+        ReadRoutingProductDao productDao = productDao(routing(Duration.ofMinutes(1), replica("replica", replica)));
+
+        productDao.update(new Product(2, "Changed", 1, 1.0));
+
+        int[] rows = new int[1];
+        Thread otherCaller = new Thread(() -> rows[0] = productDao.getAll().size());
+        otherCaller.start();
+        otherCaller.join();
+
+        assertEquals(3, rows[0]);
+    }
+
+    @Test
+    void aCallerReadsItsOwnWritesOnAnotherThread() throws Exception {
+        ReadRoutingProductDao productDao = productDao(routing(Duration.ofMinutes(1), replica("replica", replica)));
+
+        ReadRoutingContext.setCaller("caller-1");
+        productDao.update(new Product(2, "Changed", 1, 1.0));
+        ReadRoutingContext.clear();
+
+        // The same caller's next request, served by another thread.
+        int[] rows = new int[2];
+        Thread sameCaller = new Thread(() -> {
+            ReadRoutingContext.setCaller("caller-1");
+            rows[0] = productDao.getAll().size();
+            ReadRoutingContext.setCaller("caller-2");
+            rows[1] = productDao.getAll().size();
+        });
+        sameCaller.start();
+        sameCaller.join();
+
+        assertEquals(10, rows[0]);
+        assertEquals(3, rows[1]);
+
+        // Once cleared, this thread no longer carries the write.
+        assertEquals(3, productDao.getAll().size());
+    }
+
+    @Test
+    void unavailableReplicaFallsBackToThePrimary() throws SQLException {
+        RoutingDataSource routing = routing(Duration.ZERO, replica("replica", replica));
+        replica.close();
+
+        assertEquals(10, productDao(routing).getAll().size());
+        assertFalse(routing.getReplicas().get(0).isHealthy());
+    }
+
+    @Test
+    void healthCheckKeepsAWorkingReplicaInRotation() {
+        RoutingDataSource routing = routing(Duration.ZERO, replica("replica", replica));
+
+        routing.checkReplicas();
+
+        assertTrue(routing.getReplicas().get(0).isHealthy());
+        assertEquals(3, productDao(routing).getAll().size());
+    }
+
+    @Test
+    void roundRobinSpreadsReadsOverTheReplicas() {
+        ReadRoutingProductDao productDao = productDao(routing(Duration.ZERO,
+                replica("first", replica), replica("second", secondReplica)));
+
+        int first = productDao.getAll().size();
+        int second = productDao.getAll().size();
+
+        assertNotEquals(first, second);
+        assertTrue(List.of(3, 5).containsAll(List.of(first, second)));
+    }
+
+    @Test
+    void leastConnectionsPicksTheLeastBusyReplica() {
+        RoutingDataSource routing = new RoutingDataSource(primary, List.of(
+                new RoutingDataSource.Replica("busy", replica, () -> 7),
+                new RoutingDataSource.Replica("quiet", secondReplica, () -> 1)),
+                RoutingDataSource.Selection.LEAST_CONNECTIONS, Duration.ZERO, Duration.ZERO);
+
+        assertEquals(5, productDao(routing).getAll().size());
+        assertEquals(5, productDao(routing).getAll().size());
+    }
+
+    @Test
+    void selectionIsParsedFromThePropertySpelling() {
+        assertEquals(RoutingDataSource.Selection.LEAST_CONNECTIONS, RoutingDataSource.Selection.parse("least-connections"));
+        assertEquals(RoutingDataSource.Selection.ROUND_ROBIN, RoutingDataSource.Selection.parse("round-robin"));
+    }
+
+    private RoutingDataSource routing(Duration readYourWrites, RoutingDataSource.Replica... replicas) {
+        return new RoutingDataSource(primary, List.of(replicas), RoutingDataSource.Selection.ROUND_ROBIN,
+                Duration.ZERO, readYourWrites);
+    }
+
+    private static RoutingDataSource.Replica replica(String name, BasicDataSource dataSource) {
+        return new RoutingDataSource.Replica(name, dataSource, dataSource::getNumActive);
+    }
+
+    private static ReadRoutingProductDao productDao(RoutingDataSource routing) {
+        return new ReadRoutingProductDao(new JdbcProductDao(routing));
+    }
+}
@@ -0,0 +1,126 @@
+package com.pluralsight.NorthwindTradersSpringBoot.export;
+
+import com.pluralsight.NorthwindTradersSpringBoot.dao.JdbcProductDao;
+import com.pluralsight.NorthwindTradersSpringBoot.dao.ProductTestDatabase;
+import com.pluralsight.NorthwindTradersSpringBoot.model.Product;
+import org.apache.commons.dbcp2.BasicDataSource;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import tools.jackson.databind.JsonNode;
+import tools.jackson.databind.json.JsonMapper;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.sql.SQLException;
+import java.util.List;
+import java.util.zip.GZIPInputStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ProductExporterTest {
+
+    private BasicDataSource dataSource;
+    private ProductExporter exporter;
+
+    @BeforeEach
+    void setUp() {
+        dataSource = ProductTestDatabase.create();
+        JdbcProductDao productDao = new JdbcProductDao(dataSource);
+        productDao.add(new Product(0, "Chai", 1, 18.0));
+        productDao.add(new Product(0, "Sir Rodney's \"Scones\", large", 3, 10.0));
+        productDao.add(new Product(0, "Crème brûlée \\ 🍮", 3, 7.25));
+        productDao.add(new Product(0, "Tiny", 2, 0.0001));
+        exporter = new ProductExporter(productDao);
+    }
+
+    @AfterEach
+    void tearDown() throws SQLException {
+        dataSource.close();
+    }
+
+    @Test
+    void exportsCsvWithQuotingOnlyWhereNeeded() throws IOException {
+        String csv = exportToString(ExportFormat.CSV);
+
+        assertEquals("""
+                ProductID,ProductName,CategoryID,UnitPrice
+                1,Chai,1,18.0
+                2,"Sir Rodney's ""Scones"", large",3,10.0
+                3,Crème brûlée \\ 🍮,3,7.25
+                4,Tiny,2,0.0001
+                """, csv);
+    }
+
+    @Test
+    void exportsOneJsonObjectPerLine() throws IOException {
+        List<String> lines = exportToString(ExportFormat.NDJSON).lines().toList();
+        JsonMapper mapper = JsonMapper.builder().build();
+
+        assertEquals(4, lines.size());
+        JsonNode scones = mapper.readTree(lines.get(1));
+        assertEquals(2, scones.get("productId").asInt());
+        assertEquals("Sir Rodney's \"Scones\", large", scones.get("productName").asString());
+        assertEquals("Crème brûlée \\ 🍮", mapper.readTree(lines.get(2)).get("productName").asString());
+        assertEquals(7.25, mapper.readTree(lines.get(2)).get("unitPrice").asDouble());
+    }
+
+    @Test
+    void exportsLengthPrefixedBinary() throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        ExportResult result = exporter.export(ExportFormat.BINARY, out, false);
+
+        DataInputStream in = new DataInputStream(new ByteArrayInputStream(out.toByteArray()));
+        assertEquals(ExportFormat.BINARY_MAGIC, new String(in.readNBytes(4), StandardCharsets.US_ASCII));
+        for (int expectedId = 1; expectedId <= 4; expectedId++) {
+            assertEquals(expectedId, in.readInt());
+            int categoryId = in.readInt();
+            double unitPrice = in.readDouble();
+            String name = new String(in.readNBytes(in.readInt()), StandardCharsets.UTF_8);
+            if (expectedId == 3) {
+                assertEquals(3, categoryId);
+                assertEquals(7.25, unitPrice);
+                assertEquals("Crème brûlée \\ 🍮", name);
+            }
+        }
+        assertEquals(-1, in.read());
+        assertEquals(4, result.rows());
+        assertEquals(out.size(), result.bytes());
+    }
+
+    @Test
+    void gzipRoundTrips() throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        exporter.export(ExportFormat.CSV, out, true);
+
+        String csv = new String(new GZIPInputStream(new ByteArrayInputStream(out.toByteArray())).readAllBytes(),
+                StandardCharsets.UTF_8);
+        assertEquals(exportToString(ExportFormat.CSV), csv);
+    }
+
+    @Test
+    void exportsToAFileLargerThanTheBuffer(@TempDir Path directory) throws IOException {
+        ProductTestDatabase.insertProducts(dataSource, 20_000);
+        Path file = directory.resolve("products.csv");
+
+        ExportResult result = exporter.exportToFile(ExportFormat.CSV, file, false);
+
+        List<String> lines = Files.readAllLines(file);
+        assertEquals(20_004, result.rows());
+        assertEquals(20_005, lines.size());
+        assertEquals("20004,Product 20000,1,1.0", lines.get(20_004));
+        assertEquals(Files.size(file), result.bytes());
+    }
+
+    private String exportToString(ExportFormat format) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        exporter.export(format, out, false);
+        return out.toString(StandardCharsets.UTF_8);
+    }
+}
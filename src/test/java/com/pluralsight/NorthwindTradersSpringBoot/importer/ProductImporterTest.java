@@ -0,0 +1,203 @@
+package com.pluralsight.NorthwindTradersSpringBoot.importer;
+
+import com.pluralsight.NorthwindTradersSpringBoot.dao.ForwardingProductDao;
+import com.pluralsight.NorthwindTradersSpringBoot.dao.IProductDao;
+import com.pluralsight.NorthwindTradersSpringBoot.dao.JdbcCategoryDao;
+import com.pluralsight.NorthwindTradersSpringBoot.dao.JdbcProductDao;
+import com.pluralsight.NorthwindTradersSpringBoot.dao.ProductTestDatabase;
+import com.pluralsight.NorthwindTradersSpringBoot.model.Product;
+import org.apache.commons.dbcp2.BasicDataSource;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ProductImporterTest {
+
+    @TempDir
+    Path dir;
+
+    private BasicDataSource dataSource;
+    private JdbcProductDao productDao;
+    private JdbcCategoryDao categoryDao;
+
+    @BeforeEach
+    void setUp() {
+        dataSource = ProductTestDatabase.create();
+        ProductTestDatabase.createCategories(dataSource, 8);
+        ProductTestDatabase.createProductLoads(dataSource);
+        productDao = new JdbcProductDao(dataSource, 100, 50);
+        categoryDao = new JdbcCategoryDao(dataSource);
+    }
+
+    @AfterEach
+    void tearDown() throws SQLException {
+        dataSource.close();
+    }
+
+    @Test
+    void importsCsvAndRejectsBadLinesWithTheirLineNumbers() throws IOException {
+        Path input = dir.resolve("products.csv");
+        Files.writeString(input, """
+                ProductID,ProductName,CategoryID,UnitPrice
+                1,Chai,1,18.0
+                2,"Sir Rodney's ""Scones"", large",3,10.0
+                3,No Such Category,99,1.0
+                4,"Two
+                lines",2,4.5
+                5,Negative,2,-1
+                6,Not A Price,2,abc
+
+                7,Crème brûlée,3,7.25\r
+                """);
+
+        ImportResult result = importer(productDao, 16).importFile(input, null);
+
+        assertEquals(4, result.rowsImported());
+        assertEquals(3, result.rowsRejected());
+        assertFalse(result.resumed());
+        assertEquals(List.of("Chai", "Sir Rodney's \"Scones\", large", "Two\nlines", "Crème brûlée"),
+                productDao.getAll().stream().map(Product::getProductName).toList());
+
+        List<String> rejects = Files.readAllLines(input.resolveSibling("products.csv.rejects.csv"));
+        assertEquals(List.of(
+                "LineNumber,Reason,Line",
+                "4,\"CategoryID 99 does not exist\",\"3,No Such Category,99,1.0\"",
+                "7,\"UnitPrice must be zero or more\",\"5,Negative,2,-1\"",
+                "8,\"UnitPrice is not a number\",\"6,Not A Price,2,abc\""), rejects);
+    }
+
+    @Test
+    void importsNdjson() throws IOException {
+        Path input = dir.resolve("products.ndjson");
+        Files.writeString(input, """
+                {"productId":1,"productName":"Chai","categoryId":1,"unitPrice":18.0}
+                {"productName":"Chang","categoryId":1,"unitPrice":19}
+                {"productName":"%s","categoryId":2,"unitPrice":1}
+                {"productName":"Broken",
+                {"categoryId":2,"unitPrice":1}
+                """.formatted("x".repeat(41)));
+
+        ImportResult result = importer(productDao, 1 << 20).importFile(input, null);
+
+        assertEquals(2, result.rowsImported());
+        assertEquals(3, result.rowsRejected());
+        assertEquals(List.of("Chai", "Chang"), productDao.getAll().stream().map(Product::getProductName).toList());
+        assertEquals(19.0, productDao.getAll().get(1).getUnitPrice());
+    }
+
+    @Test
+    void resumesAfterAFailureWithoutDuplicates() throws IOException {
+        Path input = dir.resolve("big.csv");
+        List<String> lines = new ArrayList<>();
+        lines.add("ProductName,CategoryID,UnitPrice");
+        for (int i = 1; i <= 2_000; i++) {
+            // Every 100th product has a category that doesn't exist.
+            lines.add("Product " + i + "," + (i % 100 == 0 ? 99 : 1 + i % 8) + "," + i / 4.0);
+        }
+        Files.write(input, lines);
+
+        // Fail the fifth chunk's insert, as if the database had gone away.
+        AtomicInteger calls = new AtomicInteger();
+        IProductDao failing = new ForwardingProductDao(productDao) {
+            @Override
+            public int[] addAllOnce(String loadId, long position, Collection<Product> products) {
+                if (calls.incrementAndGet() == 5) {
+                    throw new IllegalStateException("connection lost");
+                }
+                return super.addAllOnce(loadId, position, products);
+            }
+        };
+
+        List<ImportProgress> progress = new ArrayList<>();
+        IllegalStateException failure = assertThrows(IllegalStateException.class,
+                () -> importer(failing, 2_000).importFile(input, progress::add));
+        assertEquals("connection lost", failure.getMessage());
+        assertEquals(4, progress.size());
+        long loadedBeforeFailure = productDao.getAll().size();
+        assertEquals(progress.get(3).rowsImported(), loadedBeforeFailure);
+
+        ImportResult result = importer(productDao, 2_000).importFile(input, progress::add);
+
+        assertTrue(result.resumed());
+        assertEquals(1_980, result.rowsImported());
+        assertEquals(20, result.rowsRejected());
+
+        List<Product> products = productDao.getAll();
+        Set<String> names = new HashSet<>();
+        products.forEach(product -> assertTrue(names.add(product.getProductName()), "duplicate " + product));
+        assertEquals(1_980, products.size());
+
+        // Every reject is listed once, even though the import ran twice.
+        assertEquals(21, Files.readAllLines(input.resolveSibling("big.csv.rejects.csv")).size());
+
+        // Running a finished import again loads nothing.
+        assertEquals(1_980, importer(productDao, 2_000).importFile(input, null).rowsImported());
+        assertEquals(1_980, productDao.getAll().size());
+    }
+
+    @Test
+    void aChunkCommittedBeforeACrashIsNotLoadedAgain() throws IOException {
+        Path input = dir.resolve("big.csv");
+        List<String> lines = new ArrayList<>();
+        for (int i = 1; i <= 2_000; i++) {
+            lines.add("Product " + i + "," + (1 + i % 8) + "," + i / 4.0);
+        }
+        Files.write(input, lines);
+
+        // The fifth chunk commits, then the import dies before it can write the checkpoint.
+        AtomicInteger calls = new AtomicInteger();
+        IProductDao crashing = new ForwardingProductDao(productDao) {
+            @Override
+            public int[] addAllOnce(String loadId, long position, Collection<Product> products) {
+                int[] productIds = super.addAllOnce(loadId, position, products);
+                if (calls.incrementAndGet() == 5) {
+                    throw new IllegalStateException("crashed");
+                }
+                return productIds;
+            }
+        };
+
+        List<ImportProgress> progress = new ArrayList<>();
+        assertThrows(IllegalStateException.class, () -> importer(crashing, 2_000).importFile(input, progress::add));
+        assertEquals(4, progress.size());
+        assertTrue(productDao.getAll().size() > progress.get(3).rowsImported());
+
+        ImportResult result = importer(productDao, 2_000).importFile(input, null);
+
+        assertEquals(2_000, result.rowsImported());
+        List<Product> products = productDao.getAll();
+        Set<String> names = new HashSet<>();
+        products.forEach(product -> assertTrue(names.add(product.getProductName()), "duplicate " + product));
+        assertEquals(2_000, products.size());
+    }
+
+    @Test
+    void refusesACheckpointFromADifferentFile() throws IOException {
+        Path input = dir.resolve("products.csv");
+        Files.writeString(input, "Chai,1,18.0\n");
+        importer(productDao, 1024).importFile(input, null);
+
+        Files.writeString(input, "Chai,1,18.0\nChang,1,19.0\n");
+        Files.setLastModifiedTime(input, java.nio.file.attribute.FileTime.fromMillis(0));
+
+        assertThrows(IllegalArgumentException.class, () -> importer(productDao, 1024).importFile(input, null));
+    }
+
+    private ProductImporter importer(IProductDao dao, int chunkBytes) {
+        return new ProductImporter(dao, categoryDao, 4, chunkBytes);
+    }
+}
@@ -0,0 +1,164 @@
+package com.pluralsight.NorthwindTradersSpringBoot.search;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ProductNameIndexTest {
+
+    private static ProductNameIndex northwindIndex() {
+        ProductNameIndex index = new ProductNameIndex();
+        index.put(1, "Chai");
+        index.put(2, "Chang");
+        index.put(3, "Aniseed Syrup");
+        index.put(4, "Chef Anton's Cajun Seasoning");
+        index.put(48, "Chocolade");
+        index.put(49, "Maxilaku");
+        index.put(62, "Tarte au sucre");
+        index.put(70, "Outback Lager");
+        index.put(71, "Flotemysost");
+        index.put(72, "Mozzarella di Giovanni");
+        index.put(76, "Lakkalikööri");
+        index.put(77, "Original Frankfurter grüne Soße");
+        return index;
+    }
+
+    private static List<Integer> ids(List<ProductSearchHit> hits) {
+        return hits.stream().map(ProductSearchHit::productId).toList();
+    }
+
+    @Test
+    void exactNameComesFirst() {
+        List<ProductSearchHit> hits = northwindIndex().search("chai", 3);
+
+        assertEquals(1, hits.get(0).productId());
+        assertEquals(1.0, hits.get(0).score(), 1e-9);
+        assertTrue(ids(hits).contains(2), "Chang shares the start of the word");
+    }
+
+    @Test
+    void toleratesTyposAccentsAndWordOrder() {
+        ProductNameIndex index = northwindIndex();
+
+        assertEquals(48, index.search("choclate", 1).get(0).productId());
+        assertEquals(72, index.search("mozarella", 1).get(0).productId());
+        assertEquals(76, index.search("lakkalikoori", 1).get(0).productId());
+        assertEquals(77, index.search("GRUNE sosse frankfurter", 1).get(0).productId());
+        assertEquals(70, index.search("lager outback", 1).get(0).productId());
+    }
+
+    @Test
+    void unrelatedQueriesFindNothing() {
+        ProductNameIndex index = northwindIndex();
+
+        assertEquals(List.of(), index.search("xylophone", 10));
+        assertEquals(List.of(), index.search("  !? ", 10));
+    }
+
+    @Test
+    void putReplacesAndRemoveDeletes() {
+        ProductNameIndex index = northwindIndex();
+
+        index.put(1, "Masala Tea");
+        index.remove(48);
+
+        assertEquals(11, index.size());
+        assertEquals(List.of(), index.search("chai", 10).stream().filter(hit -> hit.productId() == 1).toList());
+        assertEquals(1, index.search("masala tea", 1).get(0).productId());
+        assertEquals(List.of(), index.search("chocolade", 10));
+    }
+
+    @Test
+    void compactsAfterManyRemovals() {
+        ProductNameIndex index = new ProductNameIndex();
+        for (int id = 1; id <= 5000; id++) {
+            index.put(id, "Product " + id);
+        }
+        for (int id = 1; id <= 4000; id++) {
+            index.remove(id);
+        }
+
+        assertEquals(1000, index.size());
+        assertEquals(4321, index.search("product 4321", 1).get(0).productId());
+        assertTrue(index.search("product 1234", 10).stream().allMatch(hit -> hit.productId() > 4000));
+    }
+
+    @Test
+    void repeatedRenamesDoNotGrowTheIndexWithoutBound() {
+        ProductNameIndex index = new ProductNameIndex();
+        for (int id = 1; id <= 100; id++) {
+            index.put(id, "Product " + id);
+        }
+        for (int round = 0; round < 200; round++) {
+            for (int id = 1; id <= 100; id++) {
+                index.put(id, "Product " + id + " v" + round);
+            }
+        }
+
+        assertEquals(100, index.size());
+        assertTrue(index.documentCount() <= 100 + 1024 + 1, "documents: " + index.documentCount());
+        assertEquals(42, index.search("product 42 v199", 1).get(0).productId());
+    }
+
+    @Test
+    void puttingTheSameNameAgainChangesNothing() {
+        ProductNameIndex index = northwindIndex();
+        int documents = index.documentCount();
+
+        index.put(1, "Chai");
+        index.put(1, "Chai");
+
+        assertEquals(documents, index.documentCount());
+        assertEquals(1, index.search("chai", 1).get(0).productId());
+    }
+
+    @Test
+    void stopsEarlyButReturnsTheSameTopHitsAsScoringEveryName() {
+        String[] words = {"organic", "dark", "chocolate", "milk", "sauce", "syrup", "green", "tea", "coffee", "spicy",
+                "cajun", "seasoning", "smoked", "salmon", "cheese", "lager", "ale", "bread", "crab", "meat"};
+        Random random = new Random(7);
+        ProductNameIndex index = new ProductNameIndex();
+        List<String> names = new ArrayList<>();
+        for (int id = 1; id <= 20_000; id++) {
+            String name = words[random.nextInt(words.length)] + " " + words[random.nextInt(words.length)] + " "
+                    + words[random.nextInt(words.length)] + " " + random.nextInt(500);
+            names.add(name);
+            index.put(id, name);
+        }
+
+        for (String query : new String[]{"chocolate", "dark chocolat", "smoked samlon 42", "tea", "cajun", "ale 7",
+                "spicy tea biscuits", "x"}) {
+            assertEquals(bruteForce(names, query, 10), index.search(query, 10), query);
+        }
+    }
+
+    // Scores every name and sorts them all.
+    private static List<ProductSearchHit> bruteForce(List<String> names, String query, int limit) {
+        long[] queryGrams = ProductNameIndex.gramsOf(query);
+        int q = queryGrams.length;
+        int allowedMisses = ProductNameIndex.allowedMisses(q);
+
+        List<ProductSearchHit> hits = new ArrayList<>();
+        for (int i = 0; i < names.size(); i++) {
+            long[] grams = ProductNameIndex.gramsOf(names.get(i));
+            int shared = 0;
+            for (long gram : queryGrams) {
+                if (Arrays.binarySearch(grams, gram) >= 0) {
+                    shared++;
+                }
+            }
+            if (shared >= q - allowedMisses) {
+                hits.add(new ProductSearchHit(i + 1, names.get(i), ProductNameIndex.score(shared, q, grams.length)));
+            }
+        }
+        hits.sort(Comparator.comparingDouble(ProductSearchHit::score).reversed()
+                .thenComparingInt(ProductSearchHit::productId));
+        return hits.subList(0, Math.min(limit, hits.size()));
+    }
+}
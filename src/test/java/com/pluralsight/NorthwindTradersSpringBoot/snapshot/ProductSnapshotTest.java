@@ -0,0 +1,92 @@
+package com.pluralsight.NorthwindTradersSpringBoot.snapshot;
+
+import com.pluralsight.NorthwindTradersSpringBoot.dao.JdbcProductDao;
+import com.pluralsight.NorthwindTradersSpringBoot.dao.ProductTestDatabase;
+import com.pluralsight.NorthwindTradersSpringBoot.model.Product;
+import com.pluralsight.NorthwindTradersSpringBoot.model.ProductChangeSet;
+import org.apache.commons.dbcp2.BasicDataSource;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ProductSnapshotTest {
+
+    @Test
+    void looksUpRowsByProductId() {
+        ProductSnapshot snapshot = ProductSnapshot.of(Stream.of(
+                new Product(10, "Chai", 1, 18.0),
+                new Product(42, "Crème brûlée", 3, 7.25),
+                new Product(7, "", 2, 0.5)));
+
+        assertEquals(3, snapshot.size());
+        assertEquals(-1, snapshot.rowOf(11));
+        assertNull(snapshot.findById(11));
+
+        Product product = snapshot.findById(42);
+        assertEquals("Crème brûlée", product.getProductName());
+        assertEquals(3, product.getCategoryId());
+        assertEquals(7.25, product.getUnitPrice());
+        assertEquals("", snapshot.findById(7).getProductName());
+    }
+
+    @Test
+    void appliesChangesInProductIdOrder() {
+        ProductSnapshot snapshot = ProductSnapshot.of(Stream.of(
+                new Product(1, "Chai", 1, 18.0),
+                new Product(2, "Chang", 1, 19.0),
+                new Product(4, "Ikura", 8, 31.0)));
+
+        ProductSnapshot changed = snapshot.withChanges(new ProductChangeSet(
+                List.of(new Product(2, "Chang (new)", 1, 20.0), new Product(3, "Aniseed Syrup", 2, 10.0)),
+                new int[]{4}, 5));
+
+        assertEquals(3, changed.size());
+        assertEquals(List.of(1, 2, 3), List.of(changed.productIdAt(0), changed.productIdAt(1), changed.productIdAt(2)));
+        assertEquals("Chai", changed.productNameAt(0));
+        assertEquals("Chang (new)", changed.productNameAt(1));
+        assertEquals(10.0, changed.findById(3).getUnitPrice());
+        assertNull(changed.findById(4));
+
+        // The original snapshot is untouched.
+        assertEquals("Chang", snapshot.findById(2).getProductName());
+    }
+
+    @Test
+    void indexesManyRowsAndStaysCompact() {
+        ProductSnapshot snapshot = ProductSnapshot.of(IntStream.rangeClosed(1, 100_000)
+                .mapToObj(id -> new Product(id * 3, "Product " + id, id % 8, id / 10.0)));
+
+        for (int id = 1; id <= 100_000; id++) {
+            int row = snapshot.rowOf(id * 3);
+            assertEquals(id * 3, snapshot.productIdAt(row));
+            assertEquals("Product " + id, snapshot.productNameAt(row));
+        }
+        assertEquals(-1, snapshot.rowOf(1));
+
+        // ~13 bytes of name, 20 bytes of columns and offsets, and the id index.
+        assertTrue(snapshot.bytesPerRow() < 60, "bytes per row was " + snapshot.bytesPerRow());
+    }
+
+    @Test
+    void refreshSwapsInANewSnapshot() throws Exception {
+        try (BasicDataSource dataSource = ProductTestDatabase.create()) {
+            ProductTestDatabase.insertProducts(dataSource, 50);
+            ProductSnapshotHolder holder = new ProductSnapshotHolder(new JdbcProductDao(dataSource));
+
+            assertEquals(0, holder.current().size());
+
+            ProductSnapshot first = holder.refresh();
+            assertEquals(50, first.size());
+            assertSame(first, holder.current());
+
+            ProductTestDatabase.insertProducts(dataSource, 5);
+            holder.refresh();
+            assertEquals(55, holder.current().size());
+            assertEquals(50, first.size());
+        }
+    }
+}
@@ -0,0 +1,100 @@
+package com.pluralsight.NorthwindTradersSpringBoot.snapshot;
+
+import com.pluralsight.NorthwindTradersSpringBoot.dao.JdbcProductDao;
+import com.pluralsight.NorthwindTradersSpringBoot.dao.JdbcProductStatsDao;
+import com.pluralsight.NorthwindTradersSpringBoot.dao.ProductTestDatabase;
+import com.pluralsight.NorthwindTradersSpringBoot.model.CategoryStats;
+import com.pluralsight.NorthwindTradersSpringBoot.model.Product;
+import org.apache.commons.dbcp2.BasicDataSource;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class SnapshotProductStatsDaoTest {
+
+    @Test
+    void computesNearestRankPercentiles() {
+        // Category 2 holds the prices 1 to 10 (shuffled), category 5 a single product.
+        List<Product> products = new ArrayList<>();
+        int[] prices = {7, 3, 10, 1, 9, 2, 8, 5, 4, 6};
+        for (int i = 0; i < prices.length; i++) {
+            products.add(new Product(i + 1, "Product " + i, 2, prices[i]));
+        }
+        products.add(new Product(11, "Only", 5, 4.5));
+        ProductSnapshot snapshot = ProductSnapshot.of(products.stream());
+
+        try (SnapshotProductStatsDao stats = new SnapshotProductStatsDao(() -> snapshot, 2)) {
+            assertEquals(List.of(
+                    new CategoryStats(2, 10, 1, 10, 5.5, 5, 9, 10),
+                    new CategoryStats(5, 1, 4.5, 4.5, 4.5, 4.5, 4.5, 4.5)), stats.getCategoryStats());
+        }
+    }
+
+    @Test
+    void parallelChunksAgreeWithOneThread() {
+        // Enough rows for many chunks, and CategoryIDs far enough apart to need the IntIndexMap.
+        Random random = new Random(42);
+        for (int spread : new int[]{1, 1_000_000}) {
+            ProductSnapshot snapshot = ProductSnapshot.of(IntStream.rangeClosed(1, 200_000)
+                    .mapToObj(id -> new Product(id, "P", (id % 13) * spread, random.nextInt(100_000) / 100.0)));
+
+            try (SnapshotProductStatsDao single = new SnapshotProductStatsDao(() -> snapshot, 1);
+                 SnapshotProductStatsDao parallel = new SnapshotProductStatsDao(() -> snapshot, 4)) {
+                List<CategoryStats> expected = single.getCategoryStats();
+                List<CategoryStats> actual = parallel.getCategoryStats();
+
+                assertEquals(13, actual.size());
+                for (int i = 0; i < expected.size(); i++) {
+                    assertSameStats(expected.get(i), actual.get(i));
+                }
+            }
+        }
+    }
+
+    @Test
+    void snapshotAndDatabaseAgree() throws Exception {
+        try (BasicDataSource dataSource = ProductTestDatabase.create()) {
+            ProductTestDatabase.insertProducts(dataSource, 5_000);
+            ProductSnapshotHolder holder = new ProductSnapshotHolder(new JdbcProductDao(dataSource));
+
+            // The snapshot is loaded on first use.
+            try (SnapshotProductStatsDao snapshotStats = new SnapshotProductStatsDao(holder, 0)) {
+                List<CategoryStats> fromSnapshot = snapshotStats.getCategoryStats();
+                List<CategoryStats> fromDatabase = new JdbcProductStatsDao(dataSource).getCategoryStats();
+
+                assertEquals(5_000, holder.current().size());
+                assertEquals(8, fromDatabase.size());
+                assertEquals(fromDatabase.size(), fromSnapshot.size());
+                for (int i = 0; i < fromDatabase.size(); i++) {
+                    assertSameStats(fromDatabase.get(i), fromSnapshot.get(i));
+                }
+            }
+        }
+    }
+
+    @Test
+    void emptySnapshotHasNoStats() {
+        try (SnapshotProductStatsDao stats = new SnapshotProductStatsDao(() -> ProductSnapshot.of(Stream.empty()), 2)) {
+            assertTrue(stats.getCategoryStats().isEmpty());
+        }
+    }
+
+    // Everything but the average must match exactly; the average may differ by rounding (the database adds decimals,
+    // the snapshot doubles, and in a different order).
+    private static void assertSameStats(CategoryStats expected, CategoryStats actual) {
+        assertEquals(expected.categoryId(), actual.categoryId());
+        assertEquals(expected.productCount(), actual.productCount());
+        assertEquals(expected.minPrice(), actual.minPrice());
+        assertEquals(expected.maxPrice(), actual.maxPrice());
+        assertEquals(expected.averagePrice(), actual.averagePrice(), 1e-6);
+        assertEquals(expected.medianPrice(), actual.medianPrice());
+        assertEquals(expected.p90Price(), actual.p90Price());
+        assertEquals(expected.p99Price(), actual.p99Price());
+    }
+}
@@ -0,0 +1,134 @@
+package com.pluralsight.NorthwindTradersSpringBoot.workload;
+
+import com.pluralsight.NorthwindTradersSpringBoot.dao.ForwardingProductDao;
+import com.pluralsight.NorthwindTradersSpringBoot.dao.IProductDao;
+import com.pluralsight.NorthwindTradersSpringBoot.dao.JdbcProductDao;
+import com.pluralsight.NorthwindTradersSpringBoot.dao.ProductTestDatabase;
+import com.pluralsight.NorthwindTradersSpringBoot.model.Product;
+import org.HdrHistogram.HistogramLogReader;
+import org.apache.commons.dbcp2.BasicDataSource;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.sql.SQLException;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.LockSupport;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class WorkloadDriverTest {
+
+    @TempDir
+    Path outputDir;
+
+    private BasicDataSource dataSource;
+    private JdbcProductDao jdbcProductDao;
+
+    @BeforeEach
+    void setUp() {
+        dataSource = ProductTestDatabase.create();
+        ProductTestDatabase.insertProducts(dataSource, 500);
+        jdbcProductDao = new JdbcProductDao(dataSource);
+    }
+
+    @AfterEach
+    void tearDown() throws SQLException {
+        dataSource.close();
+    }
+
+    private WorkloadProperties shortRun(String arrival) {
+        WorkloadProperties properties = new WorkloadProperties();
+        properties.setArrival(arrival);
+        properties.setClients(4);
+        properties.setRatePerSecond(200);
+        properties.setWarmupSeconds(1);
+        properties.setDurationSeconds(2);
+        properties.setReportIntervalSeconds(1);
+        properties.setSeedProducts(50);
+        properties.setBatchSize(5);
+        properties.setOutputDir(outputDir.toString());
+        properties.setRunName(arrival);
+        return properties;
+    }
+
+    @Test
+    void closedLoopRunsTheMixAndWritesTheResults() throws Exception {
+        WorkloadResult result = new WorkloadDriver(jdbcProductDao, shortRun("closed")).run();
+
+        OperationSummary all = result.operation("all");
+        assertTrue(all.count() > 100, "calls: " + all.count());
+        assertEquals(0, all.errors());
+        assertTrue(result.operation("reads").count() > 0);
+        assertTrue(result.operation("writes").count() > 0);
+        assertNull(result.operation("getAll"));
+
+        // The summary has the settings, the header and a row per operation in the mix plus the three groups.
+        List<String> summary = Files.readAllLines(result.summaryFile());
+        assertTrue(summary.get(0).startsWith("# arrival=closed clients=4"));
+        assertEquals(OperationSummary.CSV_HEADER, summary.get(1));
+        long weighted = WorkloadOperation.defaultMix().values().stream().filter(weight -> weight > 0).count();
+        assertEquals(2 + weighted + 3, summary.size());
+
+        List<String> timeline = Files.readAllLines(result.timelineFile());
+        assertTrue(timeline.stream().anyMatch(line -> line.contains(",warmup,all,")));
+        assertTrue(timeline.stream().anyMatch(line -> line.contains(",measure,all,")));
+
+        // The interval log can be read back by HdrHistogram's own tools.
+        HistogramLogReader reader = new HistogramLogReader(result.histogramLogFile().toFile());
+        int histograms = 0;
+        while (reader.nextIntervalHistogram() != null) {
+            histograms++;
+        }
+        assertTrue(histograms > 0);
+
+        // The products the workload added are gone again; the ones that were there are untouched.
+        assertEquals(500, jdbcProductDao.getAll().size());
+    }
+
+    @Test
+    void openLoopKeepsToTheArrivalRate() throws Exception {
+        WorkloadResult result = new WorkloadDriver(jdbcProductDao, shortRun("open")).run();
+
+        // 200 calls a second for the 2 measured seconds (plus the odd one still running at the end).
+        long calls = result.operation("all").count();
+        assertTrue(calls >= 380 && calls <= 420, "calls: " + calls);
+        assertEquals(500, jdbcProductDao.getAll().size());
+    }
+
+    @Test
+    void latencyIsCorrectedForCoordinatedOmission() throws Exception {
+        // One lookup in the measured part stalls for half a second. With a single slot, the calls scheduled during
+        // the stall can't start until it ends.
+        AtomicInteger lookups = new AtomicInteger();
+        IProductDao stalling = new ForwardingProductDao(jdbcProductDao) {
+            @Override
+            public List<Product> findById(int productId) {
+                if (lookups.incrementAndGet() == 250) {
+                    LockSupport.parkNanos(500_000_000L);
+                }
+                return super.findById(productId);
+            }
+        };
+
+        WorkloadProperties properties = shortRun("open");
+        properties.setClients(1);
+        properties.setRatePerSecond(100);
+        Map<WorkloadOperation, Integer> mix = WorkloadOperation.defaultMix();
+        mix.replaceAll((operation, weight) -> operation == WorkloadOperation.FIND_BY_ID ? 1 : 0);
+        properties.setMix(mix);
+
+        OperationSummary findById = new WorkloadDriver(stalling, properties).run().operation("findById");
+
+        // Only the stalled call itself was slow to run, but about 50 calls (a quarter of the 200 measured)
+        // started late because of it.
+        assertTrue(findById.serviceP99Millis() < 50, "service p99: " + findById.serviceP99Millis());
+        assertTrue(findById.p90Millis() > 100, "corrected p90: " + findById.p90Millis());
+        assertTrue(findById.maxMillis() >= 490, "corrected max: " + findById.maxMillis());
+    }
+}